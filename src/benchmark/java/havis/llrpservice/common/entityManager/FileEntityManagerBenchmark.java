@@ -0,0 +1,190 @@
+package havis.llrpservice.common.entityManager;
+
+import havis.llrpservice.common.entityManager.FileEntityManager.FileProperty;
+import havis.llrpservice.common.entityManager.JSONFileEntityManager.JsonProperty;
+import havis.llrpservice.common.entityManager.XMLFileEntityManager.XmlProperty;
+import havis.llrpservice.common.serializer.JsonSerializer;
+import havis.llrpservice.common.serializer.XMLSerializer;
+import havis.llrpservice.csc.llrp.json.LLRPJacksonMixIns;
+import havis.llrpservice.server.benchmark.BenchmarkData;
+import havis.llrpservice.server.service.data.ROAccessReportEntity;
+import havis.llrpservice.xml.configuration.LLRPServerConfigurationType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the three formats of the {@link FileEntityManager}.
+ * <p>
+ * The entities are the ones the server persists in the respective format: the
+ * JSON and Java binary formats store ROAccessReports (see
+ * <code>ROAccessReportDepot</code>) and the XML format stores the server
+ * configuration (the ROAccessReports are not bound with JiBX).
+ * </p>
+ * <p>
+ * <code>serialize</code> and <code>deserialize</code> measure the conversion
+ * of a single entity. <code>flushRefresh</code> writes a group of entities to
+ * the file system and reads it again.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileEntityManagerBenchmark {
+
+	public enum Format {
+		XML, JSON, JAVA_BINARY
+	}
+
+	@Param({ "XML", "JSON", "JAVA_BINARY" })
+	public Format format;
+
+	// the number of tags of a report (JSON, JAVA_BINARY)
+	@Param({ "100" })
+	public int tagCount;
+
+	// the number of entities of a group for "flushRefresh"
+	@Param({ "10" })
+	public int entityCount;
+
+	private static final String GROUP_ID = "group";
+
+	private Path baseDir;
+	private FileEntityManager<Object> manager;
+	private Object entity;
+	private byte[] serializedEntity;
+	private List<String> entityIds;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void setup() throws Exception {
+		baseDir = Files.createTempDirectory("fileEntityManagerBenchmark");
+		Map<FileProperty, Object> fileProperties = new HashMap<>();
+		fileProperties.put(FileProperty.BASEDIR, baseDir.toString());
+		switch (format) {
+		case XML:
+			Map<XmlProperty, Object> xmlProperties = new HashMap<>();
+			xmlProperties.put(XmlProperty.ENCODING, StandardCharsets.UTF_8);
+			manager = (FileEntityManager<Object>) (FileEntityManager<?>) new XMLFileEntityManager<>(
+					LLRPServerConfigurationType.class, "1.0", fileProperties, xmlProperties);
+			entity = new XMLSerializer<>(LLRPServerConfigurationType.class)
+					.deserialize(readResource("havis-llrpservice/LLRPServerConfiguration.xml"));
+			break;
+		case JSON:
+			// see Persistence
+			Map<JsonProperty, Object> jsonProperties = new HashMap<>();
+			jsonProperties.put(JsonProperty.ENCODING, StandardCharsets.UTF_8);
+			JsonSerializer serializer = new JsonSerializer(ROAccessReportEntity.class);
+			serializer.addSerializerMixIns(new LLRPJacksonMixIns());
+			serializer.addDeserializerMixIns(new LLRPJacksonMixIns());
+			jsonProperties.put(JsonProperty.SERIALIZER, serializer);
+			manager = (FileEntityManager<Object>) (FileEntityManager<?>) new JSONFileEntityManager<>(
+					ROAccessReportEntity.class, "1.0", fileProperties, jsonProperties);
+			entity = createReportEntity();
+			break;
+		case JAVA_BINARY:
+			manager = (FileEntityManager<Object>) (FileEntityManager<?>) new JavaBinaryFileEntityManager<>(
+					ROAccessReportEntity.class, "1.0", fileProperties);
+			entity = createReportEntity();
+			break;
+		}
+		manager.open();
+		serializedEntity = manager.serialize(entity);
+		List<Object> entities = new ArrayList<>();
+		for (int i = 0; i < entityCount; i++) {
+			entities.add(entity);
+		}
+		entityIds = manager.add(entities);
+		// create the group
+		manager.flush(GROUP_ID, entityIds);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		manager.close();
+		Files.walkFileTree(baseDir, new SimpleFileVisitor<Path>() {
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs)
+					throws IOException {
+				Files.delete(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult postVisitDirectory(Path dir, IOException exc)
+					throws IOException {
+				Files.delete(dir);
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	@Benchmark
+	public byte[] serialize() throws Exception {
+		return manager.serialize(entity);
+	}
+
+	@Benchmark
+	public Object deserialize() throws Exception {
+		return manager.deserialize(serializedEntity);
+	}
+
+	@Benchmark
+	public List<String> flushRefresh() throws Exception {
+		// all entities of a new group are written
+		manager.delete(GROUP_ID);
+		manager.flush(GROUP_ID, entityIds);
+		return manager.refresh(GROUP_ID);
+	}
+
+	private ROAccessReportEntity createReportEntity() throws Exception {
+		ROAccessReportEntity ret = new ROAccessReportEntity();
+		ret.setRoSpecId(BenchmarkData.RO_SPEC_ID);
+		ret.setReport(BenchmarkData.createReport(tagCount, 12 /* epcLength */));
+		return ret;
+	}
+
+	private String readResource(String name) throws IOException {
+		try (InputStream in = getClass().getClassLoader().getResourceAsStream(name)) {
+			if (in == null) {
+				throw new IOException("Missing resource " + name);
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int count;
+			while ((count = in.read(buffer)) >= 0) {
+				out.write(buffer, 0, count);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
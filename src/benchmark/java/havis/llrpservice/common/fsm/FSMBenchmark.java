@@ -0,0 +1,83 @@
+package havis.llrpservice.common.fsm;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link FSM#fire(Object)} for a FSM with two states. Each state has
+ * a configurable number of connections and the fired event matches the last
+ * connection of the current state (with a guard and an action). Each
+ * invocation fires two events (there and back again).
+ * <p>
+ * The connections are looked up by event, so the costs should not depend on
+ * the number of connections or the history size. The results can be compared
+ * with a baseline of an older version ("ant benchmark-jmh-baseline").
+ * </p>
+ */
+// the annotation is not imported because of the FSM class State
+@org.openjdk.jmh.annotations.State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FSMBenchmark {
+
+	@Param({ "1", "10", "100" })
+	public int connectionCount;
+
+	@Param({ "0", "100", "1000" })
+	public int maxHistorySize;
+
+	private FSM<Integer> fsm;
+	private Integer event;
+
+	@Setup
+	public void setup() throws Exception {
+		Guard<Integer> guard = new Guard<Integer>() {
+
+			@Override
+			public boolean evaluate(State<Integer> srcState, Integer event,
+					State<Integer> destState) throws FSMGuardException {
+				return true;
+			}
+		};
+		Action<Integer> action = new Action<Integer>() {
+
+			@Override
+			public void perform(State<Integer> srcState, Integer event, State<Integer> destState)
+					throws FSMActionException {
+			}
+		};
+		State<Integer> s1 = new State<>("s1");
+		State<Integer> s2 = new State<>("s2");
+		for (int i = 0; i < connectionCount - 1; i++) {
+			// unused events
+			s1.addConnection(i, new Transition<Integer>("t" + i), s1);
+			s2.addConnection(i, new Transition<Integer>("t" + i), s2);
+		}
+		event = connectionCount - 1;
+		s1.addConnection(event, new Transition<>("s1s2", guard, action), s2);
+		s2.addConnection(event, new Transition<>("s2s1", guard, action), s1);
+		fsm = new FSM<>("fsm", s1, maxHistorySize);
+		// fill up the history
+		for (int i = 0; i < maxHistorySize; i++) {
+			fsm.fire(event);
+		}
+	}
+
+	@Benchmark
+	public FSM<Integer> fire() throws Exception {
+		return fsm.fire(event).fire(event);
+	}
+}
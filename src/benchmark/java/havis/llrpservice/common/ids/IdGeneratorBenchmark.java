@@ -0,0 +1,63 @@
+package havis.llrpservice.common.ids;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the allocation of identifiers by concurrent threads. Each thread
+ * represents a service instance which allocates identifiers for its messages.
+ * <p>
+ * With a block size of <code>1</code> all threads share the counter. With
+ * larger blocks the shared counter is only accessed once per block. The
+ * results can be compared with a baseline of an older version ("ant
+ * benchmark-jmh-baseline").
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+	@Param({ "1", "64" })
+	public int blockSize;
+
+	private IdGenerator generator;
+
+	@Setup
+	public void setup() {
+		generator = new IdGenerator(blockSize);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public long instances1() {
+		return generator.getNextId();
+	}
+
+	@Benchmark
+	@Threads(8)
+	public long instances8() {
+		return generator.getNextId();
+	}
+
+	@Benchmark
+	@Threads(64)
+	public long instances64() {
+		return generator.getNextId();
+	}
+}
@@ -0,0 +1,63 @@
+package havis.llrpservice.common.io;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import havis.llrpservice.xml.configuration.LLRPServerInstanceConfigurationType;
+
+/**
+ * Measures the loading of instance configurations at the start of the server:
+ * for each instance a {@link XMLFile} is created with XML validation and its
+ * content is read.
+ * <p>
+ * The compiled schema and the JiBX contexts are shared by all files, so the
+ * costs per instance should be dominated by parsing and validation. The
+ * results can be compared with a baseline of an older version ("ant
+ * benchmark-jmh-baseline").
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XMLFileBenchmark {
+
+	// relative to the base directory of the project (see build.xml)
+	private static final Path INSTANCE_CONFIG_PATH = Paths.get(
+			"src/main/resources/classpath/havis-llrpservice/instances/default/LLRPServerInstanceConfiguration.xml");
+	private static final Path INSTANCE_CONFIG_XSD_PATH = Paths
+			.get("src/main/resources/xsd/LLRPServerInstanceConfiguration.xsd");
+
+	@Param({ "1", "16", "64" })
+	public int instanceCount;
+
+	@Benchmark
+	public List<LLRPServerInstanceConfigurationType> loadInstanceConfigurations()
+			throws Exception {
+		List<LLRPServerInstanceConfigurationType> ret = new ArrayList<>(instanceCount);
+		for (int i = 0; i < instanceCount; i++) {
+			XMLFile<LLRPServerInstanceConfigurationType> file = new XMLFile<>(
+					LLRPServerInstanceConfigurationType.class, INSTANCE_CONFIG_PATH,
+					null /* latestPath */);
+			file.setSchema(INSTANCE_CONFIG_XSD_PATH);
+			ret.add(file.getContent());
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,72 @@
+package havis.llrpservice.csc.llrp;
+
+import havis.llrpservice.data.message.Message;
+import havis.llrpservice.data.message.MessageHeader;
+import havis.llrpservice.data.message.ROAccessReport;
+import havis.llrpservice.data.message.serializer.ByteBufferSerializer;
+import havis.llrpservice.server.benchmark.BenchmarkData;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the encoding and decoding of large ROAccessReports with the
+ * {@link ByteBufferSerializer} like it is done by the LLRP connectors.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ByteBufferSerializerBenchmark {
+
+	@Param({ "1", "100", "1000" })
+	public int tagCount;
+
+	// 12: EPC96, 62: EPCData with 496 bits
+	@Param({ "12", "62" })
+	public int epcLength;
+
+	private ROAccessReport report;
+	private ByteBuffer data;
+
+	@Setup
+	public void setup() throws Exception {
+		report = BenchmarkData.createReport(tagCount, epcLength);
+		ByteBufferSerializer serializer = new ByteBufferSerializer();
+		data = ByteBuffer.allocate((int) serializer.getLength(report));
+		serializer.serialize(report, data);
+		data.flip();
+	}
+
+	@Benchmark
+	public ByteBuffer encode() throws Exception {
+		// see AbstractLLRPConnectorMultiplexed.requestSendingData
+		ByteBufferSerializer serializer = new ByteBufferSerializer();
+		ByteBuffer ret = ByteBuffer.allocate((int) serializer.getLength(report));
+		serializer.serialize(report, ret);
+		ret.flip();
+		return ret;
+	}
+
+	@Benchmark
+	public Message decode() throws Exception {
+		ByteBuffer buffer = data.duplicate();
+		ByteBufferSerializer serializer = new ByteBufferSerializer();
+		MessageHeader header = serializer.deserializeMessageHeader(buffer);
+		return serializer.deserializeMessage(header, buffer);
+	}
+}
@@ -0,0 +1,103 @@
+package havis.llrpservice.csc.llrp;
+
+import havis.llrpservice.data.message.Message;
+import havis.llrpservice.data.message.ROAccessReport;
+import havis.llrpservice.data.message.serializer.ByteBufferSerializer;
+import havis.llrpservice.server.benchmark.BenchmarkData;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the framing of received LLRP messages: the bytes of a ROAccessReport
+ * are passed in chunks of TCP segment size to
+ * {@link LLRPMessageCreator#append(SocketChannel, ByteBuffer)} resp.
+ * {@link ByteCollector#append(Object, ByteBuffer)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LLRPMessageCreatorBenchmark {
+
+	@Param({ "1", "100", "1000" })
+	public int tagCount;
+
+	// the size of the received data chunks
+	@Param({ "1460", "65536" })
+	public int chunkSize;
+
+	private SocketChannel channel;
+	private byte[] messageData;
+	private ByteBuffer[] chunks;
+
+	@Setup
+	public void setup() throws Exception {
+		// the channel is only used as key
+		channel = SocketChannel.open();
+		ROAccessReport report = BenchmarkData.createReport(tagCount, 12 /* epcLength */);
+		ByteBufferSerializer serializer = new ByteBufferSerializer();
+		ByteBuffer data = ByteBuffer.allocate((int) serializer.getLength(report));
+		serializer.serialize(report, data);
+		messageData = data.array();
+		chunks = new ByteBuffer[(messageData.length + chunkSize - 1) / chunkSize];
+		for (int i = 0; i < chunks.length; i++) {
+			int offset = i * chunkSize;
+			chunks[i] = ByteBuffer.wrap(messageData, offset,
+					Math.min(chunkSize, messageData.length - offset)).slice();
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		channel.close();
+	}
+
+	@Benchmark
+	public Message append() throws Exception {
+		LLRPMessageCreator creator = new LLRPMessageCreator();
+		Message message = null;
+		for (ByteBuffer chunk : chunks) {
+			chunk.clear();
+			message = creator.append(channel, chunk);
+		}
+		return message;
+	}
+
+	@Benchmark
+	public ByteBuffer collect() {
+		ByteCollector collector = new ByteCollector();
+		ByteBuffer ret = null;
+		// collect the message header
+		collector.addCollection(channel,
+				ByteBuffer.allocate(ByteBufferSerializer.MESSAGE_HEADER_LENGTH));
+		for (ByteBuffer chunk : chunks) {
+			chunk.clear();
+			while (chunk.hasRemaining()) {
+				ret = collector.append(channel, chunk);
+				if (ret != null && ret.capacity() == ByteBufferSerializer.MESSAGE_HEADER_LENGTH) {
+					// collect the message body
+					collector.addCollection(channel, ByteBuffer
+							.allocate(messageData.length - ByteBufferSerializer.MESSAGE_HEADER_LENGTH));
+				}
+			}
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,108 @@
+package havis.llrpservice.server.benchmark;
+
+import havis.device.rf.tag.TagData;
+import havis.device.rf.tag.result.OperationResult;
+import havis.llrpservice.data.message.ProtocolVersion;
+import havis.llrpservice.data.message.ROAccessReport;
+import havis.llrpservice.data.message.parameter.C1G2EPCMemorySelector;
+import havis.llrpservice.data.message.parameter.ProtocolId;
+import havis.llrpservice.data.message.parameter.TLVParameterHeader;
+import havis.llrpservice.data.message.parameter.TagReportContentSelector;
+import havis.llrpservice.sbc.rfc.message.ExecuteResponse;
+import havis.llrpservice.sbc.rfc.message.MessageHeader;
+import havis.llrpservice.server.platform.TimeStamp;
+import havis.llrpservice.server.rfc.messageData.ExecuteResponseData;
+import havis.llrpservice.server.service.messageHandling.ROAccessReportCreator;
+import havis.llrpservice.server.stub.PlatformStub;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Provides the data for the micro benchmarks. The data are created with a
+ * fixed seed so that the benchmarks are reproducible.
+ */
+public final class BenchmarkData {
+
+	public static final long RO_SPEC_ID = 1;
+	public static final int ANTENNA_ID = 1;
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Creates tag data without access results.
+	 *
+	 * @param count
+	 * @param epcLength
+	 *            the length of the EPCs in bytes (12: EPC96 parameters are
+	 *            reported)
+	 * @return The tag data
+	 */
+	public static List<TagData> createTagData(int count, int epcLength) {
+		Random random = new Random(count);
+		List<TagData> ret = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			byte[] epc = new byte[epcLength];
+			random.nextBytes(epc);
+			// the first bytes contain the index of the tag
+			epc[0] = (byte) (i >> 8);
+			epc[1] = (byte) i;
+			TagData tag = new TagData();
+			tag.setTagDataId(i);
+			tag.setEpc(epc);
+			tag.setPc((short) (epcLength / 2 << 11));
+			tag.setCrc((short) random.nextInt());
+			tag.setAntennaID((short) ANTENNA_ID);
+			tag.setChannel((short) 1);
+			tag.setRssi(-40 - random.nextInt(40));
+			tag.setResultList(new ArrayList<OperationResult>());
+			ret.add(tag);
+		}
+		return ret;
+	}
+
+	public static ExecuteResponse createExecuteResponse(List<TagData> tags) throws Exception {
+		return new ExecuteResponse(new MessageHeader(1 /* id */), tags,
+				new TimeStamp(new PlatformStub()));
+	}
+
+	public static ExecuteResponseData createExecuteResponseData() {
+		return new ExecuteResponseData(RO_SPEC_ID, 1 /* specIndex */,
+				1 /* inventoryParameterSpecId */, ANTENNA_ID, ProtocolId.EPC_GLOBAL_C1G2,
+				null /* tagDataAccessSpecIds */, true /* isLastResponse */);
+	}
+
+	/**
+	 * Creates a content selector like it is typically used by clients (ROSpec
+	 * identifier, antenna, RSSI, time stamps and seen count).
+	 */
+	public static TagReportContentSelector createContentSelector() {
+		TagReportContentSelector ret = new TagReportContentSelector(
+				new TLVParameterHeader((byte) 0), true /* enableROSpecID */,
+				false /* enableSpecIndex */, false /* enableInventoryParameterSpecID */,
+				true /* enableAntennaID */, false /* enableChannelIndex */,
+				true /* enablePeakRSSI */, true /* enableFirstSeenTimestamp */,
+				true /* enableLastSeenTimestamp */, true /* enableTagSeenCount */,
+				false /* enableAccessSpecID */);
+		List<C1G2EPCMemorySelector> c1g2 = new ArrayList<>();
+		c1g2.add(new C1G2EPCMemorySelector(new TLVParameterHeader((byte) 0),
+				false /* enableCRC */, true /* enablePCBits */, false /* enableXPCBits */));
+		ret.setC1g2EPCMemorySelectorList(c1g2);
+		return ret;
+	}
+
+	/**
+	 * Creates a ROAccessReport with a tag report for each tag.
+	 *
+	 * @param tagCount
+	 * @param epcLength
+	 * @return The report
+	 */
+	public static ROAccessReport createReport(int tagCount, int epcLength) throws Exception {
+		return new ROAccessReportCreator().create(ProtocolVersion.LLRP_V1_1,
+				createExecuteResponse(createTagData(tagCount, epcLength)),
+				createExecuteResponseData(), createContentSelector());
+	}
+}
@@ -0,0 +1,148 @@
+package havis.llrpservice.server.benchmark;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares the JSON results of a JMH run with a baseline and prints the
+ * regressions.
+ * <p>
+ * Each result must have a baseline entry with the same benchmark, parameters,
+ * mode and unit. A result without a baseline entry is reported like a
+ * regression, so new benchmarks cannot be added without a baseline.
+ * </p>
+ * <p>
+ * A benchmark has regressed if its score or its normalized allocation rate
+ * (<code>gc.alloc.rate.norm</code>, provided by the GC profiler) is worse than
+ * the baseline by more than a threshold. For the throughput mode a higher score
+ * is better, for all other modes a lower one.
+ * </p>
+ * <p>
+ * Arguments: <code>&lt;baseline&gt; &lt;results&gt;</code>. The process is
+ * terminated with exit code 2 if the arguments are invalid or the baseline
+ * does not exist. System properties:
+ * </p>
+ * <ul>
+ * <li><code>benchmark.threshold</code>: the threshold in percent (default:
+ * 10)</li>
+ * <li><code>benchmark.failOnRegression</code>: whether the process shall be
+ * terminated with exit code 1 if a regression or a missing baseline entry is
+ * detected (default: true)</li>
+ * </ul>
+ */
+public class JmhResultComparator {
+
+	private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+	private static class Result {
+		String mode;
+		double score;
+		String unit;
+		// -1 if not available
+		double allocation = -1;
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length != 2) {
+			System.err.println("Usage: JmhResultComparator <baseline> <results>");
+			System.exit(2);
+		}
+		File baselineFile = new File(args[0]);
+		if (!baselineFile.exists()) {
+			System.err.println("No baseline found at " + baselineFile
+					+ " (create it with \"ant benchmark-jmh-baseline\")");
+			System.exit(2);
+		}
+		double threshold = Double
+				.parseDouble(System.getProperty("benchmark.threshold", "10").trim());
+		Map<String, Result> baseline = read(baselineFile);
+		Map<String, Result> results = read(new File(args[1]));
+
+		int regressions = 0;
+		int missingBaselines = 0;
+		for (Entry<String, Result> entry : results.entrySet()) {
+			Result result = entry.getValue();
+			Result base = baseline.get(entry.getKey());
+			if (base == null || !base.mode.equals(result.mode) || !base.unit.equals(result.unit)) {
+				missingBaselines++;
+				System.out.println(String.format("%-100s %12.3f %-8s  NO BASELINE",
+						entry.getKey(), result.score, result.unit));
+				continue;
+			}
+			// the change in percent (positive: worse)
+			double change = (result.score - base.score) / base.score * 100;
+			if ("thrpt".equals(result.mode)) {
+				change = -change;
+			}
+			double allocationChange = 0;
+			if (base.allocation > 0 && result.allocation >= 0) {
+				allocationChange = (result.allocation - base.allocation) / base.allocation * 100;
+			}
+			boolean isRegression = change > threshold || allocationChange > threshold;
+			if (isRegression) {
+				regressions++;
+			}
+			System.out.println(String.format("%-100s %12.3f %-8s %+7.1f%% %12.0f B/op %+7.1f%%%s",
+					entry.getKey(), result.score, result.unit, change, result.allocation,
+					allocationChange, isRegression ? "  REGRESSION" : ""));
+		}
+		System.out.println(regressions + " regression(s) (threshold " + threshold + "%)");
+		if (missingBaselines > 0) {
+			System.out.println(missingBaselines + " result(s) without baseline (run all benchmarks"
+					+ " and update the baseline with \"ant benchmark-jmh-baseline\")");
+		}
+		if (regressions + missingBaselines > 0 && Boolean
+				.parseBoolean(System.getProperty("benchmark.failOnRegression", "true").trim())) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Reads JMH results.
+	 *
+	 * @param file
+	 * @return benchmark with parameters -&gt; result
+	 */
+	private static Map<String, Result> read(File file) throws Exception {
+		Map<String, Result> ret = new LinkedHashMap<>();
+		JsonNode root = new ObjectMapper().readTree(file);
+		for (JsonNode benchmark : root) {
+			StringBuilder key = new StringBuilder(benchmark.get("benchmark").asText());
+			JsonNode params = benchmark.get("params");
+			if (params != null) {
+				// sort the parameters
+				Map<String, String> sortedParams = new TreeMap<>();
+				for (Iterator<Entry<String, JsonNode>> it = params.fields(); it.hasNext();) {
+					Entry<String, JsonNode> param = it.next();
+					sortedParams.put(param.getKey(), param.getValue().asText());
+				}
+				key.append(sortedParams);
+			}
+			Result result = new Result();
+			result.mode = benchmark.get("mode").asText();
+			JsonNode primaryMetric = benchmark.get("primaryMetric");
+			result.score = primaryMetric.get("score").asDouble();
+			result.unit = primaryMetric.get("scoreUnit").asText();
+			JsonNode secondaryMetrics = benchmark.get("secondaryMetrics");
+			if (secondaryMetrics != null) {
+				for (Iterator<Entry<String, JsonNode>> it = secondaryMetrics.fields(); it
+						.hasNext();) {
+					Entry<String, JsonNode> metric = it.next();
+					// older JMH versions use a prefix
+					if (metric.getKey().endsWith(ALLOCATION_METRIC)) {
+						result.allocation = metric.getValue().get("score").asDouble();
+					}
+				}
+			}
+			ret.put(key.toString(), result);
+		}
+		return ret;
+	}
+}
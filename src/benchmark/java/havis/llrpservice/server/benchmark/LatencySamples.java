@@ -0,0 +1,60 @@
+package havis.llrpservice.server.benchmark;
+
+import java.util.Arrays;
+
+/**
+ * Collects latency samples in nanoseconds and provides percentiles.
+ * <p>
+ * The implementation is not thread safe.
+ * </p>
+ */
+class LatencySamples {
+
+	private long[] samples = new long[1024];
+	private int size;
+	private boolean isSorted = true;
+
+	void add(long latency) {
+		if (size == samples.length) {
+			samples = Arrays.copyOf(samples, size * 2);
+		}
+		samples[size++] = latency;
+		isSorted = false;
+	}
+
+	void addAll(LatencySamples other) {
+		for (int i = 0; i < other.size; i++) {
+			add(other.samples[i]);
+		}
+	}
+
+	void clear() {
+		size = 0;
+		isSorted = true;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @param percentile
+	 *            eg. 99.9
+	 * @return the latency in nanoseconds or 0 if no samples exist
+	 */
+	long getPercentile(double percentile) {
+		if (size == 0) {
+			return 0;
+		}
+		if (!isSorted) {
+			Arrays.sort(samples, 0, size);
+			isSorted = true;
+		}
+		int index = (int) Math.ceil(percentile / 100 * size) - 1;
+		return samples[Math.max(0, Math.min(size - 1, index))];
+	}
+
+	long getMax() {
+		return getPercentile(100);
+	}
+}
@@ -0,0 +1,462 @@
+package havis.llrpservice.server.benchmark;
+
+import havis.llrpservice.common.tcp.TCPClientMultiplexed;
+import havis.llrpservice.csc.llrp.LLRPClientMultiplexed;
+import havis.llrpservice.server.service.LLRPServiceManager;
+import havis.llrpservice.server.stub.RFDeviceSimulator;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An end-to-end load and latency benchmark of the LLRP server.
+ * <p>
+ * The benchmark starts a {@link LLRPServiceManager} in-process with one
+ * service instance per LLRP client. Each instance uses a simulated RF device
+ * (see {@link RFDeviceSimulator}). The clients connect via
+ * {@link LLRPClientMultiplexed}, start a continuous ROSpec and receive the
+ * reports for their {@link Scenario}. After a warm-up phase the throughput,
+ * the latencies of the tags, the allocation rate of the server threads and the
+ * garbage collections are measured.
+ * </p>
+ * <p>
+ * The benchmark is configured with system properties:
+ * </p>
+ * <ul>
+ * <li><code>benchmark.clients</code>: the number of LLRP clients (default:
+ * 4)</li>
+ * <li><code>benchmark.scenarios</code>: the scenarios which are assigned to
+ * the clients in turn (default: all scenarios)</li>
+ * <li><code>benchmark.warmup</code>, <code>benchmark.duration</code>: the
+ * duration of the warm-up and measurement phases in seconds (default: 5,
+ * 30)</li>
+ * <li><code>benchmark.port</code>: the LLRP port of the first instance
+ * (default: 15084)</li>
+ * <li><code>benchmark.dir</code>: the directory for the generated
+ * configuration and the results (default: <code>target/benchmark</code>)</li>
+ * <li><code>havis.llrpservice.server.stub.rfDeviceSimulator.*</code>: the
+ * settings of the simulated RF devices</li>
+ * </ul>
+ * <p>
+ * The results are written as JSON to
+ * <code>&lt;benchmark.dir&gt;/load-&lt;timestamp&gt;.json</code>.
+ * </p>
+ */
+public class LoadBenchmark {
+
+	private static final int RFC_BASE_PORT = 1;
+
+	private final int clientCount;
+	private final List<Scenario> scenarios = new ArrayList<>();
+	private final long warmup;
+	private final long duration;
+	private final int basePort;
+	private final Path dir;
+	private final Properties simulatorProperties = new Properties();
+
+	// the identifiers of the threads of the benchmark (excluded from the
+	// allocation rate)
+	private final Set<Long> benchmarkThreadIds = ConcurrentHashMap.newKeySet();
+
+	public static void main(String[] args) throws Exception {
+		new LoadBenchmark().run();
+		System.exit(0);
+	}
+
+	LoadBenchmark() {
+		clientCount = Integer.getInteger("benchmark.clients", 4);
+		String scenarioNames = System.getProperty("benchmark.scenarios", "").trim();
+		if (scenarioNames.isEmpty()) {
+			for (Scenario scenario : Scenario.values()) {
+				scenarios.add(scenario);
+			}
+		} else {
+			for (String name : scenarioNames.split(",")) {
+				scenarios.add(Scenario.valueOf(name.trim().toUpperCase(Locale.ENGLISH)));
+			}
+		}
+		warmup = Long.getLong("benchmark.warmup", 5);
+		duration = Long.getLong("benchmark.duration", 30);
+		basePort = Integer.getInteger("benchmark.port", 15084);
+		dir = Paths.get(System.getProperty("benchmark.dir", "target/benchmark")).toAbsolutePath();
+		// default settings of the simulators
+		simulatorProperties.setProperty("seed", "1");
+		for (String key : System.getProperties().stringPropertyNames()) {
+			if (key.startsWith(RFDeviceSimulator.PROPERTY_PREFIX)) {
+				simulatorProperties.setProperty(
+						key.substring(RFDeviceSimulator.PROPERTY_PREFIX.length()),
+						System.getProperty(key));
+			}
+		}
+	}
+
+	void run() throws Exception {
+		Path configDir = writeConfiguration();
+		TimedRFDevice.Factory deviceFactory = new TimedRFDevice.Factory(simulatorProperties);
+		LLRPServiceManager manager = new LLRPServiceManager(configDir.toString(),
+				null /* platformServiceFactory */, deviceFactory,
+				null /* gpioServiceFactory */);
+		ExecutorService serverThread = Executors.newSingleThreadExecutor();
+		Future<?> serverFuture = serverThread.submit(manager);
+
+		ExecutorService clientThreads = Executors.newCachedThreadPool(new ThreadFactory() {
+
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "benchmark-client");
+				benchmarkThreadIds.add(thread.getId());
+				return thread;
+			}
+		});
+		TCPClientMultiplexed tcpClient = new TCPClientMultiplexed();
+		Future<?> tcpClientFuture = clientThreads.submit(tcpClient);
+		LLRPClientMultiplexed llrpClient = new LLRPClientMultiplexed(tcpClient);
+		List<LoadClient> clients = new ArrayList<>();
+		List<Future<Void>> clientFutures = new ArrayList<>();
+		for (int i = 0; i < clientCount; i++) {
+			LoadClient client = new LoadClient(i, scenarios.get(i % scenarios.size()), llrpClient,
+					basePort + i, deviceFactory, RFC_BASE_PORT + i);
+			clients.add(client);
+			clientFutures.add(clientThreads.submit(client));
+		}
+
+		System.out.println("Warming up for " + warmup + " s with " + clientCount + " clients");
+		TimeUnit.SECONDS.sleep(warmup);
+		checkClients(clientFutures);
+
+		// start the measurement
+		Map<Long, Long> startAllocations = getAllocatedBytes();
+		long[] startGc = getGcCountAndTime();
+		long[] startRounds = new long[clientCount];
+		for (int i = 0; i < clientCount; i++) {
+			startRounds[i] = clients.get(i).getRounds();
+			clients.get(i).startMeasurement();
+		}
+		long startTime = System.nanoTime();
+		System.out.println("Measuring for " + duration + " s");
+		TimeUnit.SECONDS.sleep(duration);
+		checkClients(clientFutures);
+
+		// stop the measurement
+		for (LoadClient client : clients) {
+			client.stop();
+		}
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		Map<Long, Long> endAllocations = getAllocatedBytes();
+		long[] endGc = getGcCountAndTime();
+		long[] rounds = new long[clientCount];
+		for (int i = 0; i < clientCount; i++) {
+			rounds[i] = clients.get(i).getRounds() - startRounds[i];
+		}
+		for (Future<Void> future : clientFutures) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+
+		long allocatedBytes = -1;
+		if (startAllocations != null && endAllocations != null) {
+			allocatedBytes = 0;
+			for (Entry<Long, Long> entry : endAllocations.entrySet()) {
+				if (!benchmarkThreadIds.contains(entry.getKey())) {
+					Long start = startAllocations.get(entry.getKey());
+					allocatedBytes += entry.getValue() - (start == null ? 0 : start);
+				}
+			}
+		}
+		writeResults(clients, rounds, seconds, allocatedBytes,
+				new long[] { endGc[0] - startGc[0], endGc[1] - startGc[1] });
+
+		tcpClient.requestClosing();
+		tcpClientFuture.get(30, TimeUnit.SECONDS);
+		clientThreads.shutdown();
+		manager.stop();
+		serverFuture.get(30, TimeUnit.SECONDS);
+		serverThread.shutdown();
+	}
+
+	private void checkClients(List<Future<Void>> clientFutures) throws Exception {
+		for (Future<Void> future : clientFutures) {
+			if (future.isDone()) {
+				// throws the exception of the client
+				future.get();
+				throw new IllegalStateException("A client has been stopped unexpectedly");
+			}
+		}
+	}
+
+	/**
+	 * Writes the server properties and configurations with an instance for
+	 * each client.
+	 *
+	 * @return the directory with the configuration files
+	 */
+	private Path writeConfiguration() throws IOException {
+		Path configDir = dir.resolve("config");
+		StringBuilder instanceDirs = new StringBuilder();
+		for (int i = 0; i < clientCount; i++) {
+			String instanceId = "client" + i;
+			Path instanceDir = configDir.resolve("instances").resolve(instanceId);
+			write(instanceDir.resolve("LLRPServerInstanceProperties.xml"),
+					"<LLRPServerInstanceProperties xmlns=\"urn:havis:llrp:server:properties:xsd:1\"\n"
+							+ "\tinstanceId=\"" + instanceId + "\" />\n");
+			write(instanceDir.resolve("LLRPServerInstanceConfiguration.xml"),
+					"<LLRPServerInstanceConfiguration xmlns=\"urn:havis:llrp:server:configuration:xsd:1\"\n"
+							+ "\tinstanceId=\"" + instanceId + "\">\n" //
+							+ "\t<interfaces>\n" //
+							+ "\t\t<LLRP>\n" //
+							+ "\t\t\t<host>localhost</host>\n" //
+							+ "\t\t\t<port>" + (basePort + i) + "</port>\n" //
+							+ "\t\t</LLRP>\n" //
+							+ "\t\t<RFC>\n" //
+							+ "\t\t\t<host>localhost</host>\n" //
+							+ "\t\t\t<port>" + (RFC_BASE_PORT + i) + "</port>\n" //
+							+ "\t\t</RFC>\n" //
+							+ "\t</interfaces>\n" //
+							+ "</LLRPServerInstanceConfiguration>\n");
+			instanceDirs.append("\t\t<instanceConfigurationBaseDir>instances/" + instanceId
+					+ "</instanceConfigurationBaseDir>\n");
+		}
+		write(configDir.resolve("LLRPServerConfiguration.xml"),
+				"<LLRPServerConfiguration xmlns=\"urn:havis:llrp:server:configuration:xsd:1\">\n"
+						+ "\t<defaults>\n" //
+						+ "\t\t<interfaces>\n" //
+						+ "\t\t\t<LLRP>\n" //
+						+ "\t\t\t\t<host>localhost</host>\n" //
+						+ "\t\t\t\t<port>" + basePort + "</port>\n" //
+						+ "\t\t\t\t<openCloseTimeout>3000</openCloseTimeout>\n"
+						+ "\t\t\t\t<TCPReadBufferSize>65536</TCPReadBufferSize>\n"
+						+ "\t\t\t</LLRP>\n" //
+						+ "\t\t\t<systemController>\n" //
+						+ "\t\t\t\t<host>localhost</host>\n" //
+						+ "\t\t\t\t<port>4321</port>\n" //
+						+ "\t\t\t\t<openCloseTimeout>3000</openCloseTimeout>\n"
+						+ "\t\t\t\t<reflection>\n"
+						+ "\t\t\t\t\t<controllerClassName>havis.llrpservice.server.stub.PlatformStub</controllerClassName>\n"
+						+ "\t\t\t\t</reflection>\n" //
+						+ "\t\t\t</systemController>\n" //
+						+ "\t\t\t<RFC>\n" //
+						+ "\t\t\t\t<host>localhost</host>\n" //
+						+ "\t\t\t\t<port>" + RFC_BASE_PORT + "</port>\n" //
+						+ "\t\t\t\t<openCloseTimeout>3000</openCloseTimeout>\n"
+						+ "\t\t\t\t<callbackTimeout>3000</callbackTimeout>\n"
+						+ "\t\t\t\t<reflection>\n"
+						+ "\t\t\t\t\t<controllerClassName>havis.llrpservice.server.stub.RFDeviceSimulator</controllerClassName>\n"
+						+ "\t\t\t\t</reflection>\n" //
+						+ "\t\t\t</RFC>\n" //
+						+ "\t\t</interfaces>\n" //
+						+ "\t</defaults>\n" //
+						+ "\t<instanceConfigurations>\n" //
+						+ instanceDirs //
+						+ "\t</instanceConfigurations>\n" //
+						+ "</LLRPServerConfiguration>\n");
+		write(configDir.resolve("LLRPServerProperties.xml"),
+				"<LLRPServerProperties xmlns=\"urn:havis:llrp:server:properties:xsd:1\">\n"
+						+ "\t<defaults>\n" //
+						+ "\t\t<identificationSource>\n" //
+						+ "\t\t\t<type>EPC</type>\n" //
+						+ "\t\t\t<length>8</length>\n" //
+						+ "\t\t\t<propertyName>mica.device.serial_no</propertyName>\n"
+						+ "\t\t</identificationSource>\n" //
+						+ "\t\t<LLRPCapabilities>\n" //
+						+ "\t\t\t<canDoRFSurvey>false</canDoRFSurvey>\n"
+						+ "\t\t\t<canReportBufferFillWarning>false</canReportBufferFillWarning>\n"
+						+ "\t\t\t<supportsClientRequestOpSpec>false</supportsClientRequestOpSpec>\n"
+						+ "\t\t\t<canDoTagInventoryStateAwareSingulation>false</canDoTagInventoryStateAwareSingulation>\n"
+						+ "\t\t\t<supportsEventAndReportHolding>true</supportsEventAndReportHolding>\n"
+						+ "\t\t\t<maxPriorityLevelSupported>0</maxPriorityLevelSupported>\n"
+						+ "\t\t\t<clientRequestOpSpecTimeout>0</clientRequestOpSpecTimeout>\n"
+						+ "\t\t\t<maxNumROSpecs>0</maxNumROSpecs>\n"
+						+ "\t\t\t<maxNumSpecsPerROSpec>0</maxNumSpecsPerROSpec>\n"
+						+ "\t\t\t<maxNumInventoryParameterSpecsPerAISpec>0</maxNumInventoryParameterSpecsPerAISpec>\n"
+						+ "\t\t\t<maxNumAccessSpecs>0</maxNumAccessSpecs>\n"
+						+ "\t\t\t<maxNumOpSpecsPerAccessSpec>0</maxNumOpSpecsPerAccessSpec>\n"
+						+ "\t\t</LLRPCapabilities>\n" //
+						+ "\t\t<maxStartupRetries>5</maxStartupRetries>\n" //
+						+ "\t</defaults>\n" //
+						+ "\t<output>\n" //
+						+ "\t\t<latestConfigurationBaseDir>latestConfiguration</latestConfigurationBaseDir>\n"
+						+ "\t</output>\n" //
+						+ "\t<unexpectedTimeout>60</unexpectedTimeout>\n" //
+						+ "</LLRPServerProperties>\n");
+		return configDir;
+	}
+
+	private void write(Path path, String content) throws IOException {
+		Files.createDirectories(path.getParent());
+		Files.write(path, ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" + content)
+				.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Gets the allocated bytes of all live threads.
+	 *
+	 * @return thread identifier -&gt; allocated bytes or <code>null</code> if the
+	 *         JVM does not support the measurement
+	 */
+	private Map<Long, Long> getAllocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+			return null;
+		}
+		com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+		if (!sunBean.isThreadAllocatedMemorySupported()
+				|| !sunBean.isThreadAllocatedMemoryEnabled()) {
+			return null;
+		}
+		long[] ids = sunBean.getAllThreadIds();
+		long[] bytes = sunBean.getThreadAllocatedBytes(ids);
+		Map<Long, Long> ret = new HashMap<>();
+		for (int i = 0; i < ids.length; i++) {
+			if (bytes[i] >= 0) {
+				ret.put(ids[i], bytes[i]);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @return the number of garbage collections and the accumulated collection
+	 *         time in ms
+	 */
+	private long[] getGcCountAndTime() {
+		long[] ret = new long[2];
+		for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			ret[0] += Math.max(0, bean.getCollectionCount());
+			ret[1] += Math.max(0, bean.getCollectionTime());
+		}
+		return ret;
+	}
+
+	private void writeResults(List<LoadClient> clients, long[] rounds, double seconds,
+			long allocatedBytes, long[] gc) throws IOException {
+		// group the clients by scenario
+		Map<Scenario, List<LoadClient>> scenarioClients = new LinkedHashMap<>();
+		for (LoadClient client : clients) {
+			List<LoadClient> list = scenarioClients.get(client.getScenario());
+			if (list == null) {
+				list = new ArrayList<>();
+				scenarioClients.put(client.getScenario(), list);
+			}
+			list.add(client);
+		}
+
+		StringBuilder json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"timestamp\": \"")
+				.append(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(new Date()))
+				.append("\",\n");
+		json.append("  \"settings\": {\n");
+		json.append("    \"clients\": ").append(clientCount).append(",\n");
+		json.append("    \"warmupSeconds\": ").append(warmup).append(",\n");
+		json.append("    \"durationSeconds\": ").append(duration).append(",\n");
+		json.append("    \"pipelinedInventory\": ")
+				.append(Boolean.getBoolean("havis.llrpservice.server.rfc.pipelinedInventory"))
+				.append(",\n");
+		json.append("    \"simulator\": {");
+		String separator = "\n";
+		for (String key : new java.util.TreeSet<>(simulatorProperties.stringPropertyNames())) {
+			json.append(separator).append("      \"").append(key).append("\": \"")
+					.append(simulatorProperties.getProperty(key)).append('"');
+			separator = ",\n";
+		}
+		json.append("\n    }\n");
+		json.append("  },\n");
+
+		System.out.println(String.format("%-14s %8s %12s %10s %10s %10s %10s %10s", "scenario",
+				"clients", "reads/s", "rounds/s", "p50 [us]", "p99 [us]", "p999 [us]",
+				"max [us]"));
+		json.append("  \"scenarios\": {\n");
+		List<LoadClient> all = new ArrayList<>();
+		separator = "";
+		for (Entry<Scenario, List<LoadClient>> entry : scenarioClients.entrySet()) {
+			json.append(separator);
+			appendResult(json, entry.getKey().name(), entry.getValue(), rounds, seconds);
+			all.addAll(entry.getValue());
+			separator = ",\n";
+		}
+		json.append("\n  },\n");
+		appendResult(json, "total", all, rounds, seconds);
+		json.append(",\n");
+
+		long reads = 0;
+		for (LoadClient client : all) {
+			reads += client.getReads();
+		}
+		json.append("  \"allocation\": {\n");
+		json.append("    \"bytes\": ").append(allocatedBytes).append(",\n");
+		json.append("    \"bytesPerSecond\": ")
+				.append(allocatedBytes < 0 ? -1 : (long) (allocatedBytes / seconds)).append(",\n");
+		json.append("    \"bytesPerRead\": ")
+				.append(allocatedBytes < 0 || reads == 0 ? -1 : allocatedBytes / reads)
+				.append(",\n");
+		json.append("    \"gcCount\": ").append(gc[0]).append(",\n");
+		json.append("    \"gcTimeMillis\": ").append(gc[1]).append("\n");
+		json.append("  }\n");
+		json.append("}\n");
+
+		System.out.println(String.format("allocation: %.1f MB/s, %d bytes/read, %d GCs (%d ms)",
+				allocatedBytes / seconds / 1024 / 1024, reads == 0 ? -1 : allocatedBytes / reads,
+				gc[0], gc[1]));
+
+		Path file = dir.resolve(
+				"load-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".json");
+		Files.createDirectories(dir);
+		Files.write(file, json.toString().getBytes(StandardCharsets.UTF_8));
+		System.out.println("Results: " + file);
+	}
+
+	private void appendResult(StringBuilder json, String name, List<LoadClient> clients,
+			long[] rounds, double seconds) {
+		LatencySamples latencies = new LatencySamples();
+		long reads = 0;
+		long reports = 0;
+		long roundCount = 0;
+		for (LoadClient client : clients) {
+			latencies.addAll(client.getLatencies());
+			reads += client.getReads();
+			reports += client.getReports();
+			roundCount += rounds[client.getIndex()];
+		}
+		json.append("  \"").append(name).append("\": {\n");
+		json.append("    \"clients\": ").append(clients.size()).append(",\n");
+		json.append("    \"reads\": ").append(reads).append(",\n");
+		json.append("    \"readsPerSecond\": ").append(Math.round(reads / seconds)).append(",\n");
+		json.append("    \"reportsPerSecond\": ").append(Math.round(reports / seconds))
+				.append(",\n");
+		json.append("    \"roundsPerSecond\": ").append(Math.round(roundCount / seconds))
+				.append(",\n");
+		json.append("    \"latencySamples\": ").append(latencies.size()).append(",\n");
+		json.append("    \"latencyMicros\": { \"p50\": ")
+				.append(latencies.getPercentile(50) / 1000).append(", \"p99\": ")
+				.append(latencies.getPercentile(99) / 1000).append(", \"p999\": ")
+				.append(latencies.getPercentile(99.9) / 1000).append(", \"max\": ")
+				.append(latencies.getMax() / 1000).append(" }\n");
+		json.append("  }");
+
+		System.out.println(String.format("%-14s %8d %12d %10d %10d %10d %10d %10d", name,
+				clients.size(), Math.round(reads / seconds), Math.round(roundCount / seconds),
+				latencies.getPercentile(50) / 1000, latencies.getPercentile(99) / 1000,
+				latencies.getPercentile(99.9) / 1000, latencies.getMax() / 1000));
+	}
+}
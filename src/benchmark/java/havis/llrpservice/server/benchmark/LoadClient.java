@@ -0,0 +1,354 @@
+package havis.llrpservice.server.benchmark;
+
+import havis.llrpservice.csc.llrp.LLRPClientMultiplexed;
+import havis.llrpservice.csc.llrp.LLRPEventHandler;
+import havis.llrpservice.csc.llrp.LLRPTimeoutException;
+import havis.llrpservice.csc.llrp.LLRPUnknownChannelException;
+import havis.llrpservice.csc.llrp.event.LLRPChannelClosedEvent;
+import havis.llrpservice.csc.llrp.event.LLRPChannelOpenedEvent;
+import havis.llrpservice.csc.llrp.event.LLRPDataReceivedNotifyEvent;
+import havis.llrpservice.csc.llrp.event.LLRPDataSentEvent;
+import havis.llrpservice.data.message.AddROSpec;
+import havis.llrpservice.data.message.AddROSpecResponse;
+import havis.llrpservice.data.message.CloseConnection;
+import havis.llrpservice.data.message.CloseConnectionResponse;
+import havis.llrpservice.data.message.EnableROSpec;
+import havis.llrpservice.data.message.EnableROSpecResponse;
+import havis.llrpservice.data.message.GetReport;
+import havis.llrpservice.data.message.Message;
+import havis.llrpservice.data.message.MessageHeader;
+import havis.llrpservice.data.message.ProtocolVersion;
+import havis.llrpservice.data.message.ROAccessReport;
+import havis.llrpservice.data.message.ReaderEventNotification;
+import havis.llrpservice.data.message.SetProtocolVersion;
+import havis.llrpservice.data.message.SetProtocolVersionResponse;
+import havis.llrpservice.data.message.StartROSpec;
+import havis.llrpservice.data.message.StartROSpecResponse;
+import havis.llrpservice.data.message.StopROSpec;
+import havis.llrpservice.data.message.StopROSpecResponse;
+import havis.llrpservice.data.message.parameter.AISpec;
+import havis.llrpservice.data.message.parameter.AISpecStopTrigger;
+import havis.llrpservice.data.message.parameter.AISpecStopTriggerType;
+import havis.llrpservice.data.message.parameter.ConnectionAttemptEventStatusType;
+import havis.llrpservice.data.message.parameter.InventoryParameterSpec;
+import havis.llrpservice.data.message.parameter.LLRPStatus;
+import havis.llrpservice.data.message.parameter.LLRPStatusCode;
+import havis.llrpservice.data.message.parameter.Parameter;
+import havis.llrpservice.data.message.parameter.ProtocolId;
+import havis.llrpservice.data.message.parameter.ROBoundarySpec;
+import havis.llrpservice.data.message.parameter.ROReportSpec;
+import havis.llrpservice.data.message.parameter.ROSpec;
+import havis.llrpservice.data.message.parameter.ROSpecCurrentState;
+import havis.llrpservice.data.message.parameter.ROSpecStartTrigger;
+import havis.llrpservice.data.message.parameter.ROSpecStartTriggerType;
+import havis.llrpservice.data.message.parameter.ROSpecStopTrigger;
+import havis.llrpservice.data.message.parameter.ROSpecStopTriggerType;
+import havis.llrpservice.data.message.parameter.TLVParameterHeader;
+import havis.llrpservice.data.message.parameter.TagReportContentSelector;
+import havis.llrpservice.data.message.parameter.TagReportData;
+
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A LLRP client which starts a continuous ROSpec and receives the reports for
+ * a {@link Scenario}.
+ * <p>
+ * The latency of a tag is the time between the return of the inventory round
+ * in which the tag has been observed first and the receipt of the
+ * ROAccessReport containing the tag.
+ * </p>
+ */
+class LoadClient implements Callable<Void> {
+
+	private static final long TIMEOUT = 5000; // ms
+	private static final long ROSPEC_ID = 1;
+
+	private final int index;
+	private final Scenario scenario;
+	private final LLRPClientMultiplexed llrpClient;
+	private final int llrpPort;
+	private final TimedRFDevice.Factory deviceFactory;
+	private final int rfcPort;
+
+	private final BlockingQueue<Object> channelEvents = new LinkedBlockingQueue<>();
+	private SocketChannel channel;
+	private long messageId = 0;
+	private TimedRFDevice device;
+
+	private volatile boolean isStopped = false;
+	private volatile boolean isResetRequested = false;
+	private boolean isMeasuring = false;
+
+	// the results of the measurement (only accessed by the client thread until
+	// the end of the execution)
+	private final LatencySamples latencies = new LatencySamples();
+	private long reads = 0;
+	private long reports = 0;
+
+	LoadClient(int index, Scenario scenario, LLRPClientMultiplexed llrpClient, int llrpPort,
+			TimedRFDevice.Factory deviceFactory, int rfcPort) {
+		this.index = index;
+		this.scenario = scenario;
+		this.llrpClient = llrpClient;
+		this.llrpPort = llrpPort;
+		this.deviceFactory = deviceFactory;
+		this.rfcPort = rfcPort;
+	}
+
+	/**
+	 * Discards the current results and starts the measurement.
+	 */
+	void startMeasurement() {
+		isResetRequested = true;
+	}
+
+	/**
+	 * Stops the ROSpec and closes the connection.
+	 */
+	void stop() {
+		isStopped = true;
+	}
+
+	int getIndex() {
+		return index;
+	}
+
+	Scenario getScenario() {
+		return scenario;
+	}
+
+	LatencySamples getLatencies() {
+		return latencies;
+	}
+
+	long getReads() {
+		return reads;
+	}
+
+	long getReports() {
+		return reports;
+	}
+
+	/**
+	 * @return the number of inventory rounds of the RF device
+	 */
+	long getRounds() {
+		TimedRFDevice d = deviceFactory.getDevice(rfcPort);
+		return d == null ? 0 : d.getRounds();
+	}
+
+	@Override
+	public Void call() throws Exception {
+		open();
+		try {
+			request(new SetProtocolVersion(createHeader(), ProtocolVersion.LLRP_V1_1));
+			request(new AddROSpec(createHeader(), createROSpec()));
+			request(new EnableROSpec(createHeader(), ROSPEC_ID));
+			request(new StartROSpec(createHeader(), ROSPEC_ID));
+			long nextPoll = System.currentTimeMillis() + scenario.pollInterval;
+			while (!isStopped) {
+				if (isResetRequested) {
+					isResetRequested = false;
+					latencies.clear();
+					reads = 0;
+					reports = 0;
+					isMeasuring = true;
+				}
+				long timeout = 100;
+				if (scenario.pollInterval > 0) {
+					long now = System.currentTimeMillis();
+					if (now >= nextPoll) {
+						llrpClient.requestSendingData(channel, new GetReport(createHeader()));
+						nextPoll = now + scenario.pollInterval;
+					}
+					timeout = Math.max(1, nextPoll - now);
+				}
+				try {
+					handle(llrpClient.awaitReceivedData(channel, timeout));
+				} catch (LLRPTimeoutException e) {
+				}
+			}
+			// do not count the reports after the end of the measurement
+			isMeasuring = false;
+			request(new StopROSpec(createHeader(), ROSPEC_ID));
+			request(new CloseConnection(createHeader()));
+		} finally {
+			try {
+				llrpClient.requestClosingChannel(channel, false /* force */);
+			} catch (LLRPUnknownChannelException e) {
+				// the channel has already been closed by the server
+			}
+		}
+		return null;
+	}
+
+	private void open() throws Exception {
+		LLRPEventHandler eventHandler = new LLRPEventHandler() {
+
+			@Override
+			public void channelOpened(LLRPChannelOpenedEvent event) {
+				channelEvents.add(event);
+			}
+
+			@Override
+			public void dataSent(LLRPDataSentEvent event) {
+			}
+
+			@Override
+			public void dataReceived(LLRPDataReceivedNotifyEvent event) {
+			}
+
+			@Override
+			public void channelClosed(LLRPChannelClosedEvent event) {
+				channelEvents.add(event);
+			}
+		};
+		// the instance may not have been started yet => retry
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (channel == null) {
+			llrpClient.requestOpeningChannel("localhost", llrpPort, eventHandler);
+			Object event = channelEvents.poll(TIMEOUT, TimeUnit.MILLISECONDS);
+			if (event instanceof LLRPChannelOpenedEvent) {
+				channel = ((LLRPChannelOpenedEvent) event).getChannel();
+			} else if (System.currentTimeMillis() > end) {
+				throw new TimeoutException("Cannot open a connection to port " + llrpPort);
+			} else {
+				Thread.sleep(100);
+			}
+		}
+		ReaderEventNotification notification = (ReaderEventNotification) llrpClient
+				.awaitReceivedData(channel, TIMEOUT);
+		ConnectionAttemptEventStatusType status = notification.getReaderEventNotificationData()
+				.getConnectionAttemptEvent().getStatus();
+		if (status != ConnectionAttemptEventStatusType.SUCCESS) {
+			throw new IllegalStateException("Connection to port " + llrpPort + " failed: " + status);
+		}
+	}
+
+	/**
+	 * Sends a request and waits for its response. Reports which are received
+	 * in the meantime are handled.
+	 */
+	private void request(Message request) throws Exception {
+		llrpClient.requestSendingData(channel, request);
+		long id = request.getMessageHeader().getId();
+		long end = System.currentTimeMillis() + TIMEOUT;
+		while (true) {
+			long timeout = end - System.currentTimeMillis();
+			if (timeout <= 0) {
+				throw new TimeoutException("Missing response for " + request.getClass().getSimpleName());
+			}
+			Message message = llrpClient.awaitReceivedData(channel, timeout);
+			if (message instanceof ROAccessReport || message.getMessageHeader().getId() != id) {
+				handle(message);
+				continue;
+			}
+			LLRPStatus status = getStatus(message);
+			if (status != null && status.getStatusCode() != LLRPStatusCode.M_SUCCESS) {
+				throw new IllegalStateException(request.getClass().getSimpleName() + " failed: "
+						+ status.getStatusCode() + " " + status.getErrorDescription());
+			}
+			return;
+		}
+	}
+
+	private LLRPStatus getStatus(Message response) {
+		if (response instanceof SetProtocolVersionResponse) {
+			return ((SetProtocolVersionResponse) response).getStatus();
+		} else if (response instanceof AddROSpecResponse) {
+			return ((AddROSpecResponse) response).getStatus();
+		} else if (response instanceof EnableROSpecResponse) {
+			return ((EnableROSpecResponse) response).getStatus();
+		} else if (response instanceof StartROSpecResponse) {
+			return ((StartROSpecResponse) response).getStatus();
+		} else if (response instanceof StopROSpecResponse) {
+			return ((StopROSpecResponse) response).getStatus();
+		} else if (response instanceof CloseConnectionResponse) {
+			return ((CloseConnectionResponse) response).getStatus();
+		}
+		return null;
+	}
+
+	private void handle(Message message) {
+		if (!(message instanceof ROAccessReport)) {
+			return;
+		}
+		long now = System.nanoTime();
+		List<TagReportData> tags = ((ROAccessReport) message).getTagReportDataList();
+		if (tags == null || tags.isEmpty()) {
+			return;
+		}
+		if (device == null) {
+			device = deviceFactory.getDevice(rfcPort);
+		}
+		for (TagReportData tag : tags) {
+			long serialNumber = tag.getEpc96() != null
+					? TimedRFDevice.getSerialNumber(tag.getEpc96().getEpc())
+					: getSerialNumber(tag.getEpcData().getEpc(),
+							tag.getEpcData().getEpcLengthBits());
+			Long observationTime = device == null ? null
+					: device.removeObservationTime(serialNumber);
+			if (isMeasuring && observationTime != null) {
+				latencies.add(now - observationTime);
+			}
+		}
+		if (isMeasuring) {
+			reads += tags.size();
+			reports++;
+		}
+	}
+
+	/**
+	 * Gets the last 64 bits of an EPC. The first bit of the EPC is the lowest
+	 * bit of the bit set.
+	 */
+	private static long getSerialNumber(BitSet epc, int bitLength) {
+		long ret = 0;
+		for (int i = Math.max(0, bitLength - 64); i < bitLength; i++) {
+			ret = ret << 1 | (epc.get(i) ? 1 : 0);
+		}
+		return ret;
+	}
+
+	private MessageHeader createHeader() {
+		return new MessageHeader((byte) 0x00, ProtocolVersion.LLRP_V1_1, ++messageId);
+	}
+
+	private ROSpec createROSpec() {
+		ROBoundarySpec roBoundarySpec = new ROBoundarySpec(new TLVParameterHeader((byte) 0),
+				new ROSpecStartTrigger(new TLVParameterHeader((byte) 0),
+						ROSpecStartTriggerType.NULL_NO_START_TRIGGER),
+				new ROSpecStopTrigger(new TLVParameterHeader((byte) 0), ROSpecStopTriggerType.NULL,
+						0 /* durationTriggerValue */));
+		List<InventoryParameterSpec> invParamSpecs = new ArrayList<>();
+		invParamSpecs.add(new InventoryParameterSpec(new TLVParameterHeader((byte) 0),
+				1 /* specId */, ProtocolId.EPC_GLOBAL_C1G2));
+		// a continuous inventory with all antennas
+		AISpec aiSpec = new AISpec(new TLVParameterHeader((byte) 0),
+				Arrays.asList(0) /* antennaIds */,
+				new AISpecStopTrigger(new TLVParameterHeader((byte) 0), AISpecStopTriggerType.NULL,
+						0L /* durationTrigger */),
+				invParamSpecs);
+		ROSpec roSpec = new ROSpec(new TLVParameterHeader((byte) 0), ROSPEC_ID,
+				(short) 0 /* priority */, ROSpecCurrentState.DISABLED, roBoundarySpec,
+				Arrays.asList((Parameter) aiSpec));
+		roSpec.setRoReportSpec(new ROReportSpec(new TLVParameterHeader((byte) 0x00),
+				scenario.trigger, scenario.n,
+				new TagReportContentSelector(new TLVParameterHeader((byte) 0x00),
+						true /* enableROSpecID */, false /* enableSpecIndex */,
+						false /* enableInventoryParameterSpecID */, true /* enableAntennaID */,
+						false /* enableChannelIndex */, true /* enablePeakRSSI */,
+						true /* enableFirstSeenTimestamp */, false /* enableLastSeenTimestamp */,
+						true /* enableTagSeenCount */, false /* enableAccessSpecID */)));
+		return roSpec;
+	}
+}
@@ -0,0 +1,37 @@
+package havis.llrpservice.server.benchmark;
+
+import havis.llrpservice.data.message.parameter.ROReportTrigger;
+
+/**
+ * The report scenarios of the LLRP clients. Each scenario uses a continuous
+ * ROSpec with a different {@link ROReportTrigger}.
+ */
+enum Scenario {
+	/**
+	 * Each tag is reported immediately.
+	 */
+	PER_TAG(ROReportTrigger.UPON_N_TAGREPORTDATA_PARAMETERS_OR_END_OF_ROSPEC, 1, 0),
+	/**
+	 * The tags are reported in batches of 100 tag reports.
+	 */
+	BATCH_100(ROReportTrigger.UPON_N_TAGREPORTDATA_PARAMETERS_OR_END_OF_ROSPEC, 100, 0),
+	/**
+	 * The tags are reported every 100 ms.
+	 */
+	TIMED_100MS(ROReportTrigger.UPON_N_MILLISECONDS_OR_END_OF_ROSPEC, 100, 0),
+	/**
+	 * The client requests the reports every 100 ms with GET_REPORT.
+	 */
+	POLLED_100MS(ROReportTrigger.NONE, 0, 100);
+
+	final ROReportTrigger trigger;
+	final int n;
+	// the interval for GET_REPORT requests in ms (0: no requests)
+	final long pollInterval;
+
+	private Scenario(ROReportTrigger trigger, int n, long pollInterval) {
+		this.trigger = trigger;
+		this.n = n;
+		this.pollInterval = pollInterval;
+	}
+}
@@ -0,0 +1,121 @@
+package havis.llrpservice.server.benchmark;
+
+import havis.device.rf.RFDevice;
+import havis.device.rf.exception.ImplementationException;
+import havis.device.rf.exception.ParameterException;
+import havis.device.rf.tag.Filter;
+import havis.device.rf.tag.TagData;
+import havis.device.rf.tag.operation.TagOperation;
+import havis.llrpservice.sbc.service.ServiceFactory;
+import havis.llrpservice.sbc.service.ServiceFactoryException;
+import havis.llrpservice.server.stub.RFDeviceSimulator;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A simulated RF device which records the time when an inventory round returns
+ * a tag.
+ * <p>
+ * The simulator writes a unique serial number to the last 64 bits of each EPC.
+ * The serial number is used as key for the time stamps. The time stamp of the
+ * first unreported observation of a tag is kept until the tag is reported to a
+ * LLRP client (see {@link #removeObservationTime(long)}).
+ * </p>
+ */
+class TimedRFDevice extends RFDeviceSimulator {
+
+	/**
+	 * Creates a {@link TimedRFDevice} for each RFC port. The port is used as
+	 * identifier of the device.
+	 */
+	static class Factory implements ServiceFactory<RFDevice> {
+		private final Properties simulatorProperties;
+		private final Map<Integer, TimedRFDevice> devices = new ConcurrentHashMap<>();
+
+		Factory(Properties simulatorProperties) {
+			this.simulatorProperties = simulatorProperties;
+		}
+
+		@Override
+		public RFDevice getService(String host, int port, long timeout)
+				throws ServiceFactoryException {
+			TimedRFDevice device = devices.get(port);
+			if (device == null) {
+				Properties props = new Properties();
+				props.putAll(simulatorProperties);
+				// use a different population for each device
+				long seed = Long.parseLong(props.getProperty("seed", "1"));
+				props.setProperty("seed", String.valueOf(seed + port));
+				device = new TimedRFDevice(props);
+				devices.put(port, device);
+			}
+			return device;
+		}
+
+		@Override
+		public void release(RFDevice service) throws ServiceFactoryException {
+			// the devices are kept for the evaluation
+		}
+
+		/**
+		 * @param port
+		 * @return the device for a RFC port or <code>null</code>
+		 */
+		TimedRFDevice getDevice(int port) {
+			return devices.get(port);
+		}
+	}
+
+	private final ConcurrentHashMap<Long, Long> observationTimes = new ConcurrentHashMap<>();
+	private final AtomicLong rounds = new AtomicLong();
+
+	TimedRFDevice(Properties properties) {
+		super(properties);
+	}
+
+	@Override
+	public List<TagData> execute(List<Short> antennas, List<Filter> filter,
+			List<TagOperation> operations) throws ParameterException, ImplementationException {
+		List<TagData> tags = super.execute(antennas, filter, operations);
+		long now = System.nanoTime();
+		for (TagData tag : tags) {
+			observationTimes.putIfAbsent(getSerialNumber(tag.getEpc()), now);
+		}
+		rounds.incrementAndGet();
+		return tags;
+	}
+
+	/**
+	 * @return the number of executed inventory rounds
+	 */
+	long getRounds() {
+		return rounds.get();
+	}
+
+	/**
+	 * Removes the time stamp of the first unreported observation of a tag.
+	 *
+	 * @param serialNumber
+	 *            see {@link #getSerialNumber(byte[])}
+	 * @return the time stamp provided by {@link System#nanoTime()} or
+	 *         <code>null</code>
+	 */
+	Long removeObservationTime(long serialNumber) {
+		return observationTimes.remove(serialNumber);
+	}
+
+	/**
+	 * Gets the serial number of a tag from the last 64 bits of its EPC.
+	 */
+	static long getSerialNumber(byte[] epc) {
+		long ret = 0;
+		for (int i = Math.max(0, epc.length - 8); i < epc.length; i++) {
+			ret = ret << 8 | (epc[i] & 0xFF);
+		}
+		return ret;
+	}
+}
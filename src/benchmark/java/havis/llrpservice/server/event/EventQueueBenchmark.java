@@ -0,0 +1,71 @@
+package havis.llrpservice.server.event;
+
+import havis.llrpservice.server.event.LLRPServiceInstanceEvent.MessageType;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link EventQueue#put(Event, int)} and
+ * {@link EventQueue#take(long)} without and with contention.
+ * <p>
+ * Each invocation puts an event and takes an event. Because each thread puts
+ * an event before it takes one, the queue is never empty when an event is
+ * taken and the threads do not block.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventQueueBenchmark {
+
+	// the number of used priorities
+	@Param({ "1", "3" })
+	public int priorityCount;
+
+	private EventQueue queue;
+	private final Event event = new LLRPServiceInstanceEvent(MessageType.LLRP_DATA_SENT,
+			null /* exception */);
+
+	@State(Scope.Thread)
+	public static class ThreadState {
+		int counter;
+	}
+
+	@Setup
+	public void setup() {
+		queue = new EventQueue();
+	}
+
+	private Event putTake(ThreadState state) throws Exception {
+		queue.put(event, EventPriority.DEFAULT + state.counter++ % priorityCount);
+		return queue.take(EventQueue.NO_TIMEOUT);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Event putTake1(ThreadState state) throws Exception {
+		return putTake(state);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Event putTake4(ThreadState state) throws Exception {
+		return putTake(state);
+	}
+}
@@ -0,0 +1,104 @@
+package havis.llrpservice.server.rfc;
+
+import havis.device.rf.tag.TagData;
+import havis.device.rf.tag.operation.TagOperation;
+import havis.llrpservice.data.message.parameter.AccessCommand;
+import havis.llrpservice.data.message.parameter.AccessSpec;
+import havis.llrpservice.data.message.parameter.C1G2TagSpec;
+import havis.llrpservice.data.message.parameter.C1G2TargetTag;
+import havis.llrpservice.data.message.parameter.ProtocolId;
+import havis.llrpservice.data.message.parameter.TLVParameterHeader;
+import havis.llrpservice.server.benchmark.BenchmarkData;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the matching of the tags of an inventory round against the
+ * AccessSpecs of a ROSpec.
+ * <p>
+ * Each AccessSpec filters the first 16 bits of the EPC. Half of the tags
+ * match one of the AccessSpecs, the other half does not match any AccessSpec
+ * (the worst case).
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessSpecFilterBenchmark {
+
+	@Param({ "1", "10", "100" })
+	public int accessSpecCount;
+
+	@Param({ "100", "1000" })
+	public int tagCount;
+
+	private AccessSpecFilter filter;
+	private List<TagData> tags;
+	private final List<TagOperation> accessOps = new ArrayList<>();
+
+	@Setup
+	public void setup() {
+		List<AccessSpec> accessSpecs = new ArrayList<>();
+		for (int i = 0; i < accessSpecCount; i++) {
+			// the first 16 bits of the EPC must match the index of the
+			// AccessSpec
+			BitSet mask = new BitSet();
+			mask.set(0, 16);
+			BitSet data = new BitSet();
+			for (int bit = 0; bit < 16; bit++) {
+				if ((i & 1 << 15 - bit) != 0) {
+					data.set(bit);
+				}
+			}
+			C1G2TargetTag pattern = new C1G2TargetTag(new TLVParameterHeader((byte) 0),
+					(byte) 1 /* memoryBank */, true /* isMatch */,
+					32 /* pointer: after CRC and PC */, mask, data);
+			accessSpecs.add(new AccessSpec(new TLVParameterHeader((byte) 0),
+					i + 1L /* accessSpecID */, BenchmarkData.ANTENNA_ID,
+					ProtocolId.EPC_GLOBAL_C1G2, true /* currentState */,
+					BenchmarkData.RO_SPEC_ID, null /* accessSpecStopTrigger */,
+					new AccessCommand(new TLVParameterHeader((byte) 0),
+							new C1G2TagSpec(new TLVParameterHeader((byte) 0), pattern),
+							null /* opSpecList */)));
+		}
+		filter = new AccessSpecFilter(accessSpecs);
+		// the first 16 bits of the EPCs contain the index of the tag
+		tags = BenchmarkData.createTagData(tagCount, 12 /* epcLength */);
+		for (int i = 0; i < tags.size(); i++) {
+			byte[] epc = tags.get(i).getEpc();
+			int index = i % (2 * accessSpecCount);
+			epc[0] = (byte) (index >> 8);
+			epc[1] = (byte) index;
+		}
+	}
+
+	@Benchmark
+	public int getAccessSpec() throws Exception {
+		int ret = 0;
+		for (TagData tag : tags) {
+			if (filter.getAccessSpec(BenchmarkData.RO_SPEC_ID, BenchmarkData.ANTENNA_ID,
+					ProtocolId.EPC_GLOBAL_C1G2, tag, accessOps) != null) {
+				ret++;
+			}
+		}
+		return ret;
+	}
+}
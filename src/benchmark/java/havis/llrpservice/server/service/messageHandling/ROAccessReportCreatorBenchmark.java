@@ -0,0 +1,85 @@
+package havis.llrpservice.server.service.messageHandling;
+
+import havis.llrpservice.data.message.ProtocolVersion;
+import havis.llrpservice.data.message.ROAccessReport;
+import havis.llrpservice.data.message.parameter.TagReportContentSelector;
+import havis.llrpservice.sbc.rfc.message.ExecuteResponse;
+import havis.llrpservice.server.benchmark.BenchmarkData;
+import havis.llrpservice.server.rfc.messageData.ExecuteResponseData;
+import havis.llrpservice.server.service.data.ROAccessReportEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the creation of ROAccessReports from the tag data of an inventory
+ * round and the accumulation of reports.
+ * <p>
+ * The accumulated reports contain the same tags so that each tag report of a
+ * subsequent report is merged with an existing one.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ROAccessReportCreatorBenchmark {
+
+	@Param({ "1", "100", "1000" })
+	public int tagCount;
+
+	// the number of reports for the accumulation
+	@Param({ "10" })
+	public int reportCount;
+
+	private ROAccessReportCreator creator;
+	private ExecuteResponse executeResponse;
+	private ExecuteResponseData executeResponseData;
+	private TagReportContentSelector contentSelector;
+	private List<ROAccessReportEntity> reportEntities;
+
+	@Setup
+	public void setup() throws Exception {
+		creator = new ROAccessReportCreator();
+		executeResponse = BenchmarkData
+				.createExecuteResponse(BenchmarkData.createTagData(tagCount, 12 /* epcLength */));
+		executeResponseData = BenchmarkData.createExecuteResponseData();
+		contentSelector = BenchmarkData.createContentSelector();
+		reportEntities = new ArrayList<>();
+		for (int i = 0; i < reportCount; i++) {
+			ROAccessReportEntity entity = new ROAccessReportEntity();
+			entity.setRoSpecId(BenchmarkData.RO_SPEC_ID);
+			entity.setReport(creator.create(ProtocolVersion.LLRP_V1_1, executeResponse,
+					executeResponseData, contentSelector));
+			reportEntities.add(entity);
+		}
+	}
+
+	@Benchmark
+	public ROAccessReport create() {
+		return creator.create(ProtocolVersion.LLRP_V1_1, executeResponse, executeResponseData,
+				contentSelector);
+	}
+
+	@Benchmark
+	public ROAccessReport accumulate() {
+		// the tag reports of the first report are updated (eg. the seen
+		// counts) but the structure of the reports is not changed
+		return creator.accumulate(ProtocolVersion.LLRP_V1_1, reportEntities);
+	}
+}
@@ -0,0 +1,28 @@
+package havis.llrpservice.common.concurrent;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates daemon threads with the name <code>&lt;prefix&gt;&lt;n&gt;</code>
+ * where <code>n</code> is a counter starting with 1.
+ */
+public class NamedThreadFactory implements ThreadFactory {
+	private final String prefix;
+	private final AtomicInteger count = new AtomicInteger();
+
+	/**
+	 * @param prefix
+	 *            the prefix for the thread names
+	 */
+	public NamedThreadFactory(String prefix) {
+		this.prefix = prefix;
+	}
+
+	@Override
+	public Thread newThread(Runnable r) {
+		Thread t = new Thread(r, prefix + count.incrementAndGet());
+		t.setDaemon(true);
+		return t;
+	}
+}
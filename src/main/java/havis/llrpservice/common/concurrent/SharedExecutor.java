@@ -0,0 +1,252 @@
+package havis.llrpservice.common.concurrent;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide executor which is shared by all service instances of the LLRP
+ * server.
+ * <p>
+ * It consists of three pools:
+ * <ul>
+ * <li>a scheduler for short periodic tasks like keep alive timers. The number
+ * of threads equals the number of available processors.</li>
+ * <li>an unbounded pool for loops which run until a service instance or the
+ * server is stopped like message handlers, TCP servers and service instances
+ * (see {@link #submitLoop(Runnable)}). A loop always gets a thread: an idle
+ * thread is reused or a new one is created.</li>
+ * <li>a bounded worker pool for short tasks like the loading of files (see
+ * {@link #submit(Runnable)}). A new worker is created for each task until the
+ * maximum number of workers is reached. Further tasks are queued and started
+ * in submission order when a worker becomes free. The maximum defaults to the
+ * number of available processors and can be set with the system property
+ * {@link #MAX_WORKER_THREADS_PROPERTY}. A task which waits for another task of
+ * the worker pool can cause a deadlock if the pool is saturated.</li>
+ * </ul>
+ * </p>
+ * <p>
+ * All threads are daemon threads and time out if they are idle. Thus the
+ * executor does not need to be shut down.
+ * </p>
+ */
+public class SharedExecutor {
+
+	public static final String MAX_WORKER_THREADS_PROPERTY = "havis.llrpservice.server.maxWorkerThreads";
+	// in seconds
+	public static final int IDLE_TIMEOUT = 60;
+
+	private static SharedExecutor instance;
+
+	private final ScheduledThreadPoolExecutor scheduler;
+	private final ThreadPoolExecutor loops;
+	private final ThreadPoolExecutor workers;
+	// in nanoseconds
+	private final AtomicLong schedulerLag = new AtomicLong();
+	private final AtomicLong maxSchedulerLag = new AtomicLong();
+
+	/**
+	 * Wraps a periodic task and measures the delay between the planned and the
+	 * real start of each execution.
+	 */
+	private class LagMeasuringTask implements Runnable {
+		private final Runnable task;
+		private final long period;
+		private long plannedStart;
+
+		LagMeasuringTask(Runnable task, long initialDelay, long period) {
+			this.task = task;
+			this.period = period;
+			this.plannedStart = System.nanoTime() + initialDelay;
+		}
+
+		@Override
+		public void run() {
+			long lag = System.nanoTime() - plannedStart;
+			plannedStart += period;
+			if (lag < 0) {
+				lag = 0;
+			}
+			schedulerLag.set(lag);
+			long max = maxSchedulerLag.get();
+			while (lag > max && !maxSchedulerLag.compareAndSet(max, lag)) {
+				max = maxSchedulerLag.get();
+			}
+			task.run();
+		}
+	}
+
+	/**
+	 * @param schedulerThreads
+	 *            the number of scheduler threads
+	 * @param maxWorkerThreads
+	 *            the maximum number of worker threads (further tasks are
+	 *            queued)
+	 */
+	SharedExecutor(int schedulerThreads, int maxWorkerThreads) {
+		scheduler = new ScheduledThreadPoolExecutor(schedulerThreads,
+				new NamedThreadFactory("llrp-scheduler-"));
+		scheduler.setKeepAliveTime(IDLE_TIMEOUT, TimeUnit.SECONDS);
+		scheduler.allowCoreThreadTimeOut(true);
+		scheduler.setRemoveOnCancelPolicy(true);
+		loops = new ThreadPoolExecutor(0 /* corePoolSize */, Integer.MAX_VALUE, IDLE_TIMEOUT,
+				TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+				new NamedThreadFactory("llrp-loop-"));
+		// all workers are core threads which time out so that tasks are
+		// queued instead of rejected if the maximum is reached
+		workers = new ThreadPoolExecutor(maxWorkerThreads, maxWorkerThreads, IDLE_TIMEOUT,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+				new NamedThreadFactory("llrp-worker-"));
+		workers.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Gets the process wide instance.
+	 *
+	 * @return the executor
+	 */
+	public static synchronized SharedExecutor getInstance() {
+		if (instance == null) {
+			int processors = Runtime.getRuntime().availableProcessors();
+			instance = new SharedExecutor(processors,
+					Integer.getInteger(MAX_WORKER_THREADS_PROPERTY, processors));
+		}
+		return instance;
+	}
+
+	/**
+	 * Gets the pool for loops. The pool must not be shut down.
+	 *
+	 * @return the pool
+	 */
+	public ThreadPoolExecutor getLoops() {
+		return loops;
+	}
+
+	/**
+	 * Starts a loop which runs until a service instance or the server is
+	 * stopped. The loop is started immediately in its own thread.
+	 *
+	 * @param loop
+	 * @return the future of the loop
+	 */
+	public Future<?> submitLoop(Runnable loop) {
+		return loops.submit(loop);
+	}
+
+	/**
+	 * Submits a short task to the worker pool. The task is queued if all
+	 * workers are busy.
+	 *
+	 * @param task
+	 * @return the future of the task
+	 */
+	public Future<?> submit(Runnable task) {
+		return workers.submit(task);
+	}
+
+	/**
+	 * Submits a short task to the worker pool. The task is queued if all
+	 * workers are busy.
+	 *
+	 * @param task
+	 * @return the future of the task
+	 */
+	public <T> Future<T> submit(Callable<T> task) {
+		return workers.submit(task);
+	}
+
+	/**
+	 * Schedules a short periodic task. The delay between the planned and the
+	 * real start of each execution is provided via {@link #getSchedulerLag()}.
+	 *
+	 * @param task
+	 * @param initialDelay
+	 * @param period
+	 * @param unit
+	 * @return the future of the task
+	 */
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period,
+			TimeUnit unit) {
+		return scheduler.scheduleAtFixedRate(
+				new LagMeasuringTask(task, unit.toNanos(initialDelay), unit.toNanos(period)),
+				initialDelay, period, unit);
+	}
+
+	/**
+	 * Schedules a short one-shot task.
+	 *
+	 * @param task
+	 * @param delay
+	 * @param unit
+	 * @return the future of the task
+	 */
+	public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+		return scheduler.schedule(task, delay, unit);
+	}
+
+	/**
+	 * @return the current number of scheduler threads
+	 */
+	public int getSchedulerThreadCount() {
+		return scheduler.getPoolSize();
+	}
+
+	/**
+	 * @return the current number of threads for loops
+	 */
+	public int getLoopThreadCount() {
+		return loops.getPoolSize();
+	}
+
+	/**
+	 * @return the current number of worker threads
+	 */
+	public int getWorkerThreadCount() {
+		return workers.getPoolSize();
+	}
+
+	/**
+	 * @return the number of tasks which wait for a free worker thread
+	 */
+	public int getQueuedWorkerTaskCount() {
+		return workers.getQueue().size();
+	}
+
+	/**
+	 * @return the number of worker threads which are executing tasks
+	 */
+	public int getActiveWorkerThreadCount() {
+		return workers.getActiveCount();
+	}
+
+	/**
+	 * @return the largest number of worker threads that have ever
+	 *         simultaneously been in the pool
+	 */
+	public int getLargestWorkerThreadCount() {
+		return workers.getLargestPoolSize();
+	}
+
+	/**
+	 * @return the delay between the planned and the real start of the latest
+	 *         periodic task execution in nanoseconds
+	 */
+	public long getSchedulerLag() {
+		return schedulerLag.get();
+	}
+
+	/**
+	 * @return the maximum delay between the planned and the real start of a
+	 *         periodic task execution in nanoseconds
+	 */
+	public long getMaxSchedulerLag() {
+		return maxSchedulerLag.get();
+	}
+}
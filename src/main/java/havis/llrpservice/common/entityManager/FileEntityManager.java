@@ -28,6 +28,8 @@ import java.util.UUID;
 
 import com.rits.cloning.Cloner;
 
+import havis.llrpservice.common.log.AsyncLogger;
+
 /**
  * This class is a implementation of {@link EntityManager}, which provides file
  * based entity management.
@@ -59,6 +61,8 @@ import com.rits.cloning.Cloner;
 public abstract class FileEntityManager<T> implements EntityManager<T> {
 
 	private static final Logger log = Logger.getLogger(FileEntityManager.class.getName());
+	// the logger for the written entities (null if the logging is synchronous)
+	private static final AsyncLogger asyncLog = AsyncLogger.get(log);
 
 	Pattern classVersionPattern = Pattern.compile("(\\d+)(\\.\\d+(\\.\\d+)?)?");
 
@@ -356,7 +360,17 @@ public abstract class FileEntityManager<T> implements EntityManager<T> {
 				} catch (Exception e) {
 					throw new EntityManagerException(e);
 				}
-				log.log(Level.INFO, "Wrote data of entity " + entity + " (" + encoded.length + " bytes) to file: " + entityFile.getAbsolutePath());
+				if (log.isLoggable(Level.INFO)) {
+					if (asyncLog != null) {
+						// only immutable values (the entity id and the path)
+						// are passed to the thread which formats the record
+						asyncLog.log(Level.INFO, "Wrote data of entity {0} ({2} bytes) to file: {1}",
+								entity, entityFile.getAbsolutePath(), encoded.length, 0 /* arg3 */);
+					} else {
+						log.log(Level.INFO, "Wrote data of entity " + entity + " (" + encoded.length
+								+ " bytes) to file: " + entityFile.getAbsolutePath());
+					}
+				}
 				currentEntity.isSynchronized = true;
 			}
 		}
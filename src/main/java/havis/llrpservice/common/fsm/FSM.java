@@ -1,12 +1,18 @@
 package havis.llrpservice.common.fsm;
 
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * A simple implementation of a Finite State Machine.
+ * <p>
+ * The connections of a state are looked up by the identity of the fired
+ * event (see {@link State#getConnections(Object)}). The history is a ring
+ * buffer with the max. history size as capacity.
+ * </p>
  * 
  * @param <TEvent>
  */
@@ -14,13 +20,12 @@ public class FSM<TEvent> {
 
 	private Logger log = Logger.getLogger(FSM.class.getName());
 
-	private final List<TEvent> events = new ArrayList<>();
+	private final ArrayDeque<TEvent> events = new ArrayDeque<>();
 	private boolean isFiring = false;
 	private final String name;
 	private final State<TEvent> initialState;
 	private State<TEvent> currentState;
-	private int maxHistorySize;
-	private List<StateConnection<TEvent>> history;
+	private final RingBuffer<StateConnection<TEvent>> history;
 
 	/**
 	 * Creates a FSM.
@@ -36,12 +41,11 @@ public class FSM<TEvent> {
 		this.name = name;
 		this.initialState = initialState;
 		this.currentState = initialState;
-		history = new ArrayList<>();
-		this.maxHistorySize = maxHistorySize;
+		history = new RingBuffer<>(maxHistorySize);
 
 		if (log.isLoggable(Level.FINE)) {
-			log.log(Level.FINE, "FSM " + name + ": InitialState "
-					+ getStatePath(initialState).toString() + ", maxHistorySize " + maxHistorySize);
+			log.log(Level.FINE, "FSM " + name + ": InitialState " + initialState.getPath()
+					+ ", maxHistorySize " + maxHistorySize);
 		}
 
 		// perform enter actions
@@ -55,10 +59,11 @@ public class FSM<TEvent> {
 	 * @param history
 	 *            An existing history with at least one entry. The destination
 	 *            state of the last history entry is used as initial state.
+	 *            The entries are copied to the history of the FSM.
 	 * @param maxHistorySize
 	 *            The max. size of the history. If the given history is larger
-	 *            than this max. size then entries from the beginning of the
-	 *            list are removed.
+	 *            than this max. size then only the last entries of the list
+	 *            are used.
 	 * @throws FSMException
 	 */
 	public FSM(String name, List<StateConnection<TEvent>> history, int maxHistorySize)
@@ -70,12 +75,12 @@ public class FSM<TEvent> {
 		// the last destination state of the history is the initial state
 		this.initialState = history.get(history.size() - 1).getDestState();
 		this.currentState = initialState;
-		this.history = history;
-		setMaxHistorySize(maxHistorySize);
+		this.history = new RingBuffer<>(maxHistorySize);
+		this.history.addAll(history);
 
 		if (log.isLoggable(Level.FINE)) {
-			log.log(Level.FINE, "FSM " + name + ": InitialState "
-					+ getStatePath(initialState).toString() + ", maxHistorySize " + maxHistorySize);
+			log.log(Level.FINE, "FSM " + name + ": InitialState " + initialState.getPath()
+					+ ", maxHistorySize " + maxHistorySize);
 		}
 
 		// perform enter actions
@@ -98,8 +103,8 @@ public class FSM<TEvent> {
 	 * Fires an event. If other events are currently fired then the new event is
 	 * enqueued.
 	 * <p>
-	 * If a history is configured and the history is full then the first entry
-	 * of the list is removed before a new entry is appended.
+	 * If a history is configured and the history is full then the oldest entry
+	 * is replaced by the new entry.
 	 * </p>
 	 * 
 	 * @param ev
@@ -114,59 +119,54 @@ public class FSM<TEvent> {
 		}
 		isFiring = true;
 		try {
-			while (events.size() > 0) {
-				TEvent event = events.remove(0);
-				// for each state connection of current state
-				for (StateConnection<TEvent> connection : currentState.getConnections()) {
-					// if the event matches
-					if (connection.getEvent().equals(event)) {
-						Transition<TEvent> transition = connection.getTransition();
-						// all guards must accept the event
-						boolean performActions = true;
-						for (Guard<TEvent> guard : transition.getGuards()) {
-							if (!guard.evaluate(connection.getSrcState(), event,
-									connection.getDestState())) {
-								performActions = false;
-								break;
-							}
+			TEvent event;
+			while ((event = events.poll()) != null) {
+				List<StateConnection<TEvent>> connections = currentState.getConnections(event);
+				// for each state connection of current state for the event
+				for (int i = 0; i < connections.size(); i++) {
+					StateConnection<TEvent> connection = connections.get(i);
+					Transition<TEvent> transition = connection.getTransition();
+					// all guards must accept the event
+					boolean performActions = true;
+					for (Guard<TEvent> guard : transition.getGuards()) {
+						if (!guard.evaluate(connection.getSrcState(), event,
+								connection.getDestState())) {
+							performActions = false;
+							break;
 						}
-						// if actions can be performed
-						if (performActions) {
-							// perform exit actions
-							for (Action<TEvent> action : currentState.getExitActions()) {
-								action.perform(currentState, event, connection.getDestState());
-							}
-							// perform actions of transition
-							for (Action<TEvent> action : transition.getActions()) {
-								action.perform(currentState, event, connection.getDestState());
-							}
-							// perform enter actions
-							performEnterActions(currentState, event, connection.getDestState());
-							// save destination state as current state
-							currentState = connection.getDestState();
-							// if a history shall be created
-							if (maxHistorySize > 0) {
-								// if the history is full
-								if (history.size() == maxHistorySize) {
-									// remove the oldest entry
-									history.remove(0);
-									if (log.isLoggable(Level.FINE)) {
-										log.log(Level.FINE, "Removed 1 history entry");
-									}
-								}
-								// add connection to history
-								history.add(connection);
-							}
-							if (log.isLoggable(Level.FINE)) {
-								log.log(Level.FINE,
-										"FSM " + name + ": Event " + event.toString() + ", state "
-												+ getStatePath(connection.getSrcState()).toString()
-												+ " -> "
-												+ getStatePath(connection.getDestState()).toString()
-												+ ", transition " + transition.getName());
+					}
+					// if actions can be performed
+					if (performActions) {
+						// perform exit actions
+						for (Action<TEvent> action : currentState.getExitActions()) {
+							action.perform(currentState, event, connection.getDestState());
+						}
+						// perform actions of transition
+						for (Action<TEvent> action : transition.getActions()) {
+							action.perform(currentState, event, connection.getDestState());
+						}
+						// perform enter actions
+						performEnterActions(currentState, event, connection.getDestState());
+						// save destination state as current state
+						currentState = connection.getDestState();
+						// if a history shall be created
+						if (history.getCapacity() > 0) {
+							// if the history is full
+							if (history.isFull() && log.isLoggable(Level.FINE)) {
+								log.log(Level.FINE, "Removed 1 history entry");
 							}
-							break;
+							// add connection to history (the oldest entry
+							// is replaced if the history is full)
+							history.add(connection);
+						}
+						if (log.isLoggable(Level.FINE)) {
+							log.log(Level.FINE,
+									"FSM " + name + ": Event " + event.toString() + ", state "
+											+ connection.getSrcState().getPath() + " -> "
+											+ connection.getDestState().getPath()
+											+ ", transition " + transition.getName());
 						}
+						break;
 					}
 				}
 			}
@@ -187,13 +187,9 @@ public class FSM<TEvent> {
 	 * @return This instance
 	 */
 	public FSM<TEvent> setMaxHistorySize(int maxSize) {
-		maxHistorySize = maxSize;
 		// if new history size is smaller than the current history size
-		// then remove the oldest history entries
-		int sizeDiff = history.size() - maxHistorySize;
-		for (int i = 0; i < sizeDiff; i++) {
-			history.remove(0);
-		}
+		// then the oldest history entries are removed
+		int sizeDiff = history.setCapacity(maxSize);
 		if (log.isLoggable(Level.FINE)) {
 			log.log(Level.FINE,
 					"Removed " + sizeDiff + " history entr" + (sizeDiff == 1 ? "y" : "ies"));
@@ -202,7 +198,7 @@ public class FSM<TEvent> {
 	}
 
 	public int getMaxHistorySize() {
-		return maxHistorySize;
+		return history.getCapacity();
 	}
 
 	public FSM<TEvent> clearHistory() {
@@ -215,8 +211,15 @@ public class FSM<TEvent> {
 		return this;
 	}
 
+	/**
+	 * Returns the history. The oldest entry is the first one. The list cannot
+	 * be modified. It is a view of the history which reflects later state
+	 * changes.
+	 * 
+	 * @return
+	 */
 	public List<StateConnection<TEvent>> getHistory() {
-		return history;
+		return Collections.unmodifiableList(history);
 	}
 
 	/**
@@ -234,23 +237,4 @@ public class FSM<TEvent> {
 			action.perform(srcState, event, destState);
 		}
 	}
-
-	/**
-	 * Returns the state path from top parent state to the given child state
-	 * (eg. <code>parentStateName/childStateName</code>).
-	 * 
-	 * @param state
-	 * @return The new created {@link StringBuilder}
-	 */
-	private StringBuilder getStatePath(State<TEvent> state) {
-		StringBuilder statePath;
-		if (state.getParent() != null) {
-			statePath = getStatePath(state.getParent());
-			statePath.append("/");
-		} else {
-			statePath = new StringBuilder();
-		}
-		statePath.append(state.getName());
-		return statePath;
-	}
 }
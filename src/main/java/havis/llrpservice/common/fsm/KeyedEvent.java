@@ -0,0 +1,17 @@
+package havis.llrpservice.common.fsm;
+
+/**
+ * An event which provides a key for the look up of the connections of a
+ * state. Events with the same key (compared by identity) trigger the same
+ * connections. Thus a state graph can be shared by multiple FSMs which fire
+ * their own event instances.
+ */
+public interface KeyedEvent {
+
+	/**
+	 * Returns the key of the event.
+	 * 
+	 * @return
+	 */
+	Object getEventKey();
+}
@@ -0,0 +1,102 @@
+package havis.llrpservice.common.fsm;
+
+import java.util.AbstractList;
+
+/**
+ * A list with a fixed capacity. If the list is full then the oldest entry is
+ * overwritten by a new entry. Entries can only be appended.
+ *
+ * @param <E>
+ */
+class RingBuffer<E> extends AbstractList<E> {
+
+	private Object[] entries;
+	// index of the oldest entry
+	private int start;
+	private int size;
+
+	/**
+	 * @param capacity
+	 */
+	RingBuffer(int capacity) {
+		entries = new Object[Math.max(capacity, 0)];
+	}
+
+	int getCapacity() {
+		return entries.length;
+	}
+
+	/**
+	 * Changes the capacity. If the list is larger than the new capacity then
+	 * the oldest entries are removed.
+	 *
+	 * @param capacity
+	 * @return the number of removed entries
+	 */
+	int setCapacity(int capacity) {
+		capacity = Math.max(capacity, 0);
+		int removed = Math.max(size - capacity, 0);
+		Object[] newEntries = new Object[capacity];
+		int newSize = size - removed;
+		for (int i = 0; i < newSize; i++) {
+			newEntries[i] = entries[(start + removed + i) % entries.length];
+		}
+		entries = newEntries;
+		start = 0;
+		size = newSize;
+		return removed;
+	}
+
+	/**
+	 * Whether the list is full (a new entry replaces the oldest one).
+	 *
+	 * @return
+	 */
+	boolean isFull() {
+		return size == entries.length;
+	}
+
+	/**
+	 * Appends an entry. If the list is full then the oldest entry is removed.
+	 * If the capacity is 0 then the entry is ignored.
+	 */
+	@Override
+	public boolean add(E entry) {
+		if (entries.length == 0) {
+			return false;
+		}
+		if (size == entries.length) {
+			entries[start] = entry;
+			start = (start + 1) % entries.length;
+		} else {
+			entries[(start + size) % entries.length] = entry;
+			size++;
+		}
+		modCount++;
+		return true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public E get(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return (E) entries[(start + index) % entries.length];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < entries.length; i++) {
+			entries[i] = null;
+		}
+		start = 0;
+		size = 0;
+		modCount++;
+	}
+}
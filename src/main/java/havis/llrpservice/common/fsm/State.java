@@ -1,15 +1,25 @@
 package havis.llrpservice.common.fsm;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class State<TEvent> {
 
 	private final String name;
 	private final List<StateConnection<TEvent>> connections = new ArrayList<>();
+	// event key -> connections in the order they have been added (the keys
+	// are compared by identity)
+	private final Map<Object, List<StateConnection<TEvent>>> connectionsByEvent = new IdentityHashMap<>();
+	// whether a connection has been added for a KeyedEvent (the type check
+	// of each fired event is avoided for other states)
+	private boolean hasKeyedEvents;
 	private final List<Action<TEvent>> entryActions = new ArrayList<>();
 	private final List<Action<TEvent>> exitActions = new ArrayList<>();
 	private State<TEvent> parent;
+	private String path;
 
 	public State(String name) {
 		this.name = name;
@@ -40,10 +50,34 @@ public class State<TEvent> {
 		return name;
 	}
 
+	/**
+	 * Returns the state path from the top parent state to this state (eg.
+	 * <code>parentStateName/childStateName</code>).
+	 * 
+	 * @return
+	 */
+	public String getPath() {
+		if (path == null) {
+			path = parent == null ? name : parent.getPath() + "/" + name;
+		}
+		return path;
+	}
+
 	public State<TEvent> addConnection(TEvent event,
 			Transition<TEvent> transition, State<TEvent> destState) {
-		connections.add(new StateConnection<>(this, event, transition,
-				destState));
+		StateConnection<TEvent> connection = new StateConnection<>(this, event, transition,
+				destState);
+		connections.add(connection);
+		if (event instanceof KeyedEvent) {
+			hasKeyedEvents = true;
+		}
+		Object key = getKey(event);
+		List<StateConnection<TEvent>> eventConnections = connectionsByEvent.get(key);
+		if (eventConnections == null) {
+			eventConnections = new ArrayList<>(1);
+			connectionsByEvent.put(key, eventConnections);
+		}
+		eventConnections.add(connection);
 		return this;
 	}
 
@@ -51,6 +85,25 @@ public class State<TEvent> {
 		return connections;
 	}
 
+	/**
+	 * Returns the connections for an event in the order they have been added.
+	 * The events are compared by identity or by the key of a
+	 * {@link KeyedEvent}. The keys are only used if a connection has been
+	 * added for a {@link KeyedEvent}.
+	 * 
+	 * @param event
+	 * @return
+	 */
+	public List<StateConnection<TEvent>> getConnections(TEvent event) {
+		List<StateConnection<TEvent>> ret = connectionsByEvent
+				.get(hasKeyedEvents ? getKey(event) : event);
+		return ret == null ? Collections.<StateConnection<TEvent>> emptyList() : ret;
+	}
+
+	private Object getKey(TEvent event) {
+		return event instanceof KeyedEvent ? ((KeyedEvent) event).getEventKey() : event;
+	}
+
 	public State<TEvent> addEntryAction(Action<TEvent> action) {
 		entryActions.add(action);
 		return this;
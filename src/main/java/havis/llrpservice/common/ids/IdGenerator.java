@@ -1,13 +1,87 @@
 package havis.llrpservice.common.ids;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates identifiers which are unique within the process (e.g. for the
+ * headers of LLRP, RFC and GPIO messages).
+ * <p>
+ * The identifiers are allocated from an atomic counter without a lock, so the
+ * threads of the service instances do not serialize on a monitor. If a block
+ * size greater than <code>1</code> is set with the system property
+ * {@link #BLOCK_SIZE_PROPERTY} then each thread reserves a block of
+ * identifiers at once and allocates the identifiers of its block without
+ * accessing the shared counter. The identifiers are still unique but the
+ * identifiers of different threads are not ordered by their allocation time
+ * any longer and unused identifiers of a block are skipped.
+ * </p>
+ */
 public class IdGenerator {
-	private static long longId = 0;
 
-	public synchronized static long getNextLongId() {
-		return ++longId;
+	/**
+	 * Name of the system property for the number of identifiers a thread
+	 * reserves at once (default: <code>1</code>).
+	 */
+	public static final String BLOCK_SIZE_PROPERTY = "havis.llrpservice.server.idBlockSize";
+
+	private static final IdGenerator instance = new IdGenerator(
+			Integer.getInteger(BLOCK_SIZE_PROPERTY, 1));
+
+	private static class Block {
+		long next = 1;
+		long last = 0;
+		int generation;
+	}
+
+	private final int blockSize;
+	private final AtomicLong lastId = new AtomicLong();
+	// incremented with each reset to discard the blocks of the threads
+	private final AtomicInteger generation = new AtomicInteger();
+	private final ThreadLocal<Block> blocks = new ThreadLocal<Block>() {
+		@Override
+		protected Block initialValue() {
+			return new Block();
+		}
+	};
+
+	/**
+	 * @param blockSize
+	 *            the number of identifiers a thread reserves at once
+	 */
+	IdGenerator(int blockSize) {
+		this.blockSize = Math.max(blockSize, 1);
+	}
+
+	long getNextId() {
+		if (blockSize == 1) {
+			return lastId.incrementAndGet();
+		}
+		Block block = blocks.get();
+		int currentGeneration = generation.get();
+		if (block.next > block.last || block.generation != currentGeneration) {
+			block.last = lastId.addAndGet(blockSize);
+			block.next = block.last - blockSize + 1;
+			block.generation = currentGeneration;
+		}
+		return block.next++;
+	}
+
+	void reset() {
+		// the counter must be reset before the blocks are discarded
+		lastId.set(0);
+		generation.incrementAndGet();
+	}
+
+	public static long getNextLongId() {
+		return instance.getNextId();
 	}
 
-	public synchronized static void resetLongId() {
-		longId = 0;
+	/**
+	 * Resets the identifiers. Identifiers which have been allocated before are
+	 * allocated again.
+	 */
+	public static void resetLongId() {
+		instance.reset();
 	}
 }
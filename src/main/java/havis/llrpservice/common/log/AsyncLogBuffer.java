@@ -0,0 +1,311 @@
+package havis.llrpservice.common.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import havis.llrpservice.common.concurrent.NamedThreadFactory;
+
+/**
+ * A process wide ring buffer for log records of {@link AsyncLogger}s.
+ * <p>
+ * A record consists of structured fields (a pattern and up to four arguments)
+ * which are stored in pre-allocated slots. Any number of threads can add
+ * records without locking. A dedicated daemon thread (the worker) formats
+ * the records and passes them to the loggers. If the buffer is full then the
+ * record is dropped and a drop counter is incremented. The number of dropped
+ * records is logged as warning by the worker. A record which cannot be
+ * formatted or logged is skipped.
+ * </p>
+ * <p>
+ * The capacity can be set with the system property
+ * {@link #CAPACITY_PROPERTY}.
+ * </p>
+ */
+public class AsyncLogBuffer {
+
+	/**
+	 * Name of the system property for the number of records which can be
+	 * buffered. The value is rounded up to a power of two.
+	 */
+	public static final String CAPACITY_PROPERTY = "havis.llrpservice.server.asyncLogCapacity";
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	private static final Logger log = Logger.getLogger(AsyncLogBuffer.class.getName());
+
+	// in nanoseconds
+	private static final long MAX_IDLE_TIME = 100000000;
+
+	private static AsyncLogBuffer instance;
+
+	private final int mask;
+	// slot -> the position of the record which may be written (slot is free)
+	// or the position + 1 (slot contains a record)
+	private final AtomicLongArray sequences;
+	private final Logger[] loggers;
+	private final Level[] levels;
+	private final String[] patterns;
+	private final Object[] objectArgs0;
+	private final Object[] objectArgs1;
+	private final long[] longArgs2;
+	private final long[] longArgs3;
+	private final long[] millis;
+	// the position for the next record
+	private final AtomicLong tail = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	// the number of processed records
+	private volatile long head;
+	private volatile Thread worker;
+	private volatile boolean waiting;
+
+	/**
+	 * @param capacity
+	 *            the number of records which can be buffered
+	 */
+	AsyncLogBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		mask = size - 1;
+		sequences = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++) {
+			sequences.set(i, i);
+		}
+		loggers = new Logger[size];
+		levels = new Level[size];
+		patterns = new String[size];
+		objectArgs0 = new Object[size];
+		objectArgs1 = new Object[size];
+		longArgs2 = new long[size];
+		longArgs3 = new long[size];
+		millis = new long[size];
+	}
+
+	/**
+	 * Gets the process wide instance. The worker is started with the first
+	 * call.
+	 *
+	 * @return the buffer
+	 */
+	public static synchronized AsyncLogBuffer getInstance() {
+		if (instance == null) {
+			instance = new AsyncLogBuffer(Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+			instance.start();
+		}
+		return instance;
+	}
+
+	/**
+	 * Starts the worker which formats the records.
+	 */
+	void start() {
+		Thread thread = new NamedThreadFactory("llrp-async-log-").newThread(new Runnable() {
+
+			@Override
+			public void run() {
+				process();
+			}
+		});
+		worker = thread;
+		thread.start();
+	}
+
+	/**
+	 * Stops the worker. Records which have not been processed yet are not
+	 * logged.
+	 */
+	void stop() {
+		Thread thread = worker;
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * @return the number of records which can be buffered
+	 */
+	public int getCapacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * @return the number of records which have been dropped because the buffer
+	 *         was full
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	/**
+	 * Adds a record. The arguments are formatted by the worker thus the
+	 * objects must not be changed afterwards (eg. enumerations, strings or
+	 * channels).
+	 *
+	 * @param logger
+	 * @param level
+	 * @param pattern
+	 *            see {@link AsyncLogger#log(Level, String, Object, Object, long, long)}
+	 * @param arg0
+	 * @param arg1
+	 * @param arg2
+	 * @param arg3
+	 * @return <code>false</code> if the record has been dropped
+	 */
+	boolean add(Logger logger, Level level, String pattern, Object arg0, Object arg1, long arg2,
+			long arg3) {
+		long pos;
+		int slot;
+		while (true) {
+			pos = tail.get();
+			slot = (int) pos & mask;
+			long diff = sequences.get(slot) - pos;
+			if (diff == 0) {
+				if (tail.compareAndSet(pos, pos + 1)) {
+					break;
+				}
+			} else if (diff < 0) {
+				// the buffer is full
+				dropped.incrementAndGet();
+				return false;
+			}
+		}
+		loggers[slot] = logger;
+		levels[slot] = level;
+		patterns[slot] = pattern;
+		objectArgs0[slot] = arg0;
+		objectArgs1[slot] = arg1;
+		longArgs2[slot] = arg2;
+		longArgs3[slot] = arg3;
+		millis[slot] = System.currentTimeMillis();
+		// publish the record
+		sequences.set(slot, pos + 1);
+		if (waiting) {
+			LockSupport.unpark(worker);
+		}
+		return true;
+	}
+
+	/**
+	 * Waits until all records which have been added before the call are
+	 * passed to the loggers.
+	 *
+	 * @param timeout
+	 *            in milliseconds
+	 * @return <code>false</code> if the time out elapsed
+	 * @throws InterruptedException
+	 */
+	public boolean flush(long timeout) throws InterruptedException {
+		long end = System.currentTimeMillis() + timeout;
+		long pos = tail.get();
+		while (head < pos) {
+			if (System.currentTimeMillis() >= end) {
+				return false;
+			}
+			Thread.sleep(1);
+		}
+		return true;
+	}
+
+	/**
+	 * Processes the records until the thread is interrupted.
+	 */
+	void process() {
+		StringBuilder message = new StringBuilder();
+		long reportedDropped = 0;
+		while (!Thread.currentThread().isInterrupted()) {
+			long pos = head;
+			int slot = (int) pos & mask;
+			if (sequences.get(slot) != pos + 1) {
+				// the buffer is empty
+				long currentDropped = dropped.get();
+				if (currentDropped != reportedDropped) {
+					log.log(Level.WARNING, "Dropped " + (currentDropped - reportedDropped)
+							+ " log records because the buffer was full");
+					reportedDropped = currentDropped;
+				}
+				waiting = true;
+				// check again because a record may have been added before the
+				// flag was set
+				if (sequences.get(slot) != pos + 1) {
+					LockSupport.parkNanos(this, MAX_IDLE_TIME);
+				}
+				waiting = false;
+				continue;
+			}
+			Logger logger = loggers[slot];
+			LogRecord record = null;
+			try {
+				message.setLength(0);
+				// the arguments are formatted with "toString" which may fail
+				format(message, patterns[slot], objectArgs0[slot], objectArgs1[slot],
+						longArgs2[slot], longArgs3[slot]);
+				record = new LogRecord(levels[slot], message.toString());
+				record.setMillis(millis[slot]);
+				record.setLoggerName(logger.getName());
+				// the source cannot be determined by the worker
+				record.setSourceClassName(logger.getName());
+				record.setSourceMethodName(null);
+			} catch (RuntimeException e) {
+				log.log(Level.SEVERE, "Cannot format log record '" + patterns[slot] + "'", e);
+			} finally {
+				// release the slot
+				loggers[slot] = null;
+				levels[slot] = null;
+				patterns[slot] = null;
+				objectArgs0[slot] = null;
+				objectArgs1[slot] = null;
+				sequences.set(slot, pos + mask + 1);
+			}
+			if (record != null) {
+				try {
+					logger.log(record);
+				} catch (RuntimeException e) {
+					log.log(Level.SEVERE, "Cannot log record", e);
+				}
+			}
+			head = pos + 1;
+		}
+	}
+
+	/**
+	 * Replaces the place holders <code>{0}</code> to <code>{3}</code> of a
+	 * pattern with the arguments.
+	 *
+	 * @param dest
+	 * @param pattern
+	 * @param arg0
+	 * @param arg1
+	 * @param arg2
+	 * @param arg3
+	 */
+	static void format(StringBuilder dest, String pattern, Object arg0, Object arg1, long arg2,
+			long arg3) {
+		int length = pattern.length();
+		for (int i = 0; i < length; i++) {
+			char c = pattern.charAt(i);
+			if (c == '{' && i + 2 < length && pattern.charAt(i + 2) == '}') {
+				switch (pattern.charAt(i + 1)) {
+				case '0':
+					dest.append(arg0);
+					i += 2;
+					continue;
+				case '1':
+					dest.append(arg1);
+					i += 2;
+					continue;
+				case '2':
+					dest.append(arg2);
+					i += 2;
+					continue;
+				case '3':
+					dest.append(arg3);
+					i += 2;
+					continue;
+				default:
+				}
+			}
+			dest.append(c);
+		}
+	}
+}
@@ -0,0 +1,105 @@
+package havis.llrpservice.common.log;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Logs records of a {@link Logger} asynchronously via the
+ * {@link AsyncLogBuffer}. It is intended for log records which are written
+ * for each message on hot paths.
+ * <p>
+ * The asynchronous logging is enabled per subsystem with the system property
+ * {@link #LOGGERS_PROPERTY}. It contains a comma separated list of prefixes
+ * of logger names, eg.
+ * <code>havis.llrpservice.csc.llrp,havis.llrpservice.sbc</code>. For other
+ * loggers {@link #get(Logger)} returns <code>null</code> and the records are
+ * logged synchronously as before.
+ * </p>
+ * <p>
+ * The level of a record is checked by the calling thread. The message is
+ * formatted by the worker of the buffer.
+ * </p>
+ */
+public class AsyncLogger {
+
+	/**
+	 * Name of the system property with the comma separated prefixes of the
+	 * logger names for which the asynchronous logging is enabled (default:
+	 * asynchronous logging is disabled).
+	 */
+	public static final String LOGGERS_PROPERTY = "havis.llrpservice.server.asyncLoggers";
+
+	private final Logger logger;
+	private final AsyncLogBuffer buffer;
+
+	/**
+	 * @param logger
+	 * @param buffer
+	 */
+	AsyncLogger(Logger logger, AsyncLogBuffer buffer) {
+		this.logger = logger;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Gets an asynchronous logger for a logger if the asynchronous logging is
+	 * enabled for it (see {@link #LOGGERS_PROPERTY}).
+	 *
+	 * @param logger
+	 * @return The asynchronous logger or <code>null</code>
+	 */
+	public static AsyncLogger get(Logger logger) {
+		return isEnabled(logger.getName(), System.getProperty(LOGGERS_PROPERTY))
+				? new AsyncLogger(logger, AsyncLogBuffer.getInstance()) : null;
+	}
+
+	/**
+	 * @param loggerName
+	 * @param prefixes
+	 *            comma separated prefixes of logger names (optional)
+	 * @return <code>true</code> if the logger name starts with a prefix
+	 */
+	static boolean isEnabled(String loggerName, String prefixes) {
+		if (prefixes == null) {
+			return false;
+		}
+		for (String prefix : prefixes.split(",")) {
+			prefix = prefix.trim();
+			if (!prefix.isEmpty() && loggerName.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return the logger
+	 */
+	public Logger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * Logs a record asynchronously if the level is enabled for the logger.
+	 * <p>
+	 * The place holders <code>{0}</code> to <code>{3}</code> of the pattern are
+	 * replaced with the arguments when the record is formatted. The object
+	 * arguments are converted with {@link Object#toString()} at that time.
+	 * Thus they must not be changed after the call. The long arguments do not
+	 * need to be boxed.
+	 * </p>
+	 *
+	 * @param level
+	 * @param pattern
+	 * @param arg0
+	 * @param arg1
+	 * @param arg2
+	 * @param arg3
+	 */
+	public void log(Level level, String pattern, Object arg0, Object arg1, long arg2,
+			long arg3) {
+		if (logger.isLoggable(level)) {
+			buffer.add(logger, level, pattern, arg0, arg1, arg2, arg3);
+		}
+	}
+}
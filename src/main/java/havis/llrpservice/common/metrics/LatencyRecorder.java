@@ -0,0 +1,165 @@
+package havis.llrpservice.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Records latencies in nanoseconds. The recording does not allocate memory and
+ * is thread safe.
+ * <p>
+ * The latencies are counted in a histogram for the calculation of percentiles.
+ * Each power of two is divided into {@value #SUB_BUCKET_COUNT} buckets. Thus a
+ * percentile differs by less than 12.5% from the exact value.
+ * </p>
+ */
+public class LatencyRecorder {
+
+	// the number of buckets per power of two
+	private static final int SUB_BUCKET_COUNT = 8;
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(
+			(Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong last = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a latency.
+	 *
+	 * @param latency
+	 *            in nanoseconds
+	 */
+	public void record(long latency) {
+		if (latency < 0) {
+			latency = 0;
+		}
+		count.incrementAndGet();
+		buckets.incrementAndGet(getBucketIndex(latency));
+		total.addAndGet(latency);
+		last.set(latency);
+		long currentMax = max.get();
+		while (latency > currentMax && !max.compareAndSet(currentMax, latency)) {
+			currentMax = max.get();
+		}
+	}
+
+	/**
+	 * Records the latency between a start time and the current time.
+	 *
+	 * @param startTime
+	 *            the start time provided by {@link System#nanoTime()}
+	 */
+	public void recordSince(long startTime) {
+		record(System.nanoTime() - startTime);
+	}
+
+	/**
+	 * @return the number of recorded latencies
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * @return the latest latency in nanoseconds
+	 */
+	public long getLast() {
+		return last.get();
+	}
+
+	/**
+	 * @return the maximum latency in nanoseconds
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * @return the mean latency in nanoseconds
+	 */
+	public long getMean() {
+		long c = count.get();
+		return c == 0 ? 0 : total.get() / c;
+	}
+
+	/**
+	 * Gets a percentile of the recorded latencies. The returned value is the
+	 * upper bound of the histogram bucket containing the percentile but not
+	 * more than the maximum latency.
+	 *
+	 * @param percentile
+	 *            between 0 and 100 (eg. 50 for the median)
+	 * @return the percentile in nanoseconds
+	 */
+	public long getPercentile(double percentile) {
+		long c = 0;
+		for (int i = 0; i < buckets.length(); i++) {
+			c += buckets.get(i);
+		}
+		if (c == 0) {
+			return 0;
+		}
+		long rank = (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * c);
+		if (rank < 1) {
+			rank = 1;
+		}
+		long currentMax = max.get();
+		long sum = 0;
+		for (int i = 0; i < buckets.length(); i++) {
+			sum += buckets.get(i);
+			if (sum >= rank) {
+				return Math.min(getBucketUpperBound(i), currentMax);
+			}
+		}
+		return currentMax;
+	}
+
+	/**
+	 * Resets all values.
+	 */
+	public void reset() {
+		count.set(0);
+		total.set(0);
+		last.set(0);
+		max.set(0);
+		for (int i = 0; i < buckets.length(); i++) {
+			buckets.set(i, 0);
+		}
+	}
+
+	/**
+	 * Gets the index of the histogram bucket for a latency.
+	 *
+	 * @param latency
+	 *            a positive latency
+	 * @return the bucket index
+	 */
+	static int getBucketIndex(long latency) {
+		if (latency < SUB_BUCKET_COUNT) {
+			return (int) latency;
+		}
+		// the position of the highest bit (>= SUB_BUCKET_BITS)
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(latency);
+		int subBucket = (int) (latency >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	/**
+	 * Gets the highest latency of a histogram bucket.
+	 *
+	 * @param index
+	 * @return the latency
+	 */
+	static long getBucketUpperBound(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+		long subBucket = index % SUB_BUCKET_COUNT;
+		long upperBound = ((SUB_BUCKET_COUNT + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+		// the last bucket ends with the largest long value
+		return upperBound < 0 ? Long.MAX_VALUE : upperBound;
+	}
+}
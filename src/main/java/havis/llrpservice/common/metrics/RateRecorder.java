@@ -0,0 +1,73 @@
+package havis.llrpservice.common.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records amounts (eg. a number of events or a time in nanoseconds) and
+ * calculates the amount per second. The rate is calculated for the latest
+ * completed interval of at least one second. The recording does not allocate
+ * memory and is thread safe.
+ */
+public class RateRecorder {
+
+	private static final long INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+	private final AtomicLong total = new AtomicLong();
+	// the start time of the current interval
+	private final AtomicLong intervalStart = new AtomicLong(System.nanoTime());
+	// the total at the start of the current interval
+	private volatile long intervalStartTotal;
+	private volatile double rate;
+
+	/**
+	 * Records an amount.
+	 *
+	 * @param amount
+	 */
+	public void record(long amount) {
+		total.addAndGet(amount);
+		update(System.nanoTime());
+	}
+
+	/**
+	 * @return the sum of all recorded amounts
+	 */
+	public long getTotal() {
+		return total.get();
+	}
+
+	/**
+	 * @return the amount per second
+	 */
+	public double getRate() {
+		update(System.nanoTime());
+		return rate;
+	}
+
+	/**
+	 * Resets all values.
+	 */
+	public void reset() {
+		total.set(0);
+		intervalStartTotal = 0;
+		intervalStart.set(System.nanoTime());
+		rate = 0;
+	}
+
+	/**
+	 * Completes the current interval if it is older than one second.
+	 *
+	 * @param now
+	 */
+	private void update(long now) {
+		long start = intervalStart.get();
+		long elapsed = now - start;
+		// only one thread completes the interval
+		if (elapsed >= INTERVAL && intervalStart.compareAndSet(start, now)) {
+			long currentTotal = total.get();
+			rate = (double) (currentTotal - intervalStartTotal) * INTERVAL / elapsed;
+			intervalStartTotal = currentTotal;
+		}
+	}
+}
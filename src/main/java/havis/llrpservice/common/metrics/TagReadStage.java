@@ -0,0 +1,41 @@
+package havis.llrpservice.common.metrics;
+
+/**
+ * The stages of tag reads on the way from the RF controller to the LLRP
+ * client (see {@link TagReadTracer}).
+ */
+public enum TagReadStage {
+	/**
+	 * The execution of the RF controller has returned the tag reads.
+	 */
+	EXECUTED,
+	/**
+	 * The RFC message handler has received the execute response.
+	 */
+	RFC_RECEIVED,
+	/**
+	 * The service instance has taken the execute response from the event
+	 * queue.
+	 */
+	DEQUEUED,
+	/**
+	 * The tag reports have been created.
+	 */
+	REPORT_CREATED,
+	/**
+	 * The report has been added to the ROAccessReport depot.
+	 */
+	STORED,
+	/**
+	 * The report has been removed from the depot for sending.
+	 */
+	TRIGGERED,
+	/**
+	 * The ROAccessReport has been queued for sending.
+	 */
+	SEND_REQUESTED,
+	/**
+	 * The last part of the ROAccessReport has been sent.
+	 */
+	SENT
+}
@@ -0,0 +1,79 @@
+package havis.llrpservice.common.metrics;
+
+/**
+ * The time stamps of sampled tag reads at the stages of the way from the RF
+ * controller to the LLRP client. A trace is created by
+ * {@link TagReadTracer#startTrace()}.
+ * <p>
+ * The stages must be stamped in their order. A stage may be skipped (eg. if
+ * a report is sent without being stored). The stamping of a stage does not
+ * allocate memory. The stages are stamped one after the other by the threads
+ * passing the tag reads to each other.
+ * </p>
+ */
+public class TagReadTrace {
+
+	private final TagReadTracer tracer;
+	// stage ordinal -> monotonic time stamp in nanoseconds (0 if not stamped)
+	private final long[] timestamps = new long[TagReadStage.values().length];
+	private volatile int lastStage;
+
+	/**
+	 * @param tracer
+	 * @param executedTime
+	 *            the time stamp of stage {@link TagReadStage#EXECUTED} provided
+	 *            by {@link System#nanoTime()}
+	 */
+	TagReadTrace(TagReadTracer tracer, long executedTime) {
+		this.tracer = tracer;
+		timestamps[TagReadStage.EXECUTED.ordinal()] = executedTime;
+		lastStage = TagReadStage.EXECUTED.ordinal();
+	}
+
+	/**
+	 * Stamps a stage with the current time. The latency since the previous
+	 * stamped stage is recorded by the tracer. A stage which is not behind the
+	 * last stamped stage is ignored.
+	 *
+	 * @param stage
+	 */
+	public void stamp(TagReadStage stage) {
+		int last = lastStage;
+		int current = stage.ordinal();
+		if (current <= last) {
+			return;
+		}
+		long now = System.nanoTime();
+		timestamps[current] = now;
+		lastStage = current;
+		tracer.recordStage(stage, now - timestamps[last]);
+		if (stage == TagReadStage.SENT) {
+			tracer.complete(this);
+		}
+	}
+
+	/**
+	 * @param stage
+	 * @return the time stamp of the stage in nanoseconds or <code>0</code> if
+	 *         the stage has not been stamped
+	 */
+	public long getTimestamp(TagReadStage stage) {
+		return timestamps[stage.ordinal()];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder ret = new StringBuilder("TagReadTrace [");
+		long executed = timestamps[TagReadStage.EXECUTED.ordinal()];
+		for (TagReadStage stage : TagReadStage.values()) {
+			long timestamp = timestamps[stage.ordinal()];
+			if (timestamp != 0) {
+				if (stage != TagReadStage.EXECUTED) {
+					ret.append(", ");
+				}
+				ret.append(stage).append('=').append(timestamp - executed);
+			}
+		}
+		return ret.append(']').toString();
+	}
+}
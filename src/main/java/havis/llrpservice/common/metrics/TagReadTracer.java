@@ -0,0 +1,238 @@
+package havis.llrpservice.common.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import havis.llrpservice.common.concurrent.SharedExecutor;
+
+/**
+ * Traces a sampled subset of tag reads on the way from the RF controller to
+ * the LLRP client (see {@link TagReadStage}).
+ * <p>
+ * Every n-th execution of the RF controller with tag reads is traced (see
+ * {@link #SAMPLE_INTERVAL_PROPERTY}). The latencies between the stages are
+ * recorded per stage with {@link LatencyRecorder}s. The latencies of
+ * completed traces can also be appended to a file (see
+ * {@link #FILE_PROPERTY}). The file is written by the workers of the shared
+ * executor.
+ * </p>
+ * <p>
+ * Without sampling the tracer neither allocates memory nor measures time.
+ * </p>
+ */
+public class TagReadTracer {
+
+	/**
+	 * Name of the system property for the sample interval: every n-th
+	 * execution response with tag reads is traced (default: <code>0</code> =
+	 * tracing is disabled).
+	 */
+	public static final String SAMPLE_INTERVAL_PROPERTY = "havis.llrpservice.server.tagReadTraceSampleInterval";
+
+	/**
+	 * Name of the system property for the path to a CSV file. The latencies
+	 * of completed traces are appended to the file (default: no file).
+	 */
+	public static final String FILE_PROPERTY = "havis.llrpservice.server.tagReadTraceFile";
+
+	private static final Logger log = Logger.getLogger(TagReadTracer.class.getName());
+
+	// the lock for writing to the trace files of all tracers
+	private static final Object fileLock = new Object();
+
+	private final String name;
+	private final int sampleInterval;
+	private final Path file;
+	private final AtomicLong executionCount = new AtomicLong();
+	// stage ordinal -> latencies since the previous stamped stage
+	private final LatencyRecorder[] stageLatencies = new LatencyRecorder[TagReadStage
+			.values().length];
+	// the latencies from the execution until the sending
+	private final LatencyRecorder totalLatency = new LatencyRecorder();
+	// message id -> traces of the tag reads which are sent with the message
+	private final Map<Long, List<TagReadTrace>> sendingTraces = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a tracer using the system properties
+	 * {@link #SAMPLE_INTERVAL_PROPERTY} and {@link #FILE_PROPERTY}.
+	 *
+	 * @param name
+	 *            the name of the tracer (eg. the instance identifier) which is
+	 *            written to the trace file
+	 */
+	public TagReadTracer(String name) {
+		this(name, Integer.getInteger(SAMPLE_INTERVAL_PROPERTY, 0),
+				System.getProperty(FILE_PROPERTY) == null ? null
+						: Paths.get(System.getProperty(FILE_PROPERTY)));
+	}
+
+	/**
+	 * @param name
+	 *            the name of the tracer which is written to the trace file
+	 * @param sampleInterval
+	 *            every n-th execution with tag reads is traced (
+	 *            <code>0</code>: tracing is disabled)
+	 * @param file
+	 *            the trace file (optional)
+	 */
+	public TagReadTracer(String name, int sampleInterval, Path file) {
+		this.name = name;
+		this.sampleInterval = Math.max(sampleInterval, 0);
+		this.file = file;
+		for (int i = 0; i < stageLatencies.length; i++) {
+			stageLatencies[i] = new LatencyRecorder();
+		}
+	}
+
+	/**
+	 * @return the sample interval (<code>0</code> if tracing is disabled)
+	 */
+	public int getSampleInterval() {
+		return sampleInterval;
+	}
+
+	/**
+	 * Starts a trace for tag reads which have been returned by an execution
+	 * of the RF controller if the execution is sampled.
+	 *
+	 * @return the trace or <code>null</code> if the execution is not sampled
+	 */
+	public TagReadTrace startTrace() {
+		if (sampleInterval == 0 || executionCount.incrementAndGet() % sampleInterval != 0) {
+			return null;
+		}
+		return new TagReadTrace(this, System.nanoTime());
+	}
+
+	/**
+	 * Stamps the traces of tag reads with stage
+	 * {@link TagReadStage#SEND_REQUESTED}. The traces are stamped with
+	 * {@link TagReadStage#SENT} when the message has been sent (see
+	 * {@link #sent(long)}).
+	 * <p>
+	 * The method must be called before the sending of the message is
+	 * requested.
+	 * </p>
+	 *
+	 * @param messageId
+	 *            the identifier of the message containing the tag reads
+	 * @param traces
+	 */
+	public void sending(long messageId, List<TagReadTrace> traces) {
+		if (traces.isEmpty()) {
+			return;
+		}
+		for (TagReadTrace trace : traces) {
+			trace.stamp(TagReadStage.SEND_REQUESTED);
+		}
+		sendingTraces.put(messageId, traces);
+	}
+
+	/**
+	 * Stamps the traces of the tag reads of a sent message with stage
+	 * {@link TagReadStage#SENT}.
+	 *
+	 * @param messageId
+	 */
+	public void sent(long messageId) {
+		if (sendingTraces.isEmpty()) {
+			return;
+		}
+		List<TagReadTrace> traces = sendingTraces.remove(messageId);
+		if (traces != null) {
+			for (TagReadTrace trace : traces) {
+				trace.stamp(TagReadStage.SENT);
+			}
+		}
+	}
+
+	/**
+	 * Removes the traces of messages which have not been sent yet (eg. after
+	 * the connection to the LLRP client has been closed).
+	 */
+	public void clear() {
+		sendingTraces.clear();
+	}
+
+	/**
+	 * Gets the latencies of a stage since the previous stamped stage.
+	 *
+	 * @param stage
+	 * @return The recorder
+	 */
+	public LatencyRecorder getStageLatency(TagReadStage stage) {
+		return stageLatencies[stage.ordinal()];
+	}
+
+	/**
+	 * Gets the latencies of completed traces from the execution until the
+	 * sending.
+	 *
+	 * @return The recorder
+	 */
+	public LatencyRecorder getTotalLatency() {
+		return totalLatency;
+	}
+
+	void recordStage(TagReadStage stage, long latency) {
+		stageLatencies[stage.ordinal()].record(latency);
+	}
+
+	void complete(final TagReadTrace trace) {
+		totalLatency.record(
+				trace.getTimestamp(TagReadStage.SENT) - trace.getTimestamp(TagReadStage.EXECUTED));
+		if (file == null) {
+			return;
+		}
+		SharedExecutor.getInstance().submit(new Runnable() {
+
+			@Override
+			public void run() {
+				write(trace);
+			}
+		});
+	}
+
+	/**
+	 * Appends a line with the latencies of a trace to the trace file. A header
+	 * line is written to a new file.
+	 *
+	 * @param trace
+	 */
+	private void write(TagReadTrace trace) {
+		StringBuilder line = new StringBuilder(name);
+		long executed = trace.getTimestamp(TagReadStage.EXECUTED);
+		for (TagReadStage stage : TagReadStage.values()) {
+			long timestamp = trace.getTimestamp(stage);
+			// the latency since the execution in microseconds
+			line.append(';').append(timestamp == 0 ? "" : (timestamp - executed) / 1000);
+		}
+		line.append(System.lineSeparator());
+		synchronized (fileLock) {
+			try {
+				if (!Files.exists(file)) {
+					StringBuilder header = new StringBuilder("name");
+					for (TagReadStage stage : TagReadStage.values()) {
+						header.append(';').append(stage);
+					}
+					header.append(System.lineSeparator());
+					line.insert(0, header);
+				}
+				Files.write(file, line.toString().getBytes(StandardCharsets.UTF_8),
+						StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			} catch (IOException e) {
+				log.log(Level.SEVERE, "Cannot write tag read trace to " + file, e);
+			}
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package havis.llrpservice.common.serializer;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jibx.runtime.BindingDirectory;
+import org.jibx.runtime.IBindingFactory;
+import org.jibx.runtime.IMarshallingContext;
+import org.jibx.runtime.IUnmarshallingContext;
+import org.jibx.runtime.JiBXException;
+
+/**
+ * Process wide pool of JiBX marshalling and unmarshalling contexts for a bound
+ * class.
+ * <p>
+ * The binding factory of a class is looked up once. The contexts are not
+ * thread safe: a context is acquired for a single marshalling or unmarshalling
+ * operation and released afterwards. Up to {@link #MAX_IDLE_CONTEXTS} released
+ * contexts of each type are kept for reuse.
+ * </p>
+ */
+class JiBXContextPool {
+
+	static final int MAX_IDLE_CONTEXTS = 16;
+
+	// bound class -> pool
+	private static final Map<Class<?>, JiBXContextPool> pools = new ConcurrentHashMap<>();
+
+	private final IBindingFactory factory;
+	private final Queue<IMarshallingContext> marshallingContexts = new ArrayBlockingQueue<>(
+			MAX_IDLE_CONTEXTS);
+	private final Queue<IUnmarshallingContext> unmarshallingContexts = new ArrayBlockingQueue<>(
+			MAX_IDLE_CONTEXTS);
+
+	private JiBXContextPool(IBindingFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Gets the pool for a bound class.
+	 * 
+	 * @param clazz
+	 * @return
+	 * @throws JiBXException
+	 *             the class is not bound
+	 */
+	static JiBXContextPool get(Class<?> clazz) throws JiBXException {
+		JiBXContextPool pool = pools.get(clazz);
+		if (pool == null) {
+			pool = new JiBXContextPool(BindingDirectory.getFactory(clazz));
+			JiBXContextPool existingPool = pools.putIfAbsent(clazz, pool);
+			if (existingPool != null) {
+				pool = existingPool;
+			}
+		}
+		return pool;
+	}
+
+	IBindingFactory getFactory() {
+		return factory;
+	}
+
+	IMarshallingContext acquireMarshallingContext() throws JiBXException {
+		IMarshallingContext ctx = marshallingContexts.poll();
+		return ctx == null ? factory.createMarshallingContext() : ctx;
+	}
+
+	void release(IMarshallingContext ctx) {
+		// remove the references to the output and the marshalled objects
+		ctx.reset();
+		marshallingContexts.offer(ctx);
+	}
+
+	IUnmarshallingContext acquireUnmarshallingContext() throws JiBXException {
+		IUnmarshallingContext ctx = unmarshallingContexts.poll();
+		return ctx == null ? factory.createUnmarshallingContext() : ctx;
+	}
+
+	void release(IUnmarshallingContext ctx) {
+		// remove the references to the input and the unmarshalled objects
+		ctx.reset();
+		unmarshallingContexts.offer(ctx);
+	}
+
+	/**
+	 * Removes all idle contexts.
+	 */
+	void clear() {
+		marshallingContexts.clear();
+		unmarshallingContexts.clear();
+	}
+}
@@ -0,0 +1,75 @@
+package havis.llrpservice.common.serializer;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.XMLConstants;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Process wide cache of compiled XML schemas.
+ * <p>
+ * The schemas are identified by the absolute path and the modification time
+ * of the XSD file. A schema is compiled again if the XSD file has been
+ * modified. Modifications of included or imported XSD files are not detected.
+ * </p>
+ * <p>
+ * {@link Schema} objects are immutable and thread safe, so a schema can be
+ * shared by all serializers.
+ * </p>
+ */
+class XMLSchemaCache {
+
+	private static class Entry {
+		final long lastModified;
+		final Schema schema;
+
+		Entry(long lastModified, Schema schema) {
+			this.lastModified = lastModified;
+			this.schema = schema;
+		}
+	}
+
+	// absolute path of XSD file -> compiled schema
+	private static final Map<String, Entry> schemas = new ConcurrentHashMap<>();
+
+	/**
+	 * Gets the compiled schema for a XSD file. The schema is compiled if it
+	 * does not exist in the cache or if the file has been modified.
+	 * 
+	 * @param xsdFile
+	 * @return
+	 * @throws SAXException
+	 */
+	static Schema get(File xsdFile) throws SAXException {
+		String path = xsdFile.getAbsolutePath();
+		long lastModified = xsdFile.lastModified();
+		Entry entry = schemas.get(path);
+		if (entry != null && entry.lastModified == lastModified) {
+			return entry.schema;
+		}
+		synchronized (XMLSchemaCache.class) {
+			// the schema may have been compiled by another thread meanwhile
+			entry = schemas.get(path);
+			if (entry == null || entry.lastModified != lastModified) {
+				// a schema factory is not thread safe
+				SchemaFactory factory = SchemaFactory
+						.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+				entry = new Entry(lastModified, factory.newSchema(xsdFile));
+				schemas.put(path, entry);
+			}
+			return entry.schema;
+		}
+	}
+
+	/**
+	 * Removes all schemas.
+	 */
+	static void clear() {
+		schemas.clear();
+	}
+}
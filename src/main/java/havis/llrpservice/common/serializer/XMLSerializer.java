@@ -8,16 +8,12 @@ import java.io.StringWriter;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
-import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.sax.SAXSource;
 import javax.xml.validation.Schema;
-import javax.xml.validation.SchemaFactory;
 
-import org.jibx.runtime.BindingDirectory;
-import org.jibx.runtime.IBindingFactory;
 import org.jibx.runtime.IMarshallingContext;
 import org.jibx.runtime.IUnmarshallingContext;
 import org.jibx.runtime.JiBXException;
@@ -34,6 +30,11 @@ import org.xml.sax.SAXParseException;
 
 /**
  * Provides the serialization/deserialization of objects in XML format.
+ * <p>
+ * The compiled schemas and the JiBX marshalling/unmarshalling contexts are
+ * shared by all serializers of the process (see {@link XMLSchemaCache} and
+ * {@link JiBXContextPool}).
+ * </p>
  */
 public class XMLSerializer<T> implements Serializable {
 	private static final long serialVersionUID = -6643155452416709683L;
@@ -56,8 +57,7 @@ public class XMLSerializer<T> implements Serializable {
 	/**
 	 * marshalling/unmarshalling variables
 	 */
-	private final IBindingFactory bFact;
-	private final IMarshallingContext mctx;
+	private final JiBXContextPool contextPool;
 
 	/**
 	 * Set the charset to be used.
@@ -81,7 +81,8 @@ public class XMLSerializer<T> implements Serializable {
 
 	/**
 	 * Set a schema for xsd validation. If set to null, validation will be
-	 * deactivated
+	 * deactivated. The compiled schema is taken from a process wide cache if
+	 * the XSD file has not been modified.
 	 * 
 	 * @param xsdFile
 	 *            XSD-File
@@ -89,24 +90,21 @@ public class XMLSerializer<T> implements Serializable {
 	 */
 	public void setSchema(File xsdFile) throws SAXException {
 		if (xsdFile != null) {
-			SchemaFactory factory = SchemaFactory
-					.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-			schema = factory.newSchema(xsdFile);
+			schema = XMLSchemaCache.get(xsdFile);
 		} else {
 			schema = null;
 		}
 	}
 
 	/**
-	 * Initialize the serializer with special class type and create the
-	 * marshalling object for that class type
+	 * Initialize the serializer with special class type and get the pool of
+	 * marshalling objects for that class type
 	 * 
 	 * @param clazz
 	 * @throws JiBXException
 	 */
 	public XMLSerializer(Class<T> clazz) throws JiBXException {
-		bFact = BindingDirectory.getFactory(clazz);
-		mctx = bFact.createMarshallingContext();
+		contextPool = JiBXContextPool.get(clazz);
 	}
 
 	/**
@@ -127,7 +125,10 @@ public class XMLSerializer<T> implements Serializable {
 		if (obj != null) {
 			StringWriter stringWriter = new StringWriter();
 			// Marshalling with encoding
+			IMarshallingContext mctx = contextPool.acquireMarshallingContext();
 			mctx.marshalDocument(obj, charset.name(), null, stringWriter);
+			// a context is only reused after a successful marshalling
+			contextPool.release(mctx);
 
 			// if pretty print feature is activated
 			if (prettyPrint) {
@@ -171,12 +172,14 @@ public class XMLSerializer<T> implements Serializable {
 				}
 
 			}
-			IUnmarshallingContext lUnmarshallingContext = bFact
-					.createUnmarshallingContext();
-
+			IUnmarshallingContext lUnmarshallingContext = contextPool
+					.acquireUnmarshallingContext();
 			// Unmarshalling
-			return (T) lUnmarshallingContext.unmarshalDocument(
+			T result = (T) lUnmarshallingContext.unmarshalDocument(
 					new StringReader(xml), charset.name());
+			// a context is only reused after a successful unmarshalling
+			contextPool.release(lUnmarshallingContext);
+			return result;
 		}
 		return null;
 	}
@@ -1,5 +1,6 @@
 package havis.llrpservice.csc.llrp;
 
+import havis.llrpservice.common.log.AsyncLogger;
 import havis.llrpservice.common.serializer.JsonSerializer;
 import havis.llrpservice.common.tcp.TCPConnectorStoppedException;
 import havis.llrpservice.common.tcp.TCPTimeoutException;
@@ -25,6 +26,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -36,6 +38,8 @@ abstract class AbstractLLRPConnectorMultiplexed {
 
 	private final static Logger log = Logger
 			.getLogger(AbstractLLRPConnectorMultiplexed.class.getName());
+	// the logger for the messages (null if the logging is synchronous)
+	private final static AsyncLogger asyncLog = AsyncLogger.get(log);
 
 	public static final int NO_TIMEOUT = -1;
 	public static final int RETURN_IMMEDIATELY = 0;
@@ -43,6 +47,15 @@ abstract class AbstractLLRPConnectorMultiplexed {
 	private final Object dataLock = new Object();
 	private LLRPMessageCreator messageCreator = new LLRPMessageCreator();
 	private Map<SelectableChannel, List<ByteBuffer>> receivedData = new HashMap<>();
+	// the number of sent and received bytes of all channels
+	private final AtomicLong sentBytes = new AtomicLong();
+	private final AtomicLong receivedBytes = new AtomicLong();
+	// the capture for the sent and received frames (optional)
+	private volatile LLRPWireCapture capture;
+
+	AbstractLLRPConnectorMultiplexed() {
+		setCapture(LLRPWireCapture.getInstance());
+	}
 
 	class LLRPEventHandlerBridge implements LLRPEventHandler {
 
@@ -93,6 +106,10 @@ abstract class AbstractLLRPConnectorMultiplexed {
 				if (llrpData != null) {
 					data.add(0, llrpData);
 				}
+				LLRPWireCapture c = capture;
+				if (c != null) {
+					c.removeChannel(channel);
+				}
 				// prepend data to pending received data
 				int size = 0;
 				for (ByteBuffer d : data) {
@@ -164,16 +181,27 @@ abstract class AbstractLLRPConnectorMultiplexed {
 		ByteBuffer data = ByteBuffer.allocate((int) serializer.getLength(message));
 		serializer.serialize(message, data);
 		data.flip();
+		int length = data.remaining();
+		LLRPWireCapture c = capture;
+		if (c != null) {
+			c.sent(channel, data);
+		}
 		// send message
 		try {
 			tcpRequestSendingData(channel, data);
 		} catch (TCPUnknownChannelException e) {
 			throw new LLRPUnknownChannelException(e);
 		}
+		sentBytes.addAndGet(length);
 		if (log.isLoggable(Level.INFO)) {
 			MessageHeader header = message.getMessageHeader();
-			log.log(Level.INFO, channel + ": Sending " + header.getMessageType() + " (id="
-					+ header.getId() + ", " + header.getMessageLength() + " bytes)");
+			if (asyncLog != null) {
+				asyncLog.log(Level.INFO, "{0}: Sending {1} (id={2}, {3} bytes)", channel,
+						header.getMessageType(), header.getId(), header.getMessageLength());
+			} else {
+				log.log(Level.INFO, channel + ": Sending " + header.getMessageType() + " (id="
+						+ header.getId() + ", " + header.getMessageLength() + " bytes)");
+			}
 		}
 		if (log.isLoggable(Level.FINE)) {
 			log.log(Level.FINE, message.toString());
@@ -183,6 +211,57 @@ abstract class AbstractLLRPConnectorMultiplexed {
 
 	}
 
+	/**
+	 * Requests the sending of a serialized message to a channel (see
+	 * {@link #requestSendingData(SocketChannel, Message)}).
+	 * <p>
+	 * The message is not serialized again. Only the message identifier and
+	 * the time stamp are replaced in a copy of the serialized data.
+	 * </p>
+	 * 
+	 * @param channel
+	 * @param template
+	 * @param id
+	 *            the message identifier
+	 * @param timestamp
+	 *            the time stamp in microseconds (see
+	 *            {@link LLRPMessageTemplate#createData(long, long)})
+	 * @throws LLRPUnknownChannelException
+	 * @throws TCPConnectorStoppedException
+	 */
+	public void requestSendingData(SocketChannel channel, LLRPMessageTemplate template, long id,
+			long timestamp) throws LLRPUnknownChannelException, TCPConnectorStoppedException {
+		ByteBuffer data = template.createData(id, timestamp);
+		LLRPWireCapture c = capture;
+		if (c != null) {
+			c.sent(channel, data);
+		}
+		// send message
+		try {
+			tcpRequestSendingData(channel, data);
+		} catch (TCPUnknownChannelException e) {
+			throw new LLRPUnknownChannelException(e);
+		}
+		sentBytes.addAndGet(template.getLength());
+		if (log.isLoggable(Level.INFO)) {
+			if (asyncLog != null) {
+				asyncLog.log(Level.INFO, "{0}: Sending {1} (id={2}, {3} bytes, template)", channel,
+						template.getMessage().getMessageHeader().getMessageType(), id,
+						template.getLength());
+			} else {
+				log.log(Level.INFO, channel + ": Sending " + template.getMessage()
+						.getMessageHeader().getMessageType() + " (id=" + id + ", "
+						+ template.getLength() + " bytes, template)");
+			}
+		}
+		if (log.isLoggable(Level.FINE)) {
+			// the message contains the identifier + time stamp of the template
+			log.log(Level.FINE, template.getMessage().toString());
+		}
+
+		tracing(template.getMessage());
+	}
+
 	private void tracing(Message message) {
 		if (log.isLoggable(Level.FINER)) {
 			JsonSerializer jsonSerializer = new JsonSerializer(Message.class);
@@ -239,10 +318,18 @@ abstract class AbstractLLRPConnectorMultiplexed {
 						// move data from the data list to the message creator
 						Message message = messageCreator.append(channel, data);
 						if (message != null) {
+							receivedBytes.addAndGet(message.getMessageHeader().getMessageLength());
 							if (log.isLoggable(Level.INFO)) {
 								MessageHeader header = message.getMessageHeader();
-								log.log(Level.INFO, channel + ": Received "
-										+ header.getMessageType() + " (id=" + header.getId() + ")");
+								if (asyncLog != null) {
+									asyncLog.log(Level.INFO, "{0}: Received {1} (id={2})", channel,
+											header.getMessageType(), header.getId(),
+											0 /* arg3 */);
+								} else {
+									log.log(Level.INFO, channel + ": Received "
+											+ header.getMessageType() + " (id=" + header.getId()
+											+ ")");
+								}
 							}
 							if (log.isLoggable(Level.FINE)) {
 								log.log(Level.FINE, message.toString());
@@ -293,6 +380,39 @@ abstract class AbstractLLRPConnectorMultiplexed {
 		}
 	}
 
+	/**
+	 * Sets a capture for the frames which are sent to and received from all
+	 * channels. By default the process wide capture is used (see
+	 * {@link LLRPWireCapture#getInstance()}).
+	 * 
+	 * @param capture
+	 *            the capture or <code>null</code> to disable the capturing
+	 */
+	public void setCapture(LLRPWireCapture capture) {
+		this.capture = capture;
+		messageCreator.setCapture(capture);
+	}
+
+	/**
+	 * Gets the number of bytes which have been requested to be sent to all
+	 * channels.
+	 * 
+	 * @return The number of sent bytes
+	 */
+	public long getSentBytes() {
+		return sentBytes.get();
+	}
+
+	/**
+	 * Gets the number of bytes of the LLRP messages which have been received
+	 * from all channels.
+	 * 
+	 * @return The number of received bytes
+	 */
+	public long getReceivedBytes() {
+		return receivedBytes.get();
+	}
+
 	abstract void tcpRequestOpeningChannel(String host, int port, TCP2LLRPEventHandler eventHandler)
 			throws IOException, TCPConnectorStoppedException;
 
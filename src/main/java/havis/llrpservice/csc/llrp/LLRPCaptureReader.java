@@ -0,0 +1,175 @@
+package havis.llrpservice.csc.llrp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the records of a capture file which has been written by
+ * {@link LLRPWireCapture}.
+ * <p>
+ * Usage:
+ * 
+ * <pre>
+ * try (LLRPCaptureReader reader = new LLRPCaptureReader(file)) {
+ * 	while (reader.next()) {
+ * 		ByteBuffer frame = reader.getFrame();
+ * 		...
+ * 	}
+ * }
+ * </pre>
+ * </p>
+ */
+public class LLRPCaptureReader implements Closeable {
+
+	private final MappedByteBuffer buffer;
+	private final long startMillis;
+	private final long sequence;
+	private long time;
+	private int channelId;
+	private byte direction;
+	private ByteBuffer frame;
+
+	/**
+	 * Opens a capture file.
+	 *
+	 * @param file
+	 * @throws IOException
+	 *             the file cannot be read or is not a capture file
+	 */
+	public LLRPCaptureReader(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.remaining() < LLRPWireCapture.FILE_HEADER_LENGTH
+				|| buffer.getInt() != LLRPWireCapture.MAGIC) {
+			throw new IOException("Invalid capture file: " + file);
+		}
+		short version = buffer.getShort();
+		if (version != LLRPWireCapture.VERSION) {
+			throw new IOException("Unsupported version " + version + " of capture file: " + file);
+		}
+		buffer.getShort();
+		startMillis = buffer.getLong();
+		sequence = buffer.getLong();
+		buffer.position(LLRPWireCapture.FILE_HEADER_LENGTH);
+	}
+
+	/**
+	 * Gets the existing files of a capture ordered by the time of their
+	 * creation.
+	 *
+	 * @param path
+	 *            the base path of the capture files
+	 * @param fileCount
+	 *            the maximum number of capture files
+	 * @return The files
+	 * @throws IOException
+	 */
+	public static List<Path> getFiles(Path path, int fileCount) throws IOException {
+		final Map<Path, Long> sequences = new HashMap<>();
+		for (int i = 0; i < fileCount; i++) {
+			Path file = LLRPWireCapture.getFile(path, i);
+			if (Files.exists(file)) {
+				try (LLRPCaptureReader reader = new LLRPCaptureReader(file)) {
+					sequences.put(file, reader.getSequence());
+				}
+			}
+		}
+		List<Path> files = new ArrayList<>(sequences.keySet());
+		Collections.sort(files, new Comparator<Path>() {
+
+			@Override
+			public int compare(Path o1, Path o2) {
+				return Long.compare(sequences.get(o1), sequences.get(o2));
+			}
+		});
+		return files;
+	}
+
+	/**
+	 * @return the start time of the capture in milliseconds since epoch
+	 */
+	public long getStartMillis() {
+		return startMillis;
+	}
+
+	/**
+	 * @return the sequence number of the file
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+
+	/**
+	 * Moves to the next record.
+	 *
+	 * @return <code>false</code> if the end of the file has been reached
+	 */
+	public boolean next() {
+		if (buffer.remaining() < LLRPWireCapture.RECORD_HEADER_LENGTH) {
+			return false;
+		}
+		int start = buffer.position();
+		int length = buffer.getInt(start);
+		if (length <= 0 || buffer.remaining() < LLRPWireCapture.RECORD_HEADER_LENGTH + length) {
+			return false;
+		}
+		time = buffer.getLong(start + 4);
+		channelId = buffer.getInt(start + 12);
+		direction = buffer.get(start + 16);
+		buffer.position(start + LLRPWireCapture.RECORD_HEADER_LENGTH);
+		frame = buffer.slice();
+		frame.limit(length);
+		buffer.position(start + LLRPWireCapture.RECORD_HEADER_LENGTH + length);
+		return true;
+	}
+
+	/**
+	 * @return the time of the current record since the start of the capture
+	 *         in nanoseconds
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * @return the identifier of the channel of the current record
+	 */
+	public int getChannelId() {
+		return channelId;
+	}
+
+	/**
+	 * @return the direction of the current record (see
+	 *         {@link LLRPWireCapture#DIRECTION_RECEIVED},
+	 *         {@link LLRPWireCapture#DIRECTION_SENT})
+	 */
+	public byte getDirection() {
+		return direction;
+	}
+
+	/**
+	 * @return the frame of the current record (ready to read)
+	 */
+	public ByteBuffer getFrame() {
+		return frame;
+	}
+
+	@Override
+	public void close() {
+		// the mapping is released by the garbage collector
+	}
+}
@@ -0,0 +1,260 @@
+package havis.llrpservice.csc.llrp;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import havis.llrpservice.common.tcp.TCPClientMultiplexed;
+import havis.llrpservice.common.tcp.TCPServerMultiplexed;
+import havis.llrpservice.common.tcp.TCPUnknownChannelException;
+import havis.llrpservice.csc.llrp.event.LLRPChannelClosedEvent;
+import havis.llrpservice.csc.llrp.event.LLRPChannelOpenedEvent;
+import havis.llrpservice.csc.llrp.event.LLRPDataReceivedNotifyEvent;
+import havis.llrpservice.csc.llrp.event.LLRPDataSentEvent;
+
+/**
+ * Replays the frames of a capture which has been written by
+ * {@link LLRPWireCapture} to a channel of a {@link LLRPClientMultiplexed} or
+ * {@link LLRPServerMultiplexed}.
+ * <p>
+ * The frames are sent with the original time intervals divided by a speed
+ * factor. With a speed factor <code>&lt;= 0</code> the frames are sent as
+ * fast as possible. The frames are sent as captured without deserializing
+ * them, so the replay is byte-exact (including invalid frames).
+ * </p>
+ * <p>
+ * The replay can be started from the command line (see {@link #main(String[])}).
+ * </p>
+ */
+public class LLRPCaptureReplay {
+
+	// the time in seconds to wait for the sending of the remaining frames
+	// and the closing of the channel before the replay tool exits
+	private static final int SHUTDOWN_TIMEOUT = 30;
+
+	private final List<Path> files;
+	private final double speed;
+	private final byte direction;
+	private final int channelId;
+
+	/**
+	 * @param files
+	 *            the capture files in the order of their creation (see
+	 *            {@link LLRPCaptureReader#getFiles(Path, int)})
+	 * @param speed
+	 *            the speed factor (eg. <code>1</code>: original speed,
+	 *            <code>2</code>: twice as fast, <code>0</code>: as fast as
+	 *            possible)
+	 * @param direction
+	 *            the direction of the frames which are replayed (see
+	 *            {@link LLRPWireCapture#DIRECTION_RECEIVED},
+	 *            {@link LLRPWireCapture#DIRECTION_SENT})
+	 * @param channelId
+	 *            the identifier of the captured channel whose frames are
+	 *            replayed (<code>0</code>: all channels)
+	 */
+	public LLRPCaptureReplay(List<Path> files, double speed, byte direction, int channelId) {
+		this.files = files;
+		this.speed = speed;
+		this.direction = direction;
+		this.channelId = channelId;
+	}
+
+	/**
+	 * Sends the captured frames to a channel of a LLRP client. The sending of
+	 * the frames is requested asynchronously, the
+	 * {@link LLRPEventHandler#dataSent(LLRPDataSentEvent)} event is fired for
+	 * each frame after it has been sent.
+	 *
+	 * @param client
+	 * @param channel
+	 * @return The number of sent frames
+	 * @throws Exception
+	 */
+	public long replay(LLRPClientMultiplexed client, SocketChannel channel) throws Exception {
+		return replay((AbstractLLRPConnectorMultiplexed) client, channel);
+	}
+
+	/**
+	 * Sends the captured frames to a channel of a LLRP server (see
+	 * {@link #replay(LLRPClientMultiplexed, SocketChannel)}).
+	 *
+	 * @param server
+	 * @param channel
+	 * @return The number of sent frames
+	 * @throws Exception
+	 */
+	public long replay(LLRPServerMultiplexed server, SocketChannel channel) throws Exception {
+		return replay((AbstractLLRPConnectorMultiplexed) server, channel);
+	}
+
+	long replay(AbstractLLRPConnectorMultiplexed connector, SocketChannel channel)
+			throws Exception {
+		long count = 0;
+		long firstTime = -1;
+		long start = 0;
+		for (Path file : files) {
+			try (LLRPCaptureReader reader = new LLRPCaptureReader(file)) {
+				while (reader.next()) {
+					if (reader.getDirection() != direction
+							|| (channelId != 0 && reader.getChannelId() != channelId)) {
+						continue;
+					}
+					if (firstTime < 0) {
+						firstTime = reader.getTime();
+						start = System.nanoTime();
+					} else if (speed > 0) {
+						// wait until the relative time of the frame is reached
+						long due = start + (long) ((reader.getTime() - firstTime) / speed);
+						long remaining;
+						while ((remaining = due - System.nanoTime()) > 0) {
+							LockSupport.parkNanos(remaining);
+						}
+					}
+					// the frame is sent asynchronously: copy it from the mapped
+					// file
+					ByteBuffer frame = reader.getFrame();
+					ByteBuffer data = ByteBuffer.allocate(frame.remaining());
+					data.put(frame);
+					data.flip();
+					try {
+						connector.tcpRequestSendingData(channel, data);
+					} catch (TCPUnknownChannelException e) {
+						throw new LLRPUnknownChannelException(e);
+					}
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Replays a capture.
+	 * <p>
+	 * Arguments:
+	 * <code>&lt;path&gt; &lt;fileCount&gt; client|server &lt;host&gt; &lt;port&gt; [&lt;speed&gt; [&lt;channelId&gt;]]</code>
+	 * <ul>
+	 * <li>client: opens a connection to a LLRP server (eg. the LLRP service)
+	 * and sends the frames which have been received by the capturing
+	 * connector</li>
+	 * <li>server: waits for a LLRP client and sends the frames which have been
+	 * sent by the capturing connector</li>
+	 * </ul>
+	 * The received messages are discarded. After the last frame has been sent
+	 * the connection is closed.
+	 * </p>
+	 *
+	 * @param args
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 5) {
+			System.err.println("Usage: " + LLRPCaptureReplay.class.getName()
+					+ " <path> <fileCount> client|server <host> <port> [<speed> [<channelId>]]");
+			System.exit(1);
+		}
+		Path path = Paths.get(args[0]);
+		boolean isClient = "client".equals(args[2]);
+		double speed = args.length > 5 ? Double.parseDouble(args[5]) : 1;
+		int channelId = args.length > 6 ? Integer.parseInt(args[6]) : 0;
+		LLRPCaptureReplay replay = new LLRPCaptureReplay(
+				LLRPCaptureReader.getFiles(path, Integer.parseInt(args[1])), speed,
+				isClient ? LLRPWireCapture.DIRECTION_RECEIVED : LLRPWireCapture.DIRECTION_SENT,
+				channelId);
+
+		ExecutorService threads = Executors.newCachedThreadPool();
+		final AbstractLLRPConnectorMultiplexed connector;
+		if (isClient) {
+			TCPClientMultiplexed tcpClient = new TCPClientMultiplexed();
+			threads.submit(tcpClient);
+			connector = new LLRPClientMultiplexed(tcpClient);
+		} else {
+			TCPServerMultiplexed tcpServer = new TCPServerMultiplexed();
+			threads.submit(tcpServer);
+			connector = new LLRPServerMultiplexed(tcpServer);
+		}
+		final BlockingQueue<SocketChannel> channels = new LinkedBlockingQueue<>();
+		final Semaphore sentFrames = new Semaphore(0);
+		final CountDownLatch closed = new CountDownLatch(1);
+		connector.requestOpeningChannel(args[3], Integer.parseInt(args[4]),
+				new LLRPEventHandler() {
+
+					@Override
+					public void channelOpened(LLRPChannelOpenedEvent event) {
+						if (event.getChannel() != null) {
+							channels.add(event.getChannel());
+						}
+					}
+
+					@Override
+					public void dataSent(LLRPDataSentEvent event) {
+						sentFrames.release();
+					}
+
+					@Override
+					public void dataReceived(LLRPDataReceivedNotifyEvent event) {
+					}
+
+					@Override
+					public void channelClosed(LLRPChannelClosedEvent event) {
+						if (event.getChannel() != null) {
+							closed.countDown();
+						}
+					}
+				});
+		// a server waits for a client
+		final SocketChannel channel = isClient ? channels.poll(10, TimeUnit.SECONDS)
+				: channels.take();
+		if (channel == null) {
+			System.err.println("Cannot open a connection to " + args[3] + ":" + args[4]);
+			System.exit(1);
+		}
+		// discard the received messages
+		threads.submit(new Runnable() {
+
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						connector.awaitReceivedData(channel,
+								AbstractLLRPConnectorMultiplexed.NO_TIMEOUT);
+					}
+				} catch (Exception e) {
+					// the channel has been closed
+				}
+			}
+		});
+		long start = System.nanoTime();
+		long count = replay.replay(connector, channel);
+		// wait until the queued frames have been sent
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT);
+		for (long i = 0; i < count; i++) {
+			if (!sentFrames.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+				System.err.println("Sent " + i + " of " + count + " frames within "
+						+ SHUTDOWN_TIMEOUT + " s");
+				System.exit(1);
+			}
+		}
+		System.out.println("Replayed " + count + " frames in "
+				+ TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+		// close the connection gracefully
+		if (isClient) {
+			((LLRPClientMultiplexed) connector).requestClosingChannel(channel, false /* force */);
+		} else {
+			((LLRPServerMultiplexed) connector).requestClosingChannel(channel, false /* force */);
+		}
+		closed.await(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+		System.exit(0);
+	}
+}
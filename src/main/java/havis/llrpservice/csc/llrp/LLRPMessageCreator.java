@@ -20,6 +20,20 @@ import java.util.Map;
 class LLRPMessageCreator {
 	private ByteCollector collector = new ByteCollector();
 	private Map<SocketChannel, MessageHeader> messageHeaders = new HashMap<>();
+	// the received bytes of the message headers if a capture is set
+	private Map<SocketChannel, ByteBuffer> rawMessageHeaders = new HashMap<>();
+	// the capture for the frames of created messages (optional)
+	private volatile LLRPWireCapture capture;
+
+	/**
+	 * Sets a capture for the frames of the created messages.
+	 * 
+	 * @param capture
+	 *            the capture or <code>null</code>
+	 */
+	void setCapture(LLRPWireCapture capture) {
+		this.capture = capture;
+	}
 
 	/**
 	 * Appends bytes for a message. If enough data exist for a message then the
@@ -51,23 +65,49 @@ class LLRPMessageCreator {
 				try {
 					MessageHeader messageHeader = messageHeaders.get(channel);
 					if (messageHeader == null) {
+						LLRPWireCapture c = capture;
+						// keep the received bytes of the message header
+						ByteBuffer rawMessageHeader = collection.duplicate();
 						// create message header object from byte collection
-						messageHeader = serializer
-								.deserializeMessageHeader(collection);
+						try {
+							messageHeader = serializer
+									.deserializeMessageHeader(collection);
+						} catch (Throwable t) {
+							// capture the invalid message header as frame
+							if (c != null) {
+								c.received(channel, rawMessageHeader, null /* body */);
+							}
+							throw t;
+						}
 						long msgBodyLength = messageHeader.getMessageLength()
 								- ByteBufferSerializer.MESSAGE_HEADER_LENGTH;
 						if (msgBodyLength > 0) {
 							// register the message header for the channel
 							messageHeaders.put(channel, messageHeader);
+							if (c != null) {
+								rawMessageHeaders.put(channel, rawMessageHeader);
+							}
 							// create byte collection for the message body
 							collector.addCollection(channel,
 									ByteBuffer.allocate((int) msgBodyLength));
 						} else {
+							// capture the frame before it is deserialized
+							if (c != null) {
+								c.received(channel, rawMessageHeader, null /* body */);
+							}
 							// create LLRP message object from message header
 							return serializer.deserializeMessage(messageHeader,
 									collection);
 						}
 					} else {
+						// capture the frame before it is deserialized (the
+						// header has not been kept if the capture has been set
+						// after its receipt)
+						LLRPWireCapture c = capture;
+						ByteBuffer rawMessageHeader = rawMessageHeaders.remove(channel);
+						if (c != null && rawMessageHeader != null) {
+							c.received(channel, rawMessageHeader, collection);
+						}
 						// create LLRP message object from message header and
 						// the byte collection
 						Message message = serializer.deserializeMessage(
@@ -99,6 +139,7 @@ class LLRPMessageCreator {
 	ByteBuffer remove(SocketChannel channel) {
 		// get an existing message header
 		MessageHeader messageHeader = messageHeaders.remove(channel);
+		rawMessageHeaders.remove(channel);
 		// get an open byte collection
 		ByteBuffer collection = collector.removeCollection(channel);
 		if (collection != null) {
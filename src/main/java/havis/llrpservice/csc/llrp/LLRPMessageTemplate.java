@@ -0,0 +1,113 @@
+package havis.llrpservice.csc.llrp;
+
+import havis.llrpservice.data.message.Message;
+import havis.llrpservice.data.message.ReaderEventNotification;
+import havis.llrpservice.data.message.parameter.serializer.InvalidParameterTypeException;
+import havis.llrpservice.data.message.serializer.ByteBufferSerializer;
+import havis.llrpservice.data.message.serializer.InvalidMessageTypeException;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A LLRP message which is serialized once and can be sent multiple times with
+ * {@link AbstractLLRPConnectorMultiplexed#requestSendingData(java.nio.channels.SocketChannel, LLRPMessageTemplate, long, long)}
+ * .
+ * <p>
+ * The serialized message is immutable. Only the message identifier and the
+ * time stamp of a {@link ReaderEventNotification} (the first parameter of
+ * the ReaderEventNotificationData) are replaced in a copy of the data for each
+ * sending. All other fields of the message must be constant.
+ * </p>
+ */
+public class LLRPMessageTemplate {
+
+	// offset of the message identifier in the message header
+	private static final int ID_OFFSET = 6;
+	// offset of the parameter type of the UTCTimestamp/Uptime parameter
+	// (message header + TLV header of ReaderEventNotificationData)
+	private static final int TIMESTAMP_TYPE_OFFSET = 14;
+	// offset of the microseconds of the UTCTimestamp/Uptime parameter
+	private static final int TIMESTAMP_OFFSET = 18;
+	private static final int UTC_TIMESTAMP_TYPE = 128;
+	private static final int UPTIME_TYPE = 129;
+
+	private final Message message;
+	private final byte[] data;
+	private final boolean hasTimestamp;
+
+	/**
+	 * @param message
+	 *            the message; it must not be modified after the creation of
+	 *            the template
+	 * @throws InvalidMessageTypeException
+	 * @throws InvalidParameterTypeException
+	 */
+	public LLRPMessageTemplate(Message message)
+			throws InvalidMessageTypeException, InvalidParameterTypeException {
+		this.message = message;
+		ByteBufferSerializer serializer = new ByteBufferSerializer();
+		ByteBuffer buffer = ByteBuffer.allocate((int) serializer.getLength(message));
+		serializer.serialize(message, buffer);
+		data = buffer.array();
+		boolean hasTimestamp = false;
+		if (message instanceof ReaderEventNotification && data.length >= TIMESTAMP_OFFSET + 8) {
+			int type = buffer.getShort(TIMESTAMP_TYPE_OFFSET) & 0x3FF;
+			hasTimestamp = type == UTC_TIMESTAMP_TYPE || type == UPTIME_TYPE;
+		}
+		this.hasTimestamp = hasTimestamp;
+	}
+
+	/**
+	 * Gets the message the template has been created from.
+	 *
+	 * @return
+	 */
+	public Message getMessage() {
+		return message;
+	}
+
+	/**
+	 * Gets the length of the serialized message in bytes.
+	 *
+	 * @return
+	 */
+	public int getLength() {
+		return data.length;
+	}
+
+	/**
+	 * Whether the message contains a time stamp which is replaced by
+	 * {@link #createData(long, long)}.
+	 *
+	 * @return
+	 */
+	public boolean hasTimestamp() {
+		return hasTimestamp;
+	}
+
+	/**
+	 * Creates the serialized message with a message identifier.
+	 *
+	 * @param id
+	 * @param timestamp
+	 *            the time stamp in microseconds (ignored if the message does
+	 *            not contain a time stamp)
+	 * @return the data ready for reading
+	 */
+	public ByteBuffer createData(long id, long timestamp) {
+		ByteBuffer ret = ByteBuffer.allocate(data.length);
+		ret.put(data);
+		ret.flip();
+		ret.putInt(ID_OFFSET, (int) id);
+		if (hasTimestamp) {
+			ret.putLong(TIMESTAMP_OFFSET, timestamp);
+		}
+		return ret;
+	}
+
+	@Override
+	public String toString() {
+		return "LLRPMessageTemplate [message=" + message + ", length=" + data.length
+				+ ", hasTimestamp=" + hasTimestamp + "]";
+	}
+}
@@ -0,0 +1,497 @@
+package havis.llrpservice.csc.llrp;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import havis.llrpservice.common.concurrent.NamedThreadFactory;
+
+/**
+ * Captures the raw LLRP frames of the LLRP connectors to rotating memory
+ * mapped files.
+ * <p>
+ * The capture consists of up to <code>fileCount</code> files with the names
+ * <code>&lt;path&gt;.0</code>, <code>&lt;path&gt;.1</code> etc. Each file has
+ * a fixed size. If a frame does not fit into the current file then the next
+ * file is used. The oldest file is overwritten if all files have been used.
+ * The files can be read with {@link LLRPCaptureReader} and replayed with
+ * {@link LLRPCaptureReplay}.
+ * </p>
+ * <p>
+ * File format (big endian):
+ * <ul>
+ * <li>header ({@link #FILE_HEADER_LENGTH} bytes): magic number
+ * {@link #MAGIC}, version (short), reserved (short), the start time of the
+ * capture in milliseconds since epoch (long), the sequence number of the file
+ * (long), reserved (long)</li>
+ * <li>records ({@link #RECORD_HEADER_LENGTH} bytes + frame): the length of the
+ * frame (int, <code>0</code> marks the end of the file), the time since the
+ * start of the capture in nanoseconds (long), the channel identifier (int),
+ * the direction (byte, see {@link #DIRECTION_RECEIVED},
+ * {@link #DIRECTION_SENT}), the frame</li>
+ * </ul>
+ * The length of a record is written after the record thus a reader never
+ * sees a partially written record.
+ * </p>
+ * <p>
+ * The process wide capture is configured with the system properties
+ * {@link #FILE_PROPERTY}, {@link #FILE_SIZE_PROPERTY} and
+ * {@link #FILE_COUNT_PROPERTY}. A capture can also be set to a connector at
+ * runtime (see
+ * {@link LLRPServerMultiplexed#setCapture(LLRPWireCapture)}).
+ * </p>
+ * <p>
+ * A frame is copied to the mapped file by the calling thread while a lock is
+ * held. The operating system writes the pages to the file. The next file is
+ * created as <code>&lt;path&gt;.next</code> and mapped by a dedicated daemon
+ * thread while the current one is written. When the files are switched, the
+ * thread forces the previous file to storage and renames the new current file
+ * (replacing the oldest file), so the lock is not held during disk I/O. The
+ * capture never waits for the thread: if the next file is not ready when the
+ * current one is full then the frame is dropped.
+ * </p>
+ */
+public class LLRPWireCapture {
+
+	/**
+	 * Name of the system property for the base path of the capture files
+	 * (default: the capture is disabled).
+	 */
+	public static final String FILE_PROPERTY = "havis.llrpservice.server.llrpCaptureFile";
+
+	/**
+	 * Name of the system property for the size of a capture file in bytes.
+	 */
+	public static final String FILE_SIZE_PROPERTY = "havis.llrpservice.server.llrpCaptureFileSize";
+	public static final long DEFAULT_FILE_SIZE = 64 * 1024 * 1024;
+
+	/**
+	 * Name of the system property for the number of capture files.
+	 */
+	public static final String FILE_COUNT_PROPERTY = "havis.llrpservice.server.llrpCaptureFiles";
+	public static final int DEFAULT_FILE_COUNT = 4;
+
+	public static final int MAGIC = 0x4C4C5250; // "LLRP"
+	public static final short VERSION = 1;
+	public static final int FILE_HEADER_LENGTH = 32;
+	public static final int RECORD_HEADER_LENGTH = 17;
+
+	public static final byte DIRECTION_RECEIVED = 0;
+	public static final byte DIRECTION_SENT = 1;
+
+	private static final Logger log = Logger.getLogger(LLRPWireCapture.class.getName());
+
+	private static boolean isInstanceCreated;
+	private static LLRPWireCapture instance;
+
+	private final Path path;
+	private final long fileSize;
+	private final int fileCount;
+	private final long startMillis = System.currentTimeMillis();
+	private final long startNanos = System.nanoTime();
+	private final Map<SocketChannel, Integer> channelIds = new ConcurrentHashMap<>();
+	private final AtomicInteger lastChannelId = new AtomicInteger();
+	private final AtomicLong droppedFrames = new AtomicLong();
+	// prepares the next files
+	private final ExecutorService preparer;
+
+	private final Object lock = new Object();
+	// the sequence number of the current file
+	private long sequence;
+	private MappedByteBuffer buffer;
+	// the next file which is prepared in the background
+	private Future<MappedByteBuffer> nextBuffer;
+	private boolean isClosed;
+
+	/**
+	 * @param path
+	 *            the base path of the capture files
+	 * @param fileSize
+	 *            the size of a file in bytes
+	 * @param fileCount
+	 *            the maximum number of files
+	 * @throws IOException
+	 */
+	public LLRPWireCapture(Path path, long fileSize, int fileCount) throws IOException {
+		this(path, fileSize, fileCount,
+				Executors.newSingleThreadExecutor(new NamedThreadFactory("llrp-capture-")));
+	}
+
+	/**
+	 * @param path
+	 *            the base path of the capture files
+	 * @param fileSize
+	 *            the size of a file in bytes
+	 * @param fileCount
+	 *            the maximum number of files
+	 * @param preparer
+	 *            the single thread executor which prepares the next files. It
+	 *            is shut down when the capture is closed.
+	 * @throws IOException
+	 */
+	LLRPWireCapture(Path path, long fileSize, int fileCount, ExecutorService preparer)
+			throws IOException {
+		if (fileSize <= FILE_HEADER_LENGTH + RECORD_HEADER_LENGTH || fileSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid file size: " + fileSize);
+		}
+		if (fileCount < 1) {
+			throw new IllegalArgumentException("Invalid file count: " + fileCount);
+		}
+		this.path = path.toAbsolutePath();
+		this.fileSize = fileSize;
+		this.fileCount = fileCount;
+		this.preparer = preparer;
+		synchronized (lock) {
+			buffer = map(getFile(path, 0), sequence);
+			if (log.isLoggable(Level.INFO)) {
+				log.log(Level.INFO, "Capturing LLRP frames to " + getFile(path, 0));
+			}
+			nextBuffer = prepare(null /* previousBuffer */, -1 /* currentSequence */,
+					sequence + 1);
+		}
+	}
+
+	/**
+	 * Gets the process wide capture which is configured with the system
+	 * properties {@link #FILE_PROPERTY}, {@link #FILE_SIZE_PROPERTY} and
+	 * {@link #FILE_COUNT_PROPERTY}.
+	 *
+	 * @return The capture or <code>null</code> if the capture is disabled or
+	 *         the files cannot be created
+	 */
+	public static synchronized LLRPWireCapture getInstance() {
+		if (!isInstanceCreated) {
+			isInstanceCreated = true;
+			String file = System.getProperty(FILE_PROPERTY);
+			if (file != null) {
+				try {
+					instance = new LLRPWireCapture(Paths.get(file),
+							Long.getLong(FILE_SIZE_PROPERTY, DEFAULT_FILE_SIZE),
+							Integer.getInteger(FILE_COUNT_PROPERTY, DEFAULT_FILE_COUNT));
+				} catch (Exception e) {
+					log.log(Level.SEVERE, "Cannot create LLRP capture file " + file, e);
+				}
+			}
+		}
+		return instance;
+	}
+
+	/**
+	 * Gets the path of a capture file.
+	 *
+	 * @param path
+	 *            the base path of the capture files
+	 * @param index
+	 * @return The path
+	 */
+	public static Path getFile(Path path, int index) {
+		return Paths.get(path.toString() + "." + index);
+	}
+
+	/**
+	 * @return the base path of the capture files
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * @return the maximum number of capture files
+	 */
+	public int getFileCount() {
+		return fileCount;
+	}
+
+	/**
+	 * @return the number of frames which have not been captured because they
+	 *         exceed the file size, the next file has not been ready or the
+	 *         capture has been closed
+	 */
+	public long getDroppedFrames() {
+		return droppedFrames.get();
+	}
+
+	/**
+	 * Captures a frame which is sent to a channel.
+	 *
+	 * @param channel
+	 * @param frame
+	 *            the serialized message (ready to read). The position of the
+	 *            buffer is not changed.
+	 */
+	public void sent(SocketChannel channel, ByteBuffer frame) {
+		int length = frame.remaining();
+		int channelId = getChannelId(channel);
+		synchronized (lock) {
+			int start = reserve(length);
+			if (start < 0) {
+				return;
+			}
+			buffer.put(frame.duplicate());
+			commit(start, length, channelId, DIRECTION_SENT);
+		}
+	}
+
+	/**
+	 * Captures a frame which has been received from a channel. The frame is
+	 * captured as received before it is deserialized, so invalid frames are
+	 * captured too.
+	 *
+	 * @param channel
+	 * @param header
+	 *            the received bytes of the message header (ready to read). The
+	 *            position of the buffer is not changed.
+	 * @param body
+	 *            the received bytes of the message body (ready to read,
+	 *            <code>null</code> if the message consists of the header). The
+	 *            position of the buffer is not changed.
+	 */
+	public void received(SocketChannel channel, ByteBuffer header, ByteBuffer body) {
+		int bodyLength = body == null ? 0 : body.remaining();
+		int length = header.remaining() + bodyLength;
+		int channelId = getChannelId(channel);
+		synchronized (lock) {
+			int start = reserve(length);
+			if (start < 0) {
+				return;
+			}
+			buffer.put(header.duplicate());
+			if (body != null) {
+				buffer.put(body.duplicate());
+			}
+			commit(start, length, channelId, DIRECTION_RECEIVED);
+		}
+	}
+
+	/**
+	 * Removes the identifier of a closed channel.
+	 *
+	 * @param channel
+	 */
+	public void removeChannel(SocketChannel channel) {
+		channelIds.remove(channel);
+	}
+
+	/**
+	 * Writes the captured frames to the files and closes the capture. Frames
+	 * which are captured afterwards are dropped.
+	 */
+	public void close() {
+		MappedByteBuffer current;
+		Future<MappedByteBuffer> next;
+		synchronized (lock) {
+			if (isClosed) {
+				return;
+			}
+			isClosed = true;
+			current = buffer;
+			next = nextBuffer;
+			buffer = null;
+			nextBuffer = null;
+		}
+		preparer.shutdown();
+		// wait for the writing of the previous file
+		try {
+			next.get();
+		} catch (ExecutionException e) {
+			log.log(Level.SEVERE, "Cannot create LLRP capture file", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (current != null) {
+			current.force();
+		}
+		try {
+			Files.deleteIfExists(getNextFile());
+		} catch (IOException e) {
+			log.log(Level.WARNING, "Cannot delete LLRP capture file " + getNextFile(), e);
+		}
+	}
+
+	/**
+	 * Gets the identifier of a channel. A new identifier is assigned to an
+	 * unknown channel.
+	 *
+	 * @param channel
+	 * @return The identifier
+	 */
+	private int getChannelId(SocketChannel channel) {
+		Integer id = channelIds.get(channel);
+		if (id == null) {
+			id = lastChannelId.incrementAndGet();
+			Integer existingId = channelIds.putIfAbsent(channel, id);
+			if (existingId != null) {
+				id = existingId;
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * Reserves space for a record in the current file. A new file is used if
+	 * the record does not fit into the current file. The frame is dropped if
+	 * the new file has not been prepared yet. The lock must be held by the
+	 * caller.
+	 *
+	 * @param length
+	 *            the length of the frame
+	 * @return the start position of the record or <code>-1</code> if the
+	 *         frame has been dropped
+	 */
+	private int reserve(int length) {
+		if (isClosed
+				|| FILE_HEADER_LENGTH + RECORD_HEADER_LENGTH + (long) length > fileSize) {
+			droppedFrames.incrementAndGet();
+			return -1;
+		}
+		if (buffer.remaining() < RECORD_HEADER_LENGTH + length) {
+			if (!nextBuffer.isDone()) {
+				// do not stall the I/O of the connectors
+				droppedFrames.incrementAndGet();
+				return -1;
+			}
+			try {
+				rotate();
+			} catch (IOException e) {
+				log.log(Level.SEVERE, "Cannot create LLRP capture file", e);
+				isClosed = true;
+				droppedFrames.incrementAndGet();
+				return -1;
+			}
+		}
+		int start = buffer.position();
+		// the length is written with the commit
+		buffer.position(start + 4);
+		buffer.putLong(System.nanoTime() - startNanos);
+		// channel id + direction are written with the commit
+		buffer.position(start + RECORD_HEADER_LENGTH);
+		return start;
+	}
+
+	/**
+	 * Completes a record. The length is written last. The lock must be held by
+	 * the caller.
+	 *
+	 * @param start
+	 * @param length
+	 * @param channelId
+	 * @param direction
+	 */
+	private void commit(int start, int length, int channelId, byte direction) {
+		buffer.putInt(start + 12, channelId);
+		buffer.put(start + 16, direction);
+		buffer.putInt(start, length);
+	}
+
+	/**
+	 * Switches to the prepared next file. The previous file is written, the
+	 * new current file is renamed and the file after it is prepared in the
+	 * background. The next file must have been prepared. The lock must be held
+	 * by the caller.
+	 *
+	 * @throws IOException
+	 */
+	private void rotate() throws IOException {
+		MappedByteBuffer previousBuffer = buffer;
+		try {
+			// the file has been prepared (the call does not block)
+			buffer = nextBuffer.get();
+		} catch (ExecutionException e) {
+			throw e.getCause() instanceof IOException ? (IOException) e.getCause()
+					: new IOException(e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		sequence++;
+		nextBuffer = prepare(previousBuffer, sequence, sequence + 1);
+	}
+
+	/**
+	 * Completes a switch of the files and prepares the next file in the
+	 * background. The mappings stay valid while the files are renamed.
+	 *
+	 * @param previousBuffer
+	 *            the mapping of the file to write (optional)
+	 * @param currentSequence
+	 *            the sequence number of the current file which is renamed
+	 *            from the name of the next file to its final name
+	 *            (<code>-1</code>: none)
+	 * @param nextSequence
+	 *            the sequence number of the next file
+	 * @return The mapping of the next file
+	 */
+	private Future<MappedByteBuffer> prepare(final MappedByteBuffer previousBuffer,
+			final long currentSequence, final long nextSequence) {
+		return preparer.submit(new Callable<MappedByteBuffer>() {
+
+			@Override
+			public MappedByteBuffer call() throws IOException {
+				if (previousBuffer != null) {
+					previousBuffer.force();
+				}
+				if (currentSequence >= 0) {
+					Path file = getFile(path, (int) (currentSequence % fileCount));
+					Files.move(getNextFile(), file, StandardCopyOption.REPLACE_EXISTING);
+					if (log.isLoggable(Level.INFO)) {
+						log.log(Level.INFO, "Capturing LLRP frames to " + file);
+					}
+				}
+				return map(getNextFile(), nextSequence);
+			}
+		});
+	}
+
+	/**
+	 * @return the path of the prepared next file
+	 */
+	private Path getNextFile() {
+		return Paths.get(path.toString() + ".next");
+	}
+
+	/**
+	 * Creates a capture file and maps it to memory.
+	 *
+	 * @param file
+	 * @param sequence
+	 *            the sequence number of the file
+	 * @return The mapping (positioned after the file header)
+	 * @throws IOException
+	 */
+	private MappedByteBuffer map(Path file, long sequence) throws IOException {
+		MappedByteBuffer ret;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			// the mapping stays valid after the channel has been closed
+			ret = channel.map(MapMode.READ_WRITE, 0, fileSize);
+		}
+		ret.putInt(MAGIC);
+		ret.putShort(VERSION);
+		ret.putShort((short) 0);
+		ret.putLong(startMillis);
+		ret.putLong(sequence);
+		ret.putLong(0);
+		return ret;
+	}
+}
@@ -9,6 +9,7 @@ import havis.device.io.exception.ConnectionException;
 import havis.device.io.exception.ImplementationException;
 import havis.device.io.exception.ParameterException;
 import havis.llrpservice.common.ids.IdGenerator;
+import havis.llrpservice.common.log.AsyncLogger;
 import havis.llrpservice.common.serializer.JsonSerializer;
 import havis.llrpservice.common.tcp.TCPServerMultiplexed;
 import havis.llrpservice.sbc.gpio.event.GPIOChannelClosedEvent;
@@ -68,6 +69,8 @@ import java.util.logging.Logger;
 public class GPIOClientMultiplexed {
 
 	private final static Logger log = Logger.getLogger(GPIOClientMultiplexed.class.getName());
+	// the logger for the messages (null if the logging is synchronous)
+	private final static AsyncLogger asyncLog = AsyncLogger.get(log);
 
 	public static final int NO_TIMEOUT = -1;
 	public static final int RETURN_IMMEDIATELY = 0;
@@ -512,7 +515,12 @@ public class GPIOClientMultiplexed {
 	private void logSendingMessage(Message message) {
 		if (log.isLoggable(Level.INFO)) {
 			MessageHeader header = message.getMessageHeader();
-			log.log(Level.INFO, "Sending {0} (id={1})", new Object[]{ header.getMessageType(), header.getId() });
+			if (asyncLog != null) {
+				asyncLog.log(Level.INFO, "Sending {0} (id={2})", header.getMessageType(),
+						null /* arg1 */, header.getId(), 0 /* arg3 */);
+			} else {
+				log.log(Level.INFO, "Sending {0} (id={1})", new Object[]{ header.getMessageType(), header.getId() });
+			}
 		}
 		if (log.isLoggable(Level.FINE)) {
 			log.log(Level.FINE, message.toString());
@@ -523,7 +531,12 @@ public class GPIOClientMultiplexed {
 	private void logReceivedMessage(Message message) {
 		if (log.isLoggable(Level.INFO)) {
 			MessageHeader header = message.getMessageHeader();
-			log.log(Level.INFO, "Received {0} (id={1})", new Object[] { header.getMessageType(), header.getId() });
+			if (asyncLog != null) {
+				asyncLog.log(Level.INFO, "Received {0} (id={2})", header.getMessageType(),
+						null /* arg1 */, header.getId(), 0 /* arg3 */);
+			} else {
+				log.log(Level.INFO, "Received {0} (id={1})", new Object[] { header.getMessageType(), header.getId() });
+			}
 		}
 		if (log.isLoggable(Level.FINE)) {
 			log.log(Level.FINE, message.toString());
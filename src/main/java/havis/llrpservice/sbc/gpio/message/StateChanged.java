@@ -6,11 +6,13 @@ public class StateChanged implements Message {
 
 	private final MessageHeader messageHeader;
 	private StateEvent stateEvent;
+	private final long receivedTime;
 
 	public StateChanged(MessageHeader messageHeader, StateEvent stateEvent) {
 		this.messageHeader = messageHeader;
 		this.messageHeader.setMessageType(MessageType.STATE_CHANGED);
 		this.stateEvent = stateEvent;
+		this.receivedTime = System.nanoTime();
 	}
 
 	@Override
@@ -22,6 +24,16 @@ public class StateChanged implements Message {
 		return stateEvent;
 	}
 
+	/**
+	 * Returns the time when the state change has been received from the GPIO
+	 * controller.
+	 * 
+	 * @return The time provided by {@link System#nanoTime()}
+	 */
+	public long getReceivedTime() {
+		return receivedTime;
+	}
+
 	@Override
 	public String toString() {
 		return "StateChanged [messageHeader=" + messageHeader + ", stateEvent="
@@ -9,9 +9,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
@@ -30,7 +32,11 @@ import havis.device.rf.exception.ImplementationException;
 import havis.device.rf.exception.ParameterException;
 import havis.device.rf.tag.TagData;
 import havis.device.rf.tag.operation.TagOperation;
+import havis.llrpservice.common.concurrent.NamedThreadFactory;
 import havis.llrpservice.common.ids.IdGenerator;
+import havis.llrpservice.common.log.AsyncLogger;
+import havis.llrpservice.common.metrics.LatencyRecorder;
+import havis.llrpservice.common.metrics.TagReadTracer;
 import havis.llrpservice.common.serializer.JsonSerializer;
 import havis.llrpservice.common.tcp.TCPServerMultiplexed;
 import havis.llrpservice.sbc.rfc.event.RFCChannelClosedEvent;
@@ -79,10 +85,32 @@ import havis.util.platform.Platform;
  * A single channel can be stopped with
  * {@link #requestClosingChannel(SelectableChannel)}.
  * </p>
+ * <p>
+ * The access operations for tags can be decided directly in the thread of the
+ * RF controller by registering a decider with
+ * {@link #setOperationsDecider(SocketChannel, RFCOperationsDecider)} before
+ * an {@link Execute} message is sent.
+ * </p>
+ * <p>
+ * Executions can be pipelined by registering a pipeline with
+ * {@link #setExecutionPipeline(SocketChannel, RFCExecutionPipeline)}. The next
+ * execution is requested by the pipeline as soon as the previous execution of
+ * the RF controller has been finished.
+ * </p>
+ * <p>
+ * Each channel has its own lock and its own thread for executions of the RF
+ * controller. Thus the RF controllers of different channels are used in
+ * parallel.
+ * </p>
  */
 public class RFCClientMultiplexed {
 
 	private static final Logger log = Logger.getLogger(RFCClientMultiplexed.class.getName());
+	// the logger for the messages (null if the logging is synchronous)
+	private static final AsyncLogger asyncLog = AsyncLogger.get(log);
+	// the factory for the execution threads of all channels
+	private static final ThreadFactory EXECUTION_THREAD_FACTORY = new NamedThreadFactory(
+			"rfc-execution-");
 
 	public static final int NO_TIMEOUT = -1;
 	public static final int RETURN_IMMEDIATELY = 0;
@@ -92,20 +120,34 @@ public class RFCClientMultiplexed {
 	private long callbackTimeout;
 	private Platform platform;
 
-	private ExecutorService threadPool = Executors.newFixedThreadPool(1);
+	private final Map<SocketChannel, ChannelData> channels = new ConcurrentHashMap<>();
 
-	private final ReentrantLock lock = new ReentrantLock();
-	private final Map<SocketChannel, ChannelData> channels = new HashMap<>();
+	// the durations of the executions of the RF controllers
+	private final LatencyRecorder executeLatency = new LatencyRecorder();
+	// the durations of the GetOperations callbacks incl. the waiting for the
+	// responses
+	private final LatencyRecorder getOperationsLatency = new LatencyRecorder();
+	// the tracer for sampled tag reads (optional)
+	private volatile TagReadTracer tagReadTracer;
 
 	private class ChannelData {
+		// the lock for the data of this channel
+		final ReentrantLock lock = new ReentrantLock();
+		// the thread for executions of the RF controller
+		final ExecutorService executionThread = Executors
+				.newSingleThreadExecutor(EXECUTION_THREAD_FACTORY);
 		RFDevice controller;
+		RFConsumerImpl consumer;
 		RFCEventHandler eventHandler;
+		boolean isClosed = false;
 		List<Message> messageQueue = new ArrayList<>();
-		Condition messageQueueContainsMessage;
+		final Condition messageQueueContainsMessage = lock.newCondition();
 		List<Message> sendingMessages = new ArrayList<>();
-		Future<Exception> executionFuture = null;
+		// execute message id -> future of the execution thread
+		Map<Long, Future<Exception>> executionFutures = new HashMap<>();
+		volatile RFCExecutionPipeline executionPipeline;
 		GetOperationsResponse getOperationsResponse = null;
-		Condition getOperationsResponseExists;
+		final Condition getOperationsResponseExists = lock.newCondition();
 		RFCException getOperationsException = null;
 
 		public void enqueueMessage(Message message) {
@@ -122,6 +164,8 @@ public class RFCClientMultiplexed {
 	private class RFConsumerImpl implements RFConsumer {
 
 		private final SocketChannel channel;
+		// the decider for the current execution (optional)
+		private volatile RFCOperationsDecider operationsDecider;
 
 		public RFConsumerImpl(SocketChannel channel) {
 			this.channel = channel;
@@ -129,13 +173,36 @@ public class RFCClientMultiplexed {
 
 		@Override
 		public List<TagOperation> getOperations(TagData tagData) {
+			long start = System.nanoTime();
+			try {
+				return requestOperations(tagData);
+			} finally {
+				getOperationsLatency.recordSince(start);
+			}
+		}
+
+		/**
+		 * Requests the operations for a tag from the decider or via a
+		 * {@link GetOperations} message.
+		 * 
+		 * @param tagData
+		 * @return The operations
+		 */
+		private List<TagOperation> requestOperations(TagData tagData) {
 			GetOperations request = new GetOperations(
 					new MessageHeader(IdGenerator.getNextLongId()), tagData);
 			logReceivedMessage(request);
-			ChannelData channelData = null;
-			lock.lock();
+			RFCOperationsDecider decider = operationsDecider;
+			if (decider != null) {
+				return getOperations(request, decider);
+			}
+			ChannelData channelData = channels.get(channel);
+			if (channelData == null) {
+				// the channel has been closed
+				return new ArrayList<>();
+			}
+			channelData.lock.lock();
 			try {
-				channelData = channels.get(channel);
 				channelData.sendingMessages.add(request);
 				// add GetOperations message to local message list
 				// for delivery via awaitReceivedData
@@ -164,11 +231,42 @@ public class RFCClientMultiplexed {
 						new MessageHeader(IdGenerator.getNextLongId()), operations));
 				return operations;
 			} finally {
+				channelData.sendingMessages.remove(request);
+				channelData.lock.unlock();
+			}
+		}
+
+		/**
+		 * Gets the operations for a tag from a decider without a thread
+		 * change. An occurred exception is delivered with the
+		 * {@link ExecuteResponse}.
+		 * 
+		 * @param request
+		 * @param decider
+		 * @return The operations
+		 */
+		private List<TagOperation> getOperations(GetOperations request,
+				RFCOperationsDecider decider) {
+			List<TagOperation> operations;
+			try {
+				operations = decider.getOperations(request);
+			} catch (Exception e) {
+				ChannelData channelData = channels.get(channel);
 				if (channelData != null) {
-					channelData.sendingMessages.remove(request);
+					channelData.lock.lock();
+					try {
+						channelData.getOperationsException = new RFCException(
+								"Processing of " + MessageType.GET_OPERATIONS + " message failed",
+								e);
+					} finally {
+						channelData.lock.unlock();
+					}
 				}
-				lock.unlock();
+				return new ArrayList<>();
 			}
+			logSendingMessage(new GetOperationsResponse(
+					new MessageHeader(request.getMessageHeader().getId()), operations));
+			return operations;
 		}
 
 		@Override
@@ -189,14 +287,14 @@ public class RFCClientMultiplexed {
 		 */
 		private void enqueueMessage(Message message) {
 			logReceivedMessage(message);
-			lock.lock();
-			try {
-				ChannelData channelData = channels.get(channel);
-				if (channelData != null) {
+			ChannelData channelData = channels.get(channel);
+			if (channelData != null) {
+				channelData.lock.lock();
+				try {
 					channelData.enqueueMessage(message);
+				} finally {
+					channelData.lock.unlock();
 				}
-			} finally {
-				lock.unlock();
 			}
 		}
 	}
@@ -219,6 +317,36 @@ public class RFCClientMultiplexed {
 		this.platform = platform;
 	}
 
+	/**
+	 * Gets the durations of the executions of the RF controllers.
+	 * 
+	 * @return The recorder
+	 */
+	public LatencyRecorder getExecuteLatency() {
+		return executeLatency;
+	}
+
+	/**
+	 * Gets the durations of the {@link GetOperations} callbacks of the RF
+	 * controllers from the request until the response.
+	 * 
+	 * @return The recorder
+	 */
+	public LatencyRecorder getGetOperationsLatency() {
+		return getOperationsLatency;
+	}
+
+	/**
+	 * Sets a tracer for tag reads. The traces of sampled executions are
+	 * started when the RF controller has returned the tag reads and are
+	 * delivered with the {@link ExecuteResponse}.
+	 * 
+	 * @param tracer
+	 */
+	public void setTagReadTracer(TagReadTracer tracer) {
+		tagReadTracer = tracer;
+	}
+
 	/**
 	 * Requests the opening of a channel to an address/port. The method
 	 * {@link RFCEventHandler#channelOpened(RFCChannelOpenedEvent)} of the event
@@ -238,51 +366,68 @@ public class RFCClientMultiplexed {
 		long start = System.currentTimeMillis();
 		ChannelData channelData = new ChannelData();
 		SocketChannel channel = null;
-		lock.lock();
 		try {
-
-			try {
-				// instantiate the RF controller
-				channelData.controller = serviceFactory.getService(addr, port, openTimeout);
-				channelData.eventHandler = eventHandler;
-				channelData.messageQueueContainsMessage = lock.newCondition();
-				channelData.getOperationsResponseExists = lock.newCondition();
-				// create a channel
-				channel = SocketChannel.open();
-				channels.put(channel, channelData);
-				// open a connection to the RF controller
-				long remainingTimeout = openTimeout - (System.currentTimeMillis() - start);
-				lock.unlock();
+			// instantiate the RF controller
+			channelData.controller = serviceFactory.getService(addr, port, openTimeout);
+			channelData.eventHandler = eventHandler;
+			// create a channel
+			channel = SocketChannel.open();
+			channelData.consumer = new RFConsumerImpl(channel);
+			channels.put(channel, channelData);
+			// open a connection to the RF controller
+			long remainingTimeout = openTimeout - (System.currentTimeMillis() - start);
+			// while the execution is running neither a
+			// further method of the controller must be
+			// called nor the connection must be closed!
+			channelData.controller.openConnection(channelData.consumer,
+					(int) (remainingTimeout <= 0 ? 1 : remainingTimeout));
+		} catch (Exception e) {
+			channelData.executionThread.shutdown();
+			if (channel != null) {
+				channels.remove(channel);
 				try {
-					// while the execution is running neither a
-					// further method of the controller must be
-					// called nor the connection must be closed!
-					channelData.controller.openConnection(new RFConsumerImpl(channel),
-							(int) (remainingTimeout <= 0 ? 1 : remainingTimeout));
-				} finally {
-					lock.lock();
-				}
-			} catch (Exception e) {
-				if (channel != null) {
-					channels.remove(channel);
-					try {
-						channel.close();
-					} catch (IOException e2) {
-						// only log this exception because the first occurred
-						// exception is thrown
-						log.log(Level.SEVERE, "Cannot close socket channel", e2);
-					}
+					channel.close();
+				} catch (IOException e2) {
+					// only log this exception because the first occurred
+					// exception is thrown
+					log.log(Level.SEVERE, "Cannot close socket channel", e2);
 				}
-				throw new RFCConnectionException("Cannot create a connection to the RF controller",
-						e);
 			}
-		} finally {
-			lock.unlock();
+			throw new RFCConnectionException("Cannot create a connection to the RF controller", e);
 		}
 		// send open event
 		eventHandler.channelOpened(new RFCChannelOpenedEvent(null/* serverChannel */, channel));
 	}
 
+	/**
+	 * Sets a decider for the access operations of the next execution. The
+	 * decider is called in the thread of the RF controller for each callback
+	 * of the execution. The {@link GetOperations} messages are not delivered
+	 * via {@link #awaitReceivedData(SocketChannel, long)} then. The decider is
+	 * removed after the execution has been finished.
+	 * 
+	 * @param channel
+	 * @param decider
+	 *            <code>null</code> to remove an existing decider
+	 */
+	public void setOperationsDecider(SocketChannel channel, RFCOperationsDecider decider) {
+		channels.get(channel).consumer.operationsDecider = decider;
+	}
+
+	/**
+	 * Sets a pipeline for executions. The pipeline is called in the thread of
+	 * the RF controller after each successful execution before the
+	 * {@link ExecuteResponse} is delivered via
+	 * {@link #awaitReceivedData(SocketChannel, long)}.
+	 * 
+	 * @param channel
+	 * @param pipeline
+	 *            <code>null</code> to remove an existing pipeline
+	 */
+	public void setExecutionPipeline(SocketChannel channel, RFCExecutionPipeline pipeline) {
+		channels.get(channel).executionPipeline = pipeline;
+	}
+
 	/**
 	 * Sends a message to a channel.
 	 * <p>
@@ -294,11 +439,15 @@ public class RFCClientMultiplexed {
 	 * @param message
 	 */
 	public void requestSendingData(SocketChannel channel, final Message message) {
-		ChannelData channelData = null;
+		ChannelData channelData = channels.get(channel);
 		RFCEventHandler eventHandler = null;
-		lock.lock();
+		channelData.lock.lock();
 		try {
-			channelData = channels.get(channel);
+			// if the channel has been closed concurrently (the pending
+			// messages have been delivered with the close event)
+			if (channelData.isClosed) {
+				return;
+			}
 			// save event handler locally to sent events outside the
 			// synchronized block
 			eventHandler = channelData.eventHandler;
@@ -318,7 +467,7 @@ public class RFCClientMultiplexed {
 				cd.sendingMessages.add(message);
 				// callback "getOperations" must be processed while execution
 				// => start the execution in an own thread and save the future
-				channelData.executionFuture = threadPool.submit(new Callable<Exception>() {
+				Callable<Exception> execution = new Callable<Exception>() {
 
 					@Override
 					public Exception call() throws Exception {
@@ -328,19 +477,35 @@ public class RFCClientMultiplexed {
 							// while the execution is running neither a
 							// further method of the controller must be
 							// called nor the connection must be closed!
+							long start = System.nanoTime();
 							List<TagData> tagData = cd.controller.execute(ex.getAntennas(),
 									ex.getFilters(), ex.getOperations());
+							executeLatency.recordSince(start);
+							// remove the decider of this execution (a
+							// pipelined execution may set its own decider)
+							cd.consumer.operationsDecider = null;
 							response = new ExecuteResponse(
 									new MessageHeader(ex.getMessageHeader().getId()), tagData,
 									new TimeStamp(platform));
+							TagReadTracer tracer = tagReadTracer;
+							if (tracer != null && tagData != null && !tagData.isEmpty()) {
+								((ExecuteResponse) response).setTrace(tracer.startTrace());
+							}
 							logReceivedMessage(response);
+							RFCExecutionPipeline pipeline = cd.executionPipeline;
+							if (pipeline != null) {
+								// request the next execution before the
+								// response is delivered
+								pipeline.executionFinished((ExecuteResponse) response);
+							}
 						} catch (Exception e) {
+							cd.consumer.operationsDecider = null;
 							response = new ExecuteResponse(
 									new MessageHeader(ex.getMessageHeader().getId()),
 									null /* tagData */, new TimeStamp(platform));
 							return e;
 						} finally {
-							lock.lock();
+							cd.lock.lock();
 							try {
 								cd.sendingMessages.remove(message);
 								// add response to the channel data
@@ -349,12 +514,14 @@ public class RFCClientMultiplexed {
 								// is triggered with an empty response)
 								cd.enqueueMessage(response);
 							} finally {
-								lock.unlock();
+								cd.lock.unlock();
 							}
 						}
 						return null;
 					}
-				});
+				};
+				Future<Exception> executionFuture = cd.executionThread.submit(execution);
+				channelData.executionFutures.put(ex.getMessageHeader().getId(), executionFuture);
 				break;
 			case GET_OPERATIONS_RESPONSE:
 				// set operations response to the channel data and release the
@@ -365,7 +532,7 @@ public class RFCClientMultiplexed {
 				break;
 			}
 		} finally {
-			lock.unlock();
+			channelData.lock.unlock();
 		}
 		// fire "dataSent" event
 		// no serialization necessary => no serialization exception and no
@@ -402,10 +569,18 @@ public class RFCClientMultiplexed {
 		RFCException exception = null;
 		List<Message> pendingSendingData = null;
 		List<Message> pendingReceivedData = null;
-		lock.lock();
+		ChannelData channelData = channels.get(channel);
+		if (channelData == null) {
+			throw new RFCUnknownChannelException("Closed channel: " + channel);
+		}
+		channelData.lock.lock();
 		try {
-			ChannelData channelData = channels.get(channel);
 			while (channelData.messageQueue.size() == 0 && timeout != 0) {
+				// if the channel has been closed before the lock has been
+				// acquired
+				if (channelData.isClosed) {
+					throw new RFCUnknownChannelException("Closed channel: " + channel);
+				}
 				if (timeout < 0) {
 					channelData.messageQueueContainsMessage.await();
 				} else if (!channelData.messageQueueContainsMessage.await(timeout,
@@ -414,7 +589,7 @@ public class RFCClientMultiplexed {
 							+ " ms while waiting for received messages");
 				}
 				// if the channel has been closed while waiting for data
-				if (!channels.containsKey(channel)) {
+				if (channelData.isClosed) {
 					throw new RFCUnknownChannelException("Closed channel: " + channel);
 				}
 			}
@@ -444,14 +619,14 @@ public class RFCClientMultiplexed {
 					GetCapabilities gc = (GetCapabilities) message;
 					List<Capabilities> gcResponses = new ArrayList<>();
 					for (CapabilityType capType : gc.getTypes()) {
-						lock.unlock();
+						channelData.lock.unlock();
 						try {
 							// while the execution is running neither a
 							// further method of the controller must be
 							// called nor the connection must be closed!
 							gcResponses.addAll(channelData.controller.getCapabilities(capType));
 						} finally {
-							lock.lock();
+							channelData.lock.lock();
 						}
 					}
 					response = new GetCapabilitiesResponse(
@@ -461,7 +636,7 @@ public class RFCClientMultiplexed {
 					GetConfiguration gconf = (GetConfiguration) message;
 					List<Configuration> gconfResponses = new ArrayList<>();
 					for (ConfigurationType confType : gconf.getTypes()) {
-						lock.unlock();
+						channelData.lock.unlock();
 						try {
 							// while the execution is running neither a
 							// further method of the controller must be
@@ -470,7 +645,7 @@ public class RFCClientMultiplexed {
 									gconf.getAntennaID(), (short) 0 /* gpiPort */,
 									(short) 0 /* gpoPort */));
 						} finally {
-							lock.lock();
+							channelData.lock.lock();
 						}
 					}
 					response = new GetConfigurationResponse(
@@ -478,27 +653,27 @@ public class RFCClientMultiplexed {
 					break;
 				case SET_CONFIGURATION:
 					SetConfiguration sconf = (SetConfiguration) message;
-					lock.unlock();
+					channelData.lock.unlock();
 					try {
 						// while the execution is running neither a
 						// further method of the controller must be
 						// called nor the connection must be closed!
 						channelData.controller.setConfiguration(sconf.getConfiguration());
 					} finally {
-						lock.lock();
+						channelData.lock.lock();
 					}
 					response = new SetConfigurationResponse(
 							new MessageHeader(message.getMessageHeader().getId()));
 					break;
 				case RESET_CONFIGURATION:
-					lock.unlock();
+					channelData.lock.unlock();
 					try {
 						// while the execution is running neither a
 						// further method of the controller must be
 						// called nor the connection must be closed!
 						channelData.controller.resetConfiguration();
 					} finally {
-						lock.lock();
+						channelData.lock.lock();
 					}
 					response = new ResetConfigurationResponse(
 							new MessageHeader(message.getMessageHeader().getId()));
@@ -508,7 +683,8 @@ public class RFCClientMultiplexed {
 					// possible exception (no time out for waiting because the
 					// this EXECUTE_RESPONSE has been enqueued directly before
 					// the thread finishes)
-					Exception threadException = channelData.executionFuture.get();
+					Exception threadException = channelData.executionFutures
+							.remove(message.getMessageHeader().getId()).get();
 					if (threadException != null) {
 						exception = new RFCException(
 								"Processing of " + messageType + " message failed",
@@ -546,7 +722,7 @@ public class RFCClientMultiplexed {
 				pendingSendingData = getPendingSendingData(channelData);
 				// close the connection to the controller
 				try {
-					closeChannel(channel);
+					closeChannel(channel, channelData);
 				} catch (Exception e1) {
 					// only log this exception because the first occurred
 					// exception is thrown
@@ -557,7 +733,7 @@ public class RFCClientMultiplexed {
 			// synchronized block
 			eventHandler = channelData.eventHandler;
 		} finally {
-			lock.unlock();
+			channelData.lock.unlock();
 		}
 		if (exception != null) {
 			// fire "close" event incl. exception and pending data
@@ -576,14 +752,18 @@ public class RFCClientMultiplexed {
 	 * @throws RFCConnectionException
 	 */
 	public void requestClosingChannel(SelectableChannel channel) throws RFCConnectionException {
-		ChannelData channelData = null;
+		ChannelData channelData = channels.get(channel);
+		if (channelData == null) {
+			return;
+		}
+		boolean isClosed;
 		List<Message> pendingReceivedData = null;
 		List<Message> pendingSendingData = null;
-		lock.lock();
+		channelData.lock.lock();
 		try {
 			// close the channel and remove it from the local list
-			channelData = closeChannel((SocketChannel) channel);
-			if (channelData != null) {
+			isClosed = closeChannel((SocketChannel) channel, channelData);
+			if (isClosed) {
 				// collect pending data
 				pendingReceivedData = getPendingReceivedData(channelData);
 				pendingSendingData = getPendingSendingData(channelData);
@@ -591,9 +771,9 @@ public class RFCClientMultiplexed {
 		} catch (Exception e) {
 			throw new RFCConnectionException("Cannot close channel", e);
 		} finally {
-			lock.unlock();
+			channelData.lock.unlock();
 		}
-		if (channelData != null) {
+		if (isClosed) {
 			// send close event
 			channelData.eventHandler.channelClosed(
 					new RFCChannelClosedEvent(null/* serverChannel */, (SocketChannel) channel,
@@ -622,45 +802,57 @@ public class RFCClientMultiplexed {
 	}
 
 	/**
-	 * Closes a channel and removes it from the local list.
+	 * Closes a channel and removes it from the local list. The lock of the
+	 * channel data must be held by the caller.
 	 * 
 	 * @param channel
-	 * @return The closed channel
+	 * @param channelData
+	 * @return <code>false</code> if the channel has already been closed
 	 * @throws ConnectionException
 	 * @throws ServiceFactoryException
 	 * @throws IOException
 	 */
-	private ChannelData closeChannel(SocketChannel channel)
+	private boolean closeChannel(SocketChannel channel, ChannelData channelData)
 			throws ConnectionException, ServiceFactoryException, IOException {
+		if (channelData.isClosed) {
+			return false;
+		}
 		// remove channel from local list
-		ChannelData channelData = channels.remove(channel);
-		if (channelData != null) {
-			// close the connection to the RF controller and release the RF
-			// controller instance
-			lock.unlock();
-			try {
-				// while the execution is running neither a
-				// further method of the controller must be
-				// called nor the connection must be closed!
-				channelData.controller.closeConnection();
-			} finally {
-				lock.lock();
-			}
-			serviceFactory.release(channelData.controller);
-			// close the channel
-			channel.close();
-			// trigger the throwing of an exception for all threads waiting
-			// for data from this channel
-			channelData.messageQueueContainsMessage.signalAll();
+		channelData.isClosed = true;
+		channels.remove(channel);
+		// close the connection to the RF controller and release the RF
+		// controller instance
+		channelData.lock.unlock();
+		try {
+			// while the execution is running neither a
+			// further method of the controller must be
+			// called nor the connection must be closed!
+			channelData.controller.closeConnection();
+		} finally {
+			channelData.lock.lock();
 		}
-		return channelData;
+		serviceFactory.release(channelData.controller);
+		// close the channel
+		channel.close();
+		// the execution thread ends after a running execution has been
+		// finished
+		channelData.executionThread.shutdown();
+		// trigger the throwing of an exception for all threads waiting
+		// for data from this channel
+		channelData.messageQueueContainsMessage.signalAll();
+		return true;
 	}
 
 	private void logSendingMessage(Message message) {
 		if (log.isLoggable(Level.INFO)) {
 			MessageHeader header = message.getMessageHeader();
-			log.log(Level.INFO, "Sending {0} (id={1})",
-					new Object[] { header.getMessageType(), header.getId() });
+			if (asyncLog != null) {
+				asyncLog.log(Level.INFO, "Sending {0} (id={2})", header.getMessageType(),
+						null /* arg1 */, header.getId(), 0 /* arg3 */);
+			} else {
+				log.log(Level.INFO, "Sending {0} (id={1})",
+						new Object[] { header.getMessageType(), header.getId() });
+			}
 		}
 		if (log.isLoggable(Level.FINE)) {
 			log.log(Level.FINE, message.toString());
@@ -671,8 +863,13 @@ public class RFCClientMultiplexed {
 	private void logReceivedMessage(Message message) {
 		if (log.isLoggable(Level.INFO)) {
 			MessageHeader header = message.getMessageHeader();
-			log.log(Level.INFO, "Received {0} (id={1})",
-					new Object[] { header.getMessageType(), header.getId() });
+			if (asyncLog != null) {
+				asyncLog.log(Level.INFO, "Received {0} (id={2})", header.getMessageType(),
+						null /* arg1 */, header.getId(), 0 /* arg3 */);
+			} else {
+				log.log(Level.INFO, "Received {0} (id={1})",
+						new Object[] { header.getMessageType(), header.getId() });
+			}
 		}
 		if (log.isLoggable(Level.FINE)) {
 			log.log(Level.FINE, message.toString());
@@ -0,0 +1,32 @@
+package havis.llrpservice.sbc.rfc;
+
+import havis.llrpservice.sbc.rfc.message.ExecuteResponse;
+
+/**
+ * Starts the next execution directly after an execution of the RF controller
+ * has been finished.
+ * <p>
+ * A pipeline can be registered for a channel with
+ * {@link RFCClientMultiplexed#setExecutionPipeline(java.nio.channels.SocketChannel, RFCExecutionPipeline)}.
+ * It is called in the thread of the RF controller before the
+ * {@link ExecuteResponse} is delivered via
+ * {@link RFCClientMultiplexed#awaitReceivedData(java.nio.channels.SocketChannel, long)}.
+ * If the next execution is requested with
+ * {@link RFCClientMultiplexed#requestSendingData(java.nio.channels.SocketChannel, havis.llrpservice.sbc.rfc.message.Message)}
+ * then it is started while the response of the previous execution is being
+ * processed.
+ * </p>
+ * <p>
+ * The implementation must be thread safe and must not throw exceptions.
+ * </p>
+ */
+public interface RFCExecutionPipeline {
+
+	/**
+	 * An execution has been finished successfully.
+	 *
+	 * @param response
+	 *            the response which is delivered after this method returns
+	 */
+	public void executionFinished(ExecuteResponse response);
+}
@@ -0,0 +1,32 @@
+package havis.llrpservice.sbc.rfc;
+
+import java.util.List;
+
+import havis.device.rf.tag.operation.TagOperation;
+import havis.llrpservice.sbc.rfc.message.GetOperations;
+
+/**
+ * Decides the access operations for a tag while an inventory is running.
+ * <p>
+ * A decider can be registered for a channel with
+ * {@link RFCClientMultiplexed#setOperationsDecider(java.nio.channels.SocketChannel, RFCOperationsDecider)}.
+ * The callbacks of the RF controller are then answered directly in the thread
+ * of the RF controller instead of delivering a {@link GetOperations} message
+ * via {@link RFCClientMultiplexed#awaitReceivedData(java.nio.channels.SocketChannel, long)}
+ * and waiting for the response.
+ * </p>
+ * <p>
+ * The implementation must be thread safe.
+ * </p>
+ */
+public interface RFCOperationsDecider {
+
+	/**
+	 * Gets the operations for a tag.
+	 *
+	 * @param request
+	 * @return The operations
+	 * @throws Exception
+	 */
+	public List<TagOperation> getOperations(GetOperations request) throws Exception;
+}
@@ -2,9 +2,11 @@ package havis.llrpservice.sbc.rfc.json;
 
 import havis.llrpservice.common.json.ByteArraySerializer;
 import havis.llrpservice.common.json.ByteArrayDeserializer;
+import havis.llrpservice.common.metrics.TagReadTrace;
 
 import java.util.HashMap;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreType;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 
@@ -17,8 +19,15 @@ public class RFCJacksonMixIns extends HashMap<Class<?>, Class<?>> {
 
 	}
 
+	// traces of tag reads are not part of the messages
+	@JsonIgnoreType
+	static abstract class TagReadTraceMixIn {
+
+	}
+
 	public RFCJacksonMixIns() {
 		put(byte[].class, ByteArrayMixIn.class);
+		put(TagReadTrace.class, TagReadTraceMixIn.class);
 	}
 
 }
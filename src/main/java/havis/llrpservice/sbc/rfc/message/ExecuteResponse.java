@@ -2,12 +2,15 @@ package havis.llrpservice.sbc.rfc.message;
 
 import java.util.List;
 import havis.device.rf.tag.TagData;
+import havis.llrpservice.common.metrics.TagReadTrace;
 import havis.llrpservice.server.platform.TimeStamp;
 
 public class ExecuteResponse extends Response {
 
 	private final List<TagData> tagData;
 	private TimeStamp timeStamp;
+	// the trace of sampled tag reads (optional)
+	private TagReadTrace trace;
 
 	public ExecuteResponse(MessageHeader messageHeader, List<TagData> tagData,
 			TimeStamp timeStamp) {
@@ -24,6 +27,14 @@ public class ExecuteResponse extends Response {
 		return timeStamp;
 	}
 
+	public TagReadTrace getTrace() {
+		return trace;
+	}
+
+	public void setTrace(TagReadTrace trace) {
+		this.trace = trace;
+	}
+
 	@Override
 	public String toString() {
 		return "ExecuteResponse [tagData=" + tagData + ", timeStamp=" + timeStamp + ", super="
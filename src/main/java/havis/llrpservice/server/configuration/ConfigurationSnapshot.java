@@ -0,0 +1,55 @@
+package havis.llrpservice.server.configuration;
+
+/**
+ * A version of a configuration.
+ * <p>
+ * A snapshot is replaced with a new one if the configuration is changed. The
+ * configuration object of a snapshot is shared by all readers and must not be
+ * modified. Use the <code>acquire</code> and <code>release</code> methods of
+ * {@link ServerConfiguration} or {@link ServerInstanceConfiguration} to change
+ * the configuration.
+ * </p>
+ * 
+ * @param <T>
+ *            the type of the configuration object
+ */
+public final class ConfigurationSnapshot<T> {
+
+	private final long version;
+	private final T object;
+
+	/**
+	 * @param version
+	 * @param object
+	 *            a copy of the configuration object which is not modified any
+	 *            longer
+	 */
+	ConfigurationSnapshot(long version, T object) {
+		this.version = version;
+		this.object = object;
+	}
+
+	/**
+	 * Returns the version of the configuration. The version starts with
+	 * <code>1</code> and is incremented with each change.
+	 * 
+	 * @return
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Returns the configuration object. It must not be modified.
+	 * 
+	 * @return
+	 */
+	public T getObject() {
+		return object;
+	}
+
+	@Override
+	public String toString() {
+		return "ConfigurationSnapshot [version=" + version + ", object=" + object + "]";
+	}
+}
@@ -21,6 +21,12 @@ import java.util.logging.Logger;
 /**
  * ServerConfiguration class simplifies the usage of LLRPServerConfigurationType
  * object added to corresponding persistence.
+ * <p>
+ * Readers get the current configuration with {@link #getSnapshot()} without
+ * copying or locking. The methods {@link #acquire()} and
+ * {@link #release(Entity, boolean)} are only required for changing the
+ * configuration.
+ * </p>
  */
 public class ServerConfiguration {
 
@@ -36,6 +42,8 @@ public class ServerConfiguration {
 	private XMLFile<LLRPServerConfigurationType> file;
 	// Current entity as list (List contains only one value)
 	private List<String> entityIdList;
+	// Current configuration (replaced with each write access)
+	private volatile ConfigurationSnapshot<LLRPServerConfigurationType> snapshot;
 
 	/**
 	 * Assigns file Object. Create instances.
@@ -84,7 +92,7 @@ public class ServerConfiguration {
 
 				persistence.setServerConfiguration(config,
 						file.getInitialPath().getParent().toString());
-
+				updateSnapshot();
 			}
 		}
 		if (log.isLoggable(Level.FINE)) {
@@ -121,6 +129,30 @@ public class ServerConfiguration {
 		}
 	}
 
+	/**
+	 * Gets the current configuration. The returned configuration object must
+	 * not be modified (see {@link #acquire()} and
+	 * {@link #release(Entity, boolean)}).
+	 * 
+	 * @return <code>null</code> if the configuration has not been opened
+	 */
+	public ConfigurationSnapshot<LLRPServerConfigurationType> getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Replaces the snapshot with a copy of the current configuration. The
+	 * caller must hold the lock.
+	 * 
+	 * @throws EntityManagerException
+	 */
+	private void updateSnapshot() throws EntityManagerException {
+		List<Entity<Object>> entities = persistence.acquire(entityIdList);
+		persistence.release(entities, false /* write */);
+		snapshot = new ConfigurationSnapshot<>(snapshot == null ? 1 : snapshot.getVersion() + 1,
+				castObjectToType(entities.get(0)).getObject());
+	}
+
 	/**
 	 * Generic casting.
 	 * 
@@ -148,7 +180,8 @@ public class ServerConfiguration {
 	 * will be stored. All listeners will be informed, that an update takes
 	 * place in this case. The given entity will be released in persistence. The
 	 * entity released at first will be noted. If release is called with other
-	 * acquired entities an Exception will be thrown.
+	 * acquired entities an Exception will be thrown. The snapshot of the
+	 * configuration is replaced before the listeners are informed.
 	 * 
 	 * @param entity
 	 *            Entity to be released
@@ -186,8 +219,12 @@ public class ServerConfiguration {
 		persistence.release(entities, write);
 
 		if (write) {
+			synchronized (lockListeners) {
+				updateSnapshot();
+			}
 			if (log.isLoggable(Level.FINE)) {
-				log.log(Level.FINE, "Inform listeners about changed configuration.");
+				log.log(Level.FINE, "Inform listeners about changed configuration (version "
+						+ snapshot.getVersion() + ").");
 			}
 			// inform all listener
 			for (ServerConfigurationListener entry : listeners) {
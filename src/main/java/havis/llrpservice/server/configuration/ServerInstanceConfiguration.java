@@ -21,6 +21,12 @@ import java.util.logging.Logger;
  * ServerConfiguration class simplifies the usage of
  * LLRPServerInstanceConfigurationType object added to corresponding
  * persistence.
+ * <p>
+ * Readers get the current configuration with {@link #getSnapshot()} without
+ * copying or locking. The methods {@link #acquire()} and
+ * {@link #release(Entity, boolean)} are only required for changing the
+ * configuration.
+ * </p>
  */
 public class ServerInstanceConfiguration {
 
@@ -97,6 +103,8 @@ public class ServerInstanceConfiguration {
 	private List<String> entityIdList;
 	// Current server configuration object
 	private LLRPServerConfigurationType currentServerConfig;
+	// Current instance configuration (replaced with each write access)
+	private volatile ConfigurationSnapshot<LLRPServerInstanceConfigurationType> snapshot;
 
 	/**
 	 * Assigns file object and server configuration. Create instances.
@@ -163,6 +171,7 @@ public class ServerInstanceConfiguration {
 					throw new ConfigurationException(e);
 				}
 				serverConf.release(entity, /* write */false);
+				updateSnapshot();
 				// register as listener at server config
 				serverConfListener = new ServerInstanceServerConfListener(this);
 				serverConf.addListener(serverConfListener);
@@ -200,6 +209,30 @@ public class ServerInstanceConfiguration {
 		}
 	}
 
+	/**
+	 * Gets the current instance configuration. The returned configuration
+	 * object must not be modified (see {@link #acquire()} and
+	 * {@link #release(Entity, boolean)}).
+	 * 
+	 * @return <code>null</code> if the configuration has not been opened
+	 */
+	public ConfigurationSnapshot<LLRPServerInstanceConfigurationType> getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * Replaces the snapshot with a copy of the current instance configuration.
+	 * The caller must hold the lock.
+	 * 
+	 * @throws EntityManagerException
+	 */
+	private void updateSnapshot() throws EntityManagerException {
+		List<Entity<Object>> entities = persistence.acquire(entityIdList);
+		persistence.release(entities, false /* write */);
+		snapshot = new ConfigurationSnapshot<>(snapshot == null ? 1 : snapshot.getVersion() + 1,
+				castObjectToType(entities.get(0)).getObject());
+	}
+
 	/**
 	 * Generic casting.
 	 * 
@@ -228,7 +261,8 @@ public class ServerInstanceConfiguration {
 	 * will be stored. All listeners will be informed, that an update takes
 	 * place in this case. The given entity will be released in persistence. The
 	 * entity released at first will be noted. If release is called with other
-	 * acquired entities an Exception will be thrown.
+	 * acquired entities an Exception will be thrown. The snapshot of the
+	 * configuration is replaced before the listeners are informed.
 	 * 
 	 * @param instanceEntity
 	 *            Entity to be released
@@ -267,8 +301,13 @@ public class ServerInstanceConfiguration {
 		persistence.release(entities, write);
 
 		if (write) {
+			synchronized (lockListeners) {
+				updateSnapshot();
+			}
 			if (log.isLoggable(Level.FINE)) {
-				log.log(Level.FINE, "Inform listeners about changed instance configuration.");
+				log.log(Level.FINE,
+						"Inform listeners about changed instance configuration (version "
+								+ snapshot.getVersion() + ").");
 			}
 			// inform all listener
 			for (ServerInstanceConfigurationListener entry : listeners) {
@@ -153,6 +153,40 @@ public class EventQueue {
 		return event;
 	}
 
+	/**
+	 * Gets the number of queued events.
+	 * 
+	 * @return The number of events
+	 */
+	public int size() {
+		lock.lock();
+		try {
+			int size = 0;
+			for (List<Event> eventQueue : eventQueues.values()) {
+				size += eventQueue.size();
+			}
+			return size;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of queued events with a priority.
+	 * 
+	 * @param priority
+	 * @return The number of events
+	 */
+	public int size(int priority) {
+		lock.lock();
+		try {
+			List<Event> eventQueue = eventQueues.get(priority);
+			return eventQueue == null ? 0 : eventQueue.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
 	/**
 	 * Adds a listener to the event queue. Listeners can be added separately for
 	 * each event type.
@@ -20,12 +20,26 @@ public class LLRPServiceInstanceEvent implements Event {
 
 	private final MessageType messageType;
 	private Throwable exception;
+	private Long messageId;
 
 	public LLRPServiceInstanceEvent(MessageType messageType, Throwable exception) {
 		this.messageType = messageType;
 		this.exception = exception;
 	}
 
+	/**
+	 * @param messageType
+	 * @param messageId
+	 *            the identifier of the sent LLRP message (see
+	 *            {@link MessageType#LLRP_DATA_SENT})
+	 * @param exception
+	 */
+	public LLRPServiceInstanceEvent(MessageType messageType, Long messageId,
+			Throwable exception) {
+		this(messageType, exception);
+		this.messageId = messageId;
+	}
+
 	@Override
 	public EventType getEventType() {
 		return EventType.INSTANCE_EVENT;
@@ -39,9 +53,13 @@ public class LLRPServiceInstanceEvent implements Event {
 		return messageType;
 	}
 
+	public Long getMessageId() {
+		return messageId;
+	}
+
 	@Override
 	public String toString() {
 		return "LLRPServiceInstanceEvent [messageType=" + messageType
-				+ ", exception=" + exception + "]";
+				+ ", messageId=" + messageId + ", exception=" + exception + "]";
 	}
 }
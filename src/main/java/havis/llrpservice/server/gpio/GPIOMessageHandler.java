@@ -19,7 +19,6 @@ import havis.device.io.IODevice;
 import havis.device.io.Type;
 import havis.llrpservice.common.concurrent.EventPipe;
 import havis.llrpservice.common.concurrent.EventPipes;
-import havis.llrpservice.common.entityManager.Entity;
 import havis.llrpservice.common.entityManager.EntityManagerException;
 import havis.llrpservice.common.ids.IdGenerator;
 import havis.llrpservice.sbc.gpio.GPIOClientMultiplexed;
@@ -49,8 +48,6 @@ import havis.llrpservice.server.event.GPIOMessageEvent;
 import havis.llrpservice.server.persistence.PersistenceException;
 import havis.llrpservice.xml.configuration.AddressGroup;
 import havis.llrpservice.xml.configuration.GpioPortProperties;
-import havis.llrpservice.xml.configuration.LLRPServerConfigurationType;
-import havis.llrpservice.xml.configuration.LLRPServerInstanceConfigurationType;
 import havis.llrpservice.xml.configuration.ReflectionType;
 
 /**
@@ -181,13 +178,9 @@ public class GPIOMessageHandler implements Runnable {
 			throws EntityManagerException, ConfigurationException, PersistenceException,
 			ClassNotFoundException, MissingServiceFactoryException {
 		// create config analyser
-		Entity<LLRPServerConfigurationType> serverConfigEntity = serverConfiguration.acquire();
-		Entity<LLRPServerInstanceConfigurationType> instanceConfigEntity = instanceConfiguration
-				.acquire();
-		GPIOConfigAnalyser configAnalyser = new GPIOConfigAnalyser(serverConfigEntity.getObject());
-		configAnalyser.setServerInstanceConfig(instanceConfigEntity.getObject());
-		instanceConfiguration.release(instanceConfigEntity, false /* write */);
-		serverConfiguration.release(serverConfigEntity, false /* write */);
+		GPIOConfigAnalyser configAnalyser = new GPIOConfigAnalyser(
+				serverConfiguration.getSnapshot().getObject());
+		configAnalyser.setServerInstanceConfig(instanceConfiguration.getSnapshot().getObject());
 
 		llrpAddress = configAnalyser.getAddress();
 		GpioPortProperties gpioPortProperties = configAnalyser.getGPIOPortProperties();
@@ -10,6 +10,7 @@ import java.util.concurrent.TimeoutException;
 
 import havis.llrpservice.common.ids.IdGenerator;
 import havis.llrpservice.common.tcp.TCPConnectorStoppedException;
+import havis.llrpservice.csc.llrp.LLRPMessageTemplate;
 import havis.llrpservice.csc.llrp.LLRPServerMultiplexed;
 import havis.llrpservice.csc.llrp.LLRPTimeoutException;
 import havis.llrpservice.csc.llrp.LLRPUnknownChannelException;
@@ -31,6 +32,7 @@ import havis.llrpservice.data.message.parameter.TLVParameterHeader;
 import havis.llrpservice.data.message.parameter.serializer.InvalidParameterTypeException;
 import havis.llrpservice.data.message.serializer.InvalidMessageTypeException;
 import havis.llrpservice.data.message.serializer.InvalidProtocolVersionException;
+import havis.llrpservice.server.platform.TimeStamp;
 import havis.util.platform.Platform;
 import havis.util.platform.PlatformException;
 
@@ -53,6 +55,9 @@ import havis.util.platform.PlatformException;
  * </p>
  */
 class LLRPConnectionHandler {
+	// the templates are shared by all connections
+	private static final LLRPMessageTemplates templates = new LLRPMessageTemplates();
+
 	private final LLRPServerEventHandler serverEventHandler;
 	private final SocketChannel clientChannel;
 	private final Platform platform;
@@ -187,20 +192,40 @@ class LLRPConnectionHandler {
 	}
 
 	/**
-	 * Creates a notification message with a {@link ConnectionAttemptEvent}.
+	 * Requests the sending of a serialized LLRP message to the connected
+	 * client (see {@link #requestSendingData(Message)}).
+	 * 
+	 * @param template
+	 * @param id
+	 *            the message identifier
+	 * @param timestamp
+	 *            the time stamp in microseconds (see
+	 *            {@link LLRPMessageTemplate#createData(long, long)})
+	 * @throws LLRPUnknownChannelException
+	 * @throws TCPConnectorStoppedException
+	 */
+	public void requestSendingData(LLRPMessageTemplate template, long id, long timestamp)
+			throws LLRPUnknownChannelException, TCPConnectorStoppedException {
+		serverEventHandler.getLLRPServer().requestSendingData(clientChannel, template, id,
+				timestamp);
+	}
+
+	/**
+	 * Sends a notification message with a {@link ConnectionAttemptEvent}.
 	 * 
 	 * @param status
-	 * @return
+	 * @throws InvalidMessageTypeException
+	 * @throws InvalidParameterTypeException
+	 * @throws LLRPUnknownChannelException
+	 * @throws TCPConnectorStoppedException
 	 * @throws PlatformException
 	 */
-	private ReaderEventNotification createReaderEventNotification(
-			ConnectionAttemptEventStatusType status) throws PlatformException {
-		ReaderEventNotificationData rend = messageCreator
-				.createReaderEventNotificationData(platform);
-		rend.setConnectionAttemptEvent(
-				new ConnectionAttemptEvent(new TLVParameterHeader((byte) 0), status));
-		return new ReaderEventNotification(new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1,
-				IdGenerator.getNextLongId()), rend);
+	private void requestSendingConnectionAttemptEvent(ConnectionAttemptEventStatusType status)
+			throws InvalidMessageTypeException, InvalidParameterTypeException,
+			LLRPUnknownChannelException, TCPConnectorStoppedException, PlatformException {
+		TimeStamp ts = new TimeStamp(platform);
+		requestSendingData(templates.getConnectionAttemptEvent(status, ts.isUtc()),
+				IdGenerator.getNextLongId(), ts.getTimestamp() * 1000 /* microseconds */);
 	}
 
 	/**
@@ -218,9 +243,8 @@ class LLRPConnectionHandler {
 	public void requestSendingConnectionDeniedEvent() throws InvalidMessageTypeException,
 			LLRPUnknownChannelException, TCPConnectorStoppedException,
 			InvalidParameterTypeException, InterruptedException, PlatformException {
-		ReaderEventNotification message = createReaderEventNotification(
+		requestSendingConnectionAttemptEvent(
 				ConnectionAttemptEventStatusType.FAILED_CLIENT_CONNECTION_EXISTS);
-		requestSendingData(message);
 		connectionConfirmationSent.release();
 	}
 
@@ -240,9 +264,7 @@ class LLRPConnectionHandler {
 	public void requestSendingConnectionAcceptedEvent() throws InvalidMessageTypeException,
 			LLRPUnknownChannelException, TCPConnectorStoppedException,
 			InvalidParameterTypeException, InterruptedException, PlatformException {
-		ReaderEventNotification message = createReaderEventNotification(
-				ConnectionAttemptEventStatusType.SUCCESS);
-		requestSendingData(message);
+		requestSendingConnectionAttemptEvent(ConnectionAttemptEventStatusType.SUCCESS);
 		connectionConfirmationSent.release();
 	}
 
@@ -297,12 +319,11 @@ class LLRPConnectionHandler {
 	public void requestSendingKeepaliveMessage()
 			throws InvalidMessageTypeException, LLRPUnknownChannelException,
 			TCPConnectorStoppedException, InvalidParameterTypeException, InterruptedException {
-		Keepalive keepalive;
+		LLRPMessageTemplate keepalive;
 		synchronized (protocolVersionLock) {
-			keepalive = new Keepalive(
-					new MessageHeader((byte) 0, protocolVersion, IdGenerator.getNextLongId()));
+			keepalive = templates.getKeepalive(protocolVersion);
 		}
-		requestSendingData(keepalive);
+		requestSendingData(keepalive, IdGenerator.getNextLongId(), 0 /* timestamp */);
 	}
 
 	/**
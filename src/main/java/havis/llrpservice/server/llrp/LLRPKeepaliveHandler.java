@@ -1,15 +1,12 @@
 package havis.llrpservice.server.llrp;
 
+import havis.llrpservice.common.concurrent.SharedExecutor;
 import havis.llrpservice.data.message.Keepalive;
 
-import java.util.Date;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -19,8 +16,10 @@ import java.util.logging.Logger;
  * The LLRPKeepaliveHandler sends {@link Keepalive} messages in defined
  * intervals to LLRP clients.
  * <p>
- * With method {@link #start()} a thread is started which sends the keep alive
- * messages. The first message is sent at the end of the first interval.
+ * With method {@link #start()} a periodic task is scheduled at the
+ * {@link SharedExecutor} which sends the keep alive messages. The first message
+ * is sent at the end of the first interval. No thread is blocked between the
+ * intervals.
  * </p>
  * <p>
  * A sent keepalive message must be acknowledged with
@@ -30,7 +29,7 @@ import java.util.logging.Logger;
  * the execution of the server event handler with an exception.
  * </p>
  * <p>
- * The thread must be stopped with {@link #stop(long)}.
+ * The task must be stopped with {@link #stop(long)}.
  * </p>
  */
 public class LLRPKeepaliveHandler implements Runnable {
@@ -39,10 +38,9 @@ public class LLRPKeepaliveHandler implements Runnable {
 
 	private long interval; // in ms
 	private LLRPConnectionHandler connection;
-	ExecutorService threadPool;
-	Future<?> keepaliveThread = null;
+	private final SharedExecutor executor;
+	ScheduledFuture<?> keepaliveTask = null;
 	private final Lock lock = new ReentrantLock();
-	private Condition condition = lock.newCondition();
 	boolean stopped = false;
 	boolean acknowledged = true;
 
@@ -53,21 +51,42 @@ public class LLRPKeepaliveHandler implements Runnable {
 	 *            keep alive interval in milliseconds
 	 */
 	public LLRPKeepaliveHandler(LLRPConnectionHandler connection, long interval) {
+		this(connection, interval, SharedExecutor.getInstance());
+	}
+
+	/**
+	 * @param connection
+	 *            connection to the client
+	 * @param interval
+	 *            keep alive interval in milliseconds
+	 * @param executor
+	 *            the executor for scheduling the keep alive task
+	 */
+	public LLRPKeepaliveHandler(LLRPConnectionHandler connection, long interval,
+			SharedExecutor executor) {
 		this.connection = connection;
 		this.interval = interval;
+		this.executor = executor;
 	}
 
 	/**
-	 * Starts the keep alive thread. The first message is sent at the end of the
+	 * Starts the keep alive task. The first message is sent at the end of the
 	 * first interval.
 	 */
 	public void start() {
-		threadPool = Executors.newFixedThreadPool(1);
-		keepaliveThread = threadPool.submit(this);
+		lock.lock();
+		try {
+			stopped = false;
+			keepaliveTask = executor.scheduleAtFixedRate(this, interval, interval,
+					TimeUnit.MILLISECONDS);
+		} finally {
+			lock.unlock();
+		}
 	}
 
 	/**
-	 * Stops the keep alive thread.
+	 * Stops the keep alive task. If the task is currently sending a message
+	 * then the method waits for the end of the execution.
 	 * 
 	 * @param stopTimeout
 	 *            time out in milliseconds
@@ -77,18 +96,20 @@ public class LLRPKeepaliveHandler implements Runnable {
 	 */
 	public void stop(long stopTimeout)
 			throws InterruptedException, ExecutionException, TimeoutException {
-		lock.lock();
+		if (!lock.tryLock(stopTimeout, TimeUnit.MILLISECONDS)) {
+			throw new TimeoutException(String.format(
+					"Time out after %d ms while waiting for the end of the keep alive task",
+					stopTimeout));
+		}
 		try {
 			stopped = true;
-			condition.signal();
+			if (keepaliveTask != null) {
+				keepaliveTask.cancel(false /* mayInterruptIfRunning */);
+				keepaliveTask = null;
+			}
 		} finally {
 			lock.unlock();
 		}
-		if (keepaliveThread != null) {
-			keepaliveThread.get(stopTimeout, TimeUnit.MILLISECONDS);
-			keepaliveThread = null;
-			threadPool.shutdown();
-		}
 	}
 
 	/**
@@ -112,35 +133,38 @@ public class LLRPKeepaliveHandler implements Runnable {
 
 	@Override
 	public void run() {
-		Date waitUntil = new Date();
 		lock.lock();
 		try {
-			while (!stopped) {
-				waitUntil = new Date(waitUntil.getTime() + interval);
-				while (!stopped) {
-					if (!condition.awaitUntil(waitUntil)) {
-						// time out
-						break;
-					}
-				}
-				if (!stopped) {
-					if (acknowledged) {
-						acknowledged = false;
-						connection.requestSendingKeepaliveMessage();
-					} else {
-						// abort execution with an exception and stop the thread
-						connection.getServerEventHandler().abortExecution(new Exception(
-								"Missing keep alive acknowledge after " + interval + " ms"));
-						stopped = true;
-					}
-				}
+			if (stopped) {
+				return;
+			}
+			if (acknowledged) {
+				acknowledged = false;
+				connection.requestSendingKeepaliveMessage();
+			} else {
+				// abort execution with an exception and stop the task
+				connection.getServerEventHandler().abortExecution(
+						new Exception("Missing keep alive acknowledge after " + interval + " ms"));
+				cancel();
 			}
 		} catch (Exception e) {
 			if (log.isLoggable(Level.SEVERE)) {
-				log.log(Level.SEVERE, "Keepalive thread closed with exception ", e);
+				log.log(Level.SEVERE, "Keepalive task closed with exception ", e);
 			}
+			cancel();
 		} finally {
 			lock.unlock();
 		}
 	}
+
+	/**
+	 * Cancels further executions of the keep alive task. The lock must be held
+	 * by the current thread.
+	 */
+	private void cancel() {
+		stopped = true;
+		if (keepaliveTask != null) {
+			keepaliveTask.cancel(false /* mayInterruptIfRunning */);
+		}
+	}
 }
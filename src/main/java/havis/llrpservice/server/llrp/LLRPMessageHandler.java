@@ -15,10 +15,10 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import havis.llrpservice.common.concurrent.EventPipe;
-import havis.llrpservice.common.entityManager.Entity;
 import havis.llrpservice.common.entityManager.EntityManagerException;
 import havis.llrpservice.common.tcp.TCPConnectorStoppedException;
 import havis.llrpservice.common.tcp.TCPServerMultiplexed;
+import havis.llrpservice.csc.llrp.LLRPMessageTemplate;
 import havis.llrpservice.csc.llrp.LLRPServerMultiplexed;
 import havis.llrpservice.csc.llrp.LLRPUnknownChannelException;
 import havis.llrpservice.csc.llrp.event.LLRPDataSentEvent;
@@ -36,8 +36,6 @@ import havis.llrpservice.server.event.EventQueue;
 import havis.llrpservice.server.event.LLRPMessageEvent;
 import havis.llrpservice.server.persistence.PersistenceException;
 import havis.llrpservice.xml.configuration.AddressGroup;
-import havis.llrpservice.xml.configuration.LLRPServerConfigurationType;
-import havis.llrpservice.xml.configuration.LLRPServerInstanceConfigurationType;
 import havis.util.platform.Platform;
 import havis.util.platform.PlatformException;
 
@@ -103,14 +101,10 @@ public class LLRPMessageHandler implements Runnable {
 			TCPServerMultiplexed tcpServerLLRP) throws EntityManagerException,
 			ConfigurationException, PersistenceException, IOException {
 		// create config analyser
-		Entity<LLRPServerConfigurationType> serverConfigEntity = serverConfiguration.acquire();
-		Entity<LLRPServerInstanceConfigurationType> instanceConfigEntity = instanceConfiguration
-				.acquire();
 		LLRPConfigAnalyser llrpConfigAnalyser = new LLRPConfigAnalyser(
-				serverConfigEntity.getObject());
-		llrpConfigAnalyser.setServerInstanceConfig(instanceConfigEntity.getObject());
-		instanceConfiguration.release(instanceConfigEntity, false /* write */);
-		serverConfiguration.release(serverConfigEntity, false /* write */);
+				serverConfiguration.getSnapshot().getObject());
+		llrpConfigAnalyser
+				.setServerInstanceConfig(instanceConfiguration.getSnapshot().getObject());
 
 		llrpAddress = llrpConfigAnalyser.getAddress();
 		openCloseTimeout = llrpConfigAnalyser.getOpenCloseTimeout();
@@ -360,6 +354,45 @@ public class LLRPMessageHandler implements Runnable {
 		}
 	}
 
+	/**
+	 * Requests the sending of a serialized LLRP message without a time stamp
+	 * (see {@link #requestSendingData(Message)}).
+	 * 
+	 * @param template
+	 * @param id
+	 *            the message identifier
+	 * @throws LLRPUnknownChannelException
+	 * @throws TCPConnectorStoppedException
+	 */
+	public void requestSendingData(LLRPMessageTemplate template, long id)
+			throws LLRPUnknownChannelException, TCPConnectorStoppedException {
+		lock.lock();
+		try {
+			// forward the message to server handler
+			serverEventHandler.requestSendingData(template, id);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the number of bytes which have been sent to LLRP clients.
+	 * 
+	 * @return The number of sent bytes
+	 */
+	public long getSentBytes() {
+		return llrpServer.getSentBytes();
+	}
+
+	/**
+	 * Gets the number of bytes which have been received from LLRP clients.
+	 * 
+	 * @return The number of received bytes
+	 */
+	public long getReceivedBytes() {
+		return llrpServer.getReceivedBytes();
+	}
+
 	/**
 	 * Runs the message handler. The methods blocks until the message handler is
 	 * closed with {@link #close()}.
@@ -0,0 +1,88 @@
+package havis.llrpservice.server.llrp;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+import havis.llrpservice.csc.llrp.LLRPMessageTemplate;
+import havis.llrpservice.data.message.Keepalive;
+import havis.llrpservice.data.message.MessageHeader;
+import havis.llrpservice.data.message.ProtocolVersion;
+import havis.llrpservice.data.message.ReaderEventNotification;
+import havis.llrpservice.data.message.parameter.ConnectionAttemptEvent;
+import havis.llrpservice.data.message.parameter.ConnectionAttemptEventStatusType;
+import havis.llrpservice.data.message.parameter.ReaderEventNotificationData;
+import havis.llrpservice.data.message.parameter.TLVParameterHeader;
+import havis.llrpservice.data.message.parameter.UTCTimestamp;
+import havis.llrpservice.data.message.parameter.Uptime;
+import havis.llrpservice.data.message.parameter.serializer.InvalidParameterTypeException;
+import havis.llrpservice.data.message.serializer.InvalidMessageTypeException;
+
+/**
+ * Provides the templates for the messages which are sent by the server without
+ * a request from the client: notifications with a
+ * {@link ConnectionAttemptEvent} and {@link Keepalive} messages.
+ * <p>
+ * The templates are created on demand and do not depend on a connection. The
+ * message identifier and the time stamp must be set when a template is sent.
+ * </p>
+ */
+class LLRPMessageTemplates {
+
+	private final Map<ProtocolVersion, LLRPMessageTemplate> keepalives = new HashMap<>();
+	private final Map<ConnectionAttemptEventStatusType, LLRPMessageTemplate> utcConnectionAttemptEvents = new HashMap<>();
+	private final Map<ConnectionAttemptEventStatusType, LLRPMessageTemplate> uptimeConnectionAttemptEvents = new HashMap<>();
+
+	/**
+	 * Gets the template for a {@link Keepalive} message.
+	 *
+	 * @param protocolVersion
+	 * @return
+	 * @throws InvalidMessageTypeException
+	 * @throws InvalidParameterTypeException
+	 */
+	synchronized LLRPMessageTemplate getKeepalive(ProtocolVersion protocolVersion)
+			throws InvalidMessageTypeException, InvalidParameterTypeException {
+		LLRPMessageTemplate ret = keepalives.get(protocolVersion);
+		if (ret == null) {
+			ret = new LLRPMessageTemplate(
+					new Keepalive(new MessageHeader((byte) 0, protocolVersion, 0 /* id */)));
+			keepalives.put(protocolVersion, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Gets the template for a notification message with a
+	 * {@link ConnectionAttemptEvent}.
+	 *
+	 * @param status
+	 * @param isUtc
+	 *            whether the notification contains an UTC time stamp or the up
+	 *            time
+	 * @return
+	 * @throws InvalidMessageTypeException
+	 * @throws InvalidParameterTypeException
+	 */
+	synchronized LLRPMessageTemplate getConnectionAttemptEvent(
+			ConnectionAttemptEventStatusType status, boolean isUtc)
+			throws InvalidMessageTypeException, InvalidParameterTypeException {
+		Map<ConnectionAttemptEventStatusType, LLRPMessageTemplate> templates = isUtc
+				? utcConnectionAttemptEvents : uptimeConnectionAttemptEvents;
+		LLRPMessageTemplate ret = templates.get(status);
+		if (ret == null) {
+			// the time stamp is set when the template is sent
+			ReaderEventNotificationData rend = isUtc
+					? new ReaderEventNotificationData(new TLVParameterHeader((byte) 0),
+							new UTCTimestamp(new TLVParameterHeader((byte) 0), BigInteger.ZERO))
+					: new ReaderEventNotificationData(new TLVParameterHeader((byte) 0),
+							new Uptime(new TLVParameterHeader((byte) 0), BigInteger.ZERO));
+			rend.setConnectionAttemptEvent(
+					new ConnectionAttemptEvent(new TLVParameterHeader((byte) 0), status));
+			ret = new LLRPMessageTemplate(new ReaderEventNotification(
+					new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, 0 /* id */), rend));
+			templates.put(status, ret);
+		}
+		return ret;
+	}
+}
@@ -14,6 +14,7 @@ import havis.llrpservice.common.concurrent.EventPipe;
 import havis.llrpservice.common.concurrent.EventPipes;
 import havis.llrpservice.common.tcp.TCPConnectorStoppedException;
 import havis.llrpservice.csc.llrp.LLRPEventHandler;
+import havis.llrpservice.csc.llrp.LLRPMessageTemplate;
 import havis.llrpservice.csc.llrp.LLRPServerMultiplexed;
 import havis.llrpservice.csc.llrp.LLRPUnknownChannelException;
 import havis.llrpservice.csc.llrp.event.LLRPChannelClosedEvent;
@@ -296,6 +297,28 @@ class LLRPServerEventHandler implements LLRPEventHandler {
 		}
 	}
 
+	/**
+	 * Requests the sending of a serialized LLRP message without a time stamp
+	 * to the connected client (see {@link #requestSendingData(Message)}).
+	 * 
+	 * @param template
+	 * @param id
+	 *            the message identifier
+	 * @throws LLRPUnknownChannelException
+	 * @throws TCPConnectorStoppedException
+	 */
+	public void requestSendingData(LLRPMessageTemplate template, long id)
+			throws LLRPUnknownChannelException, TCPConnectorStoppedException {
+		lock.lock();
+		try {
+			if (connectionHandler != null) {
+				connectionHandler.requestSendingData(template, id, 0 /* timestamp */);
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
 	/**
 	 * Awaits the opening of the server channel.
 	 * 
@@ -2,6 +2,8 @@ package havis.llrpservice.server.management.bean;
 
 import havis.llrpservice.server.service.LLRPServiceManager;
 
+import java.util.concurrent.TimeUnit;
+
 public class Server implements ServerMBean {
 
 	private final LLRPServiceManager llrpServiceManager;
@@ -19,4 +21,35 @@ public class Server implements ServerMBean {
 	public void stop() throws Exception {
 		llrpServiceManager.stop();
 	}
+
+	@Override
+	public int getSchedulerThreadCount() {
+		return llrpServiceManager.getExecutor().getSchedulerThreadCount();
+	}
+
+	@Override
+	public int getLoopThreadCount() {
+		return llrpServiceManager.getExecutor().getLoopThreadCount();
+	}
+
+	@Override
+	public int getWorkerThreadCount() {
+		return llrpServiceManager.getExecutor().getWorkerThreadCount();
+	}
+
+	@Override
+	public int getActiveWorkerThreadCount() {
+		return llrpServiceManager.getExecutor().getActiveWorkerThreadCount();
+	}
+
+	@Override
+	public long getSchedulerLag() {
+		return TimeUnit.NANOSECONDS.toMicros(llrpServiceManager.getExecutor().getSchedulerLag());
+	}
+
+	@Override
+	public long getMaxSchedulerLag() {
+		return TimeUnit.NANOSECONDS
+				.toMicros(llrpServiceManager.getExecutor().getMaxSchedulerLag());
+	}
 }
@@ -17,4 +17,50 @@ public interface ServerMBean {
 	 * @throws Exception
 	 */
 	void stop() throws Exception;
-}
\ No newline at end of file
+
+	/**
+	 * Gets the current number of threads of the shared scheduler.
+	 * 
+	 * @return The number of scheduler threads
+	 */
+	int getSchedulerThreadCount();
+
+	/**
+	 * Gets the current number of threads of the shared executor which run
+	 * loops like message handlers.
+	 * 
+	 * @return The number of loop threads
+	 */
+	int getLoopThreadCount();
+
+	/**
+	 * Gets the current number of threads of the shared worker pool for short
+	 * tasks.
+	 * 
+	 * @return The number of worker threads
+	 */
+	int getWorkerThreadCount();
+
+	/**
+	 * Gets the number of worker threads which are executing tasks.
+	 * 
+	 * @return The number of active worker threads
+	 */
+	int getActiveWorkerThreadCount();
+
+	/**
+	 * Gets the delay between the planned and the real start of the latest
+	 * periodic task like a keep alive timer.
+	 * 
+	 * @return The scheduler lag in microseconds
+	 */
+	long getSchedulerLag();
+
+	/**
+	 * Gets the maximum delay between the planned and the real start of a
+	 * periodic task.
+	 * 
+	 * @return The maximum scheduler lag in microseconds
+	 */
+	long getMaxSchedulerLag();
+}
@@ -0,0 +1,238 @@
+package havis.llrpservice.server.management.bean;
+
+import havis.llrpservice.common.metrics.LatencyRecorder;
+import havis.llrpservice.common.metrics.TagReadStage;
+import havis.llrpservice.common.metrics.TagReadTracer;
+import havis.llrpservice.server.event.EventPriority;
+import havis.llrpservice.server.service.InstanceMetrics;
+
+import java.util.concurrent.TimeUnit;
+
+public class ServiceInstanceMetrics implements ServiceInstanceMetricsMBean {
+	private final String serviceInstanceId;
+	// the metrics of the latest started instance
+	private volatile InstanceMetrics metrics;
+
+	public ServiceInstanceMetrics(String serviceInstanceId) {
+		this.serviceInstanceId = serviceInstanceId;
+	}
+
+	/**
+	 * Sets the metrics of a started instance.
+	 *
+	 * @param metrics
+	 */
+	public void setMetrics(InstanceMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Override
+	public String getServiceInstanceId() {
+		return serviceInstanceId;
+	}
+
+	@Override
+	public double getTagReadRate() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : m.getTagReads().getRate();
+	}
+
+	@Override
+	public long getTagReadCount() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : m.getTagReads().getTotal();
+	}
+
+	@Override
+	public long getSentROAccessReportCount() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : m.getSentROAccessReports();
+	}
+
+	@Override
+	public long getSentBytes() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : m.getSentBytes();
+	}
+
+	@Override
+	public long getReceivedBytes() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : m.getReceivedBytes();
+	}
+
+	@Override
+	public int getDefaultEventQueueSize() {
+		return getEventQueueSize(EventPriority.DEFAULT);
+	}
+
+	@Override
+	public int getLLRPEventQueueSize() {
+		return getEventQueueSize(EventPriority.LLRP);
+	}
+
+	@Override
+	public int getServiceInstanceEventQueueSize() {
+		return getEventQueueSize(EventPriority.SERVICE_INSTANCE);
+	}
+
+	@Override
+	public double getEventLoopBusyRatio() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : m.getEventLoopBusyRatio();
+	}
+
+	@Override
+	public long getLLRPPortOpeningTime() {
+		InstanceMetrics m = metrics;
+		if (m == null) {
+			return -1;
+		}
+		long time = m.getLLRPPortOpeningTime();
+		return time < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(time);
+	}
+
+	@Override
+	public int getReportDepotSize() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : m.getReportDepotSize();
+	}
+
+	@Override
+	public long getReportDepotLength() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : m.getReportDepotLength();
+	}
+
+	@Override
+	public long getFlushLatencyP50() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : getPercentile(m.getFlushLatency(), 50);
+	}
+
+	@Override
+	public long getFlushLatencyP99() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : getPercentile(m.getFlushLatency(), 99);
+	}
+
+	@Override
+	public long getFlushLatencyMax() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : getMax(m.getFlushLatency());
+	}
+
+	@Override
+	public long getExecuteLatencyP50() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : getPercentile(m.getExecuteLatency(), 50);
+	}
+
+	@Override
+	public long getExecuteLatencyP99() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : getPercentile(m.getExecuteLatency(), 99);
+	}
+
+	@Override
+	public long getExecuteLatencyMax() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : getMax(m.getExecuteLatency());
+	}
+
+	@Override
+	public long getGetOperationsLatencyP50() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : getPercentile(m.getGetOperationsLatency(), 50);
+	}
+
+	@Override
+	public long getGetOperationsLatencyP99() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : getPercentile(m.getGetOperationsLatency(), 99);
+	}
+
+	@Override
+	public long getGetOperationsLatencyMax() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : getMax(m.getGetOperationsLatency());
+	}
+
+	@Override
+	public long getGPIStartLatencyP50() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : getPercentile(m.getGPIStartLatency(), 50);
+	}
+
+	@Override
+	public long getGPIStartLatencyP99() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : getPercentile(m.getGPIStartLatency(), 99);
+	}
+
+	@Override
+	public long getGPIStartLatencyMax() {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : getMax(m.getGPIStartLatency());
+	}
+
+	@Override
+	public long getTracedTagReadCount() {
+		TagReadTracer t = getTagReadTracer();
+		return t == null ? 0 : t.getTotalLatency().getCount();
+	}
+
+	@Override
+	public long getTagReadLatencyP50() {
+		TagReadTracer t = getTagReadTracer();
+		return t == null ? 0 : getPercentile(t.getTotalLatency(), 50);
+	}
+
+	@Override
+	public long getTagReadLatencyP99() {
+		TagReadTracer t = getTagReadTracer();
+		return t == null ? 0 : getPercentile(t.getTotalLatency(), 99);
+	}
+
+	@Override
+	public long getTagReadLatencyMax() {
+		TagReadTracer t = getTagReadTracer();
+		return t == null ? 0 : getMax(t.getTotalLatency());
+	}
+
+	@Override
+	public String[] getTagReadStageLatencies() {
+		TagReadTracer t = getTagReadTracer();
+		if (t == null) {
+			return new String[0];
+		}
+		TagReadStage[] stages = TagReadStage.values();
+		// the first stage starts a trace and has no latency
+		String[] ret = new String[stages.length - 1];
+		for (int i = 1; i < stages.length; i++) {
+			LatencyRecorder recorder = t.getStageLatency(stages[i]);
+			ret[i - 1] = stages[i] + ": count=" + recorder.getCount() + ", p50="
+					+ getPercentile(recorder, 50) + ", p99=" + getPercentile(recorder, 99)
+					+ ", max=" + getMax(recorder);
+		}
+		return ret;
+	}
+
+	private TagReadTracer getTagReadTracer() {
+		InstanceMetrics m = metrics;
+		return m == null ? null : m.getTagReadTracer();
+	}
+
+	private int getEventQueueSize(int priority) {
+		InstanceMetrics m = metrics;
+		return m == null ? 0 : m.getEventQueueSize(priority);
+	}
+
+	private long getPercentile(LatencyRecorder recorder, double percentile) {
+		return TimeUnit.NANOSECONDS.toMicros(recorder.getPercentile(percentile));
+	}
+
+	private long getMax(LatencyRecorder recorder) {
+		return TimeUnit.NANOSECONDS.toMicros(recorder.getMax());
+	}
+}
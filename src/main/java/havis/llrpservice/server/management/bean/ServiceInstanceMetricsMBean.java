@@ -0,0 +1,241 @@
+package havis.llrpservice.server.management.bean;
+
+public interface ServiceInstanceMetricsMBean {
+	/**
+	 * Gets the identifier of the service instance.
+	 *
+	 * @return The service instance identifier
+	 */
+	String getServiceInstanceId();
+
+	/**
+	 * Gets the number of tag reads per second which have been received from
+	 * the RF controller.
+	 *
+	 * @return The tag reads per second
+	 */
+	double getTagReadRate();
+
+	/**
+	 * Gets the number of tag reads which have been received from the RF
+	 * controller.
+	 *
+	 * @return The number of tag reads
+	 */
+	long getTagReadCount();
+
+	/**
+	 * Gets the number of ROAccessReports which have been sent to the LLRP
+	 * client.
+	 *
+	 * @return The number of sent ROAccessReports
+	 */
+	long getSentROAccessReportCount();
+
+	/**
+	 * Gets the number of bytes which have been sent to LLRP clients.
+	 *
+	 * @return The number of sent bytes
+	 */
+	long getSentBytes();
+
+	/**
+	 * Gets the number of bytes which have been received from LLRP clients.
+	 *
+	 * @return The number of received bytes
+	 */
+	long getReceivedBytes();
+
+	/**
+	 * Gets the number of queued events with the default priority (eg. ROSpec
+	 * events and messages from the RF and GPIO controllers).
+	 *
+	 * @return The number of events
+	 */
+	int getDefaultEventQueueSize();
+
+	/**
+	 * Gets the number of queued events with the LLRP priority (received LLRP
+	 * messages).
+	 *
+	 * @return The number of events
+	 */
+	int getLLRPEventQueueSize();
+
+	/**
+	 * Gets the number of queued events with the service instance priority.
+	 *
+	 * @return The number of events
+	 */
+	int getServiceInstanceEventQueueSize();
+
+	/**
+	 * Gets the part of the time which is spent to process events.
+	 *
+	 * @return A value between 0 and 1
+	 */
+	double getEventLoopBusyRatio();
+
+	/**
+	 * Gets the time from the start of the service instance until its LLRP
+	 * port has been opened.
+	 *
+	 * @return The time in milliseconds (<code>-1</code> if the port has not
+	 *         been opened yet)
+	 */
+	long getLLRPPortOpeningTime();
+
+	/**
+	 * Gets the number of ROAccessReports held by the depot. The persisted
+	 * reports are loaded with the first access of the service instance to the
+	 * depot (not while the instance is started).
+	 *
+	 * @return The number of reports (<code>-1</code> if the persisted reports
+	 *         have not been loaded yet)
+	 */
+	int getReportDepotSize();
+
+	/**
+	 * Gets the length of the serialized ROAccessReports held by the depot. The
+	 * measuring must be enabled with the system property
+	 * <code>havis.llrpservice.server.roAccessReportDepotLength</code>.
+	 *
+	 * @return The length in bytes (<code>0</code> if the measuring is
+	 *         disabled)
+	 */
+	long getReportDepotLength();
+
+	/**
+	 * Gets the median of the durations for flushing the ROAccessReport depot.
+	 *
+	 * @return The duration in microseconds
+	 */
+	long getFlushLatencyP50();
+
+	/**
+	 * Gets the 99th percentile of the durations for flushing the
+	 * ROAccessReport depot.
+	 *
+	 * @return The duration in microseconds
+	 */
+	long getFlushLatencyP99();
+
+	/**
+	 * Gets the maximum duration for flushing the ROAccessReport depot.
+	 *
+	 * @return The duration in microseconds
+	 */
+	long getFlushLatencyMax();
+
+	/**
+	 * Gets the median of the durations of the executions of the RF
+	 * controller.
+	 *
+	 * @return The duration in microseconds
+	 */
+	long getExecuteLatencyP50();
+
+	/**
+	 * Gets the 99th percentile of the durations of the executions of the RF
+	 * controller.
+	 *
+	 * @return The duration in microseconds
+	 */
+	long getExecuteLatencyP99();
+
+	/**
+	 * Gets the maximum duration of an execution of the RF controller.
+	 *
+	 * @return The duration in microseconds
+	 */
+	long getExecuteLatencyMax();
+
+	/**
+	 * Gets the median of the round trip times of the GetOperations callbacks
+	 * of the RF controller.
+	 *
+	 * @return The duration in microseconds
+	 */
+	long getGetOperationsLatencyP50();
+
+	/**
+	 * Gets the 99th percentile of the round trip times of the GetOperations
+	 * callbacks of the RF controller.
+	 *
+	 * @return The duration in microseconds
+	 */
+	long getGetOperationsLatencyP99();
+
+	/**
+	 * Gets the maximum round trip time of a GetOperations callback of the RF
+	 * controller.
+	 *
+	 * @return The duration in microseconds
+	 */
+	long getGetOperationsLatencyMax();
+
+	/**
+	 * Gets the median of the latencies between the receipt of GPI events and
+	 * the activation of ROSpecs with a GPI start trigger.
+	 *
+	 * @return The latency in microseconds
+	 */
+	long getGPIStartLatencyP50();
+
+	/**
+	 * Gets the 99th percentile of the latencies between the receipt of GPI
+	 * events and the activation of ROSpecs with a GPI start trigger.
+	 *
+	 * @return The latency in microseconds
+	 */
+	long getGPIStartLatencyP99();
+
+	/**
+	 * Gets the maximum latency between the receipt of a GPI event and the
+	 * activation of a ROSpec with a GPI start trigger.
+	 *
+	 * @return The latency in microseconds
+	 */
+	long getGPIStartLatencyMax();
+
+	/**
+	 * Gets the number of sampled tag reads which have been traced from the
+	 * execution of the RF controller until the sending to the LLRP client.
+	 *
+	 * @return The number of traces
+	 */
+	long getTracedTagReadCount();
+
+	/**
+	 * Gets the median of the latencies of sampled tag reads from the
+	 * execution of the RF controller until the sending to the LLRP client.
+	 *
+	 * @return The latency in microseconds
+	 */
+	long getTagReadLatencyP50();
+
+	/**
+	 * Gets the 99th percentile of the latencies of sampled tag reads from the
+	 * execution of the RF controller until the sending to the LLRP client.
+	 *
+	 * @return The latency in microseconds
+	 */
+	long getTagReadLatencyP99();
+
+	/**
+	 * Gets the maximum latency of sampled tag reads from the execution of the
+	 * RF controller until the sending to the LLRP client.
+	 *
+	 * @return The latency in microseconds
+	 */
+	long getTagReadLatencyMax();
+
+	/**
+	 * Gets the latencies of sampled tag reads per stage since the previous
+	 * stage. Each entry contains the stage, the number of traces, the median,
+	 * the 99th percentile and the maximum in microseconds.
+	 *
+	 * @return The latencies per stage
+	 */
+	String[] getTagReadStageLatencies();
+}
@@ -1,6 +1,5 @@
 package havis.llrpservice.server.platform;
 
-import havis.llrpservice.common.entityManager.Entity;
 import havis.llrpservice.common.entityManager.EntityManagerException;
 import havis.llrpservice.sbc.service.ReflectionServiceFactory;
 import havis.llrpservice.sbc.service.ServiceFactory;
@@ -8,8 +7,6 @@ import havis.llrpservice.server.configuration.ConfigurationException;
 import havis.llrpservice.server.configuration.ServerConfiguration;
 import havis.llrpservice.server.configuration.ServerInstanceConfiguration;
 import havis.llrpservice.server.persistence.PersistenceException;
-import havis.llrpservice.xml.configuration.LLRPServerConfigurationType;
-import havis.llrpservice.xml.configuration.LLRPServerInstanceConfigurationType;
 import havis.llrpservice.xml.configuration.ReflectionType;
 import havis.llrpservice.xml.configuration.SystemControllerPortProperties;
 import havis.util.platform.Platform;
@@ -49,14 +46,9 @@ public class PlatformManager {
 			throws EntityManagerException, ConfigurationException, PersistenceException,
 			ClassNotFoundException, MissingServiceFactoryException {
 		// create config analyser
-		Entity<LLRPServerConfigurationType> serverConfigEntity = serverConfiguration.acquire();
-		Entity<LLRPServerInstanceConfigurationType> instanceConfigEntity = instanceConfiguration
-				.acquire();
 		PlatformConfigAnalyser configAnalyser = new PlatformConfigAnalyser(
-				serverConfigEntity.getObject());
-		configAnalyser.setServerInstanceConfig(instanceConfigEntity.getObject());
-		instanceConfiguration.release(instanceConfigEntity, false /* write */);
-		serverConfiguration.release(serverConfigEntity, false /* write */);
+				serverConfiguration.getSnapshot().getObject());
+		configAnalyser.setServerInstanceConfig(instanceConfiguration.getSnapshot().getObject());
 
 		host = configAnalyser.getAddress().getHost();
 		port = configAnalyser.getAddress().getPort();
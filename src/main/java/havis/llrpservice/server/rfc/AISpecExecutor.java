@@ -4,9 +4,7 @@ import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.logging.Level;
@@ -43,6 +41,12 @@ import havis.llrpservice.server.rfc.ROSpecExecutor.ROSpecExecutionPosition;
  * {@link #startNextAccessOps(GetOperations)}.
  * </p>
  * <p>
+ * If the system property {@link #DIRECT_ACCESS_OPS_PROPERTY} is set to
+ * <code>true</code> then the callbacks are answered directly in the thread of
+ * the RF controller and {@link #startNextAccessOps(GetOperations)} is not
+ * required.
+ * </p>
+ * <p>
  * AccessSpecs can be added and removed with {@link #add(AccessSpec)},
  * {@link #remove(long)}. If an inventory is running these modifications are
  * saved temporary until the next inventory is started.
@@ -65,12 +69,21 @@ import havis.llrpservice.server.rfc.ROSpecExecutor.ROSpecExecutionPosition;
  * </p>
  */
 public class AISpecExecutor {
+	/**
+	 * Name of the system property which enables the deciding of access
+	 * operations in the thread of the RF controller (default:
+	 * <code>false</code>).
+	 */
+	public static final String DIRECT_ACCESS_OPS_PROPERTY = "havis.llrpservice.server.rfc.directAccessOperations";
+
 	private Logger log = Logger.getLogger(AISpecExecutor.class.getName());
 
 	private final RFCClientMultiplexed rfcClient;
 	private final EventQueue eventQueue;
 	private final SocketChannel rfcChannel;
 	private final AccessSpecExecutor accessSpecExecutor;
+	private final boolean isDirectAccessOpsEnabled = Boolean
+			.getBoolean(DIRECT_ACCESS_OPS_PROPERTY);
 	private final RuntimeData runtimeData = new RuntimeData();
 	private final List<AISpecExecutorListener> listeners = new ArrayList<>();
 	private Timer timer;
@@ -97,7 +110,7 @@ public class AISpecExecutor {
 		InventoryAccessOps accessOps;
 		int inventoryCount;
 		// epc -> count
-		Map<String, Long> tagCounts = new HashMap<>();
+		final TagObservationCounts tagCounts = new TagObservationCounts();
 	}
 
 	public AISpecExecutor(RFCClientMultiplexed rfcClient, SocketChannel rfcChannel,
@@ -167,23 +180,18 @@ public class AISpecExecutor {
 
 	public void executionResponseReceived(List<TagData> tagData) {
 		synchronized (lock) {
+			// remove the AccessSpecs which have been stopped while the
+			// operations were decided in the thread of the RF controller
+			accessSpecExecutor.removeStoppedAccessSpecs();
 			// if AISpec has already been stopped
 			if (runtimeData.aiSpec == null) {
 				return;
 			}
-			long prevUniqueTagCount = runtimeData.tagCounts.size();
+			boolean hasNewUniqueTags = false;
 			runtimeData.inventoryCount++;
 			// add tags to runtimeData.tagCounts
 			for (TagData tag : tagData) {
-				String epc = toString(tag.getEpc());
-				Long count = runtimeData.tagCounts.get(epc);
-				if (count == null) {
-					count = 1L;
-				} else {
-					count++;
-				}
-				runtimeData.tagCounts.put(epc, count);
-				count = runtimeData.tagCounts.get(epc);
+				hasNewUniqueTags |= runtimeData.tagCounts.add(tag.getEpc());
 			}
 			boolean resetTrigger = false;
 			boolean isProcessed = false;
@@ -202,13 +210,9 @@ public class AISpecExecutor {
 			case TAG_OBSERVATION:
 				switch (st.getTagOT().getTriggerType()) {
 				case UPON_SEEING_N_TAG_OBSERVATIONS_OR_TIMEOUT:
-					// summarize tag counts
-					long totalTagCount = 0;
-					for (Long count : runtimeData.tagCounts.values()) {
-						totalTagCount += count;
-					}
 					// if max. tag count is reached
-					isProcessed = (totalTagCount >= st.getTagOT().getNumberOfTags());
+					isProcessed = (runtimeData.tagCounts.getTotalCount() >= st.getTagOT()
+							.getNumberOfTags());
 					break;
 				case UPON_SEEING_NO_MORE_NEW_TAG_OBSERVATIONS_FOR_T_MS_OR_TIMEOUT:
 					// if new tags are reported
@@ -221,11 +225,12 @@ public class AISpecExecutor {
 					break;
 				case UPON_SEEING_N_UNIQUE_TAG_OBSERVATIONS_OR_TIMEOUT:
 					// if number of unique tags is reached
-					isProcessed = (runtimeData.tagCounts.size() >= st.getTagOT().getNumberOfTags());
+					isProcessed = (runtimeData.tagCounts.getUniqueCount() >= st.getTagOT()
+							.getNumberOfTags());
 					break;
 				case UPON_SEEING_NO_MORE_NEW_UNIQUE_TAG_OBSERVATIONS_FOR_T_MS_OR_TIMEOUT:
 					// if new unique tags are reported
-					resetTrigger = (runtimeData.tagCounts.size() > prevUniqueTagCount);
+					resetTrigger = hasNewUniqueTags;
 					break;
 				}
 				break;
@@ -352,11 +357,65 @@ public class AISpecExecutor {
 					runtimeData.accessOps.getTagOperations());
 			// add request message to the event queue (for info only)
 			eventQueue.put(new RFCMessageEvent(request));
+			if (isDirectAccessOpsEnabled
+					&& !runtimeData.accessOps.getTagOperations().isEmpty()) {
+				// decide the access operations in the thread of the RF
+				// controller
+				rfcClient.setOperationsDecider(rfcChannel,
+						accessSpecExecutor.getOperationsDecider(
+								runtimeData.accessOps.getTagOperations(), runtimeData.pos));
+			}
 			// start execution
 			rfcClient.requestSendingData(rfcChannel, request);
 		}
 	}
 
+	/**
+	 * Starts the next inventory of a running AISpec before the response of the
+	 * previous inventory has been processed with
+	 * {@link #executionResponseReceived(List)}.
+	 * <p>
+	 * The inventory is only started if the AISpec has not been stopped yet and
+	 * its stop trigger does not depend on the results of the inventories (no
+	 * trigger or the trigger types <code>NULL</code>, <code>DURATION</code>,
+	 * <code>GPI_WITH_TIMEOUT</code>). Thus the stop trigger is processed in the
+	 * same way as for sequential inventories.
+	 * </p>
+	 * 
+	 * @param pos
+	 * @param aiSpec
+	 * @return <code>true</code> if an inventory has been started
+	 * @throws UnsupportedAccessOperationException
+	 * @throws RFCException
+	 * @throws UnsupportedAirProtocolException
+	 */
+	public boolean startNextPipelinedInventory(ROSpecExecutionPosition pos, AISpec aiSpec)
+			throws UnsupportedAccessOperationException, RFCException,
+			UnsupportedAirProtocolException {
+		synchronized (lock) {
+			// if the AISpec has been stopped
+			if (runtimeData.aiSpec != aiSpec) {
+				return false;
+			}
+			AISpecStopTrigger st = aiSpec.getAiSpecStopTrigger();
+			if (st != null) {
+				switch (st.getAiSpecStopTriggerType()) {
+				case NULL:
+				case DURATION:
+				case GPI_WITH_TIMEOUT:
+					break;
+				case TAG_OBSERVATION:
+				default:
+					// the trigger is evaluated with the response of the
+					// previous inventory
+					return false;
+				}
+			}
+			startNextInventory(pos, aiSpec);
+			return true;
+		}
+	}
+
 	/**
 	 * Starts the next access operations by sending a
 	 * {@link GetOperationsResponse} message as response to a
@@ -394,14 +453,6 @@ public class AISpecExecutor {
 		}
 	}
 
-	private String toString(byte[] epc) {
-		StringBuffer strBuf = new StringBuffer();
-		for (byte b : epc) {
-			strBuf.append('.').append(b);
-		}
-		return strBuf.toString();
-	}
-
 	private void resetRuntimeData() {
 		runtimeData.pos = null;
 		runtimeData.aiSpec = null;
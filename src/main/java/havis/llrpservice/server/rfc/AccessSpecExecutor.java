@@ -11,6 +11,7 @@ import havis.llrpservice.data.message.parameter.AccessSpecStopTrigger;
 import havis.llrpservice.data.message.parameter.C1G2TagSpec;
 import havis.llrpservice.sbc.rfc.RFCClientMultiplexed;
 import havis.llrpservice.sbc.rfc.RFCException;
+import havis.llrpservice.sbc.rfc.RFCOperationsDecider;
 import havis.llrpservice.sbc.rfc.message.GetOperations;
 import havis.llrpservice.sbc.rfc.message.GetOperationsResponse;
 import havis.llrpservice.sbc.rfc.message.MessageHeader;
@@ -21,10 +22,14 @@ import havis.llrpservice.server.rfc.ROSpecExecutor.ROSpecExecutionPosition;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * The AccessSpecExecutor handles the selection and execution of AccessSpecs.
@@ -43,6 +48,16 @@ import java.util.Map.Entry;
  * While an inventory is running received callback messages
  * {@link GetOperations} must be processed immediately by calling
  * {@link #startNextAccessOps(GetOperations, List, ROSpecExecutionPosition)}.
+ * Alternatively the callbacks can be answered directly in the thread of the RF
+ * controller by a decider provided by
+ * {@link #getOperationsDecider(List, ROSpecExecutionPosition)}. A decider
+ * uses an immutable snapshot of the compiled AccessSpecs of the current
+ * inventory and does not take the monitor of the executor.
+ * </p>
+ * <p>
+ * The filters and operations of an AccessSpec are converted once when it is
+ * added. Thus modifications of an AccessSpec after it has been added are
+ * ignored.
  * </p>
  * <p>
  * The implementation is thread safe.
@@ -59,9 +74,22 @@ public class AccessSpecExecutor {
 	private final EventQueue eventQueue;
 	private final List<AccessSpec> accessSpecs = new ArrayList<>();
 	private List<AccessSpec> inventoryAccessSpecs = new ArrayList<>();
+	// the compiled inventoryAccessSpecs
+	private AccessSpecFilter inventoryAccessSpecFilter = new AccessSpecFilter(
+			inventoryAccessSpecs);
+	// the AccessSpecs used for inventoryAccessOps and inventoryAccessSpecFilter
+	private List<AccessSpec> compiledAccessSpecs = null;
+	private InventoryAccessOps inventoryAccessOps;
+	// the snapshot of the compiled inventoryAccessSpecs for deciders. It is
+	// replaced by the thread of the RF controller if a decider stops an
+	// AccessSpec.
+	private volatile DeciderSnapshot deciderSnapshot = new DeciderSnapshot(
+			inventoryAccessSpecs, new HashMap<AccessSpec, RuntimeData>());
 	private final Map<AccessSpec, RuntimeData> runtimeData = new HashMap<>();
 	private final SocketChannel rfcChannel;
 	private final List<AccessSpecsListener> listeners = new ArrayList<>();
+	// AccessSpecs which have been stopped by a decider but not removed yet
+	private final Queue<AccessSpec> stoppedAccessSpecs = new ConcurrentLinkedQueue<>();
 
 	/**
 	 * A container with a tag filter and access operations. The data can be used
@@ -91,8 +119,51 @@ public class AccessSpecExecutor {
 	/**
 	 * Holds runtime data for an AccessSpec execution.
 	 */
-	private class RuntimeData {
-		int operationCount = 0;
+	private static class RuntimeData {
+		// incremented by the thread of the RF controller if a decider is used
+		final AtomicInteger operationCount = new AtomicInteger();
+		// the filters of the TagSpec
+		List<Filter> filters;
+		// the converted operations
+		List<TagOperation> operations;
+		// the exception of the conversion of the operations (it is thrown
+		// when the operations are used)
+		UnsupportedAccessOperationException operationsException;
+	}
+
+	/**
+	 * An immutable snapshot of compiled AccessSpecs which is used by the
+	 * deciders in the thread of the RF controller.
+	 */
+	private static class DeciderSnapshot {
+		final List<AccessSpec> accessSpecs;
+		// AccessSpec -> runtime data
+		final Map<AccessSpec, RuntimeData> runtimeData;
+		// the filter caches the AccessSpecs per ROSpec/antenna/protocol. Thus
+		// it must only be used by the thread of the RF controller.
+		final AccessSpecFilter filter;
+
+		DeciderSnapshot(List<AccessSpec> accessSpecs, Map<AccessSpec, RuntimeData> runtimeData) {
+			this.accessSpecs = Collections.unmodifiableList(new ArrayList<>(accessSpecs));
+			Map<AccessSpec, RuntimeData> rd = new HashMap<>();
+			for (AccessSpec accessSpec : accessSpecs) {
+				rd.put(accessSpec, runtimeData.get(accessSpec));
+			}
+			this.runtimeData = Collections.unmodifiableMap(rd);
+			filter = new AccessSpecFilter(this.accessSpecs);
+		}
+
+		/**
+		 * Creates a snapshot without an AccessSpec.
+		 * 
+		 * @param accessSpec
+		 * @return The new snapshot
+		 */
+		DeciderSnapshot remove(AccessSpec accessSpec) {
+			List<AccessSpec> accessSpecs = new ArrayList<>(this.accessSpecs);
+			accessSpecs.remove(accessSpec);
+			return new DeciderSnapshot(accessSpecs, runtimeData);
+		}
 	}
 
 	public AccessSpecExecutor(RFCClientMultiplexed rfcClient, SocketChannel rfcChannel,
@@ -129,8 +200,16 @@ public class AccessSpecExecutor {
 	public synchronized void add(AccessSpec accessSpec) throws UnsupportedAirProtocolException {
 		switch (accessSpec.getProtocolId()) {
 		case EPC_GLOBAL_C1G2:
+			RuntimeData rd = new RuntimeData();
+			rd.filters = getFilter(accessSpec);
+			try {
+				rd.operations = getOperations(accessSpec);
+			} catch (UnsupportedAccessOperationException e) {
+				rd.operationsException = e;
+			}
 			accessSpecs.add(accessSpec);
-			runtimeData.put(accessSpec, new RuntimeData());
+			runtimeData.put(accessSpec, rd);
+			compiledAccessSpecs = null;
 			break;
 		default:
 			throw new UnsupportedAirProtocolException(
@@ -155,6 +234,7 @@ public class AccessSpecExecutor {
 		if (remove != null) {
 			accessSpecs.remove(remove);
 			runtimeData.remove(remove);
+			compiledAccessSpecs = null;
 			// fire events to listeners
 			for (AccessSpecsListener listener : listeners) {
 				listener.removed(remove.getAccessSpecId());
@@ -184,6 +264,7 @@ public class AccessSpecExecutor {
 	 */
 	public synchronized InventoryAccessOps getNextInventoryAccessOps(ROSpecExecutionPosition pos)
 			throws UnsupportedAccessOperationException {
+		removeStoppedAccessSpecs();
 		// clear ROSpecExecutionPosition data
 		pos.setDefaultAccessSpecId(null);
 		pos.getTagDataAccessSpecIds().clear();
@@ -196,17 +277,35 @@ public class AccessSpecExecutor {
 				inventoryAccessSpecs.add(accessSpec);
 			}
 		}
+		// if the AccessSpecs have been changed since the previous inventory
+		if (compiledAccessSpecs == null || !isSame(compiledAccessSpecs, inventoryAccessSpecs)) {
+			compiledAccessSpecs = new ArrayList<>(inventoryAccessSpecs);
+			inventoryAccessSpecFilter = new AccessSpecFilter(inventoryAccessSpecs);
+			inventoryAccessOps = createInventoryAccessOps(inventoryAccessSpecs);
+			// publish the AccessSpecs to the deciders
+			deciderSnapshot = new DeciderSnapshot(inventoryAccessSpecs, runtimeData);
+		}
+		return inventoryAccessOps;
+	}
+
+	/**
+	 * Creates the filter and access operations for a list of AccessSpecs.
+	 * 
+	 * @param accessSpecs
+	 * @return The InventoryAccessOps
+	 */
+	private InventoryAccessOps createInventoryAccessOps(List<AccessSpec> accessSpecs) {
 		InventoryAccessOps iao = new InventoryAccessOps();
 		iao.setTagFilter(new ArrayList<Filter>());
-		if (inventoryAccessSpecs.isEmpty()) {
+		if (accessSpecs.isEmpty()) {
 			// return empty tag operation list
 			iao.setTagOperations(new ArrayList<TagOperation>());
 			return iao;
 		}
 		// get all existing tag filters
 		List<Filter> filters = new ArrayList<>();
-		for (AccessSpec accessSpec : inventoryAccessSpecs) {
-			filters.addAll(getFilter(accessSpec));
+		for (AccessSpec accessSpec : accessSpecs) {
+			filters.addAll(runtimeData.get(accessSpec).filters);
 		}
 		// create read operations for filters + RequestOperation
 		List<TagOperation> tagOps = getReadOperations(filters);
@@ -238,48 +337,187 @@ public class AccessSpecExecutor {
 	public synchronized void startNextAccessOps(GetOperations getOps, List<TagOperation> accessOps,
 			ROSpecExecutionPosition pos)
 			throws MissingTagDataException, UnsupportedAccessOperationException, RFCException {
+		List<TagOperation> ops = getAccessOps(getOps, accessOps, pos);
+		// create response message
+		GetOperationsResponse response = new GetOperationsResponse(
+				new MessageHeader(getOps.getMessageHeader().getId()), ops);
+		// enqueue the message to the event queue (for info only)
+		eventQueue.put(new RFCMessageEvent(response));
+		// start the processing of the operations
+		rfcClient.requestSendingData(rfcChannel, response);
+	}
+
+	/**
+	 * Provides a decider which answers {@link GetOperations} requests of the
+	 * current inventory directly in the thread of the RF controller. The
+	 * {@link GetOperations} requests and the {@link GetOperationsResponse}
+	 * messages are added to the event queue (for info only).
+	 * <p>
+	 * The decider uses the snapshot of the AccessSpecs which has been
+	 * published by the last call of
+	 * {@link #getNextInventoryAccessOps(ROSpecExecutionPosition)}. It does not
+	 * take the monitor of the executor.
+	 * </p>
+	 * <p>
+	 * AccessSpecs which are stopped by the decider are not used for further
+	 * tags. They are removed and the listeners are informed with the next
+	 * call of {@link #removeStoppedAccessSpecs()} or
+	 * {@link #getNextInventoryAccessOps(ROSpecExecutionPosition)}.
+	 * </p>
+	 * 
+	 * @param accessOps
+	 *            the access operations of the current inventory
+	 * @param pos
+	 *            the current execution position of the ROSpec
+	 * @return The decider
+	 */
+	public RFCOperationsDecider getOperationsDecider(final List<TagOperation> accessOps,
+			final ROSpecExecutionPosition pos) {
+		return new RFCOperationsDecider() {
+
+			@Override
+			public List<TagOperation> getOperations(GetOperations request) throws Exception {
+				// enqueue the messages to the event queue (for info only)
+				eventQueue.put(new RFCMessageEvent(request));
+				List<TagOperation> ops = decideAccessOps(request, accessOps, pos);
+				eventQueue.put(new RFCMessageEvent(new GetOperationsResponse(
+						new MessageHeader(request.getMessageHeader().getId()), ops)));
+				return ops;
+			}
+		};
+	}
+
+	/**
+	 * Gets the operations of the matching AccessSpec for a tag from the
+	 * snapshot of the AccessSpecs. The method is called by the thread of the
+	 * RF controller without the monitor of the executor. A stopped AccessSpec
+	 * is removed from the snapshot and later with
+	 * {@link #removeStoppedAccessSpecs()}.
+	 * 
+	 * @param getOps
+	 * @param accessOps
+	 * @param pos
+	 * @return The operations
+	 * @throws MissingTagDataException
+	 * @throws UnsupportedAccessOperationException
+	 */
+	private List<TagOperation> decideAccessOps(GetOperations getOps, List<TagOperation> accessOps,
+			ROSpecExecutionPosition pos)
+			throws MissingTagDataException, UnsupportedAccessOperationException {
+		DeciderSnapshot snapshot = deciderSnapshot;
 		// get AccessSpec
-		AccessSpecFilter filter = new AccessSpecFilter(inventoryAccessSpecs);
-		AccessSpec accessSpec = filter.getAccessSpec(pos.getRoSpecId(), pos.getAntennaId(),
-				pos.getProtocolId(), getOps.getTag(), accessOps);
+		AccessSpec accessSpec = snapshot.filter.getAccessSpec(pos.getRoSpecId(),
+				pos.getAntennaId(), pos.getProtocolId(), getOps.getTag(), accessOps);
+		if (accessSpec == null) {
+			return new ArrayList<>();
+		}
+		// add AccessSpecId for the tag to ROSpecExecutionPosition
+		pos.getTagDataAccessSpecIds().put(getOps.getTag().getTagDataId(),
+				accessSpec.getAccessSpecId());
+		RuntimeData rd = snapshot.runtimeData.get(accessSpec);
+		if (rd.operationsException != null) {
+			throw rd.operationsException;
+		}
+		// if operation limit is reached
+		if (isAccessSpecStopped(accessSpec, rd.operationCount.incrementAndGet())) {
+			// the listeners must not be called by the thread of the RF
+			// controller
+			stoppedAccessSpecs.add(accessSpec);
+			deciderSnapshot = snapshot.remove(accessSpec);
+		}
+		return rd.operations;
+	}
+
+	/**
+	 * Removes the AccessSpecs which have been stopped by a decider provided by
+	 * {@link #getOperationsDecider(List, ROSpecExecutionPosition)}.
+	 */
+	public synchronized void removeStoppedAccessSpecs() {
+		AccessSpec accessSpec;
+		while ((accessSpec = stoppedAccessSpecs.poll()) != null) {
+			inventoryAccessSpecs.remove(accessSpec);
+			inventoryAccessSpecFilter.remove(accessSpec);
+			remove(accessSpec.getAccessSpecId());
+		}
+	}
+
+	/**
+	 * Gets the operations of the matching AccessSpec for a tag.
+	 * 
+	 * @param getOps
+	 * @param accessOps
+	 * @param pos
+	 * @return The operations
+	 * @throws MissingTagDataException
+	 * @throws UnsupportedAccessOperationException
+	 */
+	private List<TagOperation> getAccessOps(GetOperations getOps, List<TagOperation> accessOps,
+			ROSpecExecutionPosition pos)
+			throws MissingTagDataException, UnsupportedAccessOperationException {
+		// get AccessSpec
+		AccessSpec accessSpec = inventoryAccessSpecFilter.getAccessSpec(pos.getRoSpecId(),
+				pos.getAntennaId(), pos.getProtocolId(), getOps.getTag(), accessOps);
 		List<TagOperation> ops = new ArrayList<>();
 		if (accessSpec != null) {
 			// add AccessSpecId for the tag to ROSpecExecutionPosition
 			Map<Long, Long> tagDataAccessSpecIds = pos.getTagDataAccessSpecIds();
 			tagDataAccessSpecIds.put(getOps.getTag().getTagDataId(), accessSpec.getAccessSpecId());
-			// get RFC operations from AccessSpec
-			ops = getOperations(accessSpec);
 			// get runtime data for AccessSpec
 			RuntimeData rd = runtimeData.get(accessSpec);
-			if (rd != null) {
-				// increase operation count for the AccessSpec
-				rd.operationCount++;
+			// get RFC operations from AccessSpec
+			if (rd == null) {
+				// the AccessSpec has been removed while the inventory is
+				// running
+				ops = getOperations(accessSpec);
+			} else if (rd.operationsException != null) {
+				throw rd.operationsException;
+			} else {
+				ops = rd.operations;
 			}
+			// increase operation count for the AccessSpec
+			int operationCount = rd == null ? -1 : rd.operationCount.incrementAndGet();
 			// if operation limit is reached
-			if (isAccessSpecStopped(accessSpec)) {
+			if (isAccessSpecStopped(accessSpec, operationCount)) {
 				// remove the AccessSpec
 				inventoryAccessSpecs.remove(accessSpec);
+				inventoryAccessSpecFilter.remove(accessSpec);
 				remove(accessSpec.getAccessSpecId());
 			}
 		}
-		// create response message
-		GetOperationsResponse response = new GetOperationsResponse(
-				new MessageHeader(getOps.getMessageHeader().getId()), ops);
-		// enqueue the message to the event queue (for info only)
-		eventQueue.put(new RFCMessageEvent(response));
-		// start the processing of the operations
-		rfcClient.requestSendingData(rfcChannel, response);
+		return ops;
 	}
 
-	private boolean isAccessSpecStopped(AccessSpec accessSpec) {
+	/**
+	 * Checks whether two lists contain the same AccessSpec instances in the
+	 * same order.
+	 */
+	private static boolean isSame(List<AccessSpec> list1, List<AccessSpec> list2) {
+		if (list1.size() != list2.size()) {
+			return false;
+		}
+		for (int i = 0; i < list1.size(); i++) {
+			if (list1.get(i) != list2.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param accessSpec
+	 * @param operationCount
+	 *            the number of executions of the AccessSpec (<code>-1</code>
+	 *            if the AccessSpec has been removed)
+	 * @return whether the operation limit of the AccessSpec is reached
+	 */
+	private static boolean isAccessSpecStopped(AccessSpec accessSpec, int operationCount) {
 		AccessSpecStopTrigger trigger = accessSpec.getAccessSpecStopTrigger();
 		switch (trigger.getAccessSpecStopTriggerType()) {
 		case NULL:
 			break;
 		case OPERATION_COUNT:
 			if (trigger.getOperationCountValue() != 0) {
-				RuntimeData rd = runtimeData.get(accessSpec);
-				return rd == null || trigger.getOperationCountValue() == rd.operationCount;
+				return operationCount < 0 || trigger.getOperationCountValue() == operationCount;
 			}
 		}
 		return false;
@@ -319,8 +557,8 @@ public class AccessSpecExecutor {
 	 */
 	private static List<TagOperation> getOperations(AccessSpec accessSpec)
 			throws UnsupportedAccessOperationException {
-		return new DataTypeConverter()
-				.convertAccessOps(accessSpec.getAccessCommand().getOpSpecList());
+		return Collections.unmodifiableList(new DataTypeConverter()
+				.convertAccessOps(accessSpec.getAccessCommand().getOpSpecList()));
 	}
 
 	private static List<TagOperation> getReadOperations(List<Filter> filters) {
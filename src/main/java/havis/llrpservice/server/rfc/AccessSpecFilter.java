@@ -11,19 +11,114 @@ import havis.llrpservice.data.message.parameter.C1G2TagSpec;
 import havis.llrpservice.data.message.parameter.C1G2TargetTag;
 import havis.llrpservice.data.message.parameter.ProtocolId;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+/**
+ * Selects the AccessSpec for a tag.
+ * <p>
+ * The AccessSpecs are compiled when the filter is created: the tag patterns
+ * are converted to mask and data words which are compared with the data of a
+ * memory bank 64 bits at a time. The AccessSpecs matching a
+ * roSpecId/antennaId/protocolId combination are indexed with the first
+ * request. Modifications of the AccessSpecs after the creation of the filter
+ * are not considered.
+ * </p>
+ * <p>
+ * The implementation is not thread safe.
+ * </p>
+ */
 public class AccessSpecFilter {
 
 	private Logger log = Logger.getLogger(AccessSpecFilter.class.getName());
 
-	private final List<AccessSpec> accessSpecs;
+	private final List<CompiledAccessSpec> accessSpecs = new ArrayList<>();
+	// roSpecId/antennaId/protocolId -> matching AccessSpecs
+	private final Map<Long, List<CompiledAccessSpec>> index = new HashMap<>();
+
+	private static class CompiledAccessSpec {
+		final AccessSpec accessSpec;
+		final CompiledTagPattern tagPattern1;
+		// optional
+		final CompiledTagPattern tagPattern2;
+
+		CompiledAccessSpec(AccessSpec accessSpec) {
+			this.accessSpec = accessSpec;
+			C1G2TagSpec tagSpec = accessSpec.getAccessCommand().getC1g2TagSpec();
+			tagPattern1 = new CompiledTagPattern(tagSpec.getTagPattern1());
+			tagPattern2 = tagSpec.getTagPattern2() == null ? null
+					: new CompiledTagPattern(tagSpec.getTagPattern2());
+		}
+	}
+
+	/**
+	 * A tag pattern with the mask and data as words. The first bit of the
+	 * pattern is the MSB of the first word.
+	 */
+	private static class CompiledTagPattern {
+		final C1G2TargetTag pattern;
+		final byte memoryBank;
+		final boolean isMatch;
+		final int pointer;
+		// null if the mask is empty
+		final long[] mask;
+		// data & mask
+		final long[] data;
+
+		CompiledTagPattern(C1G2TargetTag pattern) {
+			this.pattern = pattern;
+			memoryBank = pattern.getMemoryBank();
+			isMatch = pattern.isMatch();
+			pointer = pattern.getPointer();
+			BitSet maskBits = pattern.getTagMask();
+			if (maskBits.isEmpty()) {
+				mask = null;
+				data = null;
+			} else {
+				BitSet dataBits = pattern.getTagData();
+				mask = new long[(maskBits.length() + 63) / 64];
+				data = new long[mask.length];
+				// for each bit of mask
+				for (int i = maskBits.nextSetBit(0); i >= 0; i = maskBits.nextSetBit(i + 1)) {
+					long bit = 1L << (63 - (i & 63));
+					mask[i >> 6] |= bit;
+					if (dataBits.get(i)) {
+						data[i >> 6] |= bit;
+					}
+				}
+			}
+		}
+
+		boolean isEPCBankRequired() {
+			return mask != null && memoryBank == 1;
+		}
+	}
 
 	public AccessSpecFilter(List<AccessSpec> accessSpecs) {
-		this.accessSpecs = accessSpecs;
+		for (AccessSpec accessSpec : accessSpecs) {
+			this.accessSpecs.add(new CompiledAccessSpec(accessSpec));
+		}
+	}
+
+	/**
+	 * Removes an AccessSpec from the filter.
+	 * 
+	 * @param accessSpec
+	 */
+	public void remove(AccessSpec accessSpec) {
+		for (int i = 0; i < accessSpecs.size(); i++) {
+			if (accessSpecs.get(i).accessSpec == accessSpec) {
+				accessSpecs.remove(i);
+				index.clear();
+				return;
+			}
+		}
 	}
 
 	/**
@@ -43,93 +138,154 @@ public class AccessSpecFilter {
 	 */
 	public AccessSpec getAccessSpec(long roSpecId, int antennaId, ProtocolId protocolId,
 			TagData tag, List<TagOperation> accessOps) throws MissingTagDataException {
-		// for each AccessSpec
-		for (AccessSpec accessSpec : accessSpecs) {
-			// if AccessSpec matches ROSpec, antennaId, protocolId
-			if ((accessSpec.getRoSpecId() == 0 || accessSpec.getRoSpecId() == roSpecId)
-					&& (accessSpec.getAntennaId() == 0 || accessSpec.getAntennaId() == antennaId)
-					&& accessSpec.getProtocolId() == protocolId) {
-				// get TagSpec from AccessSpec
-				C1G2TagSpec tagSpec = accessSpec.getAccessCommand().getC1g2TagSpec();
-				// if TagSpec matches tag
-				if (matches(tagSpec.getTagPattern1(), tag, accessOps)
-						&& (tagSpec.getTagPattern2() == null
-								|| matches(tagSpec.getTagPattern2(), tag, accessOps))) {
-					return accessSpec;
-				}
+		// the data of the EPC bank (CRC, PC, EPC)
+		byte[] epcBank = null;
+		// for each AccessSpec matching ROSpec, antennaId, protocolId
+		for (CompiledAccessSpec accessSpec : getAccessSpecs(roSpecId, antennaId, protocolId)) {
+			if (epcBank == null && (accessSpec.tagPattern1.isEPCBankRequired()
+					|| accessSpec.tagPattern2 != null
+							&& accessSpec.tagPattern2.isEPCBankRequired())) {
+				epcBank = getEPCBank(tag);
+			}
+			// if TagSpec matches tag
+			if (matches(accessSpec.tagPattern1, tag, epcBank, accessOps)
+					&& (accessSpec.tagPattern2 == null
+							|| matches(accessSpec.tagPattern2, tag, epcBank, accessOps))) {
+				return accessSpec.accessSpec;
 			}
 		}
 		return null;
 	}
 
+	/**
+	 * Gets the AccessSpecs matching a ROSpec, antennaId and protocolId in the
+	 * original order.
+	 * 
+	 * @param roSpecId
+	 * @param antennaId
+	 * @param protocolId
+	 * @return The AccessSpecs
+	 */
+	private List<CompiledAccessSpec> getAccessSpecs(long roSpecId, int antennaId,
+			ProtocolId protocolId) {
+		// roSpecId: uint, antennaId: ushort
+		Long key = roSpecId << 24 | (antennaId & 0xFFFFL) << 8 | protocolId.ordinal();
+		List<CompiledAccessSpec> ret = index.get(key);
+		if (ret == null) {
+			ret = new ArrayList<>();
+			for (CompiledAccessSpec compiled : accessSpecs) {
+				AccessSpec accessSpec = compiled.accessSpec;
+				if ((accessSpec.getRoSpecId() == 0 || accessSpec.getRoSpecId() == roSpecId)
+						&& (accessSpec.getAntennaId() == 0
+								|| accessSpec.getAntennaId() == antennaId)
+						&& accessSpec.getProtocolId() == protocolId) {
+					ret.add(compiled);
+				}
+			}
+			index.put(key, ret);
+		}
+		return ret;
+	}
+
 	/**
 	 * See 16.2.1.3.1
 	 * 
 	 * @param pattern
 	 * @param tag
+	 * @param epcBank
+	 *            the data of the EPC bank (optional)
 	 * @return True if matched
 	 * @throws MissingTagDataException
 	 */
-	private boolean matches(C1G2TargetTag pattern, TagData tag, List<TagOperation> accessOps)
-			throws MissingTagDataException {
-		BitSet mask = pattern.getTagMask();
-		BitSet data = null;
-		BitSet tagData = null;
+	private boolean matches(CompiledTagPattern pattern, TagData tag, byte[] epcBank,
+			List<TagOperation> accessOps) throws MissingTagDataException {
+		byte[] tagData = null;
 		boolean isMatched = false;
 		try {
-			if (mask.isEmpty()) {
-				isMatched = pattern.isMatch();
+			if (pattern.mask == null) {
+				isMatched = pattern.isMatch;
 				return isMatched;
 			}
-			data = pattern.getTagData();
-			tagData = getBank(pattern.getMemoryBank(), tag, accessOps);
-			// for each bit of mask
-			for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
-				boolean dataBit = data.get(i);
-				boolean tagDataBit = tagData.get(pattern.getPointer() + i);
+			tagData = pattern.memoryBank == 1 ? epcBank
+					: getBank(pattern.memoryBank, tag, accessOps);
+			// for each word of mask
+			for (int i = 0; i < pattern.mask.length; i++) {
+				long tagDataWord = getWord(tagData, pattern.pointer + i * 64);
 				// if filter data do NOT match the data from memory bank
-				if (dataBit && !tagDataBit || !dataBit && tagDataBit) {
-					isMatched = !pattern.isMatch();
+				if (((tagDataWord ^ pattern.data[i]) & pattern.mask[i]) != 0) {
+					isMatched = !pattern.isMatch;
 					return isMatched;
 				}
 			}
-			isMatched = pattern.isMatch();
+			isMatched = pattern.isMatch;
 			return isMatched;
 		} finally {
 			if (log.isLoggable(Level.FINE)) {
+				C1G2TargetTag p = pattern.pattern;
+				boolean hasData = pattern.mask != null;
 				log.log(Level.FINE,
 						"mask={0},pointer={1},data={2},isMatch={3},tagData={4},match={5}",
-						new Object[] { mask, data == null ? null : pattern.getPointer(), data,
-								data == null ? null : pattern.isMatch(), tagData, isMatched });
+						new Object[] { p.getTagMask(), hasData ? pattern.pointer : null,
+								hasData ? p.getTagData() : null, hasData ? pattern.isMatch : null,
+								tagData == null ? null : Arrays.toString(tagData), isMatched });
 			}
 		}
 	}
 
 	/**
-	 * Gets the data of a memory bank as {@link BitSet}.
+	 * Gets 64 bits of a byte array starting at a bit index. The first bit is
+	 * the MSB of the first byte. Missing bits are returned as 0.
+	 * 
+	 * @param bytes
+	 * @param bitIndex
+	 * @return The bits
+	 */
+	static long getWord(byte[] bytes, int bitIndex) {
+		int byteIndex = bitIndex >> 3;
+		int shift = bitIndex & 7;
+		long ret = 0;
+		for (int i = byteIndex; i < byteIndex + 8; i++) {
+			ret = ret << 8 | (i < bytes.length ? bytes[i] & 0xFF : 0);
+		}
+		if (shift > 0) {
+			int next = byteIndex + 8 < bytes.length ? bytes[byteIndex + 8] & 0xFF : 0;
+			ret = ret << shift | next >>> (8 - shift);
+		}
+		return ret;
+	}
+
+	/**
+	 * Gets the data of the EPC bank (CRC, PC, EPC).
+	 * 
+	 * @param tag
+	 * @return The data of the EPC bank
+	 */
+	private byte[] getEPCBank(TagData tag) {
+		byte[] epc = tag.getEpc();
+		byte[] ret = new byte[4 /* CRC, PC */ + epc.length];
+		ret[0] = (byte) (tag.getCrc() >> 8);
+		ret[1] = (byte) tag.getCrc();
+		ret[2] = (byte) (tag.getPc() >> 8);
+		ret[3] = (byte) tag.getPc();
+		System.arraycopy(epc, 0, ret, 4, epc.length);
+		return ret;
+	}
+
+	/**
+	 * Gets the data of a memory bank which has been read by an access
+	 * operation.
 	 * 
 	 * @param memoryBank
 	 * @param tag
-	 *            tag data which contain the data of the EPC bank and the
-	 *            results of executed access operations
+	 *            tag data which contain the results of executed access
+	 *            operations
 	 * @param accessOps
 	 *            the executed access operations
 	 * @return The data of a memory bank
 	 * @throws MissingTagDataException
 	 */
-	private BitSet getBank(byte memoryBank, TagData tag, List<TagOperation> accessOps)
+	private byte[] getBank(byte memoryBank, TagData tag, List<TagOperation> accessOps)
 			throws MissingTagDataException {
-		// if EPC bank
-		if (memoryBank == 1) {
-			// convert relating data from TagData structure and return them as
-			// BitSet
-			BitSet bitSet = new BitSet((4/* CRC, PC */ + tag.getEpc().length) * 8);
-			set(bitSet, 0, new short[] { tag.getCrc(), tag.getPc() });
-
-			set(bitSet, 32, tag.getEpc());
-
-			return bitSet;
-		}
 		List<OperationResult> results = tag.getResultList();
 		// for each access operation
 		for (int i = 0; i < accessOps.size(); i++) {
@@ -157,43 +313,11 @@ public class AccessSpecFilter {
 								"Missing tag data from memory bank " + memoryBank
 										+ " due to access result error " + readResult.getResult());
 					}
-					BitSet bitSet = new BitSet(data.length * 8);
-					set(bitSet, 0, data);
-					return bitSet;
+					return data;
 				}
 			}
 		}
 		throw new MissingTagDataException("Missing tag data from memory bank " + memoryBank
 				+ " because of missing access operation");
 	}
-
-	/**
-	 * Sets bits of a short array to a bit set.
-	 * 
-	 * @param bits
-	 * @param bitSetStartIndex
-	 * @param data
-	 */
-	private static void set(BitSet bits, int bitSetStartIndex, short[] data) {
-		for (int i = 0; i < data.length * 16; i++) {
-			if ((data[i / 16] & (0x8000 >> (i % 16))) > 0) {
-				bits.set(bitSetStartIndex + i);
-			}
-		}
-	}
-
-	/**
-	 * Sets bits of a byte array to a bit set.
-	 * 
-	 * @param bits
-	 * @param bitSetStartIndex
-	 * @param data
-	 */
-	private static void set(BitSet bits, int bitSetStartIndex, byte[] data) {
-		for (int i = 0; i < data.length * 8; i++) {
-			if ((data[i / 8] & (0x80 >> (i % 8))) > 0) {
-				bits.set(bitSetStartIndex + i);
-			}
-		}
-	}
 }
@@ -23,9 +23,11 @@ import havis.device.rf.tag.TagData;
 import havis.device.rf.tag.result.OperationResult;
 import havis.llrpservice.common.concurrent.EventPipe;
 import havis.llrpservice.common.concurrent.EventPipes;
-import havis.llrpservice.common.entityManager.Entity;
 import havis.llrpservice.common.entityManager.EntityManagerException;
 import havis.llrpservice.common.ids.IdGenerator;
+import havis.llrpservice.common.metrics.LatencyRecorder;
+import havis.llrpservice.common.metrics.TagReadStage;
+import havis.llrpservice.common.metrics.TagReadTracer;
 import havis.llrpservice.data.message.parameter.AccessSpec;
 import havis.llrpservice.data.message.parameter.GPIEvent;
 import havis.llrpservice.data.message.parameter.ROSpec;
@@ -33,6 +35,7 @@ import havis.llrpservice.sbc.rfc.RFCClientMultiplexed;
 import havis.llrpservice.sbc.rfc.RFCConnectionException;
 import havis.llrpservice.sbc.rfc.RFCEventHandler;
 import havis.llrpservice.sbc.rfc.RFCException;
+import havis.llrpservice.sbc.rfc.RFCExecutionPipeline;
 import havis.llrpservice.sbc.rfc.RFCUnknownChannelException;
 import havis.llrpservice.sbc.rfc.event.RFCChannelClosedEvent;
 import havis.llrpservice.sbc.rfc.event.RFCChannelOpenedEvent;
@@ -59,8 +62,6 @@ import havis.llrpservice.server.rfc.ROSpecExecutor.ROSpecExecutionPosition;
 import havis.llrpservice.server.rfc.ROSpecExecutor.ROSpecExecutorListener;
 import havis.llrpservice.server.rfc.messageData.ExecuteResponseData;
 import havis.llrpservice.xml.configuration.AddressGroup;
-import havis.llrpservice.xml.configuration.LLRPServerConfigurationType;
-import havis.llrpservice.xml.configuration.LLRPServerInstanceConfigurationType;
 import havis.llrpservice.xml.configuration.ReflectionType;
 import havis.llrpservice.xml.configuration.RfcPortProperties;
 import havis.util.platform.Platform;
@@ -79,8 +80,20 @@ import havis.util.platform.Platform;
  * sent and received RFC messages to/from the controller are put to an event
  * queue.
  * </p>
+ * <p>
+ * If the system property {@link #PIPELINED_INVENTORY_PROPERTY} is set to
+ * <code>true</code> then the next inventory of a running AISpec is started in
+ * the thread of the RF controller directly after the previous inventory has
+ * been finished. The response of the previous inventory is processed while
+ * the next inventory is running.
+ * </p>
  */
 public class RFCMessageHandler implements Runnable {
+	/**
+	 * Name of the system property which enables pipelined inventories
+	 * (default: <code>false</code>).
+	 */
+	public static final String PIPELINED_INVENTORY_PROPERTY = "havis.llrpservice.server.rfc.pipelinedInventory";
 
 	private static final Logger log = Logger.getLogger(RFCMessageHandler.class.getName());
 
@@ -106,6 +119,14 @@ public class RFCMessageHandler implements Runnable {
 	private final Object callbackLock = new Object();
 	private ROSpecExecutionPosition roSpecExecutionStopPosition;
 
+	private final boolean isPipelinedInventoryEnabled = Boolean
+			.getBoolean(PIPELINED_INVENTORY_PROPERTY);
+	// execute response id -> position of the execution (for responses whose
+	// following inventory has been started in the thread of the RF controller)
+	private final Map<Long, ROSpecExecutionPosition> pipelinedExecutionPositions = new HashMap<>();
+	// an exception which occurred while starting a pipelined inventory
+	private Exception pipelineException;
+
 	private final ReentrantLock lock = new ReentrantLock();
 
 	private enum RunLatchEvent {
@@ -173,6 +194,49 @@ public class RFCMessageHandler implements Runnable {
 
 	}
 
+	/**
+	 * Starts the next inventory in the thread of the RF controller.
+	 */
+	private class ExecutionPipeline implements RFCExecutionPipeline {
+
+		@Override
+		public void executionFinished(ExecuteResponse response) {
+			// the lock is not awaited to avoid dead locks eg. while the
+			// channel is being closed; the next inventory is started by the
+			// handler thread then
+			if (!lock.tryLock()) {
+				return;
+			}
+			try {
+				// if no ROSpec is executed or other requests are pending (they
+				// have higher priority and must be executed first)
+				if (executingRequest == null || !executingRequest.type.equals(MessageType.EXECUTE)
+						|| !requestQueue.isEmpty() || pipelineException != null) {
+					return;
+				}
+				// if the execution has been cancelled then the response is the
+				// last one
+				synchronized (callbackLock) {
+					if (roSpecExecutionStopPosition != null) {
+						return;
+					}
+				}
+				// save the position of the finished execution because the
+				// position is changed by the next inventory
+				ROSpecExecutionPosition pos = new ROSpecExecutionPosition(
+						executingRequest.roSpecExecutor.getExecutionPosition());
+				if (executingRequest.roSpecExecutor.startNextPipelinedAction()) {
+					pipelinedExecutionPositions.put(response.getMessageHeader().getId(), pos);
+				}
+			} catch (Exception e) {
+				// the exception is thrown by the handler thread
+				pipelineException = e;
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
 	/**
 	 * @param serverConfiguration
 	 * @param instanceConfiguration
@@ -198,13 +262,9 @@ public class RFCMessageHandler implements Runnable {
 			throws EntityManagerException, ConfigurationException, PersistenceException,
 			ClassNotFoundException, MissingServiceFactoryException {
 		// create config analyser
-		Entity<LLRPServerConfigurationType> serverConfigEntity = serverConfiguration.acquire();
-		Entity<LLRPServerInstanceConfigurationType> instanceConfigEntity = instanceConfiguration
-				.acquire();
-		RFCConfigAnalyser configAnalyser = new RFCConfigAnalyser(serverConfigEntity.getObject());
-		configAnalyser.setServerInstanceConfig(instanceConfigEntity.getObject());
-		instanceConfiguration.release(instanceConfigEntity, false /* write */);
-		serverConfiguration.release(serverConfigEntity, false /* write */);
+		RFCConfigAnalyser configAnalyser = new RFCConfigAnalyser(
+				serverConfiguration.getSnapshot().getObject());
+		configAnalyser.setServerInstanceConfig(instanceConfiguration.getSnapshot().getObject());
 
 		llrpAddress = configAnalyser.getAddress();
 		RfcPortProperties rfcPortProperties = configAnalyser.getRFCPortProperties();
@@ -279,6 +339,9 @@ public class RFCMessageHandler implements Runnable {
 				throw new TimeoutException(
 						"Unable to open the channel within " + openCloseTimeout + " ms");
 			}
+			if (isPipelinedInventoryEnabled) {
+				rfcClient.setExecutionPipeline(rfcChannel, new ExecutionPipeline());
+			}
 			// start handling of messages
 			runLatch.fire(RunLatchEvent.OPENED);
 		} finally {
@@ -641,6 +704,10 @@ public class RFCMessageHandler implements Runnable {
 				try {
 					// process incoming message
 					processIncomingMessage(message);
+					// if the start of a pipelined inventory failed
+					if (pipelineException != null) {
+						throw pipelineException;
+					}
 					// if no request is executed then start the next
 					// available request
 					processRequest();
@@ -675,6 +742,8 @@ public class RFCMessageHandler implements Runnable {
 			}
 			requestQueue.clear();
 			executingRequest = null;
+			pipelinedExecutionPositions.clear();
+			pipelineException = null;
 			if (listeners.size() == 0) {
 				if (throwable != null) {
 					log.log(Level.SEVERE, "Execution stopped with " + pendingRequests.size()
@@ -699,6 +768,34 @@ public class RFCMessageHandler implements Runnable {
 		}
 	}
 
+	/**
+	 * Gets the durations of the executions of the RF controller.
+	 * 
+	 * @return The recorder
+	 */
+	public LatencyRecorder getExecuteLatency() {
+		return rfcClient.getExecuteLatency();
+	}
+
+	/**
+	 * Gets the durations of the {@link GetOperations} callbacks of the RF
+	 * controller.
+	 * 
+	 * @return The recorder
+	 */
+	public LatencyRecorder getGetOperationsLatency() {
+		return rfcClient.getGetOperationsLatency();
+	}
+
+	/**
+	 * Sets a tracer for sampled tag reads.
+	 * 
+	 * @param tracer
+	 */
+	public void setTagReadTracer(TagReadTracer tracer) {
+		rfcClient.setTagReadTracer(tracer);
+	}
+
 	/**
 	 * Processes the incoming message.
 	 * 
@@ -731,18 +828,28 @@ public class RFCMessageHandler implements Runnable {
 			break;
 		case EXECUTE_RESPONSE:
 			ExecuteResponse exResponse = (ExecuteResponse) message;
+			if (exResponse.getTrace() != null) {
+				exResponse.getTrace().stamp(TagReadStage.RFC_RECEIVED);
+			}
 			// remove internal access operation results from
 			// response
 			removeInternalAccessOpResults(exResponse);
 			// inform ROSpec executor about the response
 			executingRequest.roSpecExecutor.executionResponseReceived(exResponse.getTagData());
+			// if the next inventory has already been started then get the
+			// saved position of this execution
+			ROSpecExecutionPosition pipelinedPos = pipelinedExecutionPositions
+					.remove(exResponse.getMessageHeader().getId());
 			// create RFC message event incl. LLRP position data
 			ROSpecExecutionPosition pos;
 			synchronized (callbackLock) {
 				pos = roSpecExecutionStopPosition;
 			}
-			boolean isLastResponse = pos != null;
-			if (!isLastResponse) {
+			// the response of a running pipelined inventory is the last one
+			boolean isLastResponse = pos != null && pipelinedPos == null;
+			if (pipelinedPos != null) {
+				pos = pipelinedPos;
+			} else if (!isLastResponse) {
 				// get current position
 				pos = executingRequest.roSpecExecutor.getExecutionPosition();
 			}
@@ -760,6 +867,9 @@ public class RFCMessageHandler implements Runnable {
 				synchronized (callbackLock) {
 					roSpecExecutionStopPosition = null;
 				}
+			} else if (pipelinedPos != null) {
+				// the next inventory is already running
+				break;
 			} else {
 				// enqueue a request for the next inventory
 				// (existing requests have higher priority and must be executed
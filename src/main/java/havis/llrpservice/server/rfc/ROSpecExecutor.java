@@ -83,6 +83,21 @@ public class ROSpecExecutor {
 			this.roSpecId = roSpecId;
 		}
 
+		/**
+		 * Creates a copy of a position.
+		 * 
+		 * @param pos
+		 */
+		ROSpecExecutionPosition(ROSpecExecutionPosition pos) {
+			roSpecId = pos.roSpecId;
+			specIndex = pos.specIndex;
+			antennaId = pos.antennaId;
+			protocolId = pos.protocolId;
+			inventoryParameterSpecId = pos.inventoryParameterSpecId;
+			defaultAccessSpecId = pos.defaultAccessSpecId;
+			tagDataAccessSpecIds = new HashMap<>(pos.tagDataAccessSpecIds);
+		}
+
 		long getRoSpecId() {
 			return roSpecId;
 		}
@@ -293,6 +308,36 @@ public class ROSpecExecutor {
 		}
 	}
 
+	/**
+	 * Starts the next inventory of the running AISpec before the response of
+	 * the previous inventory has been processed with
+	 * {@link #executionResponseReceived(List)}. The inventory is only started
+	 * if the stop trigger of the AISpec does not depend on the results of the
+	 * inventories (see
+	 * {@link AISpecExecutor#startNextPipelinedInventory(ROSpecExecutionPosition, AISpec)}).
+	 * 
+	 * @return <code>true</code> if an inventory has been started
+	 * @throws UnsupportedAccessOperationException
+	 * @throws RFCException
+	 * @throws UnsupportedAirProtocolException
+	 */
+	public boolean startNextPipelinedAction() throws UnsupportedAccessOperationException,
+			RFCException, UnsupportedAirProtocolException {
+		synchronized (lock) {
+			// if the ROSpec has been stopped or the next spec must be started
+			if (!runtimeData.isSpecRunning) {
+				return false;
+			}
+			Parameter spec = roSpec.getSpecList().get(runtimeData.pos.specIndex - 1);
+			switch (spec.getParameterHeader().getParameterType()) {
+			case AI_SPEC:
+				return aiSpecExecutor.startNextPipelinedInventory(runtimeData.pos, (AISpec) spec);
+			default:
+				return false;
+			}
+		}
+	}
+
 	/**
 	 * Starts the next access operations by sending a
 	 * {@link GetOperationsResponse} message as response to a
@@ -0,0 +1,191 @@
+package havis.llrpservice.server.rfc;
+
+import java.util.Arrays;
+
+/**
+ * Counts the observations of tags by their EPC.
+ * <p>
+ * The counts are held in an open addressing hash map with primitive arrays.
+ * EPCs with up to 128 bits (eg. 96 bit EPCs) are stored as two
+ * <code>long</code> values without allocating memory. Longer EPCs are stored as
+ * copies of the byte arrays.
+ * </p>
+ * <p>
+ * The total number of observations and the number of unique tags are updated
+ * incrementally. Thus they can be read in constant time.
+ * </p>
+ * <p>
+ * The implementation is not thread safe.
+ * </p>
+ */
+class TagObservationCounts {
+
+	private static final int INITIAL_CAPACITY = 64;
+	// the max. number of bytes which are stored in two long values
+	private static final int MAX_COMPACT_LENGTH = 16;
+
+	// EPC length + 1 (0: empty slot)
+	private int[] lengths;
+	private long[] highs;
+	private long[] lows;
+	// EPCs with more than MAX_COMPACT_LENGTH bytes
+	private byte[][] longEpcs;
+	private long[] counts;
+	private int uniqueCount;
+	private long totalCount;
+
+	TagObservationCounts() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Adds an observation of a tag.
+	 *
+	 * @param epc
+	 * @return <code>true</code> if the tag has not been observed before
+	 */
+	boolean add(byte[] epc) {
+		long high = high(epc);
+		long low = low(epc);
+		int length = epc.length;
+		int index = find(epc, high, low);
+		if (lengths[index] != 0) {
+			counts[index]++;
+			totalCount++;
+			return false;
+		}
+		lengths[index] = length + 1;
+		highs[index] = high;
+		lows[index] = low;
+		if (length > MAX_COMPACT_LENGTH) {
+			longEpcs[index] = epc.clone();
+		}
+		counts[index] = 1;
+		totalCount++;
+		uniqueCount++;
+		// keep the load factor below 0.5
+		if (uniqueCount * 2 > lengths.length) {
+			resize();
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of unique tags
+	 */
+	int getUniqueCount() {
+		return uniqueCount;
+	}
+
+	/**
+	 * @return the total number of observations
+	 */
+	long getTotalCount() {
+		return totalCount;
+	}
+
+	/**
+	 * Gets the number of observations of a tag.
+	 *
+	 * @param epc
+	 * @return the number of observations
+	 */
+	long getCount(byte[] epc) {
+		int index = find(epc, high(epc), low(epc));
+		return lengths[index] == 0 ? 0 : counts[index];
+	}
+
+	/**
+	 * Removes all observations.
+	 */
+	void clear() {
+		if (lengths.length > INITIAL_CAPACITY) {
+			allocate(INITIAL_CAPACITY);
+		} else {
+			Arrays.fill(lengths, 0);
+			Arrays.fill(longEpcs, null);
+		}
+		uniqueCount = 0;
+		totalCount = 0;
+	}
+
+	/**
+	 * Gets the slot of an EPC.
+	 *
+	 * @return the index of the slot containing the EPC or the index of the
+	 *         empty slot where the EPC can be inserted
+	 */
+	private int find(byte[] epc, long high, long low) {
+		int length = epc.length;
+		int mask = lengths.length - 1;
+		int index = hash(high, low, length) & mask;
+		while (lengths[index] != 0) {
+			if (lengths[index] == length + 1 && highs[index] == high && lows[index] == low
+					&& (length <= MAX_COMPACT_LENGTH || Arrays.equals(longEpcs[index], epc))) {
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	private static long high(byte[] epc) {
+		if (epc.length > MAX_COMPACT_LENGTH) {
+			// only used for the hash code
+			return Arrays.hashCode(epc);
+		}
+		long high = 0;
+		for (int i = 0; i < epc.length && i < 8; i++) {
+			high = high << 8 | (epc[i] & 0xFF);
+		}
+		return high;
+	}
+
+	private static long low(byte[] epc) {
+		if (epc.length > MAX_COMPACT_LENGTH) {
+			return 0;
+		}
+		long low = 0;
+		for (int i = 8; i < epc.length; i++) {
+			low = low << 8 | (epc[i] & 0xFF);
+		}
+		return low;
+	}
+
+	private void allocate(int capacity) {
+		lengths = new int[capacity];
+		highs = new long[capacity];
+		lows = new long[capacity];
+		longEpcs = new byte[capacity][];
+		counts = new long[capacity];
+	}
+
+	private void resize() {
+		int[] oldLengths = lengths;
+		long[] oldHighs = highs;
+		long[] oldLows = lows;
+		byte[][] oldLongEpcs = longEpcs;
+		long[] oldCounts = counts;
+		allocate(oldLengths.length * 2);
+		int mask = lengths.length - 1;
+		for (int i = 0; i < oldLengths.length; i++) {
+			if (oldLengths[i] != 0) {
+				int index = hash(oldHighs[i], oldLows[i], oldLengths[i] - 1) & mask;
+				while (lengths[index] != 0) {
+					index = (index + 1) & mask;
+				}
+				lengths[index] = oldLengths[i];
+				highs[index] = oldHighs[i];
+				lows[index] = oldLows[i];
+				longEpcs[index] = oldLongEpcs[i];
+				counts[index] = oldCounts[i];
+			}
+		}
+	}
+
+	private static int hash(long high, long low, int length) {
+		long h = high * 0x9E3779B97F4A7C15L + low;
+		h = (h ^ (h >>> 32)) * 0x9E3779B97F4A7C15L + length;
+		return (int) (h ^ (h >>> 29));
+	}
+}
@@ -0,0 +1,236 @@
+package havis.llrpservice.server.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import havis.llrpservice.common.metrics.LatencyRecorder;
+import havis.llrpservice.common.metrics.RateRecorder;
+import havis.llrpservice.common.metrics.TagReadTracer;
+import havis.llrpservice.server.event.EventQueue;
+import havis.llrpservice.server.llrp.LLRPMessageHandler;
+import havis.llrpservice.server.rfc.RFCMessageHandler;
+
+/**
+ * Provides the performance metrics of a service instance.
+ * <p>
+ * The values of the message handlers and the ROAccessReport depot are read
+ * from the components of the running instance. They are set when the instance
+ * has been started. Before the values are <code>0</code>.
+ * </p>
+ * <p>
+ * The recording does not allocate memory and is thread safe.
+ * </p>
+ */
+public class InstanceMetrics {
+
+	// the recorder for latencies of components which do not exist yet
+	private static final LatencyRecorder NO_LATENCIES = new LatencyRecorder();
+
+	private final EventQueue eventQueue;
+	private final RateRecorder tagReads = new RateRecorder();
+	private final AtomicLong sentROAccessReports = new AtomicLong();
+	// the start time of the instance (see System.nanoTime)
+	private volatile long startTime = System.nanoTime();
+	// the time in nanoseconds from the start of the instance until the LLRP
+	// port has been opened the first time (-1: not opened yet)
+	private final AtomicLong llrpPortOpeningTime = new AtomicLong(-1);
+	// the time in nanoseconds which has been spent to process events
+	private final RateRecorder eventLoopBusyTime = new RateRecorder();
+
+	private volatile LLRPMessageHandler llrpMessageHandler;
+	private volatile RFCMessageHandler rfcMessageHandler;
+	private volatile ROAccessReportDepot reportDepot;
+	private volatile TagReadTracer tagReadTracer;
+	private volatile ROSpecsManager roSpecsManager;
+
+	/**
+	 * @param eventQueue
+	 *            the event queue of the instance
+	 */
+	InstanceMetrics(EventQueue eventQueue) {
+		this.eventQueue = eventQueue;
+	}
+
+	/**
+	 * Sets the components of the started instance.
+	 *
+	 * @param llrpMessageHandler
+	 * @param rfcMessageHandler
+	 * @param reportDepot
+	 * @param tagReadTracer
+	 * @param roSpecsManager
+	 */
+	void setComponents(LLRPMessageHandler llrpMessageHandler,
+			RFCMessageHandler rfcMessageHandler, ROAccessReportDepot reportDepot,
+			TagReadTracer tagReadTracer, ROSpecsManager roSpecsManager) {
+		this.llrpMessageHandler = llrpMessageHandler;
+		this.rfcMessageHandler = rfcMessageHandler;
+		this.reportDepot = reportDepot;
+		this.tagReadTracer = tagReadTracer;
+		this.roSpecsManager = roSpecsManager;
+	}
+
+	/**
+	 * Records the start of the instance.
+	 */
+	void recordStart() {
+		startTime = System.nanoTime();
+		llrpPortOpeningTime.set(-1);
+	}
+
+	/**
+	 * Records the opening of the LLRP port. Only the first opening after the
+	 * start of the instance is recorded (not the openings of restarts).
+	 *
+	 * @return <code>true</code> if the opening has been recorded
+	 */
+	boolean recordLLRPPortOpened() {
+		return llrpPortOpeningTime.compareAndSet(-1, System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Records the reads of tags which have been received from the RF
+	 * controller.
+	 *
+	 * @param count
+	 */
+	void recordTagReads(int count) {
+		tagReads.record(count);
+	}
+
+	/**
+	 * Increments the number of sent ROAccessReports.
+	 */
+	void incrementSentROAccessReports() {
+		sentROAccessReports.incrementAndGet();
+	}
+
+	/**
+	 * Records the time which has been spent to process an event.
+	 *
+	 * @param duration
+	 *            in nanoseconds
+	 */
+	void recordEventProcessing(long duration) {
+		eventLoopBusyTime.record(duration);
+	}
+
+	/**
+	 * @return the tag reads
+	 */
+	public RateRecorder getTagReads() {
+		return tagReads;
+	}
+
+	/**
+	 * @return the number of sent ROAccessReports
+	 */
+	public long getSentROAccessReports() {
+		return sentROAccessReports.get();
+	}
+
+	/**
+	 * Gets the part of the time which has been spent to process events.
+	 *
+	 * @return a value between 0 and 1
+	 */
+	public double getEventLoopBusyRatio() {
+		return Math.min(eventLoopBusyTime.getRate() / 1000000000d, 1);
+	}
+
+	/**
+	 * Gets the number of queued events with a priority.
+	 *
+	 * @param priority
+	 *            see {@link havis.llrpservice.server.event.EventPriority}
+	 * @return The number of events
+	 */
+	public int getEventQueueSize(int priority) {
+		return eventQueue.size(priority);
+	}
+
+	/**
+	 * @return the number of bytes which have been sent to LLRP clients
+	 */
+	public long getSentBytes() {
+		LLRPMessageHandler handler = llrpMessageHandler;
+		return handler == null ? 0 : handler.getSentBytes();
+	}
+
+	/**
+	 * @return the number of bytes which have been received from LLRP clients
+	 */
+	public long getReceivedBytes() {
+		LLRPMessageHandler handler = llrpMessageHandler;
+		return handler == null ? 0 : handler.getReceivedBytes();
+	}
+
+	/**
+	 * @return the time in nanoseconds from the start of the instance until
+	 *         the LLRP port has been opened (<code>-1</code> if the port has
+	 *         not been opened yet)
+	 */
+	public long getLLRPPortOpeningTime() {
+		return llrpPortOpeningTime.get();
+	}
+
+	/**
+	 * @return the number of ROAccessReports held by the depot
+	 *         (<code>-1</code> if the persisted reports have not been loaded
+	 *         yet, see {@link ROAccessReportDepot#getSize()})
+	 */
+	public int getReportDepotSize() {
+		ROAccessReportDepot depot = reportDepot;
+		return depot == null ? 0 : depot.getSize();
+	}
+
+	/**
+	 * @return the length of the serialized ROAccessReports held by the depot
+	 *         in bytes (see {@link ROAccessReportDepot#getLength()})
+	 */
+	public long getReportDepotLength() {
+		ROAccessReportDepot depot = reportDepot;
+		return depot == null ? 0 : depot.getLength();
+	}
+
+	/**
+	 * @return the durations of the flushing of the ROAccessReport depot
+	 */
+	public LatencyRecorder getFlushLatency() {
+		ROAccessReportDepot depot = reportDepot;
+		return depot == null ? NO_LATENCIES : depot.getFlushLatency();
+	}
+
+	/**
+	 * @return the durations of the executions of the RF controller
+	 */
+	public LatencyRecorder getExecuteLatency() {
+		RFCMessageHandler handler = rfcMessageHandler;
+		return handler == null ? NO_LATENCIES : handler.getExecuteLatency();
+	}
+
+	/**
+	 * @return the durations of the GetOperations callbacks of the RF
+	 *         controller
+	 */
+	public LatencyRecorder getGetOperationsLatency() {
+		RFCMessageHandler handler = rfcMessageHandler;
+		return handler == null ? NO_LATENCIES : handler.getGetOperationsLatency();
+	}
+
+	/**
+	 * @return the latencies between the receipt of GPI events and the
+	 *         activation of ROSpecs with a GPI start trigger
+	 */
+	public LatencyRecorder getGPIStartLatency() {
+		ROSpecsManager manager = roSpecsManager;
+		return manager == null ? NO_LATENCIES : manager.getGPIStartLatency();
+	}
+
+	/**
+	 * @return the tracer for sampled tag reads or <code>null</code> if the
+	 *         instance has not been started yet
+	 */
+	public TagReadTracer getTagReadTracer() {
+		return tagReadTracer;
+	}
+}
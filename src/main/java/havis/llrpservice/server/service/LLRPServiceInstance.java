@@ -5,20 +5,24 @@ import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import havis.device.io.IODevice;
 import havis.device.rf.RFDevice;
+import havis.device.rf.tag.TagData;
+import havis.llrpservice.common.concurrent.SharedExecutor;
 import havis.llrpservice.common.entityManager.Entity;
 import havis.llrpservice.common.entityManager.EntityManagerException;
 import havis.llrpservice.common.fsm.FSM;
 import havis.llrpservice.common.fsm.FSMActionException;
 import havis.llrpservice.common.fsm.FSMGuardException;
 import havis.llrpservice.common.io.XMLFile;
+import havis.llrpservice.common.metrics.TagReadStage;
+import havis.llrpservice.common.metrics.TagReadTracer;
 import havis.llrpservice.common.tcp.TCPConnectorStoppedException;
 import havis.llrpservice.common.tcp.TCPServerMultiplexed;
 import havis.llrpservice.common.tcp.TCPUnknownChannelException;
@@ -39,6 +43,7 @@ import havis.llrpservice.data.message.GetAccessSpecs;
 import havis.llrpservice.data.message.GetROSpecs;
 import havis.llrpservice.data.message.GetSupportedVersion;
 import havis.llrpservice.data.message.Message;
+import havis.llrpservice.data.message.ROAccessReport;
 import havis.llrpservice.data.message.MessageTypes.MessageType;
 import havis.llrpservice.data.message.ProtocolVersion;
 import havis.llrpservice.data.message.SetProtocolVersion;
@@ -59,6 +64,7 @@ import havis.llrpservice.data.message.parameter.serializer.InvalidParameterTypeE
 import havis.llrpservice.data.message.serializer.InvalidMessageTypeException;
 import havis.llrpservice.sbc.gpio.GPIOException;
 import havis.llrpservice.sbc.rfc.RFCException;
+import havis.llrpservice.sbc.rfc.message.ExecuteResponse;
 import havis.llrpservice.sbc.service.ServiceFactory;
 import havis.llrpservice.server.configuration.ServerConfiguration;
 import havis.llrpservice.server.configuration.ServerInstanceConfiguration;
@@ -169,9 +175,13 @@ public class LLRPServiceInstance implements Runnable {
 	private class LLRPMessageHandlerInstanceListener implements LLRPMessageHandlerListener {
 		@Override
 		public void dataSent(LLRPDataSentEvent event) {
+			TagReadTracer tracer = tagReadTracer;
+			if (tracer != null && event.getMessageId() != null) {
+				tracer.sent(event.getMessageId());
+			}
 			eventQueue.put(new LLRPServiceInstanceEvent(
-					LLRPServiceInstanceEvent.MessageType.LLRP_DATA_SENT, event.getException()),
-					EventPriority.LLRP);
+					LLRPServiceInstanceEvent.MessageType.LLRP_DATA_SENT, event.getMessageId(),
+					event.getException()), EventPriority.LLRP);
 		}
 
 		@Override
@@ -190,6 +200,12 @@ public class LLRPServiceInstance implements Runnable {
 
 		@Override
 		public void opened() {
+			if (metrics.recordLLRPPortOpened() && log.isLoggable(Level.INFO)) {
+				log.log(Level.INFO, "Opened LLRP port of instance "
+						+ instanceConfigurationFile.getContent().getInstanceId() + " "
+						+ TimeUnit.NANOSECONDS.toMillis(metrics.getLLRPPortOpeningTime())
+						+ " ms after the start");
+			}
 			eventQueue.put(new LLRPServiceInstanceEvent(
 					LLRPServiceInstanceEvent.MessageType.LLRP_SERVER_OPENED, null /* exception */),
 					EventPriority.LLRP);
@@ -213,6 +229,12 @@ public class LLRPServiceInstance implements Runnable {
 	private final ServiceFactory<RFDevice> rfcServiceFactory;
 	private final ServiceFactory<IODevice> gpioServiceFactory;
 	private EventQueue eventQueue = new EventQueue();
+	private final InstanceMetrics metrics = new InstanceMetrics(eventQueue);
+	// the tracer for sampled tag reads of the running instance
+	private volatile TagReadTracer tagReadTracer;
+	// the sender of the ROAccessReports of the report depot (accessed by the
+	// instance thread only)
+	private ROAccessReportSender reportSender;
 	private Semaphore isCanceled = new Semaphore(0);
 	private List<LLRPServiceInstanceListener> listeners = new CopyOnWriteArrayList<>();
 
@@ -255,6 +277,15 @@ public class LLRPServiceInstance implements Runnable {
 		this.gpioServiceFactory = gpioServiceFactory;
 	}
 
+	/**
+	 * Gets the performance metrics of the instance.
+	 * 
+	 * @return The metrics
+	 */
+	public InstanceMetrics getMetrics() {
+		return metrics;
+	}
+
 	/**
 	 * Adds a listener.
 	 * 
@@ -325,6 +356,7 @@ public class LLRPServiceInstance implements Runnable {
 	 * Runs the instance.
 	 */
 	public void run() {
+		metrics.recordStart();
 		isCanceled.drainPermits();
 
 		ServerInstanceConfiguration instanceConfiguration;
@@ -337,7 +369,8 @@ public class LLRPServiceInstance implements Runnable {
 		AccessSpecsManager accessSpecsManager;
 		ROAccessReportDepot reportDepot;
 		LLRPServiceInstanceRuntimeData llrpServiceInstanceRuntimeData;
-		ExecutorService threadPool = Executors.newFixedThreadPool(3);
+		// the message handlers are executed as loops of the shared executor
+		ExecutorService threadPool = SharedExecutor.getInstance().getLoops();
 		LLRPMessageHandler llrpMessageHandler;
 		LLRPRuntimeData llrpRuntimeData = null;
 		RFCMessageHandler rfcMessageHandler;
@@ -347,10 +380,8 @@ public class LLRPServiceInstance implements Runnable {
 		FSM<FSMEvent> fsm = null;
 
 		try {
-			// get copy of server configuration
-			Entity<LLRPServerConfigurationType> serverConfigEntity = serverConfiguration.acquire();
-			LLRPServerConfigurationType serverConf = serverConfigEntity.getObject();
-			serverConfiguration.release(serverConfigEntity, false /* write */);
+			// get current server configuration
+			LLRPServerConfigurationType serverConf = serverConfiguration.getSnapshot().getObject();
 			// get instance properties from config
 			LLRPServerInstanceConfigurationType instanceConf = instanceConfigurationFile
 					.getContent();
@@ -383,13 +414,20 @@ public class LLRPServiceInstance implements Runnable {
 			rfcMessageHandler = new RFCMessageHandler(serverConfiguration, instanceConfiguration,
 					eventQueue, rfcServiceFactory, platform);
 			rfcMessageHandler.addListener(new RFCMessageHandlerInstanceListener());
+			tagReadTracer = new TagReadTracer(instanceId);
+			if (tagReadTracer.getSampleInterval() > 0) {
+				rfcMessageHandler.setTagReadTracer(tagReadTracer);
+			}
 			RFCRuntimeData rfcRuntimeData = new RFCRuntimeData(rfcMessageHandler);
 			// open a ROAccessReport depot using the persistence of the instance
 			// configuration
 			reportDepot = new ROAccessReportDepot();
 			reportDepot.open(instanceConfiguration.getPersistence());
+			reportSender = new ROAccessReportSender(reportDepot, tagReadTracer);
 			// create ROSpecs managers
 			roSpecsManager = new ROSpecsManager(rfcMessageHandler, platform.hasUTCClock());
+			metrics.setComponents(llrpMessageHandler, rfcMessageHandler, reportDepot,
+					tagReadTracer, roSpecsManager);
 			// listen to changes of ROSpec executions
 			roSpecsManager.addListener(new ROSpecsManagerListener() {
 
@@ -443,8 +481,14 @@ public class LLRPServiceInstance implements Runnable {
 				reportDepot, eventQueue);
 		int retries = 0;
 		Throwable exception = null;
+		// the start time of the processing of the latest event
+		long processingStart = 0;
 		loop: while (true) {
 			try {
+				if (processingStart != 0) {
+					metrics.recordEventProcessing(System.nanoTime() - processingStart);
+					processingStart = 0;
+				}
 				// Restart LLRP message handler (server) if necessary
 				if (llrpRuntimeData.isRestartServer()) {
 					int delay = 0;
@@ -497,6 +541,7 @@ public class LLRPServiceInstance implements Runnable {
 
 				// Wait for new events in the event queue
 				Event event = eventQueue.take(EventQueue.NO_TIMEOUT);
+				processingStart = System.nanoTime();
 
 				// process event
 				switch (event.getEventType()) {
@@ -517,6 +562,11 @@ public class LLRPServiceInstance implements Runnable {
 				case INSTANCE_EVENT:
 					LLRPServiceInstanceEvent instanceEvent = (LLRPServiceInstanceEvent) event;
 					if (instanceEvent.getException() != null) {
+						// a report which cannot be sent must not hold back the
+						// following reports (LLRP_DATA_SENT with an exception)
+						if (instanceEvent.getMessageId() != null) {
+							reportSender.failed(instanceEvent.getMessageId());
+						}
 						throw instanceEvent.getException();
 					}
 					switch (instanceEvent.getMessageType()) {
@@ -537,11 +587,30 @@ public class LLRPServiceInstance implements Runnable {
 						// restart LLRP for a full reset
 						llrpRuntimeData.setRestartServer(true);
 						break;
-					case LLRP_DATA_SENT:
 					case RFC_CLIENT_OPENED:
 					case RFC_CLIENT_CLOSED:
+						// the RF controller may have been changed
+						fsmEvents.RFC_MESSAGE_RECEIVED.getRuntimeData().clearCaches();
+						break;
 					case GPIO_CLIENT_OPENED:
 					case GPIO_CLIENT_CLOSED:
+						// the GPIO controller may have been changed
+						if (fsmEvents.GPIO_MESSAGE_RECEIVED.getRuntimeData() != null) {
+							fsmEvents.GPIO_MESSAGE_RECEIVED.getRuntimeData().clearCaches();
+						}
+						break;
+					case LLRP_DATA_SENT:
+						// if the current ROAccessReport has been sent
+						if (instanceEvent.getMessageId() != null
+								&& reportSender.sent(instanceEvent.getMessageId())) {
+							// send the next pending ROAccessReport
+							ROAccessReport report = reportSender.next(
+									llrpRuntimeData.getROAccessReportCreator(),
+									llrpRuntimeData.getProtocolVersion());
+							if (report != null) {
+								requestSendingData(llrpRuntimeData, report);
+							}
+						}
 						break;
 					case CANCEL:
 						break loop;
@@ -570,7 +639,6 @@ public class LLRPServiceInstance implements Runnable {
 			platform.close();
 			platformManager.release(platform);
 			instanceConfiguration.close();
-			threadPool.shutdown();
 		} catch (Throwable t) {
 			if (exception != null) {
 				exception = t;
@@ -608,6 +676,12 @@ public class LLRPServiceInstance implements Runnable {
 		// remove events enqueued between clean up and closing the
 		// RFC + GPIO message handler
 		eventQueue.clear();
+		// discard the pending reports and the traces of tag reads which cannot
+		// be sent anymore
+		reportSender.clear();
+		if (tagReadTracer != null) {
+			tagReadTracer.clear();
+		}
 	}
 
 	private void processLLRPMessage(LLRPMessageEvent llrpMessageEvent, FSM<FSMEvent> fsm,
@@ -939,18 +1013,26 @@ public class LLRPServiceInstance implements Runnable {
 			if (llrpStatus.getStatusCode() == LLRPStatusCode.M_SUCCESS) {
 				try {
 					ROAccessReportDepot reportDepot = llrpRuntimeData.getROAccessReportDepot();
-					// get all reports from depot
-					List<ROAccessReportEntity> reportEntities = reportDepot
-							.remove(reportDepot.getEntityIds());
-					// create report
-					outgoingLLRPMessage = reportCreator
-							.accumulate(llrpRuntimeData.getProtocolVersion(), reportEntities);
+					// request the sending of all reports from depot
+					reportSender.add(reportDepot.getEntityIds());
+					// if a report is being sent then the requested reports
+					// follow it
+					if (!reportSender.isSending()) {
+						outgoingLLRPMessage = reportSender.next(reportCreator,
+								llrpRuntimeData.getProtocolVersion());
+						if (outgoingLLRPMessage == null) {
+							// create empty report
+							outgoingLLRPMessage = reportCreator.accumulate(
+									llrpRuntimeData.getProtocolVersion(),
+									new ArrayList<ROAccessReportEntity>());
+						}
+					}
 				} catch (Exception e) {
 					llrpStatus = llrpMessageCreator.createStatus(LLRPStatusCode.R_DEVICE_ERROR,
 							"Cannot get reports");
 				}
 			}
-			if (outgoingLLRPMessage == null) {
+			if (llrpStatus.getStatusCode() != LLRPStatusCode.M_SUCCESS) {
 				String errorMsg = "Cannot create report: " + llrpStatus.getErrorDescription();
 				log.log(Level.SEVERE, errorMsg);
 				// send exception event
@@ -992,7 +1074,7 @@ public class LLRPServiceInstance implements Runnable {
 			// remove processed message
 			llrpRuntimeData.removeCurrentMessage(outgoingLLRPMessage.getMessageHeader().getId());
 			// send outgoing LLRP message
-			llrpRuntimeData.getMessageHandler().requestSendingData(outgoingLLRPMessage);
+			requestSendingData(llrpRuntimeData, outgoingLLRPMessage);
 		}
 	}
 
@@ -1037,15 +1119,12 @@ public class LLRPServiceInstance implements Runnable {
 						}
 					}
 					reportDepot.release(entities, false /* write */);
-					// if reports exist
-					if (!roSpecEntityIds.isEmpty()) {
-						// remove reports from depot
-						List<ROAccessReportEntity> reportEntities = reportDepot
-								.remove(roSpecEntityIds);
-						// create report
-						outgoingLLRPMessage = llrpRuntimeData.getROAccessReportCreator()
-								.accumulate(llrpRuntimeData.getProtocolVersion(), reportEntities);
-					}
+					// request the sending of the reports (if a report is being
+					// sent then the requested reports follow it)
+					reportSender.add(roSpecEntityIds);
+					outgoingLLRPMessage = reportSender.next(
+							llrpRuntimeData.getROAccessReportCreator(),
+							llrpRuntimeData.getProtocolVersion());
 				} catch (Exception e) {
 					String errorMsg = "Cannot create report";
 					log.log(Level.SEVERE, errorMsg, e);
@@ -1073,7 +1152,31 @@ public class LLRPServiceInstance implements Runnable {
 			// remove processed message
 			llrpRuntimeData.removeCurrentMessage(outgoingLLRPMessage.getMessageHeader().getId());
 			// send outgoing LLRP message
-			llrpRuntimeData.getMessageHandler().requestSendingData(outgoingLLRPMessage);
+			requestSendingData(llrpRuntimeData, outgoingLLRPMessage);
+		}
+	}
+
+	/**
+	 * Sends a LLRP message. The ROAccessReports of the report depot are
+	 * provided by the {@link ROAccessReportSender} one after the other: the
+	 * next report is requested for sending after the previous one has been
+	 * sent (see {@link LLRPServiceInstanceEvent.MessageType#LLRP_DATA_SENT}).
+	 * 
+	 * @param llrpRuntimeData
+	 * @param message
+	 * @throws Exception
+	 */
+	private void requestSendingData(LLRPRuntimeData llrpRuntimeData, Message message)
+			throws Exception {
+		try {
+			llrpRuntimeData.getMessageHandler().requestSendingData(message);
+		} catch (Exception e) {
+			// no LLRP_DATA_SENT event follows for the message
+			reportSender.failed(message.getMessageHeader().getId());
+			throw e;
+		}
+		if (message instanceof ROAccessReport) {
+			metrics.incrementSentROAccessReports();
 		}
 	}
 
@@ -1104,6 +1207,14 @@ public class LLRPServiceInstance implements Runnable {
 				fsm.fire(fsmEvents.RFC_RESET_CONFIGURATION_RESPONSE_RECEIVED);
 				break;
 			case EXECUTE_RESPONSE:
+				ExecuteResponse executeResponse = (ExecuteResponse) rfcMessageEvent.getMessage();
+				if (executeResponse.getTrace() != null) {
+					executeResponse.getTrace().stamp(TagReadStage.DEQUEUED);
+				}
+				List<TagData> tagData = executeResponse.getTagData();
+				if (tagData != null) {
+					metrics.recordTagReads(tagData.size());
+				}
 				fsm.fire(fsmEvents.RFC_EXECUTE_RESPONSE_RECEIVED);
 				break;
 			default:
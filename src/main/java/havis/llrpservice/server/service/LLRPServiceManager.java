@@ -3,6 +3,8 @@ package havis.llrpservice.server.service;
 import havis.device.io.IODevice;
 import havis.device.rf.RFDevice;
 import havis.llrpservice.common.concurrent.EventPipe;
+import havis.llrpservice.common.concurrent.NamedThreadFactory;
+import havis.llrpservice.common.concurrent.SharedExecutor;
 import havis.llrpservice.common.io.PathHandler;
 import havis.llrpservice.common.io.XMLFile;
 import havis.llrpservice.common.tcp.TCPServerMultiplexed;
@@ -14,6 +16,7 @@ import havis.llrpservice.server.management.Management;
 import havis.llrpservice.server.management.ManagementFactory;
 import havis.llrpservice.server.management.bean.Server;
 import havis.llrpservice.server.management.bean.ServiceInstance;
+import havis.llrpservice.server.management.bean.ServiceInstanceMetrics;
 import havis.llrpservice.server.service.LLRPServiceInstance.LLRPServiceInstanceListener;
 import havis.llrpservice.xml.configuration.LLRPServerConfigurationType;
 import havis.llrpservice.xml.configuration.LLRPServerInstanceConfigurationType;
@@ -30,10 +33,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -63,6 +69,13 @@ import com.rits.cloning.Cloner;
  * </p>
  * The default base path <code>havis-llrpservice</code> can be changed: see
  * {@link #LLRPServiceManager(String, ServiceFactory, ServiceFactory, ServiceFactory)}
+ * <p>
+ * The files of the instances are loaded in parallel by the calling thread and
+ * short-lived loader threads. Each instance is started as a loop of the
+ * shared executor in its own thread. An instance
+ * opens its LLRP port before it accesses the RF controller, the GPIO
+ * controller or the persisted ROAccessReports.
+ * </p>
  */
 public class LLRPServiceManager implements Runnable {
 
@@ -77,6 +90,7 @@ public class LLRPServiceManager implements Runnable {
 	private final static String MGMT_PATH_BASE = "/havis.llrpservice/";
 	private final static String MGMT_PATH_SERVER = MGMT_PATH_BASE + "Server";
 	private final static String MGMT_PATH_INSTANCE = MGMT_PATH_BASE + "Instances";
+	private final static String MGMT_PATH_INSTANCE_METRICS = MGMT_PATH_BASE + "InstanceMetrics";
 
 	// The base path to properties and configuration files. An relative path
 	// starts at the classpath. If it is not set in the constructor then the
@@ -87,7 +101,7 @@ public class LLRPServiceManager implements Runnable {
 	private ServerConfiguration serverConfigManager;
 	// instanceId -> instance handle
 	private Map<String, InstanceHandle> serviceInstances = new HashMap<>();
-	private ExecutorService threadPool;
+	private final SharedExecutor executor = SharedExecutor.getInstance();
 	private TCPServerMultiplexed tcpServerLLRP;
 	private final ServiceFactory<Platform> platformServiceFactory;
 	private final ServiceFactory<RFDevice> rfcServiceFactory;
@@ -131,10 +145,23 @@ public class LLRPServiceManager implements Runnable {
 		Future<?> future;
 		LLRPServiceInstance instance;
 		ServiceInstance mbean;
+		ServiceInstanceMetrics metricsMBean;
 		XMLFile<LLRPServerInstancePropertiesType> propertiesFile;
 		XMLFile<LLRPServerInstanceConfigurationType> configFile;
 	}
 
+	/**
+	 * Loads a file from the directory of an instance.
+	 */
+	interface InstanceFileLoader<T> {
+		/**
+		 * @param instanceDir
+		 * @return <code>null</code> if the file does not exist
+		 * @throws Exception
+		 */
+		T load(Path instanceDir) throws Exception;
+	}
+
 	private static class ServerEvent {
 		enum Type {
 			SERVER_DOWN, SERVER_UP
@@ -254,18 +281,20 @@ public class LLRPServiceManager implements Runnable {
 					// open the server configuration manager
 					serverConfigManager.open();
 					// start the LLRP server
-					threadPool = Executors.newFixedThreadPool(1 + serviceInstances.size());
 					tcpServerLLRP = new TCPServerMultiplexed();
 					tcpServerLLRP.setReadBufferSize(serverConfig.getDefaults().getInterfaces()
 							.getLLRP().getTCPReadBufferSize());
-					tcpServerLLRPFuture = threadPool.submit(tcpServerLLRP);
+					tcpServerLLRPFuture = executor.submitLoop(tcpServerLLRP);
 					// for each instance
 					for (String instanceId : serviceInstances.keySet()) {
 						// register the instance for management
 						InstanceHandle ih = getInstanceHandle(instanceId);
 						ih.mbean = new ServiceInstance(this, instanceId);
+						ih.metricsMBean = new ServiceInstanceMetrics(instanceId);
 						if (management != null) {
 							management.register(MGMT_PATH_INSTANCE + "/" + instanceId, ih.mbean);
+							management.register(MGMT_PATH_INSTANCE_METRICS + "/" + instanceId,
+									ih.metricsMBean);
 						}
 						// start the instance
 						startServiceInstance(instanceId);
@@ -296,10 +325,6 @@ public class LLRPServiceManager implements Runnable {
 						tcpServerLLRPFuture.get(serverProperties.getUnexpectedTimeout(),
 								TimeUnit.SECONDS);
 					}
-					// close the thread pool
-					if (threadPool != null) {
-						threadPool.shutdown();
-					}
 					// close the server configuration manager
 					if (serverConfigManager != null) {
 						serverConfigManager.close();
@@ -440,7 +465,8 @@ public class LLRPServiceManager implements Runnable {
 						instanceProperties, serverProperties.getUnexpectedTimeout(), tcpServerLLRP,
 						platformServiceFactory, rfcServiceFactory, gpioServiceFactory);
 				ih.instance.addListener(new InstanceListener(instanceId));
-				ih.future = threadPool.submit(ih.instance);
+				ih.metricsMBean.setMetrics(ih.instance.getMetrics());
+				ih.future = executor.submitLoop(ih.instance);
 				ih.mbean.setIsActive(true);
 			} catch (Exception e) {
 				throw new LLRPServiceManagerException(
@@ -487,6 +513,16 @@ public class LLRPServiceManager implements Runnable {
 		}
 	}
 
+	/**
+	 * Gets the executor which is shared by the LLRP server and all service
+	 * instances.
+	 * 
+	 * @return the executor
+	 */
+	public SharedExecutor getExecutor() {
+		return executor;
+	}
+
 	private InstanceHandle getInstanceHandle(String instanceId) {
 		InstanceHandle ih = serviceInstances.get(instanceId);
 		if (ih == null) {
@@ -564,24 +600,37 @@ public class LLRPServiceManager implements Runnable {
 	}
 
 	private void loadInstanceProperties(List<Path> instanceDirs)
-			throws JiBXException, IOException, SAXException, PropertiesException {
-		PropertiesValidator propsValidator = new PropertiesValidator();
+			throws JiBXException, IOException, SAXException, PropertiesException,
+			LLRPServiceManagerException {
 		// get instance properties
-		for (Path instanceDir : instanceDirs) {
-			// "<anyInstancePath>/LLRPServerInstanceProperties.xml"
-			Path instanceFilePath = instanceDir.resolve(INSTANCE_PROPERTIES_NAME);
-			// if file exists
-			if (new PathHandler().toAbsolutePath(instanceFilePath) != null) {
-				// put file content to list
-				XMLFile<LLRPServerInstancePropertiesType> instanceFile = new XMLFile<LLRPServerInstancePropertiesType>(
-						LLRPServerInstancePropertiesType.class, instanceFilePath,
-						null /* latestPath */);
+		List<XMLFile<LLRPServerInstancePropertiesType>> instanceFiles = loadInstanceFiles(
+				instanceDirs, new InstanceFileLoader<XMLFile<LLRPServerInstancePropertiesType>>() {
+
+					@Override
+					public XMLFile<LLRPServerInstancePropertiesType> load(Path instanceDir)
+							throws Exception {
+						// "<anyInstancePath>/LLRPServerInstanceProperties.xml"
+						Path instanceFilePath = instanceDir.resolve(INSTANCE_PROPERTIES_NAME);
+						// if file does not exist
+						if (new PathHandler().toAbsolutePath(instanceFilePath) == null) {
+							return null;
+						}
+						XMLFile<LLRPServerInstancePropertiesType> instanceFile = new XMLFile<LLRPServerInstancePropertiesType>(
+								LLRPServerInstancePropertiesType.class, instanceFilePath,
+								null /* latestPath */);
+						new PropertiesValidator().validate(instanceFile.getContent(),
+								instanceFile.getPath().toString());
+						return instanceFile;
+					}
+				});
+		for (XMLFile<LLRPServerInstancePropertiesType> instanceFile : instanceFiles) {
+			if (instanceFile != null) {
+				// the content has already been loaded
 				LLRPServerInstancePropertiesType instanceContent = instanceFile.getContent();
-				propsValidator.validate(instanceContent, instanceFile.getPath().toString());
 				getInstanceHandle(instanceContent.getInstanceId()).propertiesFile = instanceFile;
 				if (log.isLoggable(Level.INFO)) {
 					log.log(Level.INFO, "Loaded instance properties "
-							+ instanceContent.getInstanceId() + " from " + instanceFilePath);
+							+ instanceContent.getInstanceId() + " from " + instanceFile.getPath());
 				}
 			}
 		}
@@ -639,29 +688,144 @@ public class LLRPServiceManager implements Runnable {
 		return instanceDirs;
 	}
 
-	private void loadInstanceConfigs(List<Path> instanceDirs, Path latestConfigBaseDir)
-			throws JiBXException, IOException, SAXException, ConfigurationException {
-		ConfigurationValidator confValidator = new ConfigurationValidator();
-		for (Path instanceDir : instanceDirs) {
-			// "<anyInstancePath>/LLRPServerInstanceConfiguration.xml"
-			Path instanceFilePath = instanceDir.resolve(INSTANCE_CONFIG_NAME);
-			// if file exists
-			if (new PathHandler().toAbsolutePath(instanceFilePath) != null) {
-				XMLFile<LLRPServerInstanceConfigurationType> instanceFile = new XMLFile<LLRPServerInstanceConfigurationType>(
-						LLRPServerInstanceConfigurationType.class, instanceFilePath,
-						null /* latestPath */);
-				LLRPServerInstanceConfigurationType instanceContent = instanceFile.getContent();
-				confValidator.validate(instanceContent, instanceFile.getPath().toString());
-				String instanceId = instanceContent.getInstanceId();
-				// "<anyLatestPath>/<instanceId>/LLRPServerInstanceConfiguration.xml"
-				instanceFile.setLatestPath(
-						latestConfigBaseDir.resolve(instanceId).resolve(INSTANCE_CONFIG_NAME));
+	private void loadInstanceConfigs(List<Path> instanceDirs, final Path latestConfigBaseDir)
+			throws JiBXException, IOException, SAXException, ConfigurationException,
+			LLRPServiceManagerException {
+		List<XMLFile<LLRPServerInstanceConfigurationType>> instanceFiles = loadInstanceFiles(
+				instanceDirs,
+				new InstanceFileLoader<XMLFile<LLRPServerInstanceConfigurationType>>() {
+
+					@Override
+					public XMLFile<LLRPServerInstanceConfigurationType> load(Path instanceDir)
+							throws Exception {
+						// "<anyInstancePath>/LLRPServerInstanceConfiguration.xml"
+						Path instanceFilePath = instanceDir.resolve(INSTANCE_CONFIG_NAME);
+						// if file does not exist
+						if (new PathHandler().toAbsolutePath(instanceFilePath) == null) {
+							return null;
+						}
+						XMLFile<LLRPServerInstanceConfigurationType> instanceFile = new XMLFile<LLRPServerInstanceConfigurationType>(
+								LLRPServerInstanceConfigurationType.class, instanceFilePath,
+								null /* latestPath */);
+						LLRPServerInstanceConfigurationType instanceContent = instanceFile
+								.getContent();
+						new ConfigurationValidator().validate(instanceContent,
+								instanceFile.getPath().toString());
+						// "<anyLatestPath>/<instanceId>/LLRPServerInstanceConfiguration.xml"
+						instanceFile.setLatestPath(latestConfigBaseDir
+								.resolve(instanceContent.getInstanceId())
+								.resolve(INSTANCE_CONFIG_NAME));
+						// load the content from the latest path
+						instanceFile.getContent();
+						return instanceFile;
+					}
+				});
+		for (XMLFile<LLRPServerInstanceConfigurationType> instanceFile : instanceFiles) {
+			if (instanceFile != null) {
+				String instanceId = instanceFile.getContent().getInstanceId();
 				getInstanceHandle(instanceId).configFile = instanceFile;
 				if (log.isLoggable(Level.INFO)) {
 					log.log(Level.INFO, "Loaded instance configuration " + instanceId + " from "
-							+ instanceFilePath);
+							+ instanceFile.getInitialPath());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads a file from each instance directory. The files are loaded in
+	 * parallel by the calling thread and up to one short-lived thread per
+	 * further available processor. The workers of the shared executor are not
+	 * used because they may be busy with the tasks of running instances (eg.
+	 * while the configuration is reloaded).
+	 * 
+	 * @param instanceDirs
+	 * @param loader
+	 * @return the loaded files in the order of the instance directories
+	 * @throws JiBXException
+	 * @throws IOException
+	 * @throws SAXException
+	 * @throws PropertiesException
+	 * @throws ConfigurationException
+	 * @throws LLRPServiceManagerException
+	 */
+	<T> List<T> loadInstanceFiles(final List<Path> instanceDirs,
+			final InstanceFileLoader<T> loader)
+			throws JiBXException, IOException, SAXException, PropertiesException,
+			ConfigurationException, LLRPServiceManagerException {
+		final List<T> ret = new ArrayList<>(instanceDirs.size());
+		for (int i = 0; i < instanceDirs.size(); i++) {
+			ret.add(null);
+		}
+		final AtomicInteger nextIndex = new AtomicInteger();
+		Callable<Void> task = new Callable<Void>() {
+
+			@Override
+			public Void call() throws Exception {
+				int index;
+				while ((index = nextIndex.getAndIncrement()) < instanceDirs.size()) {
+					T file = loader.load(instanceDirs.get(index));
+					synchronized (ret) {
+						ret.set(index, file);
+					}
+				}
+				return null;
+			}
+		};
+		int loaderCount = Math.min(Runtime.getRuntime().availableProcessors(),
+				instanceDirs.size()) - 1;
+		ExecutorService loaders = null;
+		List<Future<Void>> futures = new ArrayList<>();
+		Throwable exception = null;
+		try {
+			if (loaderCount > 0) {
+				loaders = Executors.newFixedThreadPool(loaderCount,
+						new NamedThreadFactory("llrp-instance-loader-"));
+				for (int i = 0; i < loaderCount; i++) {
+					futures.add(loaders.submit(task));
 				}
 			}
+			// load files with the calling thread too
+			try {
+				task.call();
+			} catch (Exception e) {
+				exception = e;
+			}
+			// wait for all loaders (also in case of an error)
+			for (Future<Void> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					if (exception == null) {
+						exception = e.getCause();
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new LLRPServiceManagerException(
+							"Loading of instance files interrupted", e);
+				}
+			}
+		} finally {
+			if (loaders != null) {
+				loaders.shutdown();
+			}
+		}
+		if (exception != null) {
+			if (exception instanceof JiBXException) {
+				throw (JiBXException) exception;
+			} else if (exception instanceof IOException) {
+				throw (IOException) exception;
+			} else if (exception instanceof SAXException) {
+				throw (SAXException) exception;
+			} else if (exception instanceof PropertiesException) {
+				throw (PropertiesException) exception;
+			} else if (exception instanceof ConfigurationException) {
+				throw (ConfigurationException) exception;
+			}
+			throw new LLRPServiceManagerException("Loading of instance files failed", exception);
+		}
+		synchronized (ret) {
+			return ret;
 		}
 	}
 
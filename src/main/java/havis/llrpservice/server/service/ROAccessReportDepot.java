@@ -3,7 +3,9 @@ package havis.llrpservice.server.service;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -12,6 +14,13 @@ import havis.llrpservice.common.entityManager.Entity;
 import havis.llrpservice.common.entityManager.EntityGroup;
 import havis.llrpservice.common.entityManager.EntityManagerException;
 import havis.llrpservice.common.entityManager.UnknownEntityException;
+import havis.llrpservice.common.metrics.LatencyRecorder;
+import havis.llrpservice.common.metrics.TagReadStage;
+import havis.llrpservice.common.metrics.TagReadTrace;
+import havis.llrpservice.data.message.ROAccessReport;
+import havis.llrpservice.data.message.parameter.serializer.InvalidParameterTypeException;
+import havis.llrpservice.data.message.serializer.ByteBufferSerializer;
+import havis.llrpservice.data.message.serializer.InvalidMessageTypeException;
 import havis.llrpservice.server.configuration.ConfigurationException;
 import havis.llrpservice.server.persistence.ClassVersions;
 import havis.llrpservice.server.persistence.ObservablePersistence;
@@ -22,11 +31,36 @@ import havis.llrpservice.server.service.data.ROAccessReportEntity;
 
 /**
  * This class manages the ROAccessReport handling.
- * 
+ * <p>
+ * The persisted ROAccessReports are loaded with the first access to the depot
+ * and not when it is opened. Thus the start of a service instance is not
+ * delayed by reading the reports of a previous run.
+ * </p>
+ * <p>
+ * The depot provides the number of held reports and optionally the length of
+ * the serialized reports for monitoring purposes (see {@link #getSize()},
+ * {@link #getLength()}). Determining the length requires a serialization walk
+ * through each report, so it is disabled by default (see
+ * {@link #LENGTH_PROPERTY}). The length of a report is determined when it is
+ * added. Reports loaded from storage and later changes of a report are not
+ * considered.
+ * </p>
+ * <p>
+ * The traces of sampled tag reads (see
+ * {@link havis.llrpservice.common.metrics.TagReadTracer}) are held in memory
+ * only. They are not persisted.
+ * </p>
  */
 public class ROAccessReportDepot {
 	private static final Logger log = Logger.getLogger(ROAccessReportDepot.class.getName());
 
+	/**
+	 * Name of the system property which enables the measuring of the length
+	 * of the serialized reports (default: <code>false</code>). See
+	 * {@link #getLength()}.
+	 */
+	public static final String LENGTH_PROPERTY = "havis.llrpservice.server.roAccessReportDepotLength";
+
 	public interface ROAccessReportDepotListener {
 		public void added(ROAccessReportDepot src, List<String> entityIds);
 
@@ -71,12 +105,20 @@ public class ROAccessReportDepot {
 	private ROAccessPersistenceListener listener;
 	private ObservablePersistence persistence;
 	private List<ROAccessReportDepotListener> listeners = new CopyOnWriteArrayList<ROAccessReportDepotListener>();
+	// null until the persisted reports have been loaded
 	private List<String> entityIds;
+	private final boolean isLengthEnabled = Boolean.getBoolean(LENGTH_PROPERTY);
+	// entityId -> length of the serialized report (if the length is enabled)
+	private final Map<String, Long> lengths = new HashMap<>();
+	private long length;
+	// entityId -> trace of the tag reads of the report
+	private final Map<String, TagReadTrace> traces = new HashMap<>();
+	private final LatencyRecorder flushLatency = new LatencyRecorder();
 	private final Object lock = new Object();
 
 	/**
-	 * Refresh ROAccessReports from storage. Gets the last repository for
-	 * reports (sorted by creation date) and loads the entities. Add listener to
+	 * Opens the depot. The ROAccessReports are refreshed from storage with the
+	 * first access to the depot (see {@link #loadEntityIds()}). Add listener to
 	 * the persistence.
 	 * <p>
 	 * <strong>Attention!</strong>
@@ -97,20 +139,11 @@ public class ROAccessReportDepot {
 		this.persistence = persistence;
 		persistence.addClass(ROAccessReportEntity.class,
 				ClassVersions.get(ROAccessReportEntity.class));
-		List<EntityGroup> groups = persistence.getGroups(ROAccessReportEntity.class);
-		Collections.sort(groups, new Comparator<EntityGroup>() {
-			@Override
-			public int compare(EntityGroup o1, EntityGroup o2) {
-				return o1.getCreationDate().compareTo(o2.getCreationDate());
-			}
-		});
 		synchronized (lock) {
-			if (groups.size() > 0) {
-				entityIds = persistence.refresh(ROAccessReportEntity.class,
-						groups.get(groups.size() - 1).getGroupId());
-			} else {
-				entityIds = new ArrayList<String>();
-			}
+			entityIds = null;
+			lengths.clear();
+			length = 0;
+			traces.clear();
 		}
 		persistence.addListener(listener, ROAccessReportEntity.class);
 		if (log.isLoggable(Level.INFO)) {
@@ -118,6 +151,44 @@ public class ROAccessReportDepot {
 		}
 	}
 
+	/**
+	 * Refresh ROAccessReports from storage if it has not been done yet. Gets
+	 * the last repository for reports (sorted by creation date) and loads the
+	 * entities.
+	 * 
+	 * @return the entity ids of the depot (the list of the depot)
+	 * @throws EntityManagerException
+	 */
+	private List<String> loadEntityIds() throws EntityManagerException {
+		synchronized (lock) {
+			if (entityIds == null) {
+				try {
+					List<EntityGroup> groups = persistence.getGroups(ROAccessReportEntity.class);
+					Collections.sort(groups, new Comparator<EntityGroup>() {
+						@Override
+						public int compare(EntityGroup o1, EntityGroup o2) {
+							return o1.getCreationDate().compareTo(o2.getCreationDate());
+						}
+					});
+					if (groups.size() > 0) {
+						entityIds = persistence.refresh(ROAccessReportEntity.class,
+								groups.get(groups.size() - 1).getGroupId());
+					} else {
+						entityIds = new ArrayList<String>();
+					}
+				} catch (UnknownClassException e) {
+					// the class has been added while opening the depot
+					throw new EntityManagerException(e);
+				}
+				if (log.isLoggable(Level.FINE)) {
+					log.log(Level.FINE,
+							"Loaded " + entityIds.size() + " ROAccessReports from storage");
+				}
+			}
+			return entityIds;
+		}
+	}
+
 	/**
 	 * Removes listener from the persistence
 	 */
@@ -135,9 +206,41 @@ public class ROAccessReportDepot {
 	 */
 	public List<String> add(List<ROAccessReportEntity> entities)
 			throws UnknownClassException, EntityManagerException {
+		return add(entities, null /* trace */);
+	}
+
+	/**
+	 * Add ROAccessReports to the depot. The reports contain sampled tag reads.
+	 * The trace of the tag reads is stamped with stage
+	 * {@link TagReadStage#STORED}.
+	 * 
+	 * @param entities
+	 * @param trace
+	 *            the trace of the tag reads (optional)
+	 * @return The entities
+	 * @throws UnknownClassException
+	 * @throws EntityManagerException
+	 */
+	public List<String> add(List<ROAccessReportEntity> entities, TagReadTrace trace)
+			throws UnknownClassException, EntityManagerException {
+		loadEntityIds();
 		List<String> entityIds = persistence.add(ROAccessReportEntity.class, entities);
+		// determine the lengths outside of the lock
+		long[] entityLengths = isLengthEnabled ? getLengths(entities) : null;
 		synchronized (lock) {
 			this.entityIds.addAll(entityIds);
+			if (entityLengths != null) {
+				for (int i = 0; i < entityIds.size(); i++) {
+					lengths.put(entityIds.get(i), entityLengths[i]);
+					length += entityLengths[i];
+				}
+			}
+			if (trace != null) {
+				trace.stamp(TagReadStage.STORED);
+				for (String entityId : entityIds) {
+					traces.put(entityId, trace);
+				}
+			}
 			return entityIds;
 		}
 	}
@@ -150,12 +253,42 @@ public class ROAccessReportDepot {
 	 * @throws EntityManagerException
 	 */
 	public List<ROAccessReportEntity> remove(List<String> entityIds) throws EntityManagerException {
+		return remove(entityIds, null /* removedTraces */);
+	}
+
+	/**
+	 * Removes ROAccessReports from the depot for sending. The traces of sampled
+	 * tag reads of the reports are stamped with stage
+	 * {@link TagReadStage#TRIGGERED} and added to a list.
+	 * 
+	 * @param entityIds
+	 * @param removedTraces
+	 *            the list for the traces of the removed reports (optional)
+	 * @return The removed entities
+	 * @throws EntityManagerException
+	 */
+	public List<ROAccessReportEntity> remove(List<String> entityIds,
+			List<TagReadTrace> removedTraces) throws EntityManagerException {
+		loadEntityIds();
 		List<ROAccessReportEntity> reports = new ArrayList<>();
 		for (Object report : persistence.remove(entityIds)) {
 			reports.add((ROAccessReportEntity) report);
 		}
 		synchronized (lock) {
 			this.entityIds.removeAll(entityIds);
+			for (String entityId : entityIds) {
+				if (isLengthEnabled) {
+					Long l = lengths.remove(entityId);
+					if (l != null) {
+						length -= l;
+					}
+				}
+				TagReadTrace trace = traces.remove(entityId);
+				if (trace != null && removedTraces != null && !removedTraces.contains(trace)) {
+					trace.stamp(TagReadStage.TRIGGERED);
+					removedTraces.add(trace);
+				}
+			}
 		}
 		return reports;
 	}
@@ -170,6 +303,7 @@ public class ROAccessReportDepot {
 	 */
 	public List<Entity<Object>> acquire(List<String> entityIds)
 			throws UnknownEntityException, EntityManagerException {
+		loadEntityIds();
 		return persistence.acquire(entityIds);
 	}
 
@@ -214,13 +348,50 @@ public class ROAccessReportDepot {
 	 * Get entity ids of all entities held by the depot.
 	 * 
 	 * @return The entity ids
+	 * @throws EntityManagerException
+	 */
+	public List<String> getEntityIds() throws EntityManagerException {
+		synchronized (lock) {
+			return new ArrayList<String>(loadEntityIds());
+		}
+	}
+
+	/**
+	 * Gets the number of ROAccessReports held by the depot. The persisted
+	 * reports are not loaded by this method.
+	 * 
+	 * @return The number of reports or <code>-1</code> if the persisted
+	 *         reports have not been loaded yet
+	 */
+	public int getSize() {
+		synchronized (lock) {
+			return entityIds == null ? -1 : entityIds.size();
+		}
+	}
+
+	/**
+	 * Gets the length of the serialized ROAccessReports which have been added
+	 * to the depot and not removed yet. The reports loaded from storage are
+	 * not included.
+	 * 
+	 * @return The length in bytes (<code>0</code> if the measuring is
+	 *         disabled, see {@link #LENGTH_PROPERTY})
 	 */
-	public List<String> getEntityIds() {
+	public long getLength() {
 		synchronized (lock) {
-			return new ArrayList<String>(entityIds);
+			return length;
 		}
 	}
 
+	/**
+	 * Gets the durations of the flushing of the ROAccessReports.
+	 * 
+	 * @return The recorder
+	 */
+	public LatencyRecorder getFlushLatency() {
+		return flushLatency;
+	}
+
 	/**
 	 * Manually flush all ROAccessReports in the depot.
 	 * 
@@ -228,7 +399,37 @@ public class ROAccessReportDepot {
 	 * @throws EntityManagerException
 	 */
 	public void flush() throws UnknownClassException, EntityManagerException {
+		// the loaded reports must not be replaced with a new (empty) group
+		loadEntityIds();
+		long start = System.nanoTime();
 		persistence.flush(ROAccessReportEntity.class);
+		flushLatency.recordSince(start);
+	}
+
+	/**
+	 * Determines the lengths of serialized reports.
+	 * 
+	 * @param entities
+	 * @return The lengths
+	 */
+	private long[] getLengths(List<ROAccessReportEntity> entities) {
+		ByteBufferSerializer serializer = new ByteBufferSerializer();
+		long[] ret = new long[entities.size()];
+		for (int i = 0; i < ret.length; i++) {
+			ROAccessReport report = entities.get(i).getReport();
+			if (report != null) {
+				try {
+					ret[i] = serializer.getLength(report);
+				} catch (InvalidMessageTypeException | InvalidParameterTypeException e) {
+					// the report cannot be sent either; the error is reported
+					// while sending it
+					if (log.isLoggable(Level.FINE)) {
+						log.log(Level.FINE, "Cannot determine the length of a report", e);
+					}
+				}
+			}
+		}
+		return ret;
 	}
 
 }
@@ -0,0 +1,209 @@
+package havis.llrpservice.server.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import havis.llrpservice.common.entityManager.EntityManagerException;
+import havis.llrpservice.common.metrics.TagReadTrace;
+import havis.llrpservice.common.metrics.TagReadTracer;
+import havis.llrpservice.data.message.ProtocolVersion;
+import havis.llrpservice.data.message.ROAccessReport;
+import havis.llrpservice.data.message.parameter.TagReportData;
+import havis.llrpservice.data.message.parameter.serializer.InvalidParameterTypeException;
+import havis.llrpservice.data.message.serializer.ByteBufferSerializer;
+import havis.llrpservice.data.message.serializer.InvalidMessageTypeException;
+import havis.llrpservice.server.service.data.ROAccessReportEntity;
+import havis.llrpservice.server.service.messageHandling.ROAccessReportCreator;
+
+/**
+ * Provides the ROAccessReports of a {@link ROAccessReportDepot} part by part.
+ * <p>
+ * If the {@link ROAccessReportCreator} limits the size of the reports, the
+ * report entities are removed from the depot in chunks which reach the limits
+ * (the last entity of a chunk may exceed them). Each chunk is accumulated and
+ * split into reports which do not exceed the limits. The next report is only
+ * provided after the previous one has been sent (see {@link #sent(long)}) or
+ * its sending has failed (see {@link #failed(long)}), so at most one chunk is
+ * held in memory and one report is queued for sending.
+ * Tag reports of different chunks are not accumulated.
+ * </p>
+ * <p>
+ * Without limits all requested entities are removed as one chunk.
+ * </p>
+ * <p>
+ * The class is not thread safe. It is used by the thread of the service
+ * instance only.
+ * </p>
+ */
+class ROAccessReportSender {
+
+	private final ROAccessReportDepot depot;
+	private final TagReadTracer tracer;
+	// the entities which have been requested but not removed from the depot
+	private final Set<String> pendingEntityIds = new LinkedHashSet<>();
+	// the reports of the current chunk which have not been provided yet
+	private final Deque<ROAccessReport> parts = new ArrayDeque<>();
+	// the traces of the tag reads of the current chunk
+	private final List<TagReadTrace> traces = new ArrayList<>();
+	private ByteBufferSerializer serializer;
+	// the identifier of the report which is being sent
+	private Long sendingId;
+
+	/**
+	 * @param depot
+	 * @param tracer
+	 *            the tracer for sampled tag reads (optional)
+	 */
+	ROAccessReportSender(ROAccessReportDepot depot, TagReadTracer tracer) {
+		this.depot = depot;
+		this.tracer = tracer;
+	}
+
+	/**
+	 * Requests the sending of the reports of depot entities. Entities which
+	 * have already been requested are ignored.
+	 *
+	 * @param entityIds
+	 */
+	void add(List<String> entityIds) {
+		pendingEntityIds.addAll(entityIds);
+	}
+
+	/**
+	 * @return whether a provided report has not been sent yet
+	 */
+	boolean isSending() {
+		return sendingId != null;
+	}
+
+	/**
+	 * Gets the next report for sending. The report must be sent before the
+	 * next one is provided. If the report is the last one of a chunk, the
+	 * traces of the sampled tag reads of the chunk are registered at the
+	 * tracer.
+	 *
+	 * @param creator
+	 * @param protocolVersion
+	 * @return the report or <code>null</code> if the previous report has not
+	 *         been sent yet or no reports are pending
+	 * @throws EntityManagerException
+	 * @throws InvalidMessageTypeException
+	 * @throws InvalidParameterTypeException
+	 */
+	ROAccessReport next(ROAccessReportCreator creator, ProtocolVersion protocolVersion)
+			throws EntityManagerException, InvalidMessageTypeException,
+			InvalidParameterTypeException {
+		if (sendingId != null) {
+			return null;
+		}
+		if (parts.isEmpty()) {
+			List<ROAccessReportEntity> chunk = removeChunk(creator);
+			if (chunk.isEmpty()) {
+				return null;
+			}
+			parts.addAll(creator.split(creator.accumulate(protocolVersion, chunk)));
+		}
+		ROAccessReport report = parts.poll();
+		if (parts.isEmpty() && !traces.isEmpty()) {
+			// the traces must be registered before the sending is requested
+			if (tracer != null) {
+				tracer.sending(report.getMessageHeader().getId(), new ArrayList<>(traces));
+			}
+			traces.clear();
+		}
+		sendingId = report.getMessageHeader().getId();
+		return report;
+	}
+
+	/**
+	 * Must be called after a message has been sent.
+	 *
+	 * @param messageId
+	 * @return whether the message is the provided report
+	 */
+	boolean sent(long messageId) {
+		if (sendingId == null || sendingId != messageId) {
+			return false;
+		}
+		sendingId = null;
+		return true;
+	}
+
+	/**
+	 * Must be called if the sending of a message has failed. If the message is
+	 * the provided report then it is discarded and the next report can be
+	 * provided.
+	 *
+	 * @param messageId
+	 * @return whether the message is the provided report
+	 */
+	boolean failed(long messageId) {
+		return sent(messageId);
+	}
+
+	/**
+	 * Discards the pending reports. The entities which have not been removed
+	 * from the depot yet are kept there.
+	 */
+	void clear() {
+		pendingEntityIds.clear();
+		parts.clear();
+		traces.clear();
+		sendingId = null;
+	}
+
+	/**
+	 * Removes the next chunk of pending entities from the depot.
+	 *
+	 * @param creator
+	 * @return the entities
+	 * @throws EntityManagerException
+	 * @throws InvalidMessageTypeException
+	 * @throws InvalidParameterTypeException
+	 */
+	private List<ROAccessReportEntity> removeChunk(ROAccessReportCreator creator)
+			throws EntityManagerException, InvalidMessageTypeException,
+			InvalidParameterTypeException {
+		if (pendingEntityIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		int maxTagReports = creator.getMaxTagReports();
+		long maxLength = creator.getMaxLength();
+		if (maxTagReports <= 0 && maxLength <= 0) {
+			List<String> entityIds = new ArrayList<>(pendingEntityIds);
+			pendingEntityIds.clear();
+			return depot.remove(entityIds, traces);
+		}
+		if (maxLength > 0 && serializer == null) {
+			serializer = new ByteBufferSerializer();
+		}
+		List<ROAccessReportEntity> ret = new ArrayList<>();
+		int tagReports = 0;
+		long length = 0;
+		Iterator<String> it = pendingEntityIds.iterator();
+		while (it.hasNext() && (maxTagReports <= 0 || tagReports < maxTagReports)
+				&& (maxLength <= 0 || length < maxLength)) {
+			String entityId = it.next();
+			it.remove();
+			for (ROAccessReportEntity entity : depot.remove(Collections.singletonList(entityId),
+					traces)) {
+				ret.add(entity);
+				ROAccessReport report = entity.getReport();
+				List<TagReportData> tagReportList = report.getTagReportDataList();
+				if (tagReportList != null) {
+					tagReports += tagReportList.size();
+				}
+				if (maxLength > 0) {
+					length += serializer.getLength(report);
+				}
+			}
+		}
+		return ret;
+	}
+}
@@ -13,8 +13,13 @@ import java.util.logging.Logger;
 import com.rits.cloning.Cloner;
 
 import havis.device.rf.tag.TagData;
+import havis.llrpservice.common.metrics.LatencyRecorder;
+import havis.llrpservice.data.message.parameter.AISpec;
+import havis.llrpservice.data.message.parameter.AISpecStopTrigger;
+import havis.llrpservice.data.message.parameter.AISpecStopTriggerType;
 import havis.llrpservice.data.message.parameter.GPIEvent;
 import havis.llrpservice.data.message.parameter.GPITriggerValue;
+import havis.llrpservice.data.message.parameter.Parameter;
 import havis.llrpservice.data.message.parameter.PeriodicTriggerValue;
 import havis.llrpservice.data.message.parameter.ROSpec;
 import havis.llrpservice.data.message.parameter.ROSpecCurrentState;
@@ -50,6 +55,12 @@ import havis.llrpservice.server.service.ROReportSpecsManager.ROReportSpecsManage
  * The ROReportSpecsManager is provided with {@link #getROReportSpecsManager()}.
  * </p>
  * <p>
+ * GPI events are dispatched via an index of GPI triggers (port number and
+ * state transition) to the relevant ROSpecs. The latency between the receipt
+ * of a GPI event and the activation of a ROSpec is provided with
+ * {@link #getGPIStartLatency()}.
+ * </p>
+ * <p>
  * All methods of the class must be called from one thread. The listener
  * callback methods may be called from other threads due to timers.
  * </p>
@@ -82,6 +93,12 @@ public class ROSpecsManager {
 	// roSpecId -> timer task
 	private Map<Long, TimerTask> startTasks = new HashMap<>();
 	private Map<Long, TimerTask> stopTasks = new HashMap<>();
+	// GPI trigger key -> ROSpecs with a GPI start or stop trigger in the same
+	// order as they have been added
+	private final Map<Long, List<ROSpec>> gpiTriggeredROSpecs = new HashMap<>();
+	// GPI trigger key -> number of AISpecs with a GPI stop trigger
+	private final Map<Long, Integer> gpiTriggeredAISpecs = new HashMap<>();
+	private final LatencyRecorder gpiStartLatency = new LatencyRecorder();
 
 	public ROSpecsManager(RFCMessageHandler rfcMessageHandler, boolean hasUTCClock) {
 		this.rfcMessageHandler = rfcMessageHandler;
@@ -93,6 +110,16 @@ public class ROSpecsManager {
 		return roReportSpecsManager;
 	}
 
+	/**
+	 * Gets the latencies between the receipt of GPI events and the activation
+	 * of ROSpecs with a GPI start trigger.
+	 * 
+	 * @return The latency recorder
+	 */
+	public LatencyRecorder getGPIStartLatency() {
+		return gpiStartLatency;
+	}
+
 	/**
 	 * Gets the ROSpecs in the same order as they have been added.
 	 * 
@@ -151,6 +178,7 @@ public class ROSpecsManager {
 		// add the new ROSpec
 		roSpecs.put(roSpec.getRoSpecID(), roSpec);
 		roSpecList.add(roSpec);
+		addGPITriggers(roSpec);
 		if (roSpec.getRoReportSpec() != null) {
 			roReportSpecsManager.set(roSpec.getRoSpecID(), roSpec.getRoReportSpec());
 		}
@@ -219,6 +247,7 @@ public class ROSpecsManager {
 				// remove it from internal lists
 				roSpecList.remove(roSpec);
 				roSpecs.remove(roSpecId);
+				removeGPITriggers(roSpec);
 			}
 		}
 		if (changed) {
@@ -360,42 +389,200 @@ public class ROSpecsManager {
 	public synchronized void gpiEventReceived(GPIEvent event)
 			throws RFCException, UnsupportedSpecTypeException, UnsupportedAccessOperationException,
 			UnsupportedAirProtocolException, InvalidIdentifierException, UtcClockException {
-		// for each ROSpec
-		for (ROSpec roSpec : roSpecList) {
-			switch (roSpec.getCurrentState()) {
-			case INACTIVE:
-				// if start trigger "gpi" exists
-				if (ROSpecStartTriggerType.GPI == roSpec.getRoBoundarySpec().getRoSStartTrigger()
-						.getRoSpecStartTriggerType()) {
-					GPITriggerValue gpiTriggerValue = roSpec.getRoBoundarySpec()
-							.getRoSStartTrigger().getGpiTV();
-					// if ports and state transitions match
-					if (event.getGpiPortNumber() == gpiTriggerValue.getGpiPortNum()
-							&& gpiTriggerValue.isGpiEvent() == event.isState()) {
+		gpiEventReceived(event, System.nanoTime());
+	}
+
+	/**
+	 * Informs the ROSpecsManager about the receipt of a GPI event.
+	 * 
+	 * @param event
+	 * @param receivedTime
+	 *            the time when the event has been received from the GPIO
+	 *            controller (see {@link System#nanoTime()})
+	 * @throws RFCException
+	 * @throws UnsupportedSpecTypeException
+	 * @throws UnsupportedAccessOperationException
+	 * @throws UnsupportedAirProtocolException
+	 * @throws InvalidIdentifierException
+	 * @throws UtcClockException
+	 */
+	public synchronized void gpiEventReceived(GPIEvent event, long receivedTime)
+			throws RFCException, UnsupportedSpecTypeException, UnsupportedAccessOperationException,
+			UnsupportedAirProtocolException, InvalidIdentifierException, UtcClockException {
+		long key = getGPITriggerKey(event.getGpiPortNumber(), event.isState());
+		List<ROSpec> triggeredROSpecs = gpiTriggeredROSpecs.get(key);
+		if (triggeredROSpecs != null) {
+			// for each ROSpec with a matching trigger (the index may be
+			// modified while ROSpecs are started or stopped)
+			for (ROSpec roSpec : new ArrayList<>(triggeredROSpecs)) {
+				// if the ROSpec has been removed in the meantime
+				if (roSpecs.get(roSpec.getRoSpecID()) != roSpec) {
+					continue;
+				}
+				switch (roSpec.getCurrentState()) {
+				case INACTIVE:
+					// if start trigger "gpi" exists for port and state
+					// transition
+					Long startKey = getGPIStartTriggerKey(roSpec);
+					if (startKey != null && startKey == key) {
 						// start ROSpec
 						setState(roSpec.getRoSpecID(), ROSpecCurrentState.ACTIVE);
+						if (ROSpecCurrentState.ACTIVE == roSpec.getCurrentState()) {
+							gpiStartLatency.recordSince(receivedTime);
+						}
 					}
-				}
-				break;
-			case ACTIVE:
-				// if stop trigger "gpi" exists
-				if (ROSpecStopTriggerType.GPI_WITH_TIMEOUT_VALUE == roSpec.getRoBoundarySpec()
-						.getRoSStopTrigger().getRoSpecStopTriggerType()) {
-					GPITriggerValue gpiTriggerValue = roSpec.getRoBoundarySpec().getRoSStopTrigger()
-							.getGpiTriggerValue();
-					// if ports and state transitions match
-					if (event.getGpiPortNumber() == gpiTriggerValue.getGpiPortNum()
-							&& gpiTriggerValue.isGpiEvent() == event.isState()) {
+					break;
+				case ACTIVE:
+					// if stop trigger "gpi" exists for port and state
+					// transition
+					Long stopKey = getGPIStopTriggerKey(roSpec);
+					if (stopKey != null && stopKey == key) {
 						// stop ROSpec
 						setState(roSpec.getRoSpecID(), ROSpecCurrentState.INACTIVE);
 					}
+					break;
+				default:
 				}
-				break;
-			default:
 			}
 		}
-		// forward event to RFC message handler (eg. AISpec stop trigger)
-		rfcMessageHandler.gpiEventReceived(event);
+		// if an AISpec with a matching stop trigger exists then forward the
+		// event to RFC message handler
+		if (gpiTriggeredAISpecs.containsKey(key)) {
+			rfcMessageHandler.gpiEventReceived(event);
+		}
+	}
+
+	/**
+	 * Adds the GPI triggers of a ROSpec and its AISpecs to the index.
+	 * 
+	 * @param roSpec
+	 */
+	private void addGPITriggers(ROSpec roSpec) {
+		Long startKey = getGPIStartTriggerKey(roSpec);
+		Long stopKey = getGPIStopTriggerKey(roSpec);
+		if (startKey != null) {
+			addGPITriggeredROSpec(startKey, roSpec);
+		}
+		if (stopKey != null && !stopKey.equals(startKey)) {
+			addGPITriggeredROSpec(stopKey, roSpec);
+		}
+		for (Long key : getGPIAISpecStopTriggerKeys(roSpec)) {
+			Integer count = gpiTriggeredAISpecs.get(key);
+			gpiTriggeredAISpecs.put(key, count == null ? 1 : count + 1);
+		}
+	}
+
+	/**
+	 * Removes the GPI triggers of a ROSpec and its AISpecs from the index.
+	 * 
+	 * @param roSpec
+	 */
+	private void removeGPITriggers(ROSpec roSpec) {
+		Long startKey = getGPIStartTriggerKey(roSpec);
+		Long stopKey = getGPIStopTriggerKey(roSpec);
+		if (startKey != null) {
+			removeGPITriggeredROSpec(startKey, roSpec);
+		}
+		if (stopKey != null && !stopKey.equals(startKey)) {
+			removeGPITriggeredROSpec(stopKey, roSpec);
+		}
+		for (Long key : getGPIAISpecStopTriggerKeys(roSpec)) {
+			Integer count = gpiTriggeredAISpecs.get(key);
+			if (count != null) {
+				if (count <= 1) {
+					gpiTriggeredAISpecs.remove(key);
+				} else {
+					gpiTriggeredAISpecs.put(key, count - 1);
+				}
+			}
+		}
+	}
+
+	private void addGPITriggeredROSpec(long key, ROSpec roSpec) {
+		List<ROSpec> triggeredROSpecs = gpiTriggeredROSpecs.get(key);
+		if (triggeredROSpecs == null) {
+			triggeredROSpecs = new ArrayList<>();
+			gpiTriggeredROSpecs.put(key, triggeredROSpecs);
+		}
+		triggeredROSpecs.add(roSpec);
+	}
+
+	private void removeGPITriggeredROSpec(long key, ROSpec roSpec) {
+		List<ROSpec> triggeredROSpecs = gpiTriggeredROSpecs.get(key);
+		if (triggeredROSpecs != null) {
+			triggeredROSpecs.remove(roSpec);
+			if (triggeredROSpecs.isEmpty()) {
+				gpiTriggeredROSpecs.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Gets the index key for a GPI start trigger of a ROSpec.
+	 * 
+	 * @param roSpec
+	 * @return <code>null</code> if the ROSpec does not have a GPI start
+	 *         trigger
+	 */
+	private Long getGPIStartTriggerKey(ROSpec roSpec) {
+		if (ROSpecStartTriggerType.GPI != roSpec.getRoBoundarySpec().getRoSStartTrigger()
+				.getRoSpecStartTriggerType()) {
+			return null;
+		}
+		GPITriggerValue gpiTriggerValue = roSpec.getRoBoundarySpec().getRoSStartTrigger()
+				.getGpiTV();
+		return getGPITriggerKey(gpiTriggerValue.getGpiPortNum(), gpiTriggerValue.isGpiEvent());
+	}
+
+	/**
+	 * Gets the index key for a GPI stop trigger of a ROSpec.
+	 * 
+	 * @param roSpec
+	 * @return <code>null</code> if the ROSpec does not have a GPI stop trigger
+	 */
+	private Long getGPIStopTriggerKey(ROSpec roSpec) {
+		if (ROSpecStopTriggerType.GPI_WITH_TIMEOUT_VALUE != roSpec.getRoBoundarySpec()
+				.getRoSStopTrigger().getRoSpecStopTriggerType()) {
+			return null;
+		}
+		GPITriggerValue gpiTriggerValue = roSpec.getRoBoundarySpec().getRoSStopTrigger()
+				.getGpiTriggerValue();
+		return getGPITriggerKey(gpiTriggerValue.getGpiPortNum(), gpiTriggerValue.isGpiEvent());
+	}
+
+	/**
+	 * Gets the index keys for the GPI stop triggers of the AISpecs of a ROSpec.
+	 * 
+	 * @param roSpec
+	 * @return The keys
+	 */
+	private List<Long> getGPIAISpecStopTriggerKeys(ROSpec roSpec) {
+		List<Long> keys = new ArrayList<>();
+		if (roSpec.getSpecList() == null) {
+			return keys;
+		}
+		for (Parameter spec : roSpec.getSpecList()) {
+			if (spec instanceof AISpec) {
+				AISpecStopTrigger st = ((AISpec) spec).getAiSpecStopTrigger();
+				if (st != null && AISpecStopTriggerType.GPI_WITH_TIMEOUT == st
+						.getAiSpecStopTriggerType()) {
+					keys.add(getGPITriggerKey(st.getGpiTV().getGpiPortNum(),
+							st.getGpiTV().isGpiEvent()));
+				}
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Gets the index key for a GPI port and state transition.
+	 * 
+	 * @param gpiPortNum
+	 * @param gpiEvent
+	 * @return The key
+	 */
+	private static long getGPITriggerKey(long gpiPortNum, boolean gpiEvent) {
+		return gpiPortNum << 1 | (gpiEvent ? 1 : 0);
 	}
 
 	private void updateTimerTasks(ROSpec roSpec, ROSpecCurrentState oldState,
@@ -650,6 +837,7 @@ public class ROSpecsManager {
 						// remove it from internal lists
 						ROSpec roSpec = roSpecs.remove(roSpecId);
 						roSpecList.remove(roSpec);
+						removeGPITriggers(roSpec);
 						removedROSpecIds.remove(roSpecId);
 					}
 					// fire execution changed event
@@ -0,0 +1,114 @@
+package havis.llrpservice.server.service.fsm;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the responses of a device (RF controller, GPIO controller) to
+ * requests which do not change the state of the device like the requests for
+ * capabilities and configurations.
+ * <p>
+ * The maximum age of the entries is read from the system property
+ * {@link #MAX_AGE_PROPERTY} in milliseconds:
+ * </p>
+ * <ul>
+ * <li><code>0</code>: the cache is disabled (default)</li>
+ * <li><code>&gt; 0</code>: an entry is discarded after the given time</li>
+ * <li><code>&lt; 0</code>: an entry is only discarded if the cache is
+ * cleared</li>
+ * </ul>
+ * <p>
+ * The cache is not thread safe. It is only accessed by the thread processing
+ * the FSM of a service instance.
+ * </p>
+ *
+ * @param <K>
+ *            the request type
+ * @param <V>
+ *            the response type
+ */
+public class DeviceResponseCache<K, V> {
+
+	/**
+	 * Name of the system property for the maximum age of the cached responses
+	 * in milliseconds (default: <code>0</code>).
+	 */
+	public static final String MAX_AGE_PROPERTY = "havis.llrpservice.server.deviceResponseCacheMaxAge";
+
+	private class Entry {
+		private final V response;
+		private final long created;
+
+		private Entry(V response, long created) {
+			this.response = response;
+			this.created = created;
+		}
+	}
+
+	// max. age in ns
+	private final long maxAge;
+	private final Map<K, Entry> entries = new HashMap<>();
+
+	public DeviceResponseCache() {
+		this(Long.getLong(MAX_AGE_PROPERTY, 0));
+	}
+
+	/**
+	 * @param maxAge
+	 *            the maximum age of the entries in milliseconds (see class
+	 *            description)
+	 */
+	public DeviceResponseCache(long maxAge) {
+		this.maxAge = maxAge > 0 ? TimeUnit.MILLISECONDS.toNanos(maxAge) : maxAge;
+	}
+
+	public boolean isEnabled() {
+		return maxAge != 0;
+	}
+
+	/**
+	 * Returns a cached response.
+	 *
+	 * @param request
+	 * @return <code>null</code> if the cache is disabled or no valid response
+	 *         exists for the request
+	 */
+	public V get(K request) {
+		Entry entry = entries.get(request);
+		if (entry == null) {
+			return null;
+		}
+		// if the entry is too old
+		if (maxAge > 0 && System.nanoTime() - entry.created > maxAge) {
+			entries.remove(request);
+			return null;
+		}
+		return entry.response;
+	}
+
+	/**
+	 * Caches a response received from a device. The response must not be
+	 * modified after it has been added to the cache.
+	 *
+	 * @param request
+	 * @param response
+	 */
+	public void put(K request, V response) {
+		if (isEnabled()) {
+			entries.put(request, new Entry(response, System.nanoTime()));
+		}
+	}
+
+	/**
+	 * Removes all cached responses.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	@Override
+	public String toString() {
+		return "DeviceResponseCache [maxAge=" + maxAge + ", entries=" + entries.keySet() + "]";
+	}
+}
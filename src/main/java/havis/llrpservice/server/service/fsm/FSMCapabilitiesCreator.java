@@ -6,25 +6,28 @@ import java.util.List;
 import havis.device.io.Type;
 import havis.device.rf.capabilities.CapabilityType;
 import havis.llrpservice.common.fsm.Action;
-import havis.llrpservice.common.fsm.FSM;
 import havis.llrpservice.common.fsm.FSMActionException;
 import havis.llrpservice.common.fsm.FSMGuardException;
 import havis.llrpservice.common.fsm.Guard;
 import havis.llrpservice.common.fsm.State;
 import havis.llrpservice.common.fsm.Transition;
+import havis.llrpservice.csc.llrp.LLRPMessageTemplate;
 import havis.llrpservice.data.message.GetReaderCapabilities;
-import havis.llrpservice.data.message.Message;
+import havis.llrpservice.data.message.GetReaderCapabilitiesRequestedData;
+import havis.llrpservice.data.message.GetReaderCapabilitiesResponse;
 import havis.llrpservice.data.message.parameter.LLRPStatus;
 import havis.llrpservice.data.message.parameter.LLRPStatusCode;
 import havis.llrpservice.sbc.rfc.message.GetCapabilitiesResponse;
 import havis.llrpservice.server.service.fsm.gpio.FSMGPIOGetConfigurationResponseEvent;
 import havis.llrpservice.server.service.fsm.gpio.GPIORuntimeData;
 import havis.llrpservice.server.service.fsm.lllrp.FSMLLRPGetReaderCapabilitiesEvent;
+import havis.llrpservice.server.service.fsm.lllrp.LLRPResponseTemplates;
 import havis.llrpservice.server.service.fsm.lllrp.LLRPRuntimeData;
 import havis.llrpservice.server.service.fsm.rfc.FSMRFCGetCapabilitiesResponseEvent;
 import havis.llrpservice.server.service.fsm.rfc.RFCRuntimeData;
 import havis.llrpservice.server.service.messageHandling.LLRPMessageCreator;
 import havis.util.platform.Platform;
+import havis.util.platform.PlatformException;
 
 public class FSMCapabilitiesCreator {
 
@@ -34,7 +37,7 @@ public class FSMCapabilitiesCreator {
 		this.commonCreator = commonCreator;
 	}
 
-	void createLLRPGetReaderCapabilities(final FSM<FSMEvent> fsm, final FSMEvents fsmEvents,
+	void createLLRPGetReaderCapabilities(FSMEvents fsmEvents,
 			State<FSMEvent> llrpMessageReceivedState, State<FSMEvent> waitForMessageState)
 			throws FSMActionException {
 		State<FSMEvent> waitForCapabilitiesResponseState = new State<>(
@@ -46,6 +49,8 @@ public class FSMCapabilitiesCreator {
 					public boolean evaluate(State<FSMEvent> srcState, FSMEvent event,
 							State<FSMEvent> destState) {
 						FSMLLRPGetReaderCapabilitiesEvent fsmEvent = (FSMLLRPGetReaderCapabilitiesEvent) event;
+						fsmEvent.setCachedResponses(null /* cachedRFCResponse */,
+								null /* cachedGPIOResponse */);
 						LLRPRuntimeData runtimeData = fsmEvent.getRuntimeData();
 						GetReaderCapabilities currentMessage = (GetReaderCapabilities) runtimeData
 								.getCurrentMessage().getMessage();
@@ -71,6 +76,21 @@ public class FSMCapabilitiesCreator {
 										.createRequest(currentMessage)
 								: new ArrayList<Type>();
 						fsmEvent.setGPIORequest(gpioRequest);
+						// get the responses from the caches
+						RFCRuntimeData rfcRuntimeData = fsmEvent.getRFCRuntimeData();
+						GetCapabilitiesResponse cachedRFCResponse = rfcRequest.size() > 0
+								? rfcRuntimeData.getCapabilitiesCache().get(rfcRequest) : null;
+						havis.llrpservice.sbc.gpio.message.GetConfigurationResponse cachedGPIOResponse = gpioRequest
+								.size() > 0 ? gpioRuntimeData.getCapabilitiesCache().get(gpioRequest)
+										: null;
+						// if all responses are cached
+						if ((rfcRequest.size() == 0 || cachedRFCResponse != null)
+								&& (gpioRequest.size() == 0 || cachedGPIOResponse != null)) {
+							// send the LLRP response without any back end
+							// request
+							fsmEvent.setCachedResponses(cachedRFCResponse, cachedGPIOResponse);
+							return false;
+						}
 						// if any back end request has been created
 						return rfcRequest.size() > 0 || gpioRequest.size() > 0;
 					}
@@ -106,9 +126,12 @@ public class FSMCapabilitiesCreator {
 							runtimeData.getCurrentMessage().setStatus(status);
 							// enqueue events to change to state "1 wait for
 							// message" without receiving any RFC/GPIO messages
+							// (the events of the session are used)
+							FSMEvents fsmEvents = fsmEvent.getFSMEvents();
 							try {
-								fsm.fire(fsmEvents.RFC_MESSAGE_RECEIVED);
-								fsm.fire(fsmEvents.RFC_GET_CAPABILITIES_RESPONSE_RECEIVED);
+								fsmEvents.getFSM().fire(fsmEvents.RFC_MESSAGE_RECEIVED);
+								fsmEvents.getFSM()
+										.fire(fsmEvents.RFC_GET_CAPABILITIES_RESPONSE_RECEIVED);
 							} catch (FSMGuardException e1) {
 								throw new FSMActionException(
 										"Cannot fire events RFC_MESSAGE_RECEIVED, RFC_GET_CAPABILITIES_RESPONSE_RECEIVED",
@@ -125,12 +148,13 @@ public class FSMCapabilitiesCreator {
 							State<FSMEvent> destState) throws FSMActionException {
 						FSMLLRPGetReaderCapabilitiesEvent fsmEvent = (FSMLLRPGetReaderCapabilitiesEvent) event;
 						LLRPRuntimeData runtimeData = fsmEvent.getRuntimeData();
-						// send GET_READER_CAPABILITIES_RESPONSE
+						// send GET_READER_CAPABILITIES_RESPONSE (with the
+						// cached RFC/GPIO responses if available)
 						sendLLRPGetReaderCapabilitiesResponse(
 								fsmEvent.getLLRPServiceInstanceRuntimeData().getPlatform(),
 								runtimeData, fsmEvent.getRFCRuntimeData(),
-								null /* currentRFCMessage */, fsmEvent.getGPIORuntimeData(),
-								null /* currentGPIOMessage */);
+								fsmEvent.getCachedRFCResponse(), fsmEvent.getGPIORuntimeData(),
+								fsmEvent.getCachedGPIOResponse());
 					}
 				}), waitForMessageState);
 
@@ -251,10 +275,46 @@ public class FSMCapabilitiesCreator {
 						currentGPIOMessage.getException().getMessage());
 			}
 		}
+		// the response can be sent from a template if it is not created from
+		// responses which have just been received from the RF controller or
+		// the GPIO controller
+		Object[] templateSources = null;
+		if (llrpStatus.getStatusCode() == LLRPStatusCode.M_SUCCESS
+				&& (currentRFCMessage == null || !rfcRuntimeData.isMessageExpected())
+				&& (currentGPIOMessage == null || !gpioRuntimeData.isMessageExpected())) {
+			try {
+				templateSources = new Object[] { llrpRuntimeData.getProtocolVersion(),
+						currentRFCMessage, currentGPIOMessage, platform.hasUTCClock() };
+			} catch (PlatformException e) {
+				// the response is created without a template
+			}
+		}
+		GetReaderCapabilitiesRequestedData requestedData = currentLLRPMessage.getRequestedData();
+		LLRPResponseTemplates<GetReaderCapabilitiesRequestedData> templates = llrpRuntimeData
+				.getCapabilitiesResponseTemplates();
+		LLRPMessageTemplate template = templateSources == null ? null
+				: templates.get(requestedData, templateSources);
+		// cache the responses which have been received from the RF controller
+		// and the GPIO controller (not the ones taken from the caches)
+		if (currentRFCMessage != null && currentRFCMessage.getException() == null
+				&& rfcRuntimeData.isMessageExpected()) {
+			rfcRuntimeData.getCapabilitiesCache().put(
+					rfcRuntimeData.getMessageCreator().createRequest(currentLLRPMessage),
+					currentRFCMessage);
+		}
+		if (currentGPIOMessage != null && currentGPIOMessage.getException() == null
+				&& gpioRuntimeData.isMessageExpected()) {
+			gpioRuntimeData.getCapabilitiesCache().put(
+					gpioRuntimeData.getMessageCreator().createRequest(currentLLRPMessage),
+					currentGPIOMessage);
+		}
 		// create LLRP GET_READER_CAPABILITIES_RESPONSE
-		Message llrpResponse = llrpMessageCreator.createResponse(currentLLRPMessage,
-				llrpRuntimeData.getProtocolVersion(), llrpRuntimeData.getLLRPCapabilities(),
-				currentRFCMessage, currentGPIOMessage, platform, llrpStatus);
+		GetReaderCapabilitiesResponse llrpResponse = null;
+		if (template == null) {
+			llrpResponse = llrpMessageCreator.createResponse(currentLLRPMessage,
+					llrpRuntimeData.getProtocolVersion(), llrpRuntimeData.getLLRPCapabilities(),
+					currentRFCMessage, currentGPIOMessage, platform, llrpStatus);
+		}
 		// remove processed LLRP + RFC + GPIO message
 		llrpRuntimeData.removeCurrentMessage(currentLLRPMessage.getMessageHeader().getId());
 		if (currentRFCMessage != null) {
@@ -267,9 +327,21 @@ public class FSMCapabilitiesCreator {
 		}
 		// send LLRP response
 		try {
-			llrpRuntimeData.getMessageHandler().requestSendingData(llrpResponse);
+			if (template == null) {
+				llrpRuntimeData.getMessageHandler().requestSendingData(llrpResponse);
+				// create a template for further requests
+				if (templateSources != null && llrpResponse.getStatus()
+						.getStatusCode() == LLRPStatusCode.M_SUCCESS) {
+					templates.put(requestedData, new LLRPMessageTemplate(llrpResponse),
+							templateSources);
+				}
+			} else {
+				llrpRuntimeData.getMessageHandler().requestSendingData(template,
+						currentLLRPMessage.getMessageHeader().getId());
+			}
 		} catch (Exception e) {
-			throw new FSMActionException("Cannot send LLRP message " + llrpResponse, e);
+			throw new FSMActionException("Cannot send LLRP message "
+					+ (template == null ? llrpResponse : template.getMessage()), e);
 		}
 	}
 }
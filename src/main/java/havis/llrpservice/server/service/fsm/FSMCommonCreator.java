@@ -8,6 +8,8 @@ import havis.llrpservice.common.fsm.Action;
 import havis.llrpservice.common.fsm.FSMActionException;
 import havis.llrpservice.common.fsm.State;
 import havis.llrpservice.common.fsm.Transition;
+import havis.llrpservice.common.metrics.TagReadStage;
+import havis.llrpservice.common.metrics.TagReadTrace;
 import havis.llrpservice.data.message.Message;
 import havis.llrpservice.data.message.ROAccessReport;
 import havis.llrpservice.data.message.parameter.EventNotificationState;
@@ -120,6 +122,10 @@ public class FSMCommonCreator {
 									.create(llrpRuntimeData.getProtocolVersion(), currentMessage,
 											currentMessageData,
 											roReportSpec.getTagReportContentSelector());
+							TagReadTrace trace = currentMessage.getTrace();
+							if (trace != null) {
+								trace.stamp(TagReadStage.REPORT_CREATED);
+							}
 							// if report contains tag data
 							if (report.getTagReportDataList() != null
 									&& !report.getTagReportDataList().isEmpty()) {
@@ -128,7 +134,7 @@ public class FSMCommonCreator {
 								reportEntity.setReport(report);
 								// add report to depot
 								llrpRuntimeData.getROAccessReportDepot()
-										.add(Arrays.asList(reportEntity));
+										.add(Arrays.asList(reportEntity), trace);
 							}
 							// inform ROSpecsManager + ROReportSpecsManager
 							// (ROSpecs may be
@@ -190,6 +196,8 @@ public class FSMCommonCreator {
 
 						// remove processed message
 						runtimeData.getCurrentMessages().remove(currentMessage);
+						// the cached GPI states are outdated
+						runtimeData.getConfigurationCache().clear();
 
 						// create LLRP event
 						Parameter llrpEvent = new LLRPMessageConverter().convert(currentMessage);
@@ -198,8 +206,8 @@ public class FSMCommonCreator {
 							// inform the ROSpecsManager + RFCMessageHandler
 							// (ROSpecs may be started or stopped, AISpecs may
 							// be stopped)
-							llrpRuntimeData.getRoSpecsManager()
-									.gpiEventReceived((GPIEvent) llrpEvent);
+							llrpRuntimeData.getRoSpecsManager().gpiEventReceived(
+									(GPIEvent) llrpEvent, currentMessage.getReceivedTime());
 						} catch (Exception e) {
 							String errorMsg = "Cannot process GPI event: " + currentMessage;
 							log.log(Level.SEVERE, errorMsg);
@@ -71,6 +71,8 @@ public class FSMConfigurationCreator {
 									.validateCustomExtension(currentMessage.getCustomList());
 						}
 						boolean isMessageSent = false;
+						GetConfigurationResponse cachedRFCResponse = null;
+						havis.llrpservice.sbc.gpio.message.GetConfigurationResponse cachedGPIOResponse = null;
 						if (LLRPStatusCode.M_SUCCESS == status.getStatusCode()) {
 							try {
 								switch (currentMessage.getRequestedData()) {
@@ -81,10 +83,35 @@ public class FSMConfigurationCreator {
 								default:
 									break;
 								}
-								// request the configurations from the
-								// RF controller and the GPIO controller
-								isMessageSent = sendRFCGPIOMessages(fsmEvent.getRFCRuntimeData(),
-										fsmEvent.getGPIORuntimeData(), currentMessage);
+								RFCRuntimeData rfcRuntimeData = fsmEvent.getRFCRuntimeData();
+								GPIORuntimeData gpioRuntimeData = fsmEvent.getGPIORuntimeData();
+								RFCGetReaderConfigRequest rfcRequest = rfcRuntimeData
+										.getMessageCreator().createRequest(currentMessage);
+								// GPIO request if GPIO is enabled
+								GPIOGetReaderConfigRequest gpioRequest = gpioRuntimeData != null
+										? gpioRuntimeData.getMessageCreator()
+												.createRequest(currentMessage)
+										: null;
+								// get the configurations from the caches
+								if (rfcRequest.getTypes().size() > 0) {
+									cachedRFCResponse = rfcRuntimeData.getConfigurationCache()
+											.get(rfcRequest);
+								}
+								if (gpioRequest != null && gpioRequest.getTypes().size() > 0) {
+									cachedGPIOResponse = gpioRuntimeData.getConfigurationCache()
+											.get(gpioRequest);
+								}
+								// if any configuration is NOT cached
+								if (rfcRequest.getTypes().size() > 0 && cachedRFCResponse == null
+										|| gpioRequest != null && gpioRequest.getTypes().size() > 0
+												&& cachedGPIOResponse == null) {
+									cachedRFCResponse = null;
+									cachedGPIOResponse = null;
+									// request the configurations from the
+									// RF controller and the GPIO controller
+									isMessageSent = sendRFCGPIOMessages(rfcRuntimeData,
+											gpioRuntimeData, rfcRequest, gpioRequest);
+								}
 							} catch (Exception e) {
 								status = runtimeData.getMessageCreator().createStatus(
 										LLRPStatusCode.R_DEVICE_ERROR, e.getMessage());
@@ -96,10 +123,11 @@ public class FSMConfigurationCreator {
 							// creation of an LLRP error response and to avoid
 							// the processing of RFC/GPIO responses
 							runtimeData.getCurrentMessage().setStatus(status);
-							// send GET_READER_CONFIG_RESPONSE
+							// send GET_READER_CONFIG_RESPONSE (with the cached
+							// RFC/GPIO configurations if available)
 							sendLLRPGetReaderConfigResponse(runtimeData,
-									fsmEvent.getRFCRuntimeData(), null /* currentRFCMessage */,
-									fsmEvent.getGPIORuntimeData(), null /* currentGPIOMessage */);
+									fsmEvent.getRFCRuntimeData(), cachedRFCResponse,
+									fsmEvent.getGPIORuntimeData(), cachedGPIOResponse);
 						}
 						// else the GET_READER_CONFIG_RESPONSE is sent when the
 						// RFC/GPIO responses are received
@@ -140,14 +168,12 @@ public class FSMConfigurationCreator {
 					}
 
 					private boolean sendRFCGPIOMessages(RFCRuntimeData rfcRuntimeData,
-							GPIORuntimeData gpioRuntimeData, GetReaderConfig currentMessage)
-							throws RFCException, UnsupportedSpecTypeException,
-							UnsupportedAccessOperationException, UnsupportedAirProtocolException,
-							GPIOException {
+							GPIORuntimeData gpioRuntimeData, RFCGetReaderConfigRequest rfcRequest,
+							GPIOGetReaderConfigRequest gpioRequest) throws RFCException,
+							UnsupportedSpecTypeException, UnsupportedAccessOperationException,
+							UnsupportedAirProtocolException, GPIOException {
 						boolean isMessageSent = false;
 						// send RFC configuration request
-						RFCGetReaderConfigRequest rfcRequest = rfcRuntimeData.getMessageCreator()
-								.createRequest(currentMessage);
 						if (rfcRequest.getTypes().size() > 0) {
 							rfcRuntimeData.setMessageExpected(true);
 							rfcRuntimeData.getMessageHandler().requestConfiguration(
@@ -157,16 +183,12 @@ public class FSMConfigurationCreator {
 
 						// send GPIO configuration request if GPIO is
 						// enabled
-						if (gpioRuntimeData != null) {
-							GPIOGetReaderConfigRequest gpioRequest = gpioRuntimeData
-									.getMessageCreator().createRequest(currentMessage);
-							if (gpioRequest.getTypes().size() > 0) {
-								gpioRuntimeData.setMessageExpected(true);
-								gpioRuntimeData.getMessageHandler().requestConfiguration(
-										gpioRequest.getTypes(), gpioRequest.getGpiPortNum(),
-										gpioRequest.getGpoPortNum());
-								isMessageSent = true;
-							}
+						if (gpioRequest != null && gpioRequest.getTypes().size() > 0) {
+							gpioRuntimeData.setMessageExpected(true);
+							gpioRuntimeData.getMessageHandler().requestConfiguration(
+									gpioRequest.getTypes(), gpioRequest.getGpiPortNum(),
+									gpioRequest.getGpoPortNum());
+							isMessageSent = true;
 						}
 						return isMessageSent;
 					}
@@ -493,6 +515,21 @@ public class FSMConfigurationCreator {
 						currentGPIOMessage.getException().getMessage());
 			}
 		}
+		// cache the configurations which have been received from the RF
+		// controller and the GPIO controller (not the ones taken from the
+		// caches)
+		if (currentRFCMessage != null && currentRFCMessage.getException() == null
+				&& rfcRuntimeData.isMessageExpected()) {
+			rfcRuntimeData.getConfigurationCache().put(
+					rfcRuntimeData.getMessageCreator().createRequest(currentLLRPMessage),
+					currentRFCMessage);
+		}
+		if (currentGPIOMessage != null && currentGPIOMessage.getException() == null
+				&& gpioRuntimeData.isMessageExpected()) {
+			gpioRuntimeData.getConfigurationCache().put(
+					gpioRuntimeData.getMessageCreator().createRequest(currentLLRPMessage),
+					currentGPIOMessage);
+		}
 		// create LLRP GET_READER_CONFIG_RESPONSE incl.
 		// RF + GPIO configuration
 		Message llrpResponse = llrpMessageCreator.createResponse(currentLLRPMessage,
@@ -534,6 +571,13 @@ public class FSMConfigurationCreator {
 						currentGPIOMessage.getException().getMessage());
 			}
 		}
+		// the configurations of the RF controller and the GPIO controller may
+		// have been changed (also in case of an error)
+		rfcRuntimeData.clearCaches();
+		if (gpioRuntimeData != null) {
+			gpioRuntimeData.clearCaches();
+		}
+		llrpRuntimeData.getCapabilitiesResponseTemplates().clear();
 		// create LLRP response
 		Message llrpResponse = llrpMessageCreator.createResponse(currentLLRPMessage,
 				llrpRuntimeData.getProtocolVersion(), llrpStatus);
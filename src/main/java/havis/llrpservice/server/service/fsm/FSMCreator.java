@@ -5,15 +5,55 @@ import havis.llrpservice.common.fsm.FSMActionException;
 import havis.llrpservice.common.fsm.State;
 import havis.llrpservice.common.fsm.Transition;
 
+/**
+ * Creates the FSM for a LLRP session.
+ * <p>
+ * The states, transitions, guards and actions are created once and are shared
+ * by the FSMs of all service instances. They are not modified after their
+ * creation and do not hold any session data: the guards and actions get the
+ * runtime data from the fired events. The connections of the states are looked
+ * up by the classes of the events (see {@link FSMEvent#getEventKey()}), so each
+ * session fires its own {@link FSMEvents}.
+ * </p>
+ */
 public class FSMCreator {
-	final FSMCommonCreator commonCreator = new FSMCommonCreator();
-	final FSMCapabilitiesCreator capabilitiesCreator = new FSMCapabilitiesCreator(commonCreator);
-	final FSMConfigurationCreator configurationCreator = new FSMConfigurationCreator(commonCreator);
-	final FSMConnectionCreator connectionCreator = new FSMConnectionCreator();
 
+	// the initial state of the shared state graph
+	private static State<FSMEvent> waitForMessageState;
+
+	/**
+	 * Creates a FSM for the events of a session. The FSM is also set to the
+	 * events (see {@link FSMEvents#getFSM()}).
+	 * 
+	 * @param fsmEvents
+	 * @return
+	 * @throws FSMActionException
+	 */
 	public FSM<FSMEvent> create(FSMEvents fsmEvents) throws FSMActionException {
+		FSM<FSMEvent> fsm = new FSM<>("FSM", getWaitForMessageState(), 10 /* maxHistorySize */);
+		fsmEvents.setFSM(fsm);
+		return fsm;
+	}
+
+	private static synchronized State<FSMEvent> getWaitForMessageState()
+			throws FSMActionException {
+		if (waitForMessageState == null) {
+			// the events are only used as keys for the connections
+			waitForMessageState = createStates(
+					new FSMEvents(null /* llrpServiceInstanceRuntimeData */,
+							null /* llrpRuntimeData */, null /* rfcRuntimeData */,
+							null /* gpioRuntimeData */));
+		}
+		return waitForMessageState;
+	}
+
+	private static State<FSMEvent> createStates(FSMEvents fsmEvents) throws FSMActionException {
+		FSMCommonCreator commonCreator = new FSMCommonCreator();
+		FSMCapabilitiesCreator capabilitiesCreator = new FSMCapabilitiesCreator(commonCreator);
+		FSMConfigurationCreator configurationCreator = new FSMConfigurationCreator(commonCreator);
+		FSMConnectionCreator connectionCreator = new FSMConnectionCreator();
+
 		State<FSMEvent> waitForMessageState = new State<>("1 waitForMessage");
-		FSM<FSMEvent> fsm = new FSM<>("FSM", waitForMessageState, 10 /* maxHistorySize */);
 
 		State<FSMEvent> llrpMessageReceivedState = commonCreator
 				.createLLRPMessageReceivedState("2 llrpMessageReceived");
@@ -31,13 +71,13 @@ public class FSMCreator {
 		waitForMessageState.addConnection(fsmEvents.GPIO_MESSAGE_RECEIVED,
 				new Transition<FSMEvent>("1-4"), gpioMessageReceivedState);
 
-		capabilitiesCreator.createLLRPGetReaderCapabilities(fsm, fsmEvents,
-				llrpMessageReceivedState, waitForMessageState);
+		capabilitiesCreator.createLLRPGetReaderCapabilities(fsmEvents, llrpMessageReceivedState,
+				waitForMessageState);
 		configurationCreator.createLLRPGetReaderConfig(fsmEvents, llrpMessageReceivedState,
 				rfcMessageReceivedState, gpioMessageReceivedState, waitForMessageState);
 		connectionCreator.createLLRPCloseConnection(fsmEvents, llrpMessageReceivedState,
 				waitForMessageState);
 
-		return fsm;
+		return waitForMessageState;
 	}
 }
@@ -1,4 +1,16 @@
 package havis.llrpservice.server.service.fsm;
 
-public interface FSMEvent {
+import havis.llrpservice.common.fsm.KeyedEvent;
+
+/**
+ * An event of the FSM of a LLRP session. The events are identified by their
+ * classes, so the state graph can be shared by the FSMs of all sessions (see
+ * {@link FSMCreator}).
+ */
+public interface FSMEvent extends KeyedEvent {
+
+	@Override
+	default Object getEventKey() {
+		return getClass();
+	}
 }
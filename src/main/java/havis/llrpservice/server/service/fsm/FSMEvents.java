@@ -1,5 +1,6 @@
 package havis.llrpservice.server.service.fsm;
 
+import havis.llrpservice.common.fsm.FSM;
 import havis.llrpservice.server.service.fsm.gpio.FSMGPIOGetConfigurationResponseEvent;
 import havis.llrpservice.server.service.fsm.gpio.FSMGPIOMessageEvent;
 import havis.llrpservice.server.service.fsm.gpio.FSMGPIOResetConfigurationResponseEvent;
@@ -20,6 +21,10 @@ import havis.llrpservice.server.service.fsm.rfc.FSMRFCResetConfigurationResponse
 import havis.llrpservice.server.service.fsm.rfc.FSMRFCSetConfigurationResponseEvent;
 import havis.llrpservice.server.service.fsm.rfc.RFCRuntimeData;
 
+/**
+ * The events of a LLRP session. The events hold the runtime data of the
+ * session and are fired to the FSM of the session (see {@link FSMCreator}).
+ */
 public class FSMEvents {
 	// LLRP
 	public final FSMLLRPMessageEvent LLRP_MESSAGE_RECEIVED = new FSMLLRPMessageEvent();
@@ -43,6 +48,8 @@ public class FSMEvents {
 	public final FSMGPIOResetConfigurationResponseEvent GPIO_RESET_CONFIGURATION_RESPONSE_RECEIVED = new FSMGPIOResetConfigurationResponseEvent();
 	public final FSMGPIOStateChangedEvent GPIO_STATE_CHANGED_RECEIVED = new FSMGPIOStateChangedEvent();
 
+	private FSM<FSMEvent> fsm;
+
 	public FSMEvents(LLRPServiceInstanceRuntimeData llrpServiceInstanceRuntimeData,
 			LLRPRuntimeData llrpRuntimeData, RFCRuntimeData rfcRuntimeData,
 			GPIORuntimeData gpioRuntimeData) {
@@ -50,6 +57,7 @@ public class FSMEvents {
 		LLRP_MESSAGE_RECEIVED.setRuntimeData(llrpRuntimeData);
 		LLRP_GET_READER_CAPABILITIES_RECEIVED.setRuntimeData(llrpServiceInstanceRuntimeData,
 				llrpRuntimeData, rfcRuntimeData, gpioRuntimeData);
+		LLRP_GET_READER_CAPABILITIES_RECEIVED.setFSMEvents(this);
 		LLRP_GET_READER_CONFIG_RECEIVED.setRuntimeData(llrpRuntimeData, rfcRuntimeData,
 				gpioRuntimeData);
 		LLRP_SET_READER_CONFIG_RECEIVED.setRuntimeData(llrpServiceInstanceRuntimeData,
@@ -78,4 +86,17 @@ public class FSMEvents {
 		GPIO_STATE_CHANGED_RECEIVED.setRuntimeData(llrpServiceInstanceRuntimeData, llrpRuntimeData,
 				gpioRuntimeData);
 	}
+
+	/**
+	 * Returns the FSM the events are fired to.
+	 * 
+	 * @return <code>null</code> if no FSM has been created for the events
+	 */
+	public FSM<FSMEvent> getFSM() {
+		return fsm;
+	}
+
+	void setFSM(FSM<FSMEvent> fsm) {
+		this.fsm = fsm;
+	}
 }
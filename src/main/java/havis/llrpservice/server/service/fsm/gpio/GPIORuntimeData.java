@@ -1,8 +1,12 @@
 package havis.llrpservice.server.service.fsm.gpio;
 
+import havis.device.io.Type;
+import havis.llrpservice.sbc.gpio.message.GetConfigurationResponse;
 import havis.llrpservice.sbc.gpio.message.Message;
 import havis.llrpservice.server.gpio.GPIOMessageHandler;
+import havis.llrpservice.server.service.fsm.DeviceResponseCache;
 import havis.llrpservice.server.service.messageHandling.GPIOMessageCreator;
+import havis.llrpservice.server.service.messageHandling.GPIOMessageCreator.GPIOGetReaderConfigRequest;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -21,6 +25,15 @@ public class GPIORuntimeData {
 	 * after the message has been received.
 	 */
 	private boolean isMessageExpected = false;
+	/**
+	 * The configurations received from the GPIO controller for the creation
+	 * of capabilities.
+	 */
+	private final DeviceResponseCache<List<Type>, GetConfigurationResponse> capabilitiesCache = new DeviceResponseCache<>();
+	/**
+	 * The configurations received from the GPIO controller.
+	 */
+	private final DeviceResponseCache<GPIOGetReaderConfigRequest, GetConfigurationResponse> configurationCache = new DeviceResponseCache<>();
 
 	public GPIORuntimeData(GPIOMessageHandler messageHandler) {
 		this.messageHandler = messageHandler;
@@ -51,6 +64,22 @@ public class GPIORuntimeData {
 		this.isMessageExpected = isExpected;
 	}
 
+	public DeviceResponseCache<List<Type>, GetConfigurationResponse> getCapabilitiesCache() {
+		return capabilitiesCache;
+	}
+
+	public DeviceResponseCache<GPIOGetReaderConfigRequest, GetConfigurationResponse> getConfigurationCache() {
+		return configurationCache;
+	}
+
+	/**
+	 * Removes all cached responses of the GPIO controller.
+	 */
+	public void clearCaches() {
+		capabilitiesCache.clear();
+		configurationCache.clear();
+	}
+
 	@Override
 	public String toString() {
 		return "GPIORuntimeData [messageCreator=" + messageCreator
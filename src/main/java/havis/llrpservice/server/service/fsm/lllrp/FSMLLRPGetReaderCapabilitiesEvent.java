@@ -4,6 +4,9 @@ import java.util.List;
 
 import havis.device.io.Type;
 import havis.device.rf.capabilities.CapabilityType;
+import havis.llrpservice.sbc.gpio.message.GetConfigurationResponse;
+import havis.llrpservice.sbc.rfc.message.GetCapabilitiesResponse;
+import havis.llrpservice.server.service.fsm.FSMEvents;
 import havis.llrpservice.server.service.fsm.LLRPServiceInstanceRuntimeData;
 import havis.llrpservice.server.service.fsm.gpio.GPIORuntimeData;
 import havis.llrpservice.server.service.fsm.rfc.RFCRuntimeData;
@@ -15,6 +18,11 @@ public class FSMLLRPGetReaderCapabilitiesEvent extends FSMLLRPEvent {
 	private GPIORuntimeData gpioRuntimeData;
 	private List<CapabilityType> rfcRequest;
 	private List<Type> gpioRequest;
+	// the responses taken from the caches
+	private GetCapabilitiesResponse cachedRFCResponse;
+	private GetConfigurationResponse cachedGPIOResponse;
+	// the events of the session the event belongs to
+	private FSMEvents fsmEvents;
 
 	public void setRuntimeData(LLRPServiceInstanceRuntimeData llrpServiceInstanceRuntimeData,
 			LLRPRuntimeData llrpRuntimeData, RFCRuntimeData rfcRuntimeData,
@@ -25,6 +33,16 @@ public class FSMLLRPGetReaderCapabilitiesEvent extends FSMLLRPEvent {
 		this.gpioRuntimeData = gpioRuntimeData;
 		rfcRequest = null;
 		gpioRequest = null;
+		cachedRFCResponse = null;
+		cachedGPIOResponse = null;
+	}
+
+	public FSMEvents getFSMEvents() {
+		return fsmEvents;
+	}
+
+	public void setFSMEvents(FSMEvents fsmEvents) {
+		this.fsmEvents = fsmEvents;
 	}
 
 	public LLRPServiceInstanceRuntimeData getLLRPServiceInstanceRuntimeData() {
@@ -55,11 +73,26 @@ public class FSMLLRPGetReaderCapabilitiesEvent extends FSMLLRPEvent {
 		this.gpioRequest = gpioRequest;
 	}
 
+	public GetCapabilitiesResponse getCachedRFCResponse() {
+		return cachedRFCResponse;
+	}
+
+	public GetConfigurationResponse getCachedGPIOResponse() {
+		return cachedGPIOResponse;
+	}
+
+	public void setCachedResponses(GetCapabilitiesResponse cachedRFCResponse,
+			GetConfigurationResponse cachedGPIOResponse) {
+		this.cachedRFCResponse = cachedRFCResponse;
+		this.cachedGPIOResponse = cachedGPIOResponse;
+	}
+
 	@Override
 	public String toString() {
 		return "FSMLLRPGetReaderCapabilitiesEvent [llrpServiceInstanceRuntimeData="
 				+ llrpServiceInstanceRuntimeData + ", rfcRuntimeData=" + rfcRuntimeData
 				+ ", gpioRuntimeData=" + gpioRuntimeData + ", rfcRequest=" + rfcRequest
-				+ ", gpioRequest=" + gpioRequest + ", " + super.toString() + "]";
+				+ ", gpioRequest=" + gpioRequest + ", cachedRFCResponse=" + cachedRFCResponse
+				+ ", cachedGPIOResponse=" + cachedGPIOResponse + ", " + super.toString() + "]";
 	}
 }
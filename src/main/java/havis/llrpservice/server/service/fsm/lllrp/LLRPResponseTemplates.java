@@ -0,0 +1,85 @@
+package havis.llrpservice.server.service.fsm.lllrp;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import havis.llrpservice.csc.llrp.LLRPMessageTemplate;
+
+/**
+ * Holds the templates of LLRP responses which do not change as long as the
+ * data they have been created from does not change (e.g. the response to a
+ * GET_READER_CAPABILITIES request).
+ * <p>
+ * A template is stored with the objects it has been created from (the
+ * sources). A template is only returned if the same sources are provided
+ * (compared by identity). Thus a template is automatically discarded if a
+ * device response is not taken from a cache any longer.
+ * </p>
+ * <p>
+ * The templates are not thread safe. They are only accessed by the thread
+ * processing the FSM of a service instance.
+ * </p>
+ *
+ * @param <K>
+ *            the request type
+ */
+public class LLRPResponseTemplates<K> {
+
+	private class Entry {
+		private final LLRPMessageTemplate template;
+		private final Object[] sources;
+
+		private Entry(LLRPMessageTemplate template, Object[] sources) {
+			this.template = template;
+			this.sources = sources;
+		}
+	}
+
+	private final Map<K, Entry> entries = new HashMap<>();
+
+	/**
+	 * Returns a template.
+	 *
+	 * @param request
+	 * @param sources
+	 *            the objects the response is created from
+	 * @return <code>null</code> if no template exists for the request and the
+	 *         sources
+	 */
+	public LLRPMessageTemplate get(K request, Object... sources) {
+		Entry entry = entries.get(request);
+		if (entry == null || entry.sources.length != sources.length) {
+			return null;
+		}
+		for (int i = 0; i < sources.length; i++) {
+			if (entry.sources[i] != sources[i]) {
+				return null;
+			}
+		}
+		return entry.template;
+	}
+
+	/**
+	 * Adds a template. An existing template for the request is replaced.
+	 *
+	 * @param request
+	 * @param template
+	 * @param sources
+	 *            the objects the response has been created from
+	 */
+	public void put(K request, LLRPMessageTemplate template, Object... sources) {
+		entries.put(request, new Entry(template, sources));
+	}
+
+	/**
+	 * Removes all templates.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	@Override
+	public String toString() {
+		return "LLRPResponseTemplates [entries=" + entries.keySet() + "]";
+	}
+}
@@ -3,6 +3,7 @@ package havis.llrpservice.server.service.fsm.lllrp;
 import java.util.ArrayList;
 import java.util.List;
 
+import havis.llrpservice.data.message.GetReaderCapabilitiesRequestedData;
 import havis.llrpservice.data.message.Message;
 import havis.llrpservice.data.message.ProtocolVersion;
 import havis.llrpservice.data.message.parameter.Identification;
@@ -56,6 +57,11 @@ public class LLRPRuntimeData {
 	private final LLRPConfigurationStateValue llrpConfigStateValue = new LLRPConfigurationStateValue(
 			new TLVParameterHeader((byte) 0x00), 0);
 	private boolean restartServer;
+	/**
+	 * The templates of the GET_READER_CAPABILITIES responses. They are
+	 * discarded if the reader configuration is changed.
+	 */
+	private final LLRPResponseTemplates<GetReaderCapabilitiesRequestedData> capabilitiesResponseTemplates = new LLRPResponseTemplates<>();
 
 	public class CurrentMessage {
 		private final Message message;
@@ -198,6 +204,10 @@ public class LLRPRuntimeData {
 		this.restartServer = restartServer;
 	}
 
+	public LLRPResponseTemplates<GetReaderCapabilitiesRequestedData> getCapabilitiesResponseTemplates() {
+		return capabilitiesResponseTemplates;
+	}
+
 	@Override
 	public String toString() {
 		return "LLRPRuntimeData [INITIAL_PROTOCOL_VERSION=" + INITIAL_PROTOCOL_VERSION
@@ -208,6 +218,7 @@ public class LLRPRuntimeData {
 				+ negotiatedProtocolVersion + ", identificationSource=" + identificationSource
 				+ ", llrpCapabilities=" + llrpCapabilities + ", readerConfig=" + readerConfig
 				+ ", identification=" + identification + ", llrpConfigStateValue="
-				+ llrpConfigStateValue + ", restartServer=" + restartServer + "]";
+				+ llrpConfigStateValue + ", restartServer=" + restartServer
+				+ ", capabilitiesResponseTemplates=" + capabilitiesResponseTemplates + "]";
 	}
 }
\ No newline at end of file
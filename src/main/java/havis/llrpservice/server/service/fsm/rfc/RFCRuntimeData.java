@@ -5,9 +5,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import havis.device.rf.capabilities.CapabilityType;
+import havis.llrpservice.sbc.rfc.message.GetCapabilitiesResponse;
+import havis.llrpservice.sbc.rfc.message.GetConfigurationResponse;
 import havis.llrpservice.sbc.rfc.message.Message;
 import havis.llrpservice.server.rfc.RFCMessageHandler;
+import havis.llrpservice.server.service.fsm.DeviceResponseCache;
 import havis.llrpservice.server.service.messageHandling.RFCMessageCreator;
+import havis.llrpservice.server.service.messageHandling.RFCMessageCreator.RFCGetReaderConfigRequest;
 
 public class RFCRuntimeData {
 
@@ -27,6 +32,14 @@ public class RFCRuntimeData {
 	 * the message has been received.
 	 */
 	private boolean isMessageExpected = false;
+	/**
+	 * The capabilities received from the RF controller.
+	 */
+	private final DeviceResponseCache<List<CapabilityType>, GetCapabilitiesResponse> capabilitiesCache = new DeviceResponseCache<>();
+	/**
+	 * The configurations received from the RF controller.
+	 */
+	private final DeviceResponseCache<RFCGetReaderConfigRequest, GetConfigurationResponse> configurationCache = new DeviceResponseCache<>();
 
 	public RFCRuntimeData(RFCMessageHandler messageHandler) {
 		this.messageHandler = messageHandler;
@@ -61,6 +74,22 @@ public class RFCRuntimeData {
 		this.isMessageExpected = isExpected;
 	}
 
+	public DeviceResponseCache<List<CapabilityType>, GetCapabilitiesResponse> getCapabilitiesCache() {
+		return capabilitiesCache;
+	}
+
+	public DeviceResponseCache<RFCGetReaderConfigRequest, GetConfigurationResponse> getConfigurationCache() {
+		return configurationCache;
+	}
+
+	/**
+	 * Removes all cached responses of the RF controller.
+	 */
+	public void clearCaches() {
+		capabilitiesCache.clear();
+		configurationCache.clear();
+	}
+
 	@Override
 	public String toString() {
 		return "RFCRuntimeData [messageCreator=" + messageCreator + ", messageHandler="
@@ -36,6 +36,24 @@ public class GPIOMessageCreator {
 		public short getGpoPortNum() {
 			return gpoPortNum;
 		}
+
+		@Override
+		public int hashCode() {
+			return (31 * types.hashCode() + gpiPortNum) * 31 + gpoPortNum;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof GPIOGetReaderConfigRequest)) {
+				return false;
+			}
+			GPIOGetReaderConfigRequest other = (GPIOGetReaderConfigRequest) obj;
+			return gpiPortNum == other.gpiPortNum && gpoPortNum == other.gpoPortNum
+					&& types.equals(other.types);
+		}
 	}
 
 	public class GPIOSetReaderConfigRequest {
@@ -30,6 +30,23 @@ public class RFCMessageCreator {
 		public short getAntennaId() {
 			return antennaId;
 		}
+
+		@Override
+		public int hashCode() {
+			return 31 * types.hashCode() + antennaId;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof RFCGetReaderConfigRequest)) {
+				return false;
+			}
+			RFCGetReaderConfigRequest other = (RFCGetReaderConfigRequest) obj;
+			return antennaId == other.antennaId && types.equals(other.types);
+		}
 	}
 
 	public class RFCSetReaderConfigRequest {
@@ -4,7 +4,10 @@ import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import havis.device.rf.tag.TagData;
 import havis.device.rf.tag.result.KillResult;
@@ -49,17 +52,117 @@ import havis.llrpservice.data.message.parameter.TVParameterHeader;
 import havis.llrpservice.data.message.parameter.TagReportContentSelector;
 import havis.llrpservice.data.message.parameter.TagReportData;
 import havis.llrpservice.data.message.parameter.TagSeenCount;
+import havis.llrpservice.data.message.parameter.serializer.InvalidParameterTypeException;
+import havis.llrpservice.data.message.serializer.ByteBufferSerializer;
+import havis.llrpservice.data.message.serializer.InvalidMessageTypeException;
 import havis.llrpservice.sbc.rfc.message.ExecuteResponse;
 import havis.llrpservice.server.rfc.messageData.ExecuteResponseData;
 import havis.llrpservice.server.service.data.ROAccessReportEntity;
 
 public class ROAccessReportCreator {
 
+	/**
+	 * Name of the system property for the maximum number of tag reports per
+	 * ROAccessReport message (default: <code>0</code> = unlimited). See
+	 * {@link #split(ROAccessReport)}.
+	 */
+	public static final String MAX_TAG_REPORTS_PROPERTY = "havis.llrpservice.server.roAccessReportMaxTagReports";
+
+	/**
+	 * Name of the system property for the maximum length of a ROAccessReport
+	 * message in bytes (default: <code>0</code> = unlimited). See
+	 * {@link #split(ROAccessReport)}.
+	 */
+	public static final String MAX_LENGTH_PROPERTY = "havis.llrpservice.server.roAccessReportMaxLength";
+
+	// content selector -> compiled report content
+	private final Map<TagReportContentSelector, ReportContent> reportContents = new WeakHashMap<>();
+	private final int maxTagReports;
+	private final long maxLength;
+
+	/**
+	 * The fields of a tag report which are enabled by a
+	 * {@link TagReportContentSelector}. The flags are evaluated once per
+	 * content selector (ROSpec) instead of once per tag.
+	 */
+	private static class ReportContent {
+		final boolean roSpecId;
+		final boolean specIndex;
+		final boolean inventoryParameterSpecId;
+		final boolean antennaId;
+		final boolean channelIndex;
+		final boolean peakRSSI;
+		final boolean firstSeenTimestamp;
+		final boolean lastSeenTimestamp;
+		final boolean tagSeenCount;
+		final boolean accessSpecId;
+		// C1G2EPCMemorySelector
+		final boolean c1g2TagData;
+		final boolean crc;
+		final boolean pcBits;
+		final boolean xpcBits;
+
+		ReportContent(TagReportContentSelector contentSelector) {
+			roSpecId = contentSelector.isEnableROSpecID();
+			specIndex = contentSelector.isEnableSpecIndex();
+			inventoryParameterSpecId = contentSelector.isEnableInventoryParameterSpecID();
+			antennaId = contentSelector.isEnableAntennaID();
+			channelIndex = contentSelector.isEnableChannelIndex();
+			peakRSSI = contentSelector.isEnablePeakRSSI();
+			firstSeenTimestamp = contentSelector.isEnableFirstSeenTimestamp();
+			lastSeenTimestamp = contentSelector.isEnableLastSeenTimestamp();
+			tagSeenCount = contentSelector.isEnableTagSeenCount();
+			accessSpecId = contentSelector.isEnableAccessSpecID();
+			List<C1G2EPCMemorySelector> contentSelectorC1G2List = contentSelector
+					.getC1g2EPCMemorySelectorList();
+			c1g2TagData = contentSelectorC1G2List != null && !contentSelectorC1G2List.isEmpty();
+			C1G2EPCMemorySelector contentSelectorC1G2 = c1g2TagData ? contentSelectorC1G2List.get(0)
+					: null;
+			crc = c1g2TagData && contentSelectorC1G2.isEnableCRC();
+			pcBits = c1g2TagData && contentSelectorC1G2.isEnablePCBits();
+			xpcBits = c1g2TagData && contentSelectorC1G2.isEnableXPCBits();
+		}
+	}
+
+	public ROAccessReportCreator() {
+		this(Integer.getInteger(MAX_TAG_REPORTS_PROPERTY, 0), Long.getLong(MAX_LENGTH_PROPERTY, 0));
+	}
+
+	/**
+	 * @param maxTagReports
+	 *            the maximum number of tag reports per message (<code>0</code>
+	 *            : unlimited)
+	 * @param maxLength
+	 *            the maximum length of a message in bytes (<code>0</code>:
+	 *            unlimited)
+	 */
+	public ROAccessReportCreator(int maxTagReports, long maxLength) {
+		this.maxTagReports = maxTagReports;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * @return the maximum number of tag reports per message (<code>0</code>:
+	 *         unlimited)
+	 */
+	public int getMaxTagReports() {
+		return maxTagReports;
+	}
+
+	/**
+	 * @return the maximum length of a message in bytes (<code>0</code>:
+	 *         unlimited)
+	 */
+	public long getMaxLength() {
+		return maxLength;
+	}
+
 	public ROAccessReport create(ProtocolVersion protocolVersion, ExecuteResponse executeResponse,
 			ExecuteResponseData executeResponseData, TagReportContentSelector contentSelector) {
 		MessageHeader header = new MessageHeader((byte) 0x00, protocolVersion,
 				IdGenerator.getNextLongId());
 		ROAccessReport report = new ROAccessReport(header);
+		ReportContent content = getReportContent(contentSelector);
 		// Is for every tag report the same
 		ROSpecID roSpecID = new ROSpecID(new TVParameterHeader(),
 				executeResponseData.getRoSpecId());
@@ -68,8 +171,21 @@ public class ROAccessReportCreator {
 				executeResponseData.getSpecIndex());
 		InventoryParameterSpecID invParamSpecId = new InventoryParameterSpecID(
 				new TVParameterHeader(), executeResponseData.getInventoryParameterSpecId());
+		// Is for every tag report the same (the parameters are replaced but not
+		// modified while reports are accumulated)
+		TagSeenCount tagSeenCount = content.tagSeenCount
+				? new TagSeenCount(new TVParameterHeader(), 1) : null;
+		// Is for every tag report the same (the timestamp parameters are
+		// modified while reports are accumulated but the values are immutable)
+		BigInteger timestamp = content.firstSeenTimestamp || content.lastSeenTimestamp
+				? BigInteger.valueOf(executeResponse.getTimeStamp().getTimestamp() * 1000) : null;
+		boolean isUtc = timestamp != null && executeResponse.getTimeStamp().isUtc();
+		// Are reused for subsequent tags with the same values
+		AntennaId antennaId = null;
+		ChannelIndex channelIndex = null;
 
-		List<TagReportData> tagReportDataList = new ArrayList<>();
+		List<TagReportData> tagReportDataList = new ArrayList<>(
+				executeResponse.getTagData().size());
 
 		for (TagData tagData : executeResponse.getTagData()) {
 			TagReportData tagReportData;
@@ -82,67 +198,66 @@ public class ROAccessReportCreator {
 				epcData.setEpcLengthBits(tagData.getEpc().length * 8);
 				tagReportData = new TagReportData(new TLVParameterHeader((byte) 0x00), epcData);
 			}
-			if (contentSelector.isEnableROSpecID()) {
+			if (content.roSpecId) {
 				tagReportData.setRoSpecID(roSpecID);
 			}
-			if (contentSelector.isEnableSpecIndex()) {
+			if (content.specIndex) {
 				tagReportData.setSpecIndex(specIndex);
 			}
-			if (contentSelector.isEnableInventoryParameterSpecID()) {
+			if (content.inventoryParameterSpecId) {
 				tagReportData.setInvParaSpecID(invParamSpecId);
 			}
-			if (contentSelector.isEnableAntennaID()) {
-				tagReportData
-						.setAntID(new AntennaId(new TVParameterHeader(), tagData.getAntennaID()));
+			if (content.antennaId) {
+				if (antennaId == null || antennaId.getAntennaId() != tagData.getAntennaID()) {
+					antennaId = new AntennaId(new TVParameterHeader(), tagData.getAntennaID());
+				}
+				tagReportData.setAntID(antennaId);
 			}
-			if (contentSelector.isEnableChannelIndex()) {
-				tagReportData.setChannelInd(
-						new ChannelIndex(new TVParameterHeader(), tagData.getChannel()));
+			if (content.channelIndex) {
+				if (channelIndex == null
+						|| channelIndex.getChannelIndex() != tagData.getChannel()) {
+					channelIndex = new ChannelIndex(new TVParameterHeader(), tagData.getChannel());
+				}
+				tagReportData.setChannelInd(channelIndex);
 			}
-			if (contentSelector.isEnablePeakRSSI()) {
+			if (content.peakRSSI) {
+				// the parameter is modified while reports are accumulated
 				tagReportData.setPeakRSSI(
 						new PeakRSSI(new TVParameterHeader(), (byte) tagData.getRssi()));
 			}
-			if (contentSelector.isEnableFirstSeenTimestamp()) {
-				BigInteger ts = new BigInteger(
-						String.valueOf(executeResponse.getTimeStamp().getTimestamp() * 1000));
-				if (executeResponse.getTimeStamp().isUtc()) {
-					tagReportData
-							.setFirstSTUTC(new FirstSeenTimestampUTC(new TVParameterHeader(), ts));
+			if (content.firstSeenTimestamp) {
+				if (isUtc) {
+					tagReportData.setFirstSTUTC(
+							new FirstSeenTimestampUTC(new TVParameterHeader(), timestamp));
 				} else {
 					tagReportData.setFirstSTUptime(
-							new FirstSeenTimestampUptime(new TVParameterHeader(), ts));
+							new FirstSeenTimestampUptime(new TVParameterHeader(), timestamp));
 				}
 			}
-			if (contentSelector.isEnableLastSeenTimestamp()) {
-				BigInteger ts = new BigInteger(
-						String.valueOf(executeResponse.getTimeStamp().getTimestamp() * 1000));
-				if (executeResponse.getTimeStamp().isUtc()) {
-					tagReportData
-							.setLastSTUTC(new LastSeenTimestampUTC(new TVParameterHeader(), ts));
+			if (content.lastSeenTimestamp) {
+				if (isUtc) {
+					tagReportData.setLastSTUTC(
+							new LastSeenTimestampUTC(new TVParameterHeader(), timestamp));
 				} else {
 					tagReportData.setLastSTUptime(
-							new LastSeenTimestampUptime(new TVParameterHeader(), ts));
+							new LastSeenTimestampUptime(new TVParameterHeader(), timestamp));
 				}
 			}
-			if (contentSelector.isEnableTagSeenCount()) {
-				tagReportData.setTagSC(new TagSeenCount(new TVParameterHeader(), 1));
+			if (content.tagSeenCount) {
+				tagReportData.setTagSC(tagSeenCount);
 			}
 
-			List<C1G2EPCMemorySelector> contentSelectorC1G2List = contentSelector
-					.getC1g2EPCMemorySelectorList();
-			if (contentSelectorC1G2List != null && !contentSelectorC1G2List.isEmpty()) {
-				C1G2EPCMemorySelector contentSelectorC1G2 = contentSelectorC1G2List.get(0);
-				List<Parameter> c1g2TagDataList = new ArrayList<>();
-				if (contentSelectorC1G2.isEnableCRC()) {
+			if (content.c1g2TagData) {
+				List<Parameter> c1g2TagDataList = new ArrayList<>(4);
+				if (content.crc) {
 					c1g2TagDataList.add(new C1G2CRC(new TVParameterHeader(),
 							DataTypeConverter.ushort(tagData.getCrc())));
 				}
-				if (contentSelectorC1G2.isEnablePCBits()) {
+				if (content.pcBits) {
 					c1g2TagDataList.add(new C1G2PC(new TVParameterHeader(),
 							DataTypeConverter.ushort(tagData.getPc())));
 				}
-				if (contentSelectorC1G2.isEnableXPCBits()) {
+				if (content.xpcBits) {
 					int xpc = tagData.getXpc(); // uint value
 					c1g2TagDataList
 							.add(new C1G2XPCW1(new TVParameterHeader(), (xpc >> 16) & 0xFFFF));
@@ -153,7 +268,7 @@ public class ROAccessReportCreator {
 
 			List<Parameter> opSpecResultList = new ArrayList<>();
 			if (tagData.getResultList() != null && !tagData.getResultList().isEmpty()) {
-				if (contentSelector.isEnableAccessSpecID()) {
+				if (content.accessSpecId) {
 					long accessSpecId = executeResponseData.getTagDataAccessSpecIds()
 							.get(tagData.getTagDataId());
 					tagReportData.setAccessSpecID(
@@ -303,6 +418,16 @@ public class ROAccessReportCreator {
 		return report;
 	}
 
+	private synchronized ReportContent getReportContent(
+			TagReportContentSelector contentSelector) {
+		ReportContent content = reportContents.get(contentSelector);
+		if (content == null) {
+			content = new ReportContent(contentSelector);
+			reportContents.put(contentSelector, content);
+		}
+		return content;
+	}
+
 	public ROAccessReport accumulate(ProtocolVersion protocolVersion,
 			List<ROAccessReportEntity> reportEntities) {
 		MessageHeader header = new MessageHeader((byte) 0, protocolVersion,
@@ -341,6 +466,86 @@ public class ROAccessReportCreator {
 		return ret;
 	}
 
+	/**
+	 * Splits a report into reports which do not exceed the maximum number of
+	 * tag reports and the maximum message length. The reports can be sent
+	 * one after the other, so only the current report must be serialized
+	 * instead of the whole report at once.
+	 * <p>
+	 * The first report keeps the message header of the original report, the
+	 * following reports get new message identifiers. The RF survey reports and
+	 * custom parameters of the original report are added to the first report.
+	 * A tag report which exceeds the maximum message length on its own is sent
+	 * in a separate report.
+	 * </p>
+	 * 
+	 * @param report
+	 * @return the reports (the original report if no limit is exceeded)
+	 * @throws InvalidMessageTypeException
+	 * @throws InvalidParameterTypeException
+	 */
+	public List<ROAccessReport> split(ROAccessReport report)
+			throws InvalidMessageTypeException, InvalidParameterTypeException {
+		List<TagReportData> tagReports = report.getTagReportDataList();
+		if (maxTagReports <= 0 && maxLength <= 0 || tagReports == null
+				|| tagReports.size() <= 1) {
+			return Collections.singletonList(report);
+		}
+		ByteBufferSerializer serializer = null;
+		// a report with a single tag report for the calculation of the length
+		// of a tag report
+		ROAccessReport probe = null;
+		List<TagReportData> probeTagReports = null;
+		long emptyLength = 0;
+		if (maxLength > 0) {
+			serializer = new ByteBufferSerializer();
+			probeTagReports = new ArrayList<>(1);
+			probe = new ROAccessReport(new MessageHeader((byte) 0,
+					report.getMessageHeader().getVersion(), 0 /* id */));
+			probe.setTagReportDataList(probeTagReports);
+			emptyLength = serializer.getLength(probe);
+			probeTagReports.add(null);
+		}
+		List<ROAccessReport> ret = new ArrayList<>();
+		int start = 0;
+		long length = emptyLength;
+		for (int i = 0; i < tagReports.size(); i++) {
+			long tagReportLength = 0;
+			if (probe != null) {
+				probeTagReports.set(0, tagReports.get(i));
+				tagReportLength = serializer.getLength(probe) - emptyLength;
+			}
+			// if the current report is not empty and a limit would be exceeded
+			if (i > start && (maxTagReports > 0 && i - start >= maxTagReports
+					|| maxLength > 0 && length + tagReportLength > maxLength)) {
+				ret.add(createPart(report, ret.isEmpty(), tagReports.subList(start, i)));
+				start = i;
+				length = emptyLength;
+			}
+			length += tagReportLength;
+		}
+		if (ret.isEmpty()) {
+			return Collections.singletonList(report);
+		}
+		ret.add(createPart(report, false /* isFirst */,
+				tagReports.subList(start, tagReports.size())));
+		return ret;
+	}
+
+	private ROAccessReport createPart(ROAccessReport report, boolean isFirst,
+			List<TagReportData> tagReports) {
+		MessageHeader header = isFirst ? report.getMessageHeader()
+				: new MessageHeader((byte) 0, report.getMessageHeader().getVersion(),
+						IdGenerator.getNextLongId());
+		ROAccessReport ret = new ROAccessReport(header);
+		ret.setTagReportDataList(tagReports);
+		if (isFirst) {
+			ret.setRfSurveyReportDataList(report.getRfSurveyReportDataList());
+			ret.setCusList(report.getCusList());
+		}
+		return ret;
+	}
+
 	private boolean match(long roSpecId1, TagReportData tagReport1, long roSpecId2,
 			TagReportData tagReport2) {
 		// see 14.2.3.1
@@ -542,14 +747,13 @@ public class ROAccessReportCreator {
 		return o1 != null && o2 != null;
 	}
 
-	private static BitSet toBitSet(byte[] bytes) {
-		BitSet bits = new BitSet(bytes.length * 8);
-		// for each bit
-		for (int i = 0; i < bytes.length * 8; i++) {
-			if ((bytes[i / 8] & (0x80 >> (i % 8))) > 0) {
-				bits.set(i);
-			}
+	static BitSet toBitSet(byte[] bytes) {
+		// the first bit of the EPC is the MSB of the first byte but the lowest
+		// bit of the first long value of the bit set
+		long[] words = new long[(bytes.length + 7) / 8];
+		for (int i = 0; i < bytes.length; i++) {
+			words[i >> 3] |= (Integer.reverse(bytes[i] & 0xFF) >>> 24 & 0xFFL) << ((i & 7) << 3);
 		}
-		return bits;
+		return BitSet.valueOf(words);
 	}
 }
@@ -0,0 +1,595 @@
+package havis.llrpservice.server.stub;
+
+import havis.device.rf.RFConsumer;
+import havis.device.rf.capabilities.Capabilities;
+import havis.device.rf.capabilities.CapabilityType;
+import havis.device.rf.capabilities.DeviceCapabilities;
+import havis.device.rf.exception.ConnectionException;
+import havis.device.rf.exception.ImplementationException;
+import havis.device.rf.exception.ParameterException;
+import havis.device.rf.tag.Filter;
+import havis.device.rf.tag.TagData;
+import havis.device.rf.tag.operation.KillOperation;
+import havis.device.rf.tag.operation.LockOperation;
+import havis.device.rf.tag.operation.ReadOperation;
+import havis.device.rf.tag.operation.RequestOperation;
+import havis.device.rf.tag.operation.TagOperation;
+import havis.device.rf.tag.operation.WriteOperation;
+import havis.device.rf.tag.result.KillResult;
+import havis.device.rf.tag.result.LockResult;
+import havis.device.rf.tag.result.OperationResult;
+import havis.device.rf.tag.result.ReadResult;
+import havis.device.rf.tag.result.WriteResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A simulated RF device with a configurable tag population which can be used
+ * for load tests without hardware.
+ * <p>
+ * The device can be selected via the reflection configuration of the RFC
+ * interface (<code>havis.llrpservice.server.stub.RFDeviceSimulator</code>).
+ * The default constructor reads the settings from the system properties with
+ * the prefix {@value #PROPERTY_PREFIX}:
+ * </p>
+ * <ul>
+ * <li><code>tagPopulation</code>: the number of tags in the field (default:
+ * 100)</li>
+ * <li><code>epcLengths</code>: the EPC lengths in bits with their weights eg.
+ * <code>96:0.8,128:0.2</code> (default: <code>96:1</code>)</li>
+ * <li><code>antennaVisibility</code>: the probability for each antenna that a
+ * tag is seen by the antenna in an inventory round eg.
+ * <code>1:1.0,2:0.5</code> (default: <code>1:1</code>)</li>
+ * <li><code>churnRate</code>: the number of tags per second which leave the
+ * field and are replaced with new tags (default: 0)</li>
+ * <li><code>rssiMean</code>, <code>rssiStdDev</code>: the normal distribution
+ * of the RSSI values in dBm (default: -60, 5)</li>
+ * <li><code>userMemoryWords</code>: the size of the user memory bank in words
+ * (default: 32)</li>
+ * <li><code>readsPerSecond</code>: the target read rate. An inventory round
+ * takes at least the time which is required to report its tags with this rate
+ * (default: 0 for no limit).</li>
+ * <li><code>minRoundDuration</code>: the min. duration of an inventory round
+ * in ms (default: 2)</li>
+ * <li><code>seed</code>: the seed for the random number generator. With a
+ * fixed seed the tag population and the inventory results are reproducible
+ * (default: a random seed).</li>
+ * </ul>
+ * <p>
+ * Each tag provides the memory banks reserved (kill and access password), EPC
+ * (CRC, PC, EPC), TID and user. Filters are applied to the memory banks and
+ * read/write operations access them. A lock operation only checks the access
+ * password. A kill operation removes the tag from the population if the kill
+ * password is not zero and matches.
+ * </p>
+ */
+public class RFDeviceSimulator extends RFDeviceStub {
+
+	private static final Logger log = Logger.getLogger(RFDeviceSimulator.class.getName());
+
+	public static final String PROPERTY_PREFIX = "havis.llrpservice.server.stub.rfDeviceSimulator.";
+
+	private static final int RESERVED_BANK = 0;
+	private static final int EPC_BANK = 1;
+	private static final int TID_BANK = 2;
+	private static final int USER_BANK = 3;
+	// CRC + PC
+	private static final int EPC_BANK_HEADER_LENGTH = 4;
+	private static final int TID_LENGTH = 12;
+
+	private static class SimulatedTag {
+		final byte[][] banks = new byte[4][];
+	}
+
+	private final int tagPopulation;
+	private final int[] epcBitLengths;
+	private final double[] epcBitLengthWeights;
+	// index: antennaId - 1
+	private final double[] antennaVisibility;
+	private final double churnRate;
+	private final double rssiMean;
+	private final double rssiStdDev;
+	private final int userMemoryWords;
+	private final double readsPerSecond;
+	private final long minRoundDuration;
+	private final Random random;
+
+	private final List<SimulatedTag> tags = new ArrayList<>();
+	private long serialNumber = 0;
+	private long tagDataId = 0;
+	private long lastChurnTime;
+	private double pendingChurn = 0;
+	private RFConsumer consumer;
+
+	/**
+	 * Creates a simulator with the settings from the system properties.
+	 */
+	public RFDeviceSimulator() {
+		this(getSystemProperties());
+	}
+
+	/**
+	 * Creates a simulator.
+	 *
+	 * @param properties
+	 *            the settings with the keys described in the class comment
+	 *            (without the prefix {@value #PROPERTY_PREFIX})
+	 * @throws IllegalArgumentException
+	 *             if a setting is invalid
+	 */
+	public RFDeviceSimulator(Properties properties) {
+		tagPopulation = (int) getNumber(properties, "tagPopulation", 100);
+		TreeMap<Integer, Double> epcLengths = getMap(properties, "epcLengths", "96:1");
+		epcBitLengths = new int[epcLengths.size()];
+		epcBitLengthWeights = new double[epcLengths.size()];
+		int i = 0;
+		for (Integer bitLength : epcLengths.keySet()) {
+			if (bitLength <= 0 || bitLength > 496 || bitLength % 16 != 0) {
+				throw new IllegalArgumentException(
+						"Invalid EPC length " + bitLength + ": must be a multiple of 16 <= 496");
+			}
+			epcBitLengths[i] = bitLength;
+			epcBitLengthWeights[i] = epcLengths.get(bitLength);
+			i++;
+		}
+		TreeMap<Integer, Double> visibility = getMap(properties, "antennaVisibility", "1:1");
+		antennaVisibility = new double[visibility.lastKey()];
+		for (Integer antennaId : visibility.keySet()) {
+			if (antennaId < 1) {
+				throw new IllegalArgumentException("Invalid antenna identifier " + antennaId);
+			}
+			antennaVisibility[antennaId - 1] = visibility.get(antennaId);
+		}
+		churnRate = getNumber(properties, "churnRate", 0);
+		rssiMean = getNumber(properties, "rssiMean", -60);
+		rssiStdDev = getNumber(properties, "rssiStdDev", 5);
+		userMemoryWords = (int) getNumber(properties, "userMemoryWords", 32);
+		readsPerSecond = getNumber(properties, "readsPerSecond", 0);
+		minRoundDuration = (long) getNumber(properties, "minRoundDuration", 2);
+		String seed = getProperty(properties, "seed");
+		try {
+			random = seed == null ? new Random() : new Random(Long.parseLong(seed));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for seed: " + seed, e);
+		}
+
+		for (i = 0; i < tagPopulation; i++) {
+			tags.add(createTag());
+		}
+		lastChurnTime = System.nanoTime();
+		if (log.isLoggable(Level.INFO)) {
+			log.log(Level.INFO,
+					"Simulating {0} tags with EPC lengths {1}, antenna visibility {2}, churn rate {3}/s, {4} reads/s",
+					new Object[] { tagPopulation, epcLengths, visibility, churnRate,
+							readsPerSecond });
+		}
+	}
+
+	@Override
+	public void openConnection(RFConsumer consumer, int timeout)
+			throws ConnectionException, ImplementationException {
+		super.openConnection(consumer, timeout);
+		synchronized (tags) {
+			this.consumer = consumer;
+		}
+	}
+
+	@Override
+	public List<Capabilities> getCapabilities(CapabilityType type) {
+		List<Capabilities> caps = super.getCapabilities(type);
+		for (Capabilities cap : caps) {
+			if (cap instanceof DeviceCapabilities) {
+				((DeviceCapabilities) cap).setNumberOfAntennas((short) antennaVisibility.length);
+			}
+		}
+		return caps;
+	}
+
+	/**
+	 * @return the current number of tags in the field
+	 */
+	public int getTagCount() {
+		synchronized (tags) {
+			return tags.size();
+		}
+	}
+
+	@Override
+	public List<TagData> execute(List<Short> antennas, List<Filter> filter,
+			List<TagOperation> operations) throws ParameterException, ImplementationException {
+		long startTime = System.nanoTime();
+		List<TagData> result = new ArrayList<>();
+		List<SimulatedTag> field;
+		RFConsumer consumer;
+		// copy the tags in the field so that the consumer is not called while
+		// the lock is held
+		synchronized (tags) {
+			applyChurn(startTime);
+			field = new ArrayList<>(tags);
+			consumer = this.consumer;
+		}
+		Set<SimulatedTag> killedTags = new HashSet<>();
+		for (short antennaId : getAntennas(antennas)) {
+			double visibility = antennaVisibility[antennaId - 1];
+			for (SimulatedTag tag : field) {
+				if (killedTags.contains(tag) || random.nextDouble() >= visibility
+						|| !isSelected(tag, filter)) {
+					continue;
+				}
+				TagData tagData = createTagData(tag, antennaId);
+				if (execute(consumer, tag, tagData, operations)) {
+					killedTags.add(tag);
+				}
+				result.add(tagData);
+			}
+		}
+		if (!killedTags.isEmpty()) {
+			synchronized (tags) {
+				tags.removeAll(killedTags);
+			}
+		}
+		// pace the inventory round
+		long duration = TimeUnit.MILLISECONDS.toNanos(minRoundDuration);
+		if (readsPerSecond > 0) {
+			duration = Math.max(duration, (long) (result.size() * 1e9 / readsPerSecond));
+		}
+		long remaining = duration - (System.nanoTime() - startTime);
+		if (remaining > 0) {
+			try {
+				TimeUnit.NANOSECONDS.sleep(remaining);
+			} catch (InterruptedException e) {
+				throw new ImplementationException("Sleeping in 'execute' was interrupted", e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Replaces tags with new tags according to the churn rate.
+	 */
+	private void applyChurn(long now) {
+		pendingChurn += churnRate * (now - lastChurnTime) / 1e9;
+		lastChurnTime = now;
+		int count = (int) pendingChurn;
+		if (count == 0) {
+			return;
+		}
+		pendingChurn -= count;
+		for (int i = 0; i < count && !tags.isEmpty(); i++) {
+			// departure of a random tag and arrival of a new one
+			tags.set(random.nextInt(tags.size()), createTag());
+		}
+	}
+
+	private List<Short> getAntennas(List<Short> antennas) throws ParameterException {
+		if (antennas == null || antennas.isEmpty() || antennas.contains((short) 0)) {
+			List<Short> ret = new ArrayList<>();
+			for (short antennaId = 1; antennaId <= antennaVisibility.length; antennaId++) {
+				ret.add(antennaId);
+			}
+			return ret;
+		}
+		for (short antennaId : antennas) {
+			if (antennaId < 1 || antennaId > antennaVisibility.length) {
+				throw new ParameterException("Unknown antenna identifier " + antennaId);
+			}
+		}
+		return antennas;
+	}
+
+	/**
+	 * Returns whether all filters select a tag.
+	 */
+	private boolean isSelected(SimulatedTag tag, List<Filter> filters) {
+		if (filters == null) {
+			return true;
+		}
+		for (Filter filter : filters) {
+			if (filter.getBank() < 0 || filter.getBank() >= tag.banks.length) {
+				return false;
+			}
+			byte[] bank = tag.banks[filter.getBank()];
+			byte[] mask = filter.getMask();
+			byte[] data = filter.getData();
+			boolean isEqual = filter.getBitOffset() + filter.getBitLength() <= bank.length * 8;
+			for (int i = 0; isEqual && i < filter.getBitLength(); i++) {
+				if (mask == null || getBit(mask, i)) {
+					isEqual = getBit(bank, filter.getBitOffset() + i) == getBit(data, i);
+				}
+			}
+			if (isEqual != filter.isMatch()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Executes the operations for a tag.
+	 *
+	 * @param consumer
+	 *            the consumer which provides the requested operations
+	 * @return <code>true</code> if the tag has been killed
+	 */
+	private boolean execute(RFConsumer consumer, SimulatedTag tag, TagData tagData,
+			List<TagOperation> operations) {
+		if (operations == null) {
+			return false;
+		}
+		List<OperationResult> results = tagData.getResultList();
+		for (TagOperation op : operations) {
+			if (op instanceof RequestOperation) {
+				List<TagOperation> requestedOps = consumer.getOperations(tagData);
+				if (requestedOps != null) {
+					for (TagOperation requestedOp : requestedOps) {
+						if (requestedOp instanceof RequestOperation) {
+							continue;
+						}
+						if (execute(consumer, tag, tagData,
+								Collections.singletonList(requestedOp))) {
+							return true;
+						}
+					}
+				}
+				continue;
+			}
+			OperationResult result = execute(tag, op);
+			results.add(result);
+			if (result instanceof KillResult
+					&& ((KillResult) result).getResult() == KillResult.Result.SUCCESS) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private OperationResult execute(SimulatedTag tag, TagOperation op) {
+		boolean isAccessAllowed = isAccessAllowed(tag, op);
+		if (op instanceof ReadOperation) {
+			ReadOperation readOp = (ReadOperation) op;
+			ReadResult result = new ReadResult();
+			result.setOperationId(op.getOperationId());
+			byte[] bank = readOp.getBank() >= 0 && readOp.getBank() < tag.banks.length
+					? tag.banks[readOp.getBank()] : new byte[0];
+			int offset = readOp.getOffset() * 2;
+			// a length of 0 reads the whole bank from the offset
+			int length = readOp.getLength() == 0 ? bank.length - offset : readOp.getLength() * 2;
+			if (!isAccessAllowed) {
+				result.setResult(ReadResult.Result.INCORRECT_PASSWORD_ERROR);
+				result.setReadData(new byte[0]);
+			} else if (offset < 0 || length < 0 || offset + length > bank.length) {
+				result.setResult(ReadResult.Result.MEMORY_OVERRUN_ERROR);
+				result.setReadData(new byte[0]);
+			} else {
+				result.setResult(ReadResult.Result.SUCCESS);
+				result.setReadData(Arrays.copyOfRange(bank, offset, offset + length));
+			}
+			return result;
+		}
+		if (op instanceof WriteOperation) {
+			WriteOperation writeOp = (WriteOperation) op;
+			WriteResult result = new WriteResult();
+			result.setOperationId(op.getOperationId());
+			byte[] bank = writeOp.getBank() >= 0 && writeOp.getBank() < tag.banks.length
+					? tag.banks[writeOp.getBank()] : new byte[0];
+			int offset = writeOp.getOffset() * 2;
+			byte[] data = writeOp.getData() == null ? new byte[0] : writeOp.getData();
+			if (!isAccessAllowed) {
+				result.setResult(WriteResult.Result.INCORRECT_PASSWORD_ERROR);
+			} else if (writeOp.getBank() == TID_BANK) {
+				result.setResult(WriteResult.Result.MEMORY_LOCKED_ERROR);
+			} else if (offset < 0 || offset + data.length > bank.length) {
+				result.setResult(WriteResult.Result.MEMORY_OVERRUN_ERROR);
+			} else {
+				System.arraycopy(data, 0, bank, offset, data.length);
+				if (writeOp.getBank() == EPC_BANK) {
+					updateCrc(bank);
+				}
+				result.setWordsWritten((short) ((data.length + 1) / 2));
+				result.setResult(WriteResult.Result.SUCCESS);
+			}
+			return result;
+		}
+		if (op instanceof LockOperation) {
+			LockResult result = new LockResult();
+			result.setOperationId(op.getOperationId());
+			result.setResult(isAccessAllowed ? LockResult.Result.SUCCESS
+					: LockResult.Result.INCORRECT_PASSWORD_ERROR);
+			return result;
+		}
+		KillOperation killOp = (KillOperation) op;
+		KillResult result = new KillResult();
+		result.setOperationId(op.getOperationId());
+		int killPassword = getInt(tag.banks[RESERVED_BANK], 0);
+		if (killPassword == 0) {
+			result.setResult(KillResult.Result.ZERO_KILL_PASSWORD_ERROR);
+		} else if (killPassword != killOp.getKillPassword()) {
+			result.setResult(KillResult.Result.INCORRECT_PASSWORD_ERROR);
+		} else {
+			result.setResult(KillResult.Result.SUCCESS);
+		}
+		return result;
+	}
+
+	private boolean isAccessAllowed(SimulatedTag tag, TagOperation op) {
+		int accessPassword = getInt(tag.banks[RESERVED_BANK], 4);
+		if (accessPassword == 0) {
+			return true;
+		}
+		int password = 0;
+		if (op instanceof ReadOperation) {
+			password = ((ReadOperation) op).getPassword();
+		} else if (op instanceof WriteOperation) {
+			password = ((WriteOperation) op).getPassword();
+		} else if (op instanceof LockOperation) {
+			password = ((LockOperation) op).getPassword();
+		}
+		return password == accessPassword;
+	}
+
+	private TagData createTagData(SimulatedTag tag, short antennaId) {
+		byte[] epcBank = tag.banks[EPC_BANK];
+		short pc = (short) getShort(epcBank, 2);
+		// the EPC length is provided by the PC
+		int epcLength = Math.min(((pc >> 11) & 0x1F) * 2, epcBank.length - EPC_BANK_HEADER_LENGTH);
+		double rssi = rssiMean + random.nextGaussian() * rssiStdDev;
+
+		TagData tagData = new TagData();
+		tagData.setTagDataId(++tagDataId);
+		tagData.setEpc(Arrays.copyOfRange(epcBank, EPC_BANK_HEADER_LENGTH,
+				EPC_BANK_HEADER_LENGTH + epcLength));
+		tagData.setPc(pc);
+		tagData.setXpc(0);
+		tagData.setAntennaID(antennaId);
+		tagData.setRssi((byte) Math.max(Byte.MIN_VALUE, Math.min(Byte.MAX_VALUE, Math.round(rssi))));
+		tagData.setChannel((short) 1);
+		tagData.setCrc((short) getShort(epcBank, 0));
+		tagData.setResultList(new ArrayList<OperationResult>());
+		return tagData;
+	}
+
+	private SimulatedTag createTag() {
+		long serial = ++serialNumber;
+		// choose the EPC length
+		double totalWeight = 0;
+		for (double weight : epcBitLengthWeights) {
+			totalWeight += weight;
+		}
+		double r = random.nextDouble() * totalWeight;
+		int epcBitLength = epcBitLengths[epcBitLengths.length - 1];
+		for (int i = 0; i < epcBitLengths.length; i++) {
+			r -= epcBitLengthWeights[i];
+			if (r < 0) {
+				epcBitLength = epcBitLengths[i];
+				break;
+			}
+		}
+		// EPC: random data with the serial number in the last bytes
+		byte[] epc = new byte[epcBitLength / 8];
+		random.nextBytes(epc);
+		for (int i = 0; i < 8 && i < epc.length; i++) {
+			epc[epc.length - 1 - i] = (byte) (serial >> (8 * i));
+		}
+
+		SimulatedTag tag = new SimulatedTag();
+		tag.banks[RESERVED_BANK] = new byte[8];
+		byte[] epcBank = new byte[EPC_BANK_HEADER_LENGTH + epc.length];
+		int pc = (epc.length / 2) << 11;
+		epcBank[2] = (byte) (pc >> 8);
+		epcBank[3] = (byte) pc;
+		System.arraycopy(epc, 0, epcBank, EPC_BANK_HEADER_LENGTH, epc.length);
+		updateCrc(epcBank);
+		tag.banks[EPC_BANK] = epcBank;
+		// TID: class identifier E2 + random manufacturer, model and serial
+		byte[] tid = new byte[TID_LENGTH];
+		random.nextBytes(tid);
+		tid[0] = (byte) 0xE2;
+		tag.banks[TID_BANK] = tid;
+		byte[] user = new byte[userMemoryWords * 2];
+		random.nextBytes(user);
+		tag.banks[USER_BANK] = user;
+		return tag;
+	}
+
+	/**
+	 * Calculates the CRC-16 of the PC and the EPC and stores it in the first
+	 * word of the EPC bank.
+	 */
+	private static void updateCrc(byte[] epcBank) {
+		int crc = 0xFFFF;
+		for (int i = 2; i < epcBank.length; i++) {
+			crc ^= (epcBank[i] & 0xFF) << 8;
+			for (int j = 0; j < 8; j++) {
+				crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+			}
+		}
+		crc = ~crc & 0xFFFF;
+		epcBank[0] = (byte) (crc >> 8);
+		epcBank[1] = (byte) crc;
+	}
+
+	private static boolean getBit(byte[] data, int index) {
+		int byteIndex = index / 8;
+		return byteIndex < data.length && (data[byteIndex] & (0x80 >> (index % 8))) != 0;
+	}
+
+	private static int getShort(byte[] data, int offset) {
+		return (data[offset] & 0xFF) << 8 | (data[offset + 1] & 0xFF);
+	}
+
+	private static int getInt(byte[] data, int offset) {
+		return getShort(data, offset) << 16 | getShort(data, offset + 2);
+	}
+
+	private static Properties getSystemProperties() {
+		Properties ret = new Properties();
+		for (String key : System.getProperties().stringPropertyNames()) {
+			if (key.startsWith(PROPERTY_PREFIX)) {
+				ret.setProperty(key.substring(PROPERTY_PREFIX.length()), System.getProperty(key));
+			}
+		}
+		return ret;
+	}
+
+	private static String getProperty(Properties properties, String key) {
+		String value = properties.getProperty(key);
+		return value == null ? null : value.trim();
+	}
+
+	private static double getNumber(Properties properties, String key, double defaultValue) {
+		String value = getProperty(properties, key);
+		if (value == null || value.isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			double ret = Double.parseDouble(value);
+			if (ret < 0 && !key.startsWith("rssi")) {
+				throw new IllegalArgumentException(
+						"Invalid value for " + key + ": " + value + " (must not be negative)");
+			}
+			return ret;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+		}
+	}
+
+	/**
+	 * Parses a setting with the format <code>key:value,key:value</code>.
+	 */
+	private static TreeMap<Integer, Double> getMap(Properties properties, String key,
+			String defaultValue) {
+		String value = getProperty(properties, key);
+		if (value == null || value.isEmpty()) {
+			value = defaultValue;
+		}
+		TreeMap<Integer, Double> ret = new TreeMap<>();
+		try {
+			for (String entry : value.split(",")) {
+				String[] parts = entry.split(":");
+				if (parts.length != 2) {
+					throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+				}
+				double v = Double.parseDouble(parts[1].trim());
+				if (v < 0) {
+					throw new IllegalArgumentException(
+							"Invalid value for " + key + ": " + value + " (must not be negative)");
+				}
+				ret.put(Integer.valueOf(parts[0].trim()), v);
+			}
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+		}
+		return ret;
+	}
+}
@@ -0,0 +1,24 @@
+package havis.llrpservice.common.concurrent;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class NamedThreadFactoryTest {
+
+	@Test
+	public void newThread() {
+		Runnable task = new Runnable() {
+
+			@Override
+			public void run() {
+			}
+		};
+		NamedThreadFactory factory = new NamedThreadFactory("a-");
+		Thread t = factory.newThread(task);
+		assertEquals(t.getName(), "a-1");
+		assertTrue(t.isDaemon());
+		assertEquals(factory.newThread(task).getName(), "a-2");
+	}
+}
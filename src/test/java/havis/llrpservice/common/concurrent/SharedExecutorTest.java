@@ -0,0 +1,134 @@
+package havis.llrpservice.common.concurrent;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+public class SharedExecutorTest {
+
+	@Test
+	public void getInstance() {
+		assertSame(SharedExecutor.getInstance(), SharedExecutor.getInstance());
+	}
+
+	@Test
+	public void submit() throws Exception {
+		SharedExecutor executor = new SharedExecutor(1 /* schedulerThreads */,
+				2 /* maxWorkerThreads */);
+		final CountDownLatch started = new CountDownLatch(2);
+		final CountDownLatch finish = new CountDownLatch(1);
+		Runnable task = new Runnable() {
+
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					finish.await();
+				} catch (InterruptedException e) {
+				}
+			}
+		};
+		// start two long running tasks
+		Future<?> future1 = executor.submit(task);
+		Future<?> future2 = executor.submit(task);
+		assertTrue(started.await(3, TimeUnit.SECONDS));
+		assertEquals(executor.getWorkerThreadCount(), 2);
+		assertEquals(executor.getActiveWorkerThreadCount(), 2);
+		// a third task is queued because the pool is bounded
+		final CountDownLatch executed = new CountDownLatch(1);
+		Future<?> future3 = executor.submit(new Runnable() {
+
+			@Override
+			public void run() {
+				executed.countDown();
+			}
+		});
+		assertFalse(executed.await(100, TimeUnit.MILLISECONDS));
+		assertEquals(executor.getQueuedWorkerTaskCount(), 1);
+		assertEquals(executor.getWorkerThreadCount(), 2);
+		// the queued task is executed after a worker has become free
+		finish.countDown();
+		future1.get(3, TimeUnit.SECONDS);
+		future2.get(3, TimeUnit.SECONDS);
+		future3.get(3, TimeUnit.SECONDS);
+		assertEquals(executor.getQueuedWorkerTaskCount(), 0);
+		assertEquals(executor.getLargestWorkerThreadCount(), 2);
+	}
+
+	@Test
+	public void submitLoop() throws Exception {
+		SharedExecutor executor = new SharedExecutor(1 /* schedulerThreads */,
+				1 /* maxWorkerThreads */);
+		final CountDownLatch started = new CountDownLatch(3);
+		final CountDownLatch finish = new CountDownLatch(1);
+		Runnable loop = new Runnable() {
+
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					finish.await();
+				} catch (InterruptedException e) {
+				}
+			}
+		};
+		// the loops are started immediately although they exceed the max.
+		// number of workers
+		Future<?> future1 = executor.submitLoop(loop);
+		Future<?> future2 = executor.submitLoop(loop);
+		Future<?> future3 = executor.submitLoop(loop);
+		assertTrue(started.await(3, TimeUnit.SECONDS));
+		assertEquals(executor.getLoopThreadCount(), 3);
+		// the loops do not occupy the workers
+		assertEquals(executor.getWorkerThreadCount(), 0);
+		finish.countDown();
+		future1.get(3, TimeUnit.SECONDS);
+		future2.get(3, TimeUnit.SECONDS);
+		future3.get(3, TimeUnit.SECONDS);
+
+		// an idle thread is reused
+		final CountDownLatch executed = new CountDownLatch(1);
+		executor.submitLoop(new Runnable() {
+
+			@Override
+			public void run() {
+				executed.countDown();
+			}
+		}).get(3, TimeUnit.SECONDS);
+		assertTrue(executed.await(3, TimeUnit.SECONDS));
+		assertEquals(executor.getLoopThreadCount(), 3);
+	}
+
+	@Test
+	public void scheduleAtFixedRate() throws Exception {
+		SharedExecutor executor = new SharedExecutor(1 /* schedulerThreads */,
+				1 /* maxWorkerThreads */);
+		final AtomicInteger count = new AtomicInteger();
+		final CountDownLatch executed = new CountDownLatch(3);
+		ScheduledFuture<?> future = executor.scheduleAtFixedRate(new Runnable() {
+
+			@Override
+			public void run() {
+				count.incrementAndGet();
+				executed.countDown();
+			}
+		}, 50 /* initialDelay */, 50 /* period */, TimeUnit.MILLISECONDS);
+		assertTrue(executed.await(3, TimeUnit.SECONDS));
+		future.cancel(false);
+		int c = count.get();
+		Thread.sleep(200);
+		assertEquals(count.get(), c);
+		assertEquals(executor.getSchedulerThreadCount(), 1);
+		assertTrue(executor.getSchedulerLag() >= 0);
+		assertTrue(executor.getMaxSchedulerLag() >= executor.getSchedulerLag());
+	}
+}
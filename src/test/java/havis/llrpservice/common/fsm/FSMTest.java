@@ -125,6 +125,13 @@ public class FSMTest {
 		assertEquals(fsm.getMaxHistorySize(), 1);
 		assertEquals(fsm.getHistory().size(), 1);
 		assertEquals(fsm.getHistory().get(0).getSrcState(), s2);
+		// the history cannot be modified
+		try {
+			fsm.getHistory().add(fsm.getHistory().get(0));
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+		assertEquals(fsm.getHistory().size(), 1);
 
 		// change from s1 to s2 with a full history
 		// the oldest entry of the history is removed
@@ -167,14 +174,15 @@ public class FSMTest {
 
 		// recreate FSM with an existing history but max history size == 0
 		// the initial state is the destination state of the history entry
-		// the existing history entry is removed
+		// the existing history entry is not copied (the given list is not
+		// modified)
 		List<StateConnection<Event>> history = new ArrayList<>();
 		history.add(new StateConnection<FSMTest.Event>(s1, e1, t1, s2));
 		fsm = new FSM<>("fsm", history, 0 /* maxHistorySize */);
 		assertEquals(fsm.getCurrentState(), s2);
 		assertEquals(fsm.getMaxHistorySize(), 0);
 		assertEquals(fsm.getHistory().size(), 0);
-		assertEquals(history.size(), 0);
+		assertEquals(history.size(), 1);
 
 		// recreate FSM with an existing history and max history size == 1
 		// the initial state is the destination state of the history entry
@@ -0,0 +1,81 @@
+package havis.llrpservice.common.fsm;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+public class RingBufferTest {
+
+	@Test
+	public void addGetClear() {
+		RingBuffer<Integer> buffer = new RingBuffer<>(3 /* capacity */);
+		assertEquals(buffer.getCapacity(), 3);
+		assertEquals(buffer.size(), 0);
+		assertFalse(buffer.isFull());
+
+		buffer.add(1);
+		buffer.add(2);
+		assertEquals(buffer, Arrays.asList(1, 2));
+		buffer.add(3);
+		assertTrue(buffer.isFull());
+		assertEquals(buffer, Arrays.asList(1, 2, 3));
+
+		// the oldest entries are replaced
+		buffer.add(4);
+		buffer.add(5);
+		assertEquals(buffer, Arrays.asList(3, 4, 5));
+		assertEquals(buffer.get(0).intValue(), 3);
+		assertEquals(buffer.get(2).intValue(), 5);
+		try {
+			buffer.get(3);
+			fail();
+		} catch (IndexOutOfBoundsException e) {
+		}
+
+		// entries cannot be removed
+		try {
+			buffer.remove(0);
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+
+		buffer.clear();
+		assertEquals(buffer.size(), 0);
+		buffer.add(6);
+		assertEquals(buffer, Arrays.asList(6));
+
+		// without capacity no entry is added
+		buffer = new RingBuffer<>(0 /* capacity */);
+		assertFalse(buffer.add(1));
+		assertEquals(buffer.size(), 0);
+	}
+
+	@Test
+	public void setCapacity() {
+		RingBuffer<Integer> buffer = new RingBuffer<>(3 /* capacity */);
+		for (int i = 1; i <= 5; i++) {
+			buffer.add(i);
+		}
+		// increase the capacity
+		assertEquals(buffer.setCapacity(4), 0);
+		assertEquals(buffer, Arrays.asList(3, 4, 5));
+		buffer.add(6);
+		buffer.add(7);
+		assertEquals(buffer, Arrays.asList(4, 5, 6, 7));
+
+		// decrease the capacity: the oldest entries are removed
+		assertEquals(buffer.setCapacity(2), 2);
+		assertEquals(buffer.getCapacity(), 2);
+		assertEquals(buffer, Arrays.asList(6, 7));
+		buffer.add(8);
+		assertEquals(buffer, Arrays.asList(7, 8));
+
+		assertEquals(buffer.setCapacity(0), 2);
+		assertEquals(buffer.size(), 0);
+	}
+}
@@ -1,5 +1,7 @@
 package havis.llrpservice.common.fsm;
 
+import java.util.List;
+
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -54,4 +56,33 @@ public class StateTest {
 		s1.addExitAction(action);
 		Assert.assertEquals(s1.getExitActions().get(0), action);
 	}
+
+	class KeyedEventImpl implements KeyedEvent {
+		private final Object key;
+
+		KeyedEventImpl(Object key) {
+			this.key = key;
+		}
+
+		@Override
+		public Object getEventKey() {
+			return key;
+		}
+	}
+
+	@Test
+	public void getConnectionsKeyedEvent() {
+		// connections are looked up by the key of an event
+		State<KeyedEventImpl> s1 = new State<>("s1");
+		s1.addConnection(new KeyedEventImpl(Event.A), new Transition<KeyedEventImpl>("t1"),
+				new State<KeyedEventImpl>("s2"));
+		s1.addConnection(new KeyedEventImpl(Event.A), new Transition<KeyedEventImpl>("t2"),
+				new State<KeyedEventImpl>("s3"));
+		List<StateConnection<KeyedEventImpl>> connections = s1
+				.getConnections(new KeyedEventImpl(Event.A));
+		Assert.assertEquals(connections.size(), 2);
+		Assert.assertEquals(connections.get(0).getTransition().getName(), "t1");
+		Assert.assertEquals(connections.get(1).getTransition().getName(), "t2");
+		Assert.assertTrue(s1.getConnections(new KeyedEventImpl(Event.B)).isEmpty());
+	}
 }
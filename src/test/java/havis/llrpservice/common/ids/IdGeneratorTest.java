@@ -1,5 +1,14 @@
 package havis.llrpservice.common.ids;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -12,4 +21,67 @@ public class IdGeneratorTest {
 		Assert.assertEquals(IdGenerator.getNextLongId(), 2);
 		Assert.assertEquals(IdGenerator.getNextLongId(), 3);
 	}
+
+	@Test
+	public void getNextIdBlocks() throws Exception {
+		final IdGenerator generator = new IdGenerator(3 /* blockSize */);
+		// the identifiers of a thread are taken from its block
+		Assert.assertEquals(generator.getNextId(), 1);
+		Assert.assertEquals(generator.getNextId(), 2);
+		ExecutorService threadPool = Executors.newSingleThreadExecutor();
+		try {
+			Callable<Long> task = new Callable<Long>() {
+				@Override
+				public Long call() throws Exception {
+					return generator.getNextId();
+				}
+			};
+			// another thread reserves the next block
+			Assert.assertEquals(threadPool.submit(task).get().longValue(), 4);
+			Assert.assertEquals(generator.getNextId(), 3);
+			// the block of the thread is exhausted
+			Assert.assertEquals(generator.getNextId(), 7);
+			Assert.assertEquals(threadPool.submit(task).get().longValue(), 5);
+
+			// after a reset all blocks are discarded
+			generator.reset();
+			Assert.assertEquals(generator.getNextId(), 1);
+			Assert.assertEquals(threadPool.submit(task).get().longValue(), 4);
+		} finally {
+			threadPool.shutdown();
+		}
+	}
+
+	@Test
+	public void getNextIdConcurrently() throws Exception {
+		for (int blockSize : new int[] { 1, 16 }) {
+			final IdGenerator generator = new IdGenerator(blockSize);
+			int threadCount = 8;
+			final int idCount = 10000;
+			ExecutorService threadPool = Executors.newFixedThreadPool(threadCount);
+			try {
+				List<Future<List<Long>>> futures = new ArrayList<>();
+				for (int i = 0; i < threadCount; i++) {
+					futures.add(threadPool.submit(new Callable<List<Long>>() {
+						@Override
+						public List<Long> call() throws Exception {
+							List<Long> ids = new ArrayList<>(idCount);
+							for (int j = 0; j < idCount; j++) {
+								ids.add(generator.getNextId());
+							}
+							return ids;
+						}
+					}));
+				}
+				// all identifiers are unique
+				Set<Long> ids = new HashSet<>();
+				for (Future<List<Long>> future : futures) {
+					ids.addAll(future.get());
+				}
+				Assert.assertEquals(ids.size(), threadCount * idCount);
+			} finally {
+				threadPool.shutdown();
+			}
+		}
+	}
 }
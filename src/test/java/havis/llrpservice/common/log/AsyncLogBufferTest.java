@@ -0,0 +1,145 @@
+package havis.llrpservice.common.log;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.testng.annotations.Test;
+
+public class AsyncLogBufferTest {
+
+	private static class TestHandler extends Handler {
+		final List<LogRecord> records = new CopyOnWriteArrayList<>();
+
+		@Override
+		public void publish(LogRecord record) {
+			records.add(record);
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() throws SecurityException {
+		}
+	}
+
+	@Test
+	public void format() {
+		StringBuilder dest = new StringBuilder();
+		AsyncLogBuffer.format(dest, "{0}: Sending {1} (id={2}, {3} bytes) {4} {x", "a",
+				"b", 3, 4);
+		assertEquals(dest.toString(), "a: Sending b (id=3, 4 bytes) {4} {x");
+
+		dest.setLength(0);
+		AsyncLogBuffer.format(dest, "{1}{0}{", null, "b", 3, 4);
+		assertEquals(dest.toString(), "bnull{");
+	}
+
+	@Test
+	public void log() throws Exception {
+		Logger logger = Logger.getLogger(AsyncLogBufferTest.class.getName() + ".log");
+		TestHandler handler = new TestHandler();
+		logger.addHandler(handler);
+		logger.setUseParentHandlers(false);
+		logger.setLevel(Level.INFO);
+		try {
+			AsyncLogBuffer buffer = new AsyncLogBuffer(3);
+			// the capacity is rounded up to a power of two
+			assertEquals(buffer.getCapacity(), 4);
+			AsyncLogger asyncLogger = new AsyncLogger(logger, buffer);
+
+			// the buffer is filled without a worker
+			for (int i = 0; i < 4; i++) {
+				asyncLogger.log(Level.INFO, "{0} {2}", "a", null /* arg1 */, i, 0 /* arg3 */);
+			}
+			// a disabled level is ignored
+			asyncLogger.log(Level.FINE, "{0}", "b", null /* arg1 */, 0, 0);
+			assertEquals(buffer.getDroppedCount(), 0);
+			// the buffer is full
+			assertFalse(buffer.add(logger, Level.INFO, "c", null, null, 0, 0));
+			assertEquals(buffer.getDroppedCount(), 1);
+			assertFalse(buffer.flush(100 /* timeout */));
+
+			// start the worker
+			buffer.start();
+			assertTrue(buffer.flush(3000 /* timeout */));
+			assertEquals(handler.records.size(), 4);
+			for (int i = 0; i < 4; i++) {
+				LogRecord record = handler.records.get(i);
+				assertEquals(record.getLevel(), Level.INFO);
+				assertEquals(record.getMessage(), "a " + i);
+				assertEquals(record.getLoggerName(), logger.getName());
+			}
+
+			// the slots are reused
+			for (int i = 0; i < 10; i++) {
+				assertTrue(buffer.add(logger, Level.INFO, "d{2}", null, null, i, 0));
+				assertTrue(buffer.flush(3000 /* timeout */));
+			}
+			assertEquals(handler.records.size(), 14);
+			assertEquals(handler.records.get(13).getMessage(), "d9");
+			assertEquals(buffer.getDroppedCount(), 1);
+		} finally {
+			logger.removeHandler(handler);
+		}
+	}
+
+	@Test
+	public void formatError() throws Exception {
+		Logger logger = Logger.getLogger(AsyncLogBufferTest.class.getName() + ".formatError");
+		TestHandler handler = new TestHandler();
+		logger.addHandler(handler);
+		logger.setUseParentHandlers(false);
+		logger.setLevel(Level.INFO);
+		Object invalidArg = new Object() {
+			@Override
+			public String toString() {
+				throw new IllegalStateException("huhu");
+			}
+		};
+		AsyncLogBuffer buffer = new AsyncLogBuffer(2);
+		buffer.start();
+		try {
+			// a record which cannot be formatted is skipped
+			for (int i = 0; i < 4; i++) {
+				assertTrue(buffer.add(logger, Level.INFO, "{0}", invalidArg, null, 0, 0));
+				assertTrue(buffer.flush(3000 /* timeout */));
+			}
+			assertTrue(handler.records.isEmpty());
+			// the worker is still running and the slots have been released
+			for (int i = 0; i < 4; i++) {
+				assertTrue(buffer.add(logger, Level.INFO, "a{2}", null, null, i, 0));
+				assertTrue(buffer.flush(3000 /* timeout */));
+			}
+			assertEquals(handler.records.size(), 4);
+			assertEquals(handler.records.get(3).getMessage(), "a3");
+			assertEquals(buffer.getDroppedCount(), 0);
+		} finally {
+			buffer.stop();
+			logger.removeHandler(handler);
+		}
+	}
+
+	@Test
+	public void get() {
+		assertFalse(AsyncLogger.isEnabled("havis.llrpservice.csc.llrp.X", null));
+		assertFalse(AsyncLogger.isEnabled("havis.llrpservice.csc.llrp.X", ""));
+		assertTrue(AsyncLogger.isEnabled("havis.llrpservice.csc.llrp.X",
+				"havis.llrpservice.sbc, havis.llrpservice.csc.llrp"));
+		assertFalse(AsyncLogger.isEnabled("havis.llrpservice.common.X",
+				"havis.llrpservice.sbc, havis.llrpservice.csc.llrp"));
+
+		// the asynchronous logging is disabled by default
+		assertNull(AsyncLogger.get(Logger.getLogger(AsyncLogBufferTest.class.getName())));
+	}
+}
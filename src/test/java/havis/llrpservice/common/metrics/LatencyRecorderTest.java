@@ -0,0 +1,79 @@
+package havis.llrpservice.common.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class LatencyRecorderTest {
+
+	@Test
+	public void record() {
+		LatencyRecorder recorder = new LatencyRecorder();
+		assertEquals(recorder.getCount(), 0);
+		assertEquals(recorder.getMean(), 0);
+
+		recorder.record(10);
+		recorder.record(30);
+		recorder.record(-5);
+		assertEquals(recorder.getCount(), 3);
+		assertEquals(recorder.getLast(), 0);
+		assertEquals(recorder.getMax(), 30);
+		assertEquals(recorder.getMean(), 40 / 3);
+
+		recorder.recordSince(System.nanoTime());
+		assertEquals(recorder.getCount(), 4);
+		assertTrue(recorder.getLast() >= 0);
+
+		recorder.reset();
+		assertEquals(recorder.getCount(), 0);
+		assertEquals(recorder.getMax(), 0);
+	}
+
+	@Test
+	public void percentile() {
+		LatencyRecorder recorder = new LatencyRecorder();
+		assertEquals(recorder.getPercentile(50), 0);
+
+		// small latencies are recorded exactly
+		for (int i = 1; i <= 4; i++) {
+			recorder.record(i);
+		}
+		assertEquals(recorder.getPercentile(50), 2);
+		assertEquals(recorder.getPercentile(100), 4);
+		assertEquals(recorder.getPercentile(0), 1);
+
+		// 98 latencies of 1ms and 2 latencies of 1s
+		recorder.reset();
+		for (int i = 0; i < 98; i++) {
+			recorder.record(1000000);
+		}
+		recorder.record(1000000000);
+		recorder.record(1000000000);
+		long p50 = recorder.getPercentile(50);
+		assertTrue(p50 >= 1000000 && p50 < 1125000, "" + p50);
+		long p98 = recorder.getPercentile(98);
+		assertTrue(p98 >= 1000000 && p98 < 1125000, "" + p98);
+		// the percentile is limited by the maximum
+		assertEquals(recorder.getPercentile(99), 1000000000);
+		assertEquals(recorder.getPercentile(100), 1000000000);
+
+		recorder.reset();
+		assertEquals(recorder.getPercentile(99), 0);
+	}
+
+	@Test
+	public void bucket() {
+		// each latency is covered by its bucket
+		long[] latencies = { 0, 1, 7, 8, 15, 16, 17, 18, 1000, 123456789, Long.MAX_VALUE / 3,
+				Long.MAX_VALUE };
+		for (long latency : latencies) {
+			int index = LatencyRecorder.getBucketIndex(latency);
+			assertTrue(LatencyRecorder.getBucketUpperBound(index) >= latency);
+			if (index > 0) {
+				assertTrue(LatencyRecorder.getBucketUpperBound(index - 1) < latency);
+			}
+		}
+		assertEquals(LatencyRecorder.getBucketUpperBound(LatencyRecorder.getBucketIndex(16)), 17);
+	}
+}
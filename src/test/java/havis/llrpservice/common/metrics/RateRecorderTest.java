@@ -0,0 +1,35 @@
+package havis.llrpservice.common.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class RateRecorderTest {
+
+	@Test
+	public void record() throws Exception {
+		RateRecorder recorder = new RateRecorder();
+		assertEquals(recorder.getTotal(), 0);
+		assertEquals(recorder.getRate(), 0.0);
+
+		recorder.record(100);
+		recorder.record(200);
+		assertEquals(recorder.getTotal(), 300);
+		// the first interval has not been completed yet
+		assertEquals(recorder.getRate(), 0.0);
+
+		Thread.sleep(1100);
+		double rate = recorder.getRate();
+		// 300 per 1.1s (the interval may be a bit longer)
+		assertTrue(rate > 150 && rate <= 300, "" + rate);
+
+		// no amounts have been recorded in the next interval
+		Thread.sleep(1100);
+		assertEquals(recorder.getRate(), 0.0);
+
+		recorder.reset();
+		assertEquals(recorder.getTotal(), 0);
+		assertEquals(recorder.getRate(), 0.0);
+	}
+}
@@ -0,0 +1,133 @@
+package havis.llrpservice.common.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class TagReadTracerTest {
+
+	@Test
+	public void startTrace() throws Exception {
+		// tracing is disabled
+		TagReadTracer tracer = new TagReadTracer("a", 0 /* sampleInterval */, null /* file */);
+		for (int i = 0; i < 5; i++) {
+			assertNull(tracer.startTrace());
+		}
+
+		// every third execution is traced
+		tracer = new TagReadTracer("a", 3 /* sampleInterval */, null /* file */);
+		assertNull(tracer.startTrace());
+		assertNull(tracer.startTrace());
+		TagReadTrace trace = tracer.startTrace();
+		assertNotNull(trace);
+		assertTrue(trace.getTimestamp(TagReadStage.EXECUTED) > 0);
+		assertEquals(trace.getTimestamp(TagReadStage.DEQUEUED), 0);
+		assertNull(tracer.startTrace());
+	}
+
+	@Test
+	public void stamp() throws Exception {
+		TagReadTracer tracer = new TagReadTracer("a", 1 /* sampleInterval */, null /* file */);
+		TagReadTrace trace = tracer.startTrace();
+		trace.stamp(TagReadStage.RFC_RECEIVED);
+		// skip stage DEQUEUED
+		trace.stamp(TagReadStage.REPORT_CREATED);
+		long reportCreated = trace.getTimestamp(TagReadStage.REPORT_CREATED);
+		// a previous stage is ignored
+		trace.stamp(TagReadStage.DEQUEUED);
+		trace.stamp(TagReadStage.REPORT_CREATED);
+		assertEquals(trace.getTimestamp(TagReadStage.DEQUEUED), 0);
+		assertEquals(trace.getTimestamp(TagReadStage.REPORT_CREATED), reportCreated);
+
+		assertEquals(tracer.getStageLatency(TagReadStage.EXECUTED).getCount(), 0);
+		assertEquals(tracer.getStageLatency(TagReadStage.RFC_RECEIVED).getCount(), 1);
+		assertEquals(tracer.getStageLatency(TagReadStage.DEQUEUED).getCount(), 0);
+		assertEquals(tracer.getStageLatency(TagReadStage.REPORT_CREATED).getCount(), 1);
+		// the trace has not been completed yet
+		assertEquals(tracer.getTotalLatency().getCount(), 0);
+	}
+
+	@Test
+	public void sendingSent() throws Exception {
+		TagReadTracer tracer = new TagReadTracer("a", 1 /* sampleInterval */, null /* file */);
+		TagReadTrace trace1 = tracer.startTrace();
+		TagReadTrace trace2 = tracer.startTrace();
+		trace1.stamp(TagReadStage.TRIGGERED);
+		trace2.stamp(TagReadStage.TRIGGERED);
+
+		// nothing is registered for an empty list
+		tracer.sending(3 /* messageId */, new ArrayList<TagReadTrace>());
+		tracer.sending(4 /* messageId */, Arrays.asList(trace1, trace2));
+		assertTrue(trace1.getTimestamp(TagReadStage.SEND_REQUESTED) > 0);
+		assertEquals(trace1.getTimestamp(TagReadStage.SENT), 0);
+
+		// an unknown message has been sent
+		tracer.sent(5 /* messageId */);
+		assertEquals(tracer.getTotalLatency().getCount(), 0);
+
+		Thread.sleep(10);
+		tracer.sent(4 /* messageId */);
+		assertTrue(trace2.getTimestamp(TagReadStage.SENT) > 0);
+		assertEquals(tracer.getStageLatency(TagReadStage.SENT).getCount(), 2);
+		assertEquals(tracer.getTotalLatency().getCount(), 2);
+		assertTrue(tracer.getTotalLatency().getMax() >= 10000000);
+
+		// the traces have been removed
+		tracer.sent(4 /* messageId */);
+		assertEquals(tracer.getTotalLatency().getCount(), 2);
+
+		// the traces of a message which is not sent are removed
+		TagReadTrace trace3 = tracer.startTrace();
+		tracer.sending(6 /* messageId */, Arrays.asList(trace3));
+		tracer.clear();
+		tracer.sent(6 /* messageId */);
+		assertEquals(trace3.getTimestamp(TagReadStage.SENT), 0);
+		assertEquals(tracer.getTotalLatency().getCount(), 2);
+	}
+
+	@Test
+	public void file() throws Exception {
+		Path dir = Files.createTempDirectory("tagReadTracer");
+		Path file = dir.resolve("traces.csv");
+		try {
+			TagReadTracer tracer = new TagReadTracer("a", 1 /* sampleInterval */, file);
+			for (int i = 0; i < 2; i++) {
+				TagReadTrace trace = tracer.startTrace();
+				trace.stamp(TagReadStage.DEQUEUED);
+				trace.stamp(TagReadStage.SENT);
+			}
+			// the lines are written asynchronously
+			List<String> lines = new ArrayList<>();
+			for (int i = 0; i < 50 && lines.size() < 3; i++) {
+				Thread.sleep(100);
+				if (Files.exists(file)) {
+					lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+				}
+			}
+			assertEquals(lines.size(), 3);
+			assertEquals(lines.get(0), "name;EXECUTED;RFC_RECEIVED;DEQUEUED;REPORT_CREATED;"
+					+ "STORED;TRIGGERED;SEND_REQUESTED;SENT");
+			String[] values = lines.get(1).split(";", -1);
+			assertEquals(values.length, 9);
+			assertEquals(values[0], "a");
+			assertEquals(values[1], "0");
+			assertEquals(values[2], "");
+			assertTrue(Long.parseLong(values[3]) >= 0);
+			assertEquals(values[7], "");
+			assertTrue(Long.parseLong(values[8]) >= Long.parseLong(values[3]));
+		} finally {
+			Files.deleteIfExists(file);
+			Files.delete(dir);
+		}
+	}
+}
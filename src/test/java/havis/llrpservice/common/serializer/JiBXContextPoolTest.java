@@ -0,0 +1,65 @@
+package havis.llrpservice.common.serializer;
+
+import org.jibx.runtime.IMarshallingContext;
+import org.jibx.runtime.IUnmarshallingContext;
+import org.jibx.runtime.JiBXException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import havis.LLRP.generated.TestClassType;
+
+public class JiBXContextPoolTest {
+
+	@Test
+	public void get() throws Exception {
+		// the pool is created once per class
+		JiBXContextPool pool = JiBXContextPool.get(TestClassType.class);
+		Assert.assertSame(JiBXContextPool.get(TestClassType.class), pool);
+		Assert.assertNotNull(pool.getFactory());
+
+		// a class without binding
+		try {
+			JiBXContextPool.get(String.class);
+			Assert.fail();
+		} catch (JiBXException e) {
+		}
+	}
+
+	@Test
+	public void acquireRelease() throws Exception {
+		JiBXContextPool pool = JiBXContextPool.get(TestClassType.class);
+		pool.clear();
+		// released contexts are reused
+		IMarshallingContext mctx1 = pool.acquireMarshallingContext();
+		IMarshallingContext mctx2 = pool.acquireMarshallingContext();
+		Assert.assertNotSame(mctx2, mctx1);
+		pool.release(mctx1);
+		Assert.assertSame(pool.acquireMarshallingContext(), mctx1);
+		pool.release(mctx1);
+		pool.release(mctx2);
+
+		IUnmarshallingContext uctx1 = pool.acquireUnmarshallingContext();
+		IUnmarshallingContext uctx2 = pool.acquireUnmarshallingContext();
+		Assert.assertNotSame(uctx2, uctx1);
+		pool.release(uctx1);
+		Assert.assertSame(pool.acquireUnmarshallingContext(), uctx1);
+		pool.release(uctx1);
+		pool.release(uctx2);
+
+		// the number of idle contexts is limited
+		IUnmarshallingContext[] contexts = new IUnmarshallingContext[JiBXContextPool.MAX_IDLE_CONTEXTS
+				+ 1];
+		for (int i = 0; i < contexts.length; i++) {
+			contexts[i] = pool.acquireUnmarshallingContext();
+		}
+		for (IUnmarshallingContext ctx : contexts) {
+			pool.release(ctx);
+		}
+		for (int i = 0; i < JiBXContextPool.MAX_IDLE_CONTEXTS; i++) {
+			Assert.assertSame(pool.acquireUnmarshallingContext(), contexts[i]);
+		}
+		// the last context has been discarded
+		Assert.assertNotSame(pool.acquireUnmarshallingContext(),
+				contexts[JiBXContextPool.MAX_IDLE_CONTEXTS]);
+	}
+}
@@ -0,0 +1,54 @@
+package havis.llrpservice.common.serializer;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import javax.xml.validation.Schema;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import havis.LLRP.generated.TestClassType;
+
+public class XMLSchemaCacheTest {
+
+	@Test
+	public void get() throws Exception {
+		File xsdFile = new File(
+				getClass().getResource("/havis/llrpservice/common/serializer/TestClass.xsd").toURI());
+		Path tmpDir = Files.createTempDirectory("xmlSchemaCacheTest");
+		Path tmpXsdFile = tmpDir.resolve("TestClass.xsd");
+		try {
+			Files.copy(xsdFile.toPath(), tmpXsdFile);
+			XMLSchemaCache.clear();
+
+			// the schema is compiled once
+			Schema schema = XMLSchemaCache.get(tmpXsdFile.toFile());
+			Assert.assertSame(XMLSchemaCache.get(tmpXsdFile.toFile()), schema);
+			Assert.assertSame(
+					XMLSchemaCache.get(tmpXsdFile.toAbsolutePath().toFile()), schema);
+
+			// the schema is compiled again if the file has been modified
+			Files.copy(xsdFile.toPath(), tmpXsdFile, StandardCopyOption.REPLACE_EXISTING);
+			tmpXsdFile.toFile().setLastModified(tmpXsdFile.toFile().lastModified() + 2000);
+			Schema schema2 = XMLSchemaCache.get(tmpXsdFile.toFile());
+			Assert.assertNotSame(schema2, schema);
+			Assert.assertSame(XMLSchemaCache.get(tmpXsdFile.toFile()), schema2);
+
+			// the schema is shared by the serializers
+			XMLSerializer<TestClassType> serializer1 = new XMLSerializer<>(TestClassType.class);
+			serializer1.setSchema(tmpXsdFile.toFile());
+			XMLSerializer<TestClassType> serializer2 = new XMLSerializer<>(TestClassType.class);
+			serializer2.setSchema(tmpXsdFile.toFile());
+			Assert.assertSame(XMLSchemaCache.get(tmpXsdFile.toFile()), schema2);
+
+			XMLSchemaCache.clear();
+			Assert.assertNotSame(XMLSchemaCache.get(tmpXsdFile.toFile()), schema2);
+		} finally {
+			Files.deleteIfExists(tmpXsdFile);
+			Files.delete(tmpDir);
+		}
+	}
+}
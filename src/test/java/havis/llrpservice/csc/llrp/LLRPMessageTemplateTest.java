@@ -0,0 +1,109 @@
+package havis.llrpservice.csc.llrp;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import havis.llrpservice.data.message.Keepalive;
+import havis.llrpservice.data.message.Message;
+import havis.llrpservice.data.message.MessageHeader;
+import havis.llrpservice.data.message.ProtocolVersion;
+import havis.llrpservice.data.message.ReaderEventNotification;
+import havis.llrpservice.data.message.parameter.ConnectionAttemptEvent;
+import havis.llrpservice.data.message.parameter.ConnectionAttemptEventStatusType;
+import havis.llrpservice.data.message.parameter.ReaderEventNotificationData;
+import havis.llrpservice.data.message.parameter.TLVParameterHeader;
+import havis.llrpservice.data.message.parameter.UTCTimestamp;
+import havis.llrpservice.data.message.parameter.Uptime;
+import havis.llrpservice.data.message.serializer.ByteBufferSerializer;
+
+@Test
+public class LLRPMessageTemplateTest {
+
+	/**
+	 * Create a template for a keep alive message and create the data for a
+	 * message identifier.
+	 * <p>
+	 * Expected:
+	 * <ul>
+	 * <li>The template does not contain a time stamp.
+	 * <li>The deserialized data contains the message identifier.
+	 * </ul>
+	 * </p>
+	 */
+	public void keepalive() throws Exception {
+		LLRPMessageTemplate template = new LLRPMessageTemplate(
+				new Keepalive(new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_1, 0 /* id */)));
+		Assert.assertFalse(template.hasTimestamp());
+
+		ByteBuffer data = template.createData(0xFFFFFFFFL /* id */, 123 /* timestamp */);
+		Assert.assertEquals(data.remaining(), template.getLength());
+		Message message = deserialize(data);
+		Assert.assertEquals(message.getMessageHeader().getMessageType(),
+				template.getMessage().getMessageHeader().getMessageType());
+		Assert.assertEquals(message.getMessageHeader().getVersion(), ProtocolVersion.LLRP_V1_1);
+		Assert.assertEquals(message.getMessageHeader().getId(), 0xFFFFFFFFL);
+
+		// the template can be used multiple times
+		message = deserialize(template.createData(3 /* id */, 0 /* timestamp */));
+		Assert.assertEquals(message.getMessageHeader().getId(), 3);
+	}
+
+	/**
+	 * Create templates for notifications with a UTC time stamp and an up time
+	 * and create the data for a message identifier and a time stamp.
+	 * <p>
+	 * Expected:
+	 * <ul>
+	 * <li>The templates contain a time stamp.
+	 * <li>The deserialized data contains the message identifier and the time
+	 * stamp.
+	 * </ul>
+	 * </p>
+	 */
+	public void readerEventNotification() throws Exception {
+		ReaderEventNotificationData rend = new ReaderEventNotificationData(
+				new TLVParameterHeader((byte) 0),
+				new UTCTimestamp(new TLVParameterHeader((byte) 0), BigInteger.ZERO));
+		rend.setConnectionAttemptEvent(new ConnectionAttemptEvent(new TLVParameterHeader((byte) 0),
+				ConnectionAttemptEventStatusType.SUCCESS));
+		LLRPMessageTemplate template = new LLRPMessageTemplate(new ReaderEventNotification(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, 0 /* id */), rend));
+		Assert.assertTrue(template.hasTimestamp());
+
+		ReaderEventNotification message = (ReaderEventNotification) deserialize(
+				template.createData(1 /* id */, 1500000000000000L /* timestamp */));
+		Assert.assertEquals(message.getMessageHeader().getId(), 1);
+		Assert.assertEquals(message.getReaderEventNotificationData().getUtcTimestamp()
+				.getMicroseconds().longValue(), 1500000000000000L);
+		Assert.assertEquals(
+				message.getReaderEventNotificationData().getConnectionAttemptEvent().getStatus(),
+				ConnectionAttemptEventStatusType.SUCCESS);
+
+		rend = new ReaderEventNotificationData(new TLVParameterHeader((byte) 0),
+				new Uptime(new TLVParameterHeader((byte) 0), BigInteger.ZERO));
+		rend.setConnectionAttemptEvent(new ConnectionAttemptEvent(new TLVParameterHeader((byte) 0),
+				ConnectionAttemptEventStatusType.FAILED_CLIENT_CONNECTION_EXISTS));
+		template = new LLRPMessageTemplate(new ReaderEventNotification(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, 0 /* id */), rend));
+		Assert.assertTrue(template.hasTimestamp());
+
+		message = (ReaderEventNotification) deserialize(
+				template.createData(2 /* id */, 3000 /* timestamp */));
+		Assert.assertEquals(message.getMessageHeader().getId(), 2);
+		Assert.assertNull(message.getReaderEventNotificationData().getUtcTimestamp());
+		Assert.assertEquals(message.getReaderEventNotificationData().getUptime()
+				.getMicroseconds().longValue(), 3000);
+		Assert.assertEquals(
+				message.getReaderEventNotificationData().getConnectionAttemptEvent().getStatus(),
+				ConnectionAttemptEventStatusType.FAILED_CLIENT_CONNECTION_EXISTS);
+	}
+
+	private Message deserialize(ByteBuffer data) throws Exception {
+		ByteBufferSerializer serializer = new ByteBufferSerializer();
+		MessageHeader header = serializer.deserializeMessageHeader(data);
+		return serializer.deserializeMessage(header, data);
+	}
+}
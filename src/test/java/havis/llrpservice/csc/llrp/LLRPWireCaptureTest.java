@@ -0,0 +1,364 @@
+package havis.llrpservice.csc.llrp;
+
+import havis.llrpservice.data.message.GetSupportedVersion;
+import havis.llrpservice.data.message.GetSupportedVersionResponse;
+import havis.llrpservice.data.message.Message;
+import havis.llrpservice.data.message.MessageHeader;
+import havis.llrpservice.data.message.ProtocolVersion;
+import havis.llrpservice.data.message.parameter.LLRPStatus;
+import havis.llrpservice.data.message.parameter.LLRPStatusCode;
+import havis.llrpservice.data.message.parameter.TLVParameterHeader;
+import havis.llrpservice.data.message.serializer.ByteBufferSerializer;
+import havis.llrpservice.data.message.serializer.InvalidProtocolVersionException;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import mockit.Mocked;
+import mockit.Verifications;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Test
+public class LLRPWireCaptureTest {
+
+	private Path dir;
+
+	@BeforeMethod
+	public void before() throws Exception {
+		dir = Files.createTempDirectory("llrpCapture");
+	}
+
+	@AfterMethod
+	public void after() throws Exception {
+		for (File file : dir.toFile().listFiles()) {
+			Files.delete(file.toPath());
+		}
+		Files.delete(dir);
+	}
+
+	/**
+	 * Capture a sent message and a message which is received via a message
+	 * creator.
+	 * <p>
+	 * Expected:
+	 * <ul>
+	 * <li>The capture file contains both frames in the order of their capture
+	 * with the channel identifiers and the directions.
+	 * </ul>
+	 * </p>
+	 * 
+	 * @param channel1
+	 * @param channel2
+	 * @throws Exception
+	 */
+	public void capture(@Mocked SocketChannel channel1, @Mocked SocketChannel channel2)
+			throws Exception {
+		Path path = dir.resolve("capture");
+		LLRPWireCapture capture = new LLRPWireCapture(path, 1024 /* fileSize */,
+				2 /* fileCount */);
+
+		// capture a sent message
+		ByteBuffer sentData = serialize(new GetSupportedVersion(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, 1 /* id */)));
+		capture.sent(channel1, sentData);
+		// the position of the data has not been changed
+		Assert.assertEquals(sentData.position(), 0);
+
+		// receive a message with a body
+		ByteBuffer receivedData = serialize(new GetSupportedVersionResponse(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, 2 /* id */),
+				ProtocolVersion.LLRP_V1_0_1, ProtocolVersion.LLRP_V1_1,
+				new LLRPStatus(new TLVParameterHeader((byte) 0), LLRPStatusCode.M_SUCCESS, "")));
+		LLRPMessageCreator messageCreator = new LLRPMessageCreator();
+		messageCreator.setCapture(capture);
+		Message message = messageCreator.append(channel2, receivedData.duplicate());
+		Assert.assertEquals(message.getMessageHeader().getId(), 2);
+		capture.close();
+		// a frame is dropped after the capture has been closed
+		capture.sent(channel1, sentData);
+		Assert.assertEquals(capture.getDroppedFrames(), 1);
+
+		List<Path> files = LLRPCaptureReader.getFiles(path, 2 /* fileCount */);
+		Assert.assertEquals(files.size(), 1);
+		try (LLRPCaptureReader reader = new LLRPCaptureReader(files.get(0))) {
+			Assert.assertEquals(reader.getSequence(), 0);
+			Assert.assertTrue(reader.getStartMillis() <= System.currentTimeMillis());
+
+			Assert.assertTrue(reader.next());
+			Assert.assertEquals(reader.getChannelId(), 1);
+			Assert.assertEquals(reader.getDirection(), LLRPWireCapture.DIRECTION_SENT);
+			Assert.assertEquals(reader.getFrame(), sentData);
+			long time = reader.getTime();
+
+			Assert.assertTrue(reader.next());
+			Assert.assertEquals(reader.getChannelId(), 2);
+			Assert.assertEquals(reader.getDirection(), LLRPWireCapture.DIRECTION_RECEIVED);
+			Assert.assertEquals(reader.getFrame(), receivedData);
+			Assert.assertTrue(reader.getTime() >= time);
+
+			Assert.assertFalse(reader.next());
+		}
+	}
+
+	/**
+	 * Receive a valid and an invalid message via a message creator and replay
+	 * the received frames.
+	 * <p>
+	 * Expected:
+	 * <ul>
+	 * <li>The invalid message cannot be deserialized but its frame is
+	 * captured.</li>
+	 * <li>The received frames are sent byte-exact.</li>
+	 * </ul>
+	 * </p>
+	 * 
+	 * @param channel
+	 * @param llrpClient
+	 * @throws Exception
+	 */
+	public void captureReceived(@Mocked SocketChannel channel,
+			@Mocked final LLRPClientMultiplexed llrpClient) throws Exception {
+		Path path = dir.resolve("capture");
+		LLRPWireCapture capture = new LLRPWireCapture(path, 1024 /* fileSize */,
+				2 /* fileCount */);
+		LLRPMessageCreator messageCreator = new LLRPMessageCreator();
+		messageCreator.setCapture(capture);
+
+		// receive a valid message with a body in two parts
+		final ByteBuffer validData = serialize(new GetSupportedVersionResponse(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, 2 /* id */),
+				ProtocolVersion.LLRP_V1_0_1, ProtocolVersion.LLRP_V1_1,
+				new LLRPStatus(new TLVParameterHeader((byte) 0), LLRPStatusCode.M_SUCCESS, "")));
+		ByteBuffer part = validData.duplicate();
+		part.limit(5);
+		Assert.assertNull(messageCreator.append(channel, part));
+		part = validData.duplicate();
+		part.position(5);
+		Message message = messageCreator.append(channel, part);
+		Assert.assertEquals(message.getMessageHeader().getId(), 2);
+
+		// receive a message with an invalid protocol version (bits 3-5)
+		final ByteBuffer invalidData = serialize(new GetSupportedVersion(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, 3 /* id */)));
+		invalidData.put(0, (byte) (invalidData.get(0) | 0x1C));
+		try {
+			messageCreator.append(channel, invalidData.duplicate());
+			Assert.fail();
+		} catch (InvalidProtocolVersionException e) {
+		}
+		capture.close();
+
+		LLRPCaptureReplay replay = new LLRPCaptureReplay(
+				LLRPCaptureReader.getFiles(path, 2 /* fileCount */), 0 /* speed */,
+				LLRPWireCapture.DIRECTION_RECEIVED, 1 /* channelId */);
+		final SocketChannel replayChannel = channel;
+		Assert.assertEquals(replay.replay(llrpClient, replayChannel), 2);
+		new Verifications() {
+			{
+				List<ByteBuffer> frames = new ArrayList<>();
+				llrpClient.tcpRequestSendingData(replayChannel, withCapture(frames));
+				times = 2;
+				Assert.assertEquals(frames.get(0), validData);
+				Assert.assertEquals(frames.get(1), invalidData);
+			}
+		};
+	}
+
+	/**
+	 * Capture more frames than the files can hold.
+	 * <p>
+	 * Expected:
+	 * <ul>
+	 * <li>The files are used round robin. The oldest frames are overwritten.
+	 * </li>
+	 * <li>A frame which exceeds the file size is dropped.</li>
+	 * </ul>
+	 * </p>
+	 * 
+	 * @param channel
+	 * @throws Exception
+	 */
+	public void rotate(@Mocked SocketChannel channel) throws Exception {
+		Path path = dir.resolve("capture");
+		int frameLength = serialize(new GetSupportedVersion(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, 0 /* id */))).remaining();
+		// each file holds 2 frames
+		ExecutorService preparer = Executors.newSingleThreadExecutor();
+		LLRPWireCapture capture = new LLRPWireCapture(path, LLRPWireCapture.FILE_HEADER_LENGTH
+				+ 2 * (LLRPWireCapture.RECORD_HEADER_LENGTH + frameLength), 2 /* fileCount */,
+				preparer);
+		for (int id = 1; id <= 5; id++) {
+			capture.sent(channel, serialize(new GetSupportedVersion(
+					new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, id))));
+			// wait for the preparation of the next file
+			await(preparer);
+		}
+		capture.sent(channel, ByteBuffer.allocate(1000));
+		Assert.assertEquals(capture.getDroppedFrames(), 1);
+		capture.close();
+
+		// file 0 has been overwritten with frame 5
+		List<Path> files = LLRPCaptureReader.getFiles(path, 2 /* fileCount */);
+		Assert.assertEquals(files.size(), 2);
+		Assert.assertEquals(files.get(0), LLRPWireCapture.getFile(path.toAbsolutePath(), 1));
+		Assert.assertEquals(files.get(1), LLRPWireCapture.getFile(path.toAbsolutePath(), 0));
+		ByteBufferSerializer serializer = new ByteBufferSerializer();
+		List<Long> ids = new ArrayList<>();
+		for (Path file : files) {
+			try (LLRPCaptureReader reader = new LLRPCaptureReader(file)) {
+				while (reader.next()) {
+					ids.add(serializer.deserializeMessageHeader(reader.getFrame()).getId());
+				}
+			}
+		}
+		Assert.assertEquals(ids.toString(), "[3, 4, 5]");
+	}
+
+	/**
+	 * Fill a file while the next file is still being prepared.
+	 * <p>
+	 * Expected:
+	 * <ul>
+	 * <li>The capture does not wait for the next file. The frame which does
+	 * not fit into the full file is dropped.</li>
+	 * <li>After the next file has been prepared, the frames are captured to
+	 * it.</li>
+	 * </ul>
+	 * </p>
+	 * 
+	 * @param channel
+	 * @throws Exception
+	 */
+	public void dropWhilePreparing(@Mocked SocketChannel channel) throws Exception {
+		Path path = dir.resolve("capture");
+		int frameLength = serialize(new GetSupportedVersion(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, 0 /* id */))).remaining();
+		// block the preparation of the next file
+		ExecutorService preparer = Executors.newSingleThreadExecutor();
+		final CountDownLatch latch = new CountDownLatch(1);
+		preparer.submit(new Callable<Void>() {
+
+			@Override
+			public Void call() throws Exception {
+				latch.await();
+				return null;
+			}
+		});
+		// each file holds 2 frames
+		LLRPWireCapture capture = new LLRPWireCapture(path, LLRPWireCapture.FILE_HEADER_LENGTH
+				+ 2 * (LLRPWireCapture.RECORD_HEADER_LENGTH + frameLength), 2 /* fileCount */,
+				preparer);
+		for (int id = 1; id <= 3; id++) {
+			capture.sent(channel, serialize(new GetSupportedVersion(
+					new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, id))));
+		}
+		Assert.assertEquals(capture.getDroppedFrames(), 1);
+
+		// continue the preparation
+		latch.countDown();
+		await(preparer);
+		capture.sent(channel, serialize(new GetSupportedVersion(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, 4 /* id */))));
+		Assert.assertEquals(capture.getDroppedFrames(), 1);
+		capture.close();
+
+		ByteBufferSerializer serializer = new ByteBufferSerializer();
+		List<Long> ids = new ArrayList<>();
+		for (Path file : LLRPCaptureReader.getFiles(path, 2 /* fileCount */)) {
+			try (LLRPCaptureReader reader = new LLRPCaptureReader(file)) {
+				while (reader.next()) {
+					ids.add(serializer.deserializeMessageHeader(reader.getFrame()).getId());
+				}
+			}
+		}
+		Assert.assertEquals(ids.toString(), "[1, 2, 4]");
+	}
+
+	/**
+	 * Capture frames of two channels and replay the frames of one channel.
+	 * <p>
+	 * Expected:
+	 * <ul>
+	 * <li>The frames of the channel are sent byte-exact.
+	 * </ul>
+	 * </p>
+	 * 
+	 * @param channel1
+	 * @param channel2
+	 * @param llrpClient
+	 * @throws Exception
+	 */
+	public void replay(@Mocked SocketChannel channel1, @Mocked SocketChannel channel2,
+			@Mocked final LLRPClientMultiplexed llrpClient) throws Exception {
+		Path path = dir.resolve("capture");
+		LLRPWireCapture capture = new LLRPWireCapture(path, 1024 /* fileSize */,
+				2 /* fileCount */);
+		for (int id = 1; id <= 4; id++) {
+			capture.sent(id == 2 ? channel2 : channel1, serialize(new GetSupportedVersion(
+					new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, id))));
+		}
+		capture.close();
+
+		LLRPCaptureReplay replay = new LLRPCaptureReplay(
+				LLRPCaptureReader.getFiles(path, 2 /* fileCount */), 0 /* speed */,
+				LLRPWireCapture.DIRECTION_SENT, 1 /* channelId */);
+		// replay the frames to another channel
+		final SocketChannel channel = channel2;
+		Assert.assertEquals(replay.replay(llrpClient, channel), 3);
+		new Verifications() {
+			{
+				List<ByteBuffer> frames = new ArrayList<>();
+				llrpClient.tcpRequestSendingData(channel, withCapture(frames));
+				times = 3;
+				int[] ids = { 1, 3, 4 };
+				for (int i = 0; i < ids.length; i++) {
+					Assert.assertEquals(frames.get(i), serialize(new GetSupportedVersion(
+							new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_0_1, ids[i]))));
+				}
+			}
+		};
+
+		// no received frames exist
+		replay = new LLRPCaptureReplay(LLRPCaptureReader.getFiles(path, 2 /* fileCount */),
+				0 /* speed */, LLRPWireCapture.DIRECTION_RECEIVED, 0 /* channelId */);
+		Assert.assertEquals(replay.replay(llrpClient, channel), 0);
+	}
+
+	/**
+	 * Waits until the tasks which have been submitted to a single thread
+	 * executor have been executed.
+	 * 
+	 * @param executor
+	 * @throws Exception
+	 */
+	private void await(ExecutorService executor) throws Exception {
+		executor.submit(new Callable<Void>() {
+
+			@Override
+			public Void call() {
+				return null;
+			}
+		}).get();
+	}
+
+	private ByteBuffer serialize(Message message) throws Exception {
+		ByteBufferSerializer serializer = new ByteBufferSerializer();
+		ByteBuffer data = ByteBuffer.allocate((int) serializer.getLength(message));
+		serializer.serialize(message, data);
+		data.flip();
+		return data;
+	}
+}
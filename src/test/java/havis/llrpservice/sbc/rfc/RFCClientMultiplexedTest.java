@@ -63,6 +63,7 @@ import mockit.Capturing;
 import mockit.Deencapsulation;
 import mockit.Delegate;
 import mockit.Expectations;
+import mockit.Injectable;
 import mockit.Invocation;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
@@ -989,4 +990,73 @@ public class RFCClientMultiplexedTest {
 		client.requestClosingChannel(openEvent.getChannel());
 		eventHandler.awaitChannelClosed();
 	}
+
+	@Test
+	public void parallelExecution(@Mocked final ServiceFactory<RFDevice> serviceFactory,
+			@Injectable final RFDevice controller1, @Injectable final RFDevice controller2,
+			@Mocked Platform platform) throws Exception {
+		final CountDownLatch latch = new CountDownLatch(1);
+		new NonStrictExpectations() {
+			{
+				serviceFactory.getService(anyString /* host */, anyInt /* port */,
+						anyLong /* timeout */);
+				returns(controller1, controller2);
+
+				// the execution of the first controller waits for the
+				// execution of the second controller
+				controller1.execute(withInstanceOf(List.class), withInstanceOf(List.class),
+						withInstanceOf(List.class));
+				result = new Delegate<RFDevice>() {
+					@SuppressWarnings("unused")
+					public List<TagData> execute(List<Short> antennas, List<Filter> filter,
+							List<TagOperation> operations) throws InterruptedException {
+						latch.await(3, TimeUnit.SECONDS);
+						return new ArrayList<>();
+					}
+				};
+
+				controller2.execute(withInstanceOf(List.class), withInstanceOf(List.class),
+						withInstanceOf(List.class));
+				result = new Delegate<RFDevice>() {
+					@SuppressWarnings("unused")
+					public List<TagData> execute(List<Short> antennas, List<Filter> filter,
+							List<TagOperation> operations) {
+						latch.countDown();
+						return new ArrayList<>();
+					}
+				};
+			}
+		};
+		RFCClientMultiplexed client = new RFCClientMultiplexed(serviceFactory,
+				1000 /* openTimeout */, 1000 /* callbackTimeout */, platform);
+		// open two channels
+		RFCEventHandlerTest eventHandler1 = new RFCEventHandlerTest();
+		client.requestOpeningChannel("host1", 1234 /* port */, eventHandler1);
+		SocketChannel channel1 = eventHandler1.awaitChannelOpened().getChannel();
+		RFCEventHandlerTest eventHandler2 = new RFCEventHandlerTest();
+		client.requestOpeningChannel("host2", 1234 /* port */, eventHandler2);
+		SocketChannel channel2 = eventHandler2.awaitChannelOpened().getChannel();
+
+		// start an execution for each channel
+		client.requestSendingData(channel1, new Execute(new MessageHeader(1), /* antennas */
+				Arrays.asList(new Short[] { 1 }), new ArrayList<Filter>(),
+				new ArrayList<TagOperation>()));
+		client.requestSendingData(channel2, new Execute(new MessageHeader(2), /* antennas */
+				Arrays.asList(new Short[] { 1 }), new ArrayList<Filter>(),
+				new ArrayList<TagOperation>()));
+		// the execution of the second channel is not blocked by the running
+		// execution of the first channel
+		Message response = client.awaitReceivedData(channel2, 1000);
+		Assert.assertTrue(response instanceof ExecuteResponse);
+		Assert.assertEquals(response.getMessageHeader().getId(), 2);
+		response = client.awaitReceivedData(channel1, 1000);
+		Assert.assertTrue(response instanceof ExecuteResponse);
+		Assert.assertEquals(response.getMessageHeader().getId(), 1);
+
+		// close the channels
+		client.requestClosingChannel(channel1);
+		eventHandler1.awaitChannelClosed();
+		client.requestClosingChannel(channel2);
+		eventHandler2.awaitChannelClosed();
+	}
 }
@@ -154,6 +154,53 @@ public class ServerConfigurationTest {
 		cleanUp();
 	}
 
+	@Test
+	public void snapshot() throws UnknownEntityException, Exception {
+		XMLFile<LLRPServerConfigurationType> configFile = new XMLFile<>(
+				LLRPServerConfigurationType.class, INIT_PATH, LATEST_PATH);
+		final ServerConfiguration config = new ServerConfiguration(configFile);
+		Assert.assertNull(config.getSnapshot());
+		config.open();
+		XMLSerializer<LLRPServerConfigurationType> serializer = new XMLSerializer<>(
+				LLRPServerConfigurationType.class);
+		String expected = serializer.serialize(configFile.getContent());
+
+		// the snapshot contains the configuration of the file
+		ConfigurationSnapshot<LLRPServerConfigurationType> snapshot1 = config.getSnapshot();
+		Assert.assertEquals(snapshot1.getVersion(), 1);
+		Assert.assertEquals(serializer.serialize(snapshot1.getObject()), expected);
+		// the snapshot is not replaced by readers
+		Assert.assertSame(config.getSnapshot(), snapshot1);
+
+		// the snapshot is not replaced if the configuration is not changed
+		Entity<LLRPServerConfigurationType> entity = config.acquire();
+		Assert.assertNotSame(entity.getObject(), snapshot1.getObject());
+		config.release(entity, /* write */false);
+		Assert.assertSame(config.getSnapshot(), snapshot1);
+
+		// the snapshot is replaced before the listeners are informed
+		final long[] listenerVersion = new long[1];
+		config.addListener(new ServerConfigurationListener() {
+
+			@Override
+			public void updated(ServerConfiguration src) {
+				listenerVersion[0] = src.getSnapshot().getVersion();
+			}
+		});
+		entity = config.acquire();
+		config.release(entity, /* write */true);
+		ConfigurationSnapshot<LLRPServerConfigurationType> snapshot2 = config.getSnapshot();
+		Assert.assertEquals(snapshot2.getVersion(), 2);
+		Assert.assertEquals(listenerVersion[0], 2);
+		Assert.assertNotSame(snapshot2.getObject(), entity.getObject());
+		Assert.assertEquals(serializer.serialize(snapshot2.getObject()), expected);
+		// the old snapshot is unchanged
+		Assert.assertEquals(snapshot1.getVersion(), 1);
+
+		config.close();
+		cleanUp();
+	}
+
 	@Test
 	public void exceptions(
 			@Mocked final XMLFile<LLRPServerConfigurationType> configFile)
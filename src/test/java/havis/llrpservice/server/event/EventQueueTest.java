@@ -48,9 +48,14 @@ public class EventQueueTest {
 		queue.put(event2, 1 /* prio */);
 		LLRPMessageEvent event3 = new LLRPMessageEvent(msg);
 		queue.put(event3, -1 /* prio */);
+		Assert.assertEquals(queue.size(), 3);
+		Assert.assertEquals(queue.size(1 /* prio */), 1);
+		Assert.assertEquals(queue.size(2 /* prio */), 0);
 		// get events
 		LLRPMessageEvent compare = (LLRPMessageEvent) queue.take(500);
 		Assert.assertEquals(event2, compare);
+		Assert.assertEquals(queue.size(), 2);
+		Assert.assertEquals(queue.size(1 /* prio */), 0);
 		compare = (LLRPMessageEvent) queue.take(500);
 		Assert.assertEquals(event1, compare);
 		compare = (LLRPMessageEvent) queue.take(500);
@@ -13,6 +13,7 @@ import java.util.List;
 
 import org.testng.annotations.Test;
 
+import havis.llrpservice.csc.llrp.LLRPMessageTemplate;
 import havis.llrpservice.csc.llrp.LLRPServerMultiplexed;
 import havis.llrpservice.csc.llrp.LLRPTimeoutException;
 import havis.llrpservice.csc.llrp.LLRPUnknownChannelException;
@@ -134,12 +135,17 @@ public class LLRPConnectionHandlerTest {
 		handler.requestSendingConnectionAcceptedEvent();
 		handler.dataSent(event);
 
-		final List<Message> sendMessages = new ArrayList<>();
+		final List<LLRPMessageTemplate> sendTemplates = new ArrayList<>();
 		new Verifications() {
 			{
-				llrpServer.requestSendingData(clientChannel, withCapture(sendMessages));
+				// the notifications are sent from templates
+				llrpServer.requestSendingData(clientChannel, withCapture(sendTemplates), anyLong,
+						anyLong);
 				times = 3;
 
+				llrpServer.requestSendingData(clientChannel, withInstanceOf(Message.class));
+				times = 0;
+
 				listener.dataSent(event);
 				times = 0;
 			}
@@ -150,8 +156,9 @@ public class LLRPConnectionHandlerTest {
 				ConnectionAttemptEventStatusType.FAILED_CLIENT_CONNECTION_EXISTS,
 				ConnectionAttemptEventStatusType.FAILED_CLIENT_CONNECTION_EXISTS,
 				ConnectionAttemptEventStatusType.SUCCESS);
-		for (int i = 0; i < sendMessages.size(); i++) {
-			ReaderEventNotification notify = (ReaderEventNotification) sendMessages.get(i);
+		for (int i = 0; i < sendTemplates.size(); i++) {
+			ReaderEventNotification notify = (ReaderEventNotification) sendTemplates.get(i)
+					.getMessage();
 			// verify sent status
 			assertEquals(
 					notify.getReaderEventNotificationData().getConnectionAttemptEvent().getStatus(),
@@ -200,12 +207,13 @@ public class LLRPConnectionHandlerTest {
 		} catch (LLRPUnknownChannelException e) {
 			assertTrue(e.getMessage().equals("any exception"));
 		}
+		final List<Message> sendMessages = new ArrayList<>();
 		new Verifications() {
 			{
 				// 3 error messages has been sent (LLRPTimeoutException has been
 				// ignored)
 				llrpServer.requestSendingData(clientChannel, withCapture(sendMessages));
-				times = 6;
+				times = 3;
 			}
 		};
 		// verify error messages
@@ -236,8 +244,9 @@ public class LLRPConnectionHandlerTest {
 		new Verifications() {
 			{
 				// 2 keep alive messages has been sent
-				llrpServer.requestSendingData(clientChannel, withCapture(sendMessages));
-				times = 8;
+				llrpServer.requestSendingData(clientChannel, withCapture(sendTemplates), anyLong,
+						anyLong);
+				times = 5;
 
 				// the execution has been aborted
 				serverEventHandler.abortExecution(withInstanceOf(Exception.class));
@@ -246,8 +255,9 @@ public class LLRPConnectionHandlerTest {
 		};
 		// verify sent messages
 		int keepaliveCount = 0;
-		for (Message msg : sendMessages) {
-			if (msg.getMessageHeader().getMessageType() == MessageType.KEEPALIVE) {
+		for (LLRPMessageTemplate template : sendTemplates) {
+			if (template.getMessage().getMessageHeader()
+					.getMessageType() == MessageType.KEEPALIVE) {
 				keepaliveCount++;
 			}
 		}
@@ -259,8 +269,9 @@ public class LLRPConnectionHandlerTest {
 		new Verifications() {
 			{
 				// no additional keep alive messages have been sent
-				llrpServer.requestSendingData(clientChannel, withInstanceOf(Message.class));
-				times = 8;
+				llrpServer.requestSendingData(clientChannel,
+						withInstanceOf(LLRPMessageTemplate.class), anyLong, anyLong);
+				times = 5;
 			}
 		};
 
@@ -0,0 +1,68 @@
+package havis.llrpservice.server.management.bean;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import havis.llrpservice.common.metrics.LatencyRecorder;
+import havis.llrpservice.server.service.InstanceMetrics;
+import mockit.Expectations;
+import mockit.Mocked;
+
+import org.testng.annotations.Test;
+
+public class ServiceInstanceMetricsTest {
+
+	@Test
+	public void gpiStartLatency(@Mocked final InstanceMetrics metrics) {
+		ServiceInstanceMetrics mbean = new ServiceInstanceMetrics("instanceId");
+		// no instance has been started yet
+		assertEquals(mbean.getGPIStartLatencyP50(), 0);
+		assertEquals(mbean.getGPIStartLatencyP99(), 0);
+		assertEquals(mbean.getGPIStartLatencyMax(), 0);
+
+		// 98 latencies of 1ms and 2 latencies of 5ms
+		final LatencyRecorder recorder = new LatencyRecorder();
+		for (int i = 0; i < 98; i++) {
+			recorder.record(1000000);
+		}
+		recorder.record(5000000);
+		recorder.record(5000000);
+		new Expectations() {
+			{
+				metrics.getGPIStartLatency();
+				result = recorder;
+			}
+		};
+		mbean.setMetrics(metrics);
+		// the values are provided in microseconds
+		long p50 = mbean.getGPIStartLatencyP50();
+		assertTrue(p50 >= 1000 && p50 < 1125, "" + p50);
+		assertEquals(mbean.getGPIStartLatencyP99(), 5000);
+		assertEquals(mbean.getGPIStartLatencyMax(), 5000);
+	}
+
+	@Test
+	public void start(@Mocked final InstanceMetrics metrics) {
+		ServiceInstanceMetrics mbean = new ServiceInstanceMetrics("instanceId");
+		// no instance has been started yet
+		assertEquals(mbean.getLLRPPortOpeningTime(), -1);
+
+		new Expectations() {
+			{
+				metrics.getLLRPPortOpeningTime();
+				returns(-1L, 1500000000L);
+
+				metrics.getReportDepotSize();
+				returns(-1, 3);
+			}
+		};
+		mbean.setMetrics(metrics);
+		// the LLRP port has not been opened yet
+		assertEquals(mbean.getLLRPPortOpeningTime(), -1);
+		// the time is provided in milliseconds
+		assertEquals(mbean.getLLRPPortOpeningTime(), 1500);
+		// the persisted reports have not been loaded yet
+		assertEquals(mbean.getReportDepotSize(), -1);
+		assertEquals(mbean.getReportDepotSize(), 3);
+	}
+}
@@ -31,10 +31,10 @@ public class PlatformManagerTest {
 		// create a config with enabled reflection
 		new NonStrictExpectations() {
 			{
-				serverConfiguration.acquire().getObject();
+				serverConfiguration.getSnapshot().getObject();
 				result = serverConfigType;
 
-				instanceConfiguration.acquire().getObject();
+				instanceConfiguration.getSnapshot().getObject();
 				result = instanceConfigType;
 
 				confAnalyser.getAddress().getHost();
@@ -94,10 +94,10 @@ public class PlatformManagerTest {
 		// create a config with enabled OSGi
 		new NonStrictExpectations() {
 			{
-				serverConfiguration.acquire().getObject();
+				serverConfiguration.getSnapshot().getObject();
 				result = serverConfigType;
 
-				instanceConfiguration.acquire().getObject();
+				instanceConfiguration.getSnapshot().getObject();
 				result = instanceConfigType;
 
 				confAnalyser.getAddress().getHost();
@@ -143,10 +143,10 @@ public class PlatformManagerTest {
 		// create a config with enabled OSGi
 		new NonStrictExpectations() {
 			{
-				serverConfiguration.acquire().getObject();
+				serverConfiguration.getSnapshot().getObject();
 				result = serverConfigType;
 
-				instanceConfiguration.acquire().getObject();
+				instanceConfiguration.getSnapshot().getObject();
 				result = instanceConfigType;
 
 				confAnalyser.getSystemControllerPortProperties().ifOSGi();
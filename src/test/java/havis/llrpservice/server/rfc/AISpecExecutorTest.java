@@ -327,6 +327,58 @@ public class AISpecExecutorTest {
 	// @Mocked
 	// RFCClientMultiplexed rfcClient;
 
+	public void startNextPipelinedInventory(//
+			@Mocked final RFCClientMultiplexed rfcClient//
+	) throws Exception {
+		SocketChannel rfcChannel = SocketChannel.open();
+		AISpecExecutor ex = new AISpecExecutor(rfcClient, rfcChannel, new EventQueue());
+		AISpec aiSpec = new AISpec(new TLVParameterHeader((byte) 0),
+				Arrays.asList(3, 4) /* antennaIds */,
+				new AISpecStopTrigger(new TLVParameterHeader((byte) 0),
+						AISpecStopTriggerType.DURATION, 1000 /* durationTrigger */),
+				Arrays.asList(new InventoryParameterSpec(new TLVParameterHeader((byte) 0),
+						10 /* specID */, ProtocolId.EPC_GLOBAL_C1G2)));
+		ROSpecExecutionPosition pos = new ROSpecExecutionPosition(2 /* roSpecId */);
+		// the AISpec has not been started
+		Assert.assertFalse(ex.startNextPipelinedInventory(pos, aiSpec));
+
+		// start the AISpec and the next inventory
+		ex.startNextInventory(pos, aiSpec);
+		Assert.assertEquals(pos.getAntennaId(), 3);
+		Assert.assertTrue(ex.startNextPipelinedInventory(pos, aiSpec));
+		Assert.assertEquals(pos.getAntennaId(), 4);
+		new Verifications() {
+			{
+				rfcClient.requestSendingData(withInstanceOf(SocketChannel.class),
+						withInstanceOf(Execute.class));
+				times = 2;
+			}
+		};
+
+		// the AISpec has been stopped
+		ex.stop();
+		Assert.assertFalse(ex.startNextPipelinedInventory(pos, aiSpec));
+
+		// the stop trigger depends on the results of the inventories
+		AISpecStopTrigger stopTrigger = new AISpecStopTrigger(new TLVParameterHeader((byte) 0),
+				AISpecStopTriggerType.TAG_OBSERVATION, 0 /* durationTrigger */);
+		stopTrigger.setTagOT(new TagObservationTrigger(new TLVParameterHeader((byte) 0),
+				TagObservationTriggerType.N_ATTEMPTS_TO_SEE_ALL_TAGS_IN_THE_FOV_OR_TIMEOUT,
+				0 /* numberOfTags */, 2 /* numberOfAttempts */, 0 /* t */, 0 /* timeOut */));
+		aiSpec = new AISpec(new TLVParameterHeader((byte) 0), Arrays.asList(3) /* antennaIds */,
+				stopTrigger,
+				Arrays.asList(new InventoryParameterSpec(new TLVParameterHeader((byte) 0),
+						10 /* specID */, ProtocolId.EPC_GLOBAL_C1G2)));
+		ex.startNextInventory(pos, aiSpec);
+		Assert.assertFalse(ex.startNextPipelinedInventory(pos, aiSpec));
+		ex.stop();
+
+		rfcChannel.close();
+	}
+
+	// @Mocked
+	// RFCClientMultiplexed rfcClient;
+
 	public void stopTriggerDuration(//
 			@Mocked final RFCClientMultiplexed rfcClient//
 	) throws Exception {
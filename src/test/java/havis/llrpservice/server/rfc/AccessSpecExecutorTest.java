@@ -18,6 +18,7 @@ import havis.llrpservice.data.message.parameter.Parameter;
 import havis.llrpservice.data.message.parameter.ProtocolId;
 import havis.llrpservice.data.message.parameter.TLVParameterHeader;
 import havis.llrpservice.sbc.rfc.RFCClientMultiplexed;
+import havis.llrpservice.sbc.rfc.RFCOperationsDecider;
 import havis.llrpservice.sbc.rfc.message.GetOperations;
 import havis.llrpservice.sbc.rfc.message.GetOperationsResponse;
 import havis.llrpservice.sbc.rfc.message.MessageHeader;
@@ -30,6 +31,11 @@ import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import mockit.Mocked;
 import mockit.Verifications;
@@ -229,6 +235,107 @@ public class AccessSpecExecutorTest {
 		Assert.assertNull(executor.remove(accessSpecId1));
 	}
 
+	public void getOperationsDecider(
+			@Mocked final RFCClientMultiplexed rfcClient,
+			@Mocked final AccessSpecsListener listener) throws Exception {
+		final SocketChannel rfcChannel = SocketChannel.open();
+		EventQueue eventQueue = new EventQueue();
+		AccessSpecExecutor executor = new AccessSpecExecutor(rfcClient,
+				rfcChannel, eventQueue);
+		executor.addListener(listener);
+
+		// add an AccessSpec with a stop trigger
+		List<Parameter> ops = new ArrayList<>();
+		ops.add(new C1G2Read(new TLVParameterHeader((byte) 0), 0 /* opSpecId */,
+				1L /* accessPw */, (byte) 3 /* memoryBank */,
+				3 /* wordPointer */, 4 /* wordCount */));
+		AccessSpecStopTrigger accessSpecStopTrigger = new AccessSpecStopTrigger(
+				new TLVParameterHeader((byte) 0),
+				AccessSpecStopTriggerType.OPERATION_COUNT, 1/* operationCountValue */);
+		final long accessSpecId = 567;
+		C1G2TargetTag pattern1 = new C1G2TargetTag(new TLVParameterHeader(
+				(byte) 0), (byte) 3 /* memoryBank */, true /* isMatch */,
+				0 /* pointer */, new BitSet(), new BitSet());
+		AccessSpec accessSpec = new AccessSpec(new TLVParameterHeader((byte) 0),
+				accessSpecId, 1 /* antennaID */, ProtocolId.EPC_GLOBAL_C1G2,
+				true /* currentState */, 2L /* roSpecID */,
+				accessSpecStopTrigger, new AccessCommand(
+						new TLVParameterHeader((byte) 0), new C1G2TagSpec(
+								new TLVParameterHeader((byte) 0), pattern1),
+						ops));
+		executor.add(accessSpec);
+
+		ROSpecExecutionPosition pos = new ROSpecExecutionPosition(2 /* roSpecId */);
+		InventoryAccessOps iao = executor.getNextInventoryAccessOps(pos);
+		pos.setAntennaId(1);
+		pos.setProtocolId(ProtocolId.EPC_GLOBAL_C1G2);
+		TagData tag = new TagData();
+		tag.setTagDataId(123);
+		tag.setEpc(new byte[] { 0, 1 });
+		tag.setResultList(new ArrayList<OperationResult>());
+
+		// decide the operations for a tag in another thread while the
+		// monitor of the executor is held (the decider does not take it)
+		final RFCOperationsDecider decider = executor.getOperationsDecider(
+				iao.getTagOperations(), pos);
+		final GetOperations getOps = new GetOperations(new MessageHeader(
+				10 /* id */), tag);
+		ExecutorService thread = Executors.newSingleThreadExecutor();
+		List<TagOperation> tagOps;
+		synchronized (executor) {
+			Future<List<TagOperation>> future = thread
+					.submit(new Callable<List<TagOperation>>() {
+
+						@Override
+						public List<TagOperation> call() throws Exception {
+							return decider.getOperations(getOps);
+						}
+					});
+			tagOps = future.get(3, TimeUnit.SECONDS);
+		}
+		thread.shutdown();
+		Assert.assertEquals(tagOps.size(), 1);
+		Assert.assertEquals(pos.getTagDataAccessSpecIds().get(123L),
+				Long.valueOf(accessSpecId));
+		// the request and the response are enqueued
+		RFCMessageEvent event = (RFCMessageEvent) eventQueue.take(3000);
+		Assert.assertEquals(event.getMessage().getMessageHeader().getId(), 10);
+		Assert.assertTrue(event.getMessage() instanceof GetOperations);
+		event = (RFCMessageEvent) eventQueue.take(3000);
+		GetOperationsResponse response = (GetOperationsResponse) event
+				.getMessage();
+		Assert.assertEquals(response.getMessageHeader().getId(), 10);
+		Assert.assertEquals(response.getOperations(), tagOps);
+
+		// the stopped AccessSpec is not used for further tags
+		tag.setTagDataId(124);
+		tagOps = executor.getOperationsDecider(iao.getTagOperations(), pos)
+				.getOperations(
+						new GetOperations(new MessageHeader(11 /* id */), tag));
+		Assert.assertTrue(tagOps.isEmpty());
+		new Verifications() {
+			{
+				// no response is sent via the RFC client
+				rfcClient.requestSendingData(rfcChannel,
+						withInstanceOf(GetOperationsResponse.class));
+				times = 0;
+				// the AccessSpec is not removed yet
+				listener.removed(accessSpecId);
+				times = 0;
+			}
+		};
+
+		// remove the stopped AccessSpec
+		executor.removeStoppedAccessSpecs();
+		new Verifications() {
+			{
+				listener.removed(accessSpecId);
+				times = 1;
+			}
+		};
+		Assert.assertNull(executor.remove(accessSpecId));
+	}
+
 	public void getInventoryAccessOps(
 			@Mocked final RFCClientMultiplexed rfcClient) throws Exception {
 		// get access ops without adding AccessSpecs
@@ -314,6 +421,9 @@ public class AccessSpecExecutorTest {
 		tagMask22.set(10);
 		tagData22.set(10);
 		pattern22.setMaskBitCount(11);
+		// the modified AccessSpec is converted when it is added again
+		executor.remove(568L);
+		executor.add(accessSpec2);
 		// get access ops: read operation for the filter and a RequestOperation
 		// are returned
 		iao = executor.getNextInventoryAccessOps(pos1);
@@ -364,6 +474,8 @@ public class AccessSpecExecutorTest {
 		tagMask3.set(4);
 		tagData3.set(4);
 		pattern3.setMaskBitCount(5);		
+		executor.remove(569L);
+		executor.add(accessSpec3);
 		// get access ops: read operation for the filter and a RequestOperation
 		// are returned
 		iao = executor.getNextInventoryAccessOps(pos2);
@@ -376,5 +488,11 @@ public class AccessSpecExecutorTest {
 		Assert.assertEquals(readOp3.getOffset(), 0);
 		Assert.assertEquals(readOp3.getLength(), 1);
 		Assert.assertTrue(iao.getTagOperations().get(1) instanceof RequestOperation);
+
+		// the access ops are reused if the AccessSpecs have not been changed
+		Assert.assertSame(executor.getNextInventoryAccessOps(pos2), iao);
+		executor.remove(569L);
+		executor.add(accessSpec3);
+		Assert.assertNotSame(executor.getNextInventoryAccessOps(pos2), iao);
 	}
 }
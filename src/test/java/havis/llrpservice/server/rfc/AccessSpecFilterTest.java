@@ -24,6 +24,17 @@ import org.testng.annotations.Test;
 @Test
 public class AccessSpecFilterTest {
 
+	public void getWord() {
+		byte[] bytes = new byte[] { 0x12, 0x34, 0x56, 0x78, (byte) 0x9A, (byte) 0xBC,
+				(byte) 0xDE, (byte) 0xF0, 0x0F };
+		Assert.assertEquals(AccessSpecFilter.getWord(bytes, 0), 0x123456789ABCDEF0L);
+		Assert.assertEquals(AccessSpecFilter.getWord(bytes, 4), 0x23456789ABCDEF00L);
+		// missing bits are 0
+		Assert.assertEquals(AccessSpecFilter.getWord(bytes, 64), 0x0F00000000000000L);
+		Assert.assertEquals(AccessSpecFilter.getWord(bytes, 68), 0xF000000000000000L);
+		Assert.assertEquals(AccessSpecFilter.getWord(bytes, 200), 0);
+	}
+
 	public void getAccessSpecMB134() throws Exception {
 		// create AccessSpec with an empty TagSpec
 		BitSet tagMask1 = new BitSet();
@@ -96,6 +107,8 @@ public class AccessSpecFilterTest {
 		tag.setCrc((short)8);
 		tag.setResultList(accessResults);
 		
+		// the modified tag pattern is compiled with a new filter
+		filter = new AccessSpecFilter(accessSpecs);
 		Assert.assertNotNull(filter.getAccessSpec(2 /* roSpecId */,
 				1 /* antennaId */, ProtocolId.EPC_GLOBAL_C1G2, tag, accessOps));
 
@@ -104,6 +117,7 @@ public class AccessSpecFilterTest {
 		// data: _100 0000 0000 0
 		// tag_: 1000 0000 0001
 		pattern1.setPointer(1);
+		filter = new AccessSpecFilter(accessSpecs);
 		Assert.assertNull(filter.getAccessSpec(2 /* roSpecId */,
 				1 /* antennaId */, ProtocolId.EPC_GLOBAL_C1G2, tag, accessOps));
 
@@ -111,6 +125,7 @@ public class AccessSpecFilterTest {
 		// data: _000 0000 0000 0
 		// tag_: 1000 0000 0001
 		tagData1.set(0, false);
+		filter = new AccessSpecFilter(accessSpecs);
 		Assert.assertNotNull(filter.getAccessSpec(2 /* roSpecId */,
 				1 /* antennaId */, ProtocolId.EPC_GLOBAL_C1G2, tag, accessOps));
 
@@ -120,11 +135,13 @@ public class AccessSpecFilterTest {
 		// data: _000 0000 0000 0
 		// tag_: 1000 0000 0001
 		tagMask1.set(10);
+		filter = new AccessSpecFilter(accessSpecs);
 		Assert.assertNull(filter.getAccessSpec(2 /* roSpecId */,
 				1 /* antennaId */, ProtocolId.EPC_GLOBAL_C1G2, tag, accessOps));
 
 		// set "match" flag to false => the tag matches
 		pattern1.setMatch(false);
+		filter = new AccessSpecFilter(accessSpecs);
 		Assert.assertNotNull(filter.getAccessSpec(2 /* roSpecId */,
 				1 /* antennaId */, ProtocolId.EPC_GLOBAL_C1G2, tag, accessOps));
 
@@ -132,6 +149,7 @@ public class AccessSpecFilterTest {
 		// data: _000 0000 0001 0
 		// tag_: 1000 0000 0001
 		tagData1.set(10);
+		filter = new AccessSpecFilter(accessSpecs);
 		Assert.assertNull(filter.getAccessSpec(2 /* roSpecId */,
 				1 /* antennaId */, ProtocolId.EPC_GLOBAL_C1G2, tag, accessOps));
 	}
@@ -203,6 +221,7 @@ public class AccessSpecFilterTest {
 		tagData1.set(51);
 		tagData1.set(52);
 		tagData1.set(57);
+		filter = new AccessSpecFilter(accessSpecs);
 		Assert.assertNotNull(filter.getAccessSpec(2 /* roSpecId */,
 				1 /* antennaId */, ProtocolId.EPC_GLOBAL_C1G2, tag, accessOps));
 
@@ -219,6 +238,7 @@ public class AccessSpecFilterTest {
 		tagData1.set(4);
 		tagData1.set(5);
 		pattern1.setPointer(30);
+		filter = new AccessSpecFilter(accessSpecs);
 		Assert.assertNotNull(filter.getAccessSpec(2 /* roSpecId */,
 				1 /* antennaId */, ProtocolId.EPC_GLOBAL_C1G2, tag, accessOps));
 	}
@@ -392,12 +412,14 @@ public class AccessSpecFilterTest {
 		// tag__: 1000 0000 0001
 		tagData2.set(11, false);
 		tagData2.set(10);
+		filter = new AccessSpecFilter(accessSpecs);
 		Assert.assertNull(filter.getAccessSpec(2 /* roSpecId */,
 				1 /* antennaId */, ProtocolId.EPC_GLOBAL_C1G2, tag, accessOps));
 
 		// set "match" flag to false for non-matching pattern => the AccessSpec
 		// matches
 		pattern2.setMatch(false);
+		filter = new AccessSpecFilter(accessSpecs);
 		Assert.assertNotNull(filter.getAccessSpec(2 /* roSpecId */,
 				1 /* antennaId */, ProtocolId.EPC_GLOBAL_C1G2, tag, accessOps));
 	}
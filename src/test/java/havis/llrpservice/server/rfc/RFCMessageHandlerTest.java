@@ -12,6 +12,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
@@ -621,6 +622,125 @@ public class RFCMessageHandlerTest {
 	// @Mocked
 	// Platform platform;
 
+	public void pipelinedInventory(//
+			@Mocked final _RFDeviceStubTest controller, @Mocked final Platform platform//
+	) throws Exception {
+		final Semaphore started = new Semaphore(0);
+		final Semaphore latch = new Semaphore(0);
+		final AtomicInteger inventoryCounter = new AtomicInteger();
+		new Expectations() {
+			{
+				controller.execute(withInstanceOf(List.class) /* anntennaIds */,
+						withInstanceOf(List.class) /* filters */,
+						withInstanceOf(List.class) /* tagOperations */);
+				result = new Delegate<_RFDeviceStubTest>() {
+					@SuppressWarnings("unused")
+					public List<TagData> execute(List<Short> antennas, List<Filter> filter,
+							List<TagOperation> operations) throws ConnectionException,
+							CommunicationException, ParameterException, ImplementationException {
+						// the EPC of the tag is the number of the inventory
+						int inventory = inventoryCounter.incrementAndGet();
+						started.release();
+						try {
+							if (!latch.tryAcquire(500, TimeUnit.SECONDS)) {
+								Assert.fail();
+							}
+						} catch (InterruptedException e) {
+							Assert.fail();
+						}
+						TagData tag = new TagData();
+						tag.setTagDataId(inventory);
+						tag.setEpc(new byte[] { (byte) inventory });
+						tag.setAntennaID((short) 1);
+						tag.setResultList(new ArrayList<OperationResult>());
+						return new ArrayList<>(Arrays.asList(tag));
+					}
+				};
+
+				platform.hasUTCClock();
+				result = true;
+			}
+		};
+		// execute the same inventories without and with pipelining
+		List<String> reports = executeInventories(false /* pipelined */, platform, started, latch,
+				inventoryCounter);
+		List<String> pipelinedReports = executeInventories(true /* pipelined */, platform, started,
+				latch, inventoryCounter);
+		// the reports and their order must be the same
+		Assert.assertEquals(reports.size(), 4);
+		Assert.assertTrue(reports.get(3).contains("isLastResponse=true"));
+		Assert.assertEquals(pipelinedReports, reports);
+	}
+
+	/**
+	 * Executes a ROSpec with 4 inventories and returns the tags and the
+	 * execution positions of the execute responses in the order of the
+	 * received responses.
+	 */
+	private List<String> executeInventories(boolean pipelined, Platform platform,
+			Semaphore started, Semaphore latch, AtomicInteger inventoryCounter) throws Exception {
+		inventoryCounter.set(0);
+		started.drainPermits();
+		EventQueue eventQueue = new EventQueue();
+		RFCMessageHandler messageHandler;
+		// the property is read while the message handler is created
+		System.setProperty(RFCMessageHandler.PIPELINED_INVENTORY_PROPERTY,
+				String.valueOf(pipelined));
+		try {
+			messageHandler = new RFCMessageHandler(serverConfig, serverInstanceConfig, eventQueue,
+					null /* serviceFactory */, platform);
+		} finally {
+			System.clearProperty(RFCMessageHandler.PIPELINED_INVENTORY_PROPERTY);
+		}
+		ExecutorService threadPool = Executors.newFixedThreadPool(1);
+		messageHandler.open(threadPool);
+		long roSpecId = 123;
+		messageHandler.requestExecution(
+				createROSpec(roSpecId, 1 /* antennaId */, ProtocolId.EPC_GLOBAL_C1G2));
+		// release 3 inventories
+		latch.release(3);
+		List<String> ret = new ArrayList<>();
+		while (ret.size() < 3) {
+			addExecuteResponse(eventQueue, ret);
+		}
+		// wait for the start of the 4th inventory and cancel the execution
+		// (the response of the running inventory is the last one)
+		Assert.assertTrue(started.tryAcquire(4, 3, TimeUnit.SECONDS));
+		messageHandler.cancelExecution(roSpecId);
+		latch.release();
+		while (ret.size() < 4) {
+			addExecuteResponse(eventQueue, ret);
+		}
+		// clean up
+		messageHandler.close();
+		threadPool.shutdown();
+		return ret;
+	}
+
+	/**
+	 * Takes the next event from the queue and adds the tags and the execution
+	 * position of an execute response to a list.
+	 */
+	private void addExecuteResponse(EventQueue eventQueue, List<String> responses)
+			throws InterruptedException, TimeoutException {
+		RFCMessageEvent event = (RFCMessageEvent) eventQueue.take(3000);
+		if (!event.getMessage().getMessageHeader().getMessageType()
+				.equals(MessageType.EXECUTE_RESPONSE)) {
+			return;
+		}
+		ExecuteResponse response = (ExecuteResponse) event.getMessage();
+		StringBuilder tags = new StringBuilder();
+		for (TagData tag : response.getTagData()) {
+			tags.append(Arrays.toString(tag.getEpc()));
+		}
+		responses.add(tags + " " + event.getData());
+	}
+
+	// @Mocked
+	// _RFDeviceStubTest controller;
+	// @Mocked
+	// Platform platform;
+
 	public void gpiEventReceived(//
 			@Mocked final _RFDeviceStubTest controller, @Mocked final Platform platform//
 	) throws Exception {
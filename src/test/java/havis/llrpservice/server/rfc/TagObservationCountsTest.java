@@ -0,0 +1,62 @@
+package havis.llrpservice.server.rfc;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class TagObservationCountsTest {
+
+	@Test
+	public void add() {
+		TagObservationCounts counts = new TagObservationCounts();
+		byte[] epc96 = new byte[] { 0x30, 0x08, 0x33, (byte) 0xB2, (byte) 0xDD, (byte) 0xD9,
+				0x01, 0x40, 0x00, 0x00, 0x00, 0x01 };
+		// an EPC with the same value but a different length
+		byte[] epc64 = new byte[] { 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x01 };
+		byte[] epc64b = new byte[] { 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00,
+				0x01 };
+		byte[] longEpc = new byte[62];
+		longEpc[61] = 1;
+
+		Assert.assertTrue(counts.add(epc96));
+		Assert.assertFalse(counts.add(epc96.clone()));
+		Assert.assertTrue(counts.add(epc64));
+		Assert.assertTrue(counts.add(epc64b));
+		Assert.assertTrue(counts.add(longEpc));
+		Assert.assertFalse(counts.add(longEpc.clone()));
+		Assert.assertTrue(counts.add(new byte[0]));
+
+		Assert.assertEquals(counts.getUniqueCount(), 5);
+		Assert.assertEquals(counts.getTotalCount(), 7);
+		Assert.assertEquals(counts.getCount(epc96), 2);
+		Assert.assertEquals(counts.getCount(epc64), 1);
+		Assert.assertEquals(counts.getCount(longEpc), 2);
+		Assert.assertEquals(counts.getCount(new byte[] { 1 }), 0);
+
+		counts.clear();
+		Assert.assertEquals(counts.getUniqueCount(), 0);
+		Assert.assertEquals(counts.getTotalCount(), 0);
+		Assert.assertEquals(counts.getCount(epc96), 0);
+	}
+
+	@Test
+	public void resize() {
+		TagObservationCounts counts = new TagObservationCounts();
+		// add 10000 unique tags twice
+		for (int r = 0; r < 2; r++) {
+			for (int i = 0; i < 10000; i++) {
+				byte[] epc = new byte[12];
+				epc[10] = (byte) (i >> 8);
+				epc[11] = (byte) i;
+				epc[0] = (byte) (i >> 16);
+				Assert.assertEquals(counts.add(epc), r == 0);
+			}
+		}
+		Assert.assertEquals(counts.getUniqueCount(), 10000);
+		Assert.assertEquals(counts.getTotalCount(), 20000);
+		byte[] epc = new byte[12];
+		epc[11] = 5;
+		Assert.assertEquals(counts.getCount(epc), 2);
+		counts.clear();
+		Assert.assertTrue(counts.add(epc));
+	}
+}
@@ -46,6 +46,7 @@ import havis.llrpservice.common.concurrent.EventPipes;
 import havis.llrpservice.common.entityManager.EntityManagerException;
 import havis.llrpservice.common.io.PathHandler;
 import havis.llrpservice.common.io.XMLFile;
+import havis.llrpservice.common.metrics.TagReadTrace;
 import havis.llrpservice.common.tcp.TCPClientMultiplexed;
 import havis.llrpservice.common.tcp.TCPServerMultiplexed;
 import havis.llrpservice.csc.llrp.LLRPClientMultiplexed;
@@ -1280,10 +1281,10 @@ public class LLRPServiceInstanceTest {
 
 			// mock the "remove" method which is called to create a report
 			@Mock
-			List<ROAccessReportEntity> remove(Invocation inv, List<String> entityIds)
-					throws EntityManagerException {
+			List<ROAccessReportEntity> remove(Invocation inv, List<String> entityIds,
+					List<TagReadTrace> removedTraces) throws EntityManagerException {
 				if (data.removeException == null) {
-					return inv.proceed(entityIds);
+					return inv.proceed(entityIds, removedTraces);
 				}
 				throw data.removeException;
 			}
@@ -1534,11 +1535,14 @@ public class LLRPServiceInstanceTest {
 
 		new Expectations() {
 			{
-				reportDepot.remove(withInstanceOf(List.class));
+				reportDepot.getEntityIds();
+				result = Arrays.asList("1");
+
+				reportDepot.remove(withInstanceOf(List.class), withInstanceOf(List.class));
 				result = new Delegate<ROAccessReportDepot>() {
 					@SuppressWarnings("unused")
-					public List<ROAccessReportEntity> remove(List<String> entityIds)
-							throws EntityManagerException {
+					public List<ROAccessReportEntity> remove(List<String> entityIds,
+							List<TagReadTrace> removedTraces) throws EntityManagerException {
 						// create report
 						List<ROAccessReportEntity> reports = new ArrayList<>();
 						ROAccessReport report = new ROAccessReport(new MessageHeader((byte) 0,
@@ -1650,8 +1654,11 @@ public class LLRPServiceInstanceTest {
 
 		new Expectations() {
 			{
+				reportDepot.getEntityIds();
+				result = Arrays.asList("1");
+
 				// throw an exception if the reports are removed from the depot
-				reportDepot.remove(withInstanceOf(List.class));
+				reportDepot.remove(withInstanceOf(List.class), withInstanceOf(List.class));
 				result = new EntityManagerException("huhu");
 
 				rens.getEventNotificationStateList();
@@ -1,11 +1,15 @@
 package havis.llrpservice.server.service;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -25,6 +29,7 @@ import havis.llrpservice.server.management.Management;
 import havis.llrpservice.server.management.ManagementException;
 import havis.llrpservice.server.management.bean.Server;
 import havis.llrpservice.server.management.bean.ServiceInstance;
+import havis.llrpservice.server.management.bean.ServiceInstanceMetrics;
 import havis.llrpservice.xml.configuration.LLRPServerConfigurationType;
 import havis.llrpservice.xml.configuration.LLRPServerInstanceConfigurationType;
 import havis.llrpservice.xml.properties.DefaultsGroup;
@@ -118,6 +123,9 @@ public class LLRPServiceManagerTest {
 				mgmt.register("/havis.llrpservice/Instances/instanceId",
 						withInstanceOf(ServiceInstance.class));
 				times = 1;
+				mgmt.register("/havis.llrpservice/InstanceMetrics/instanceId",
+						withInstanceOf(ServiceInstanceMetrics.class));
+				times = 1;
 
 				// the server configuration manager has been opened
 				serverConf.open();
@@ -519,4 +527,77 @@ public class LLRPServiceManagerTest {
 		future.get(3000, TimeUnit.MILLISECONDS);
 		threadPool.shutdown();
 	}
+
+	@Test
+	public void loadInstanceFiles() throws Exception {
+		LLRPServiceManager server = new LLRPServiceManager(BASE_PATH + "2",
+				null /* scServiceFactory */, null /* rfcServiceFactory */,
+				null /* gpioServiceFactory */);
+		final List<Path> instanceDirs = new ArrayList<>();
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			instanceDirs.add(Paths.get("instance" + i));
+			// the file of the last directory does not exist
+			expected.add(i < 7 ? "instance" + i : null);
+		}
+		// the files of the first directories are loaded slower than the
+		// following ones
+		List<String> files = server.loadInstanceFiles(instanceDirs,
+				new LLRPServiceManager.InstanceFileLoader<String>() {
+
+					@Override
+					public String load(Path instanceDir) throws Exception {
+						int index = instanceDirs.indexOf(instanceDir);
+						Thread.sleep(10 * (instanceDirs.size() - index));
+						return index < 7 ? instanceDir.toString() : null;
+					}
+				});
+		// the files are returned in the order of the instance directories
+		assertEquals(files, expected);
+	}
+
+	@Test
+	public void loadInstanceFilesError() throws Exception {
+		LLRPServiceManager server = new LLRPServiceManager(BASE_PATH + "2",
+				null /* scServiceFactory */, null /* rfcServiceFactory */,
+				null /* gpioServiceFactory */);
+		final List<Path> instanceDirs = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			instanceDirs.add(Paths.get("instance" + i));
+		}
+		// the first error is thrown with its original type
+		final PropertiesException propsException = new PropertiesException("huhu");
+		try {
+			server.loadInstanceFiles(instanceDirs,
+					new LLRPServiceManager.InstanceFileLoader<String>() {
+
+						@Override
+						public String load(Path instanceDir) throws Exception {
+							if (instanceDirs.indexOf(instanceDir) == 2) {
+								throw propsException;
+							}
+							return instanceDir.toString();
+						}
+					});
+			fail();
+		} catch (PropertiesException e) {
+			assertSame(e, propsException);
+		}
+
+		// an unexpected error is wrapped
+		final RuntimeException runtimeException = new RuntimeException("oh");
+		try {
+			server.loadInstanceFiles(instanceDirs,
+					new LLRPServiceManager.InstanceFileLoader<String>() {
+
+						@Override
+						public String load(Path instanceDir) throws Exception {
+							throw runtimeException;
+						}
+					});
+			fail();
+		} catch (LLRPServiceManagerException e) {
+			assertSame(e.getCause(), runtimeException);
+		}
+	}
 }
@@ -13,6 +13,7 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 
 import havis.llrpservice.common.entityManager.Entity;
+import havis.llrpservice.common.entityManager.EntityGroup;
 import havis.llrpservice.common.io.PathHandler;
 import havis.llrpservice.common.io.XMLFile;
 import havis.llrpservice.data.message.MessageHeader;
@@ -48,7 +49,9 @@ import havis.llrpservice.server.service.data.ROAccessReportEntity;
 import havis.llrpservice.xml.configuration.LLRPServerConfigurationType;
 import havis.llrpservice.xml.configuration.LLRPServerInstanceConfigurationType;
 import mockit.Mocked;
+import mockit.NonStrictExpectations;
 import mockit.Verifications;
+import mockit.VerificationsInOrder;
 
 public class ROAccessReportDepotTest {
 
@@ -251,4 +254,76 @@ public class ROAccessReportDepotTest {
 		};
 
 	}
+
+	@Test
+	public void lazyRefresh(@Mocked final ObservablePersistence persistence) throws Exception {
+		new NonStrictExpectations() {
+			{
+				persistence.getGroups(ROAccessReportEntity.class);
+				result = new ArrayList<>(Arrays.asList(new EntityGroup("g1")));
+
+				persistence.refresh(ROAccessReportEntity.class, "g1");
+				result = new ArrayList<>(Arrays.asList("1", "2"));
+			}
+		};
+		ROAccessReportDepot depot = new ROAccessReportDepot();
+		depot.open(persistence);
+		// the persisted reports are not loaded while opening the depot
+		assertEquals(depot.getSize(), -1);
+		new Verifications() {
+			{
+				persistence.getGroups(withInstanceOf(Class.class));
+				times = 0;
+				persistence.refresh(withInstanceOf(Class.class), anyString);
+				times = 0;
+			}
+		};
+
+		// the persisted reports are loaded with the first access
+		assertEquals(depot.getEntityIds(), Arrays.asList("1", "2"));
+		assertEquals(depot.getSize(), 2);
+		// the reports are loaded only once
+		assertEquals(depot.getEntityIds(), Arrays.asList("1", "2"));
+		new Verifications() {
+			{
+				persistence.refresh(ROAccessReportEntity.class, "g1");
+				times = 1;
+			}
+		};
+		depot.close();
+	}
+
+	@Test
+	public void flushBeforeAccess(@Mocked final ObservablePersistence persistence)
+			throws Exception {
+		new NonStrictExpectations() {
+			{
+				persistence.getGroups(ROAccessReportEntity.class);
+				result = new ArrayList<>(Arrays.asList(new EntityGroup("g1")));
+
+				persistence.refresh(ROAccessReportEntity.class, "g1");
+				result = new ArrayList<>(Arrays.asList("1", "2"));
+			}
+		};
+		ROAccessReportDepot depot = new ROAccessReportDepot();
+		depot.open(persistence);
+		// flush the depot without a previous access
+		depot.flush();
+		// the persisted group has been loaded before flushing so that its
+		// reports are written to the new group
+		new VerificationsInOrder() {
+			{
+				persistence.refresh(ROAccessReportEntity.class, "g1");
+				persistence.flush(ROAccessReportEntity.class);
+			}
+		};
+		assertEquals(depot.getEntityIds(), Arrays.asList("1", "2"));
+		new Verifications() {
+			{
+				persistence.refresh(withInstanceOf(Class.class), anyString);
+				times = 1;
+			}
+		};
+		depot.close();
+	}
 }
@@ -0,0 +1,150 @@
+package havis.llrpservice.server.service;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import havis.llrpservice.common.metrics.TagReadTrace;
+import havis.llrpservice.data.message.MessageHeader;
+import havis.llrpservice.data.message.ProtocolVersion;
+import havis.llrpservice.data.message.ROAccessReport;
+import havis.llrpservice.data.message.parameter.EPC96;
+import havis.llrpservice.data.message.parameter.TLVParameterHeader;
+import havis.llrpservice.data.message.parameter.TVParameterHeader;
+import havis.llrpservice.data.message.parameter.TagReportData;
+import havis.llrpservice.server.service.data.ROAccessReportEntity;
+import havis.llrpservice.server.service.messageHandling.ROAccessReportCreator;
+import mockit.Delegate;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+
+public class ROAccessReportSenderTest {
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void next(@Mocked final ROAccessReportDepot depot) throws Exception {
+		// create 5 report entities with a tag report each
+		final Map<String, ROAccessReportEntity> entities = new HashMap<>();
+		List<String> entityIds = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			entityIds.add("" + i);
+			entities.put("" + i, createEntity(i));
+		}
+		// the entity ids which have been removed from the depot
+		final List<String> removedEntityIds = new ArrayList<>();
+		new NonStrictExpectations() {
+			{
+				depot.remove(withInstanceOf(List.class), withInstanceOf(List.class));
+				result = new Delegate<ROAccessReportDepot>() {
+					@SuppressWarnings("unused")
+					public List<ROAccessReportEntity> remove(List<String> entityIds,
+							List<TagReadTrace> removedTraces) {
+						List<ROAccessReportEntity> ret = new ArrayList<>();
+						for (String entityId : entityIds) {
+							removedEntityIds.add(entityId);
+							ret.add(entities.get(entityId));
+						}
+						return ret;
+					}
+				};
+			}
+		};
+
+		// max. 2 tag reports per report
+		ROAccessReportCreator creator = new ROAccessReportCreator(2 /* maxTagReports */,
+				0 /* maxLength */);
+		ROAccessReportSender sender = new ROAccessReportSender(depot, null /* tracer */);
+		assertNull(sender.next(creator, ProtocolVersion.LLRP_V1_1));
+
+		sender.add(entityIds);
+		// request the same entities again
+		sender.add(entityIds.subList(0, 2));
+		assertFalse(sender.isSending());
+
+		// only the entities of the first report are removed from the depot
+		ROAccessReport report = sender.next(creator, ProtocolVersion.LLRP_V1_1);
+		assertEquals(report.getTagReportDataList().size(), 2);
+		assertEquals(removedEntityIds, Arrays.asList("0", "1"));
+		assertTrue(sender.isSending());
+		// the next report is not provided before the current one has been
+		// sent
+		assertNull(sender.next(creator, ProtocolVersion.LLRP_V1_1));
+		assertEquals(removedEntityIds.size(), 2);
+		assertFalse(sender.sent(report.getMessageHeader().getId() + 1));
+		assertTrue(sender.isSending());
+
+		assertTrue(sender.sent(report.getMessageHeader().getId()));
+		assertFalse(sender.isSending());
+		report = sender.next(creator, ProtocolVersion.LLRP_V1_1);
+		assertEquals(report.getTagReportDataList().size(), 2);
+		assertEquals(removedEntityIds, Arrays.asList("0", "1", "2", "3"));
+
+		assertTrue(sender.sent(report.getMessageHeader().getId()));
+		report = sender.next(creator, ProtocolVersion.LLRP_V1_1);
+		assertEquals(report.getTagReportDataList().size(), 1);
+		assertEquals(removedEntityIds, entityIds);
+
+		// all reports have been sent
+		assertTrue(sender.sent(report.getMessageHeader().getId()));
+		assertNull(sender.next(creator, ProtocolVersion.LLRP_V1_1));
+
+		// without limits all entities are removed at once
+		removedEntityIds.clear();
+		creator = new ROAccessReportCreator(0 /* maxTagReports */, 0 /* maxLength */);
+		sender.add(entityIds);
+		report = sender.next(creator, ProtocolVersion.LLRP_V1_1);
+		assertEquals(report.getTagReportDataList().size(), 5);
+		assertEquals(removedEntityIds, entityIds);
+		assertTrue(sender.sent(report.getMessageHeader().getId()));
+		assertNull(sender.next(creator, ProtocolVersion.LLRP_V1_1));
+
+		// the next report is provided after the sending of the current one
+		// has failed
+		removedEntityIds.clear();
+		creator = new ROAccessReportCreator(2 /* maxTagReports */, 0 /* maxLength */);
+		sender.add(entityIds);
+		report = sender.next(creator, ProtocolVersion.LLRP_V1_1);
+		assertFalse(sender.failed(report.getMessageHeader().getId() + 1));
+		assertTrue(sender.isSending());
+		assertTrue(sender.failed(report.getMessageHeader().getId()));
+		assertFalse(sender.isSending());
+		report = sender.next(creator, ProtocolVersion.LLRP_V1_1);
+		assertEquals(report.getTagReportDataList().size(), 2);
+		assertEquals(removedEntityIds, Arrays.asList("0", "1", "2", "3"));
+		assertTrue(sender.sent(report.getMessageHeader().getId()));
+		sender.clear();
+
+		// pending reports are discarded
+		removedEntityIds.clear();
+		creator = new ROAccessReportCreator(2 /* maxTagReports */, 0 /* maxLength */);
+		sender.add(entityIds);
+		report = sender.next(creator, ProtocolVersion.LLRP_V1_1);
+		sender.clear();
+		assertFalse(sender.isSending());
+		assertFalse(sender.sent(report.getMessageHeader().getId()));
+		assertNull(sender.next(creator, ProtocolVersion.LLRP_V1_1));
+		assertEquals(removedEntityIds, Arrays.asList("0", "1"));
+	}
+
+	private ROAccessReportEntity createEntity(int epc) {
+		ROAccessReport report = new ROAccessReport(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_1, epc /* id */));
+		List<TagReportData> tagReports = new ArrayList<>();
+		tagReports.add(new TagReportData(new TLVParameterHeader((byte) 0), new EPC96(
+				new TVParameterHeader(), new byte[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) epc })));
+		report.setTagReportDataList(tagReports);
+		ROAccessReportEntity entity = new ROAccessReportEntity();
+		entity.setRoSpecId(1);
+		entity.setReport(report);
+		return entity;
+	}
+}
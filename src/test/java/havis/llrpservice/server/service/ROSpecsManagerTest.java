@@ -273,6 +273,8 @@ public class ROSpecsManagerTest {
 				times = 1;
 			}
 		};
+		// the latency between the GPI event and the activation is recorded
+		assertEquals(rm.getGPIStartLatency().getCount(), 1);
 		// a "start" ROSpec event is sent
 		ROSpecEvent event = events.get(0);
 		assertEquals(event.getEventType(), ROSpecEventType.START_OF_ROSPEC);
@@ -580,9 +582,11 @@ public class ROSpecsManagerTest {
 				// the execution is NOT started
 				rfcMessageHandler.requestExecution(withInstanceOf(ROSpec.class));
 				times = 0;
-				// the RFC message handler is informed about the GPI events
+				// the RFC message handler is NOT informed about the GPI events
+				// because the ROSpec does not contain AISpecs with GPI
+				// triggers
 				rfcMessageHandler.gpiEventReceived(withInstanceOf(GPIEvent.class));
-				times = 3;
+				times = 0;
 			}
 		};
 		// start ROSpec
@@ -0,0 +1,57 @@
+package havis.llrpservice.server.service.fsm;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class DeviceResponseCacheTest {
+
+	@Test
+	public void disabled() {
+		// the cache is disabled by default
+		DeviceResponseCache<String, String> cache = new DeviceResponseCache<>();
+		assertFalse(cache.isEnabled());
+		cache.put("a", "b");
+		assertNull(cache.get("a"));
+
+		System.setProperty(DeviceResponseCache.MAX_AGE_PROPERTY, "1000");
+		try {
+			cache = new DeviceResponseCache<>();
+		} finally {
+			System.clearProperty(DeviceResponseCache.MAX_AGE_PROPERTY);
+		}
+		assertTrue(cache.isEnabled());
+	}
+
+	@Test
+	public void getPutClear() {
+		// entries are never discarded
+		DeviceResponseCache<String, String> cache = new DeviceResponseCache<>(-1 /* maxAge */);
+		assertTrue(cache.isEnabled());
+		assertNull(cache.get("a"));
+		cache.put("a", "b");
+		cache.put("c", "d");
+		assertEquals(cache.get("a"), "b");
+		assertEquals(cache.get("c"), "d");
+		// replace an entry
+		cache.put("a", "e");
+		assertEquals(cache.get("a"), "e");
+
+		cache.clear();
+		assertNull(cache.get("a"));
+		assertNull(cache.get("c"));
+	}
+
+	@Test
+	public void maxAge() throws Exception {
+		DeviceResponseCache<String, String> cache = new DeviceResponseCache<>(100 /* maxAge */);
+		cache.put("a", "b");
+		assertEquals(cache.get("a"), "b");
+		// wait until the entry is outdated
+		Thread.sleep(150);
+		assertNull(cache.get("a"));
+	}
+}
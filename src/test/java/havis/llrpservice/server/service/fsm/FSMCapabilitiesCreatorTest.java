@@ -15,6 +15,7 @@ import havis.device.io.StateEvent;
 import havis.device.rf.capabilities.Capabilities;
 import havis.llrpservice.common.fsm.FSM;
 import havis.llrpservice.common.fsm.FSMActionException;
+import havis.llrpservice.csc.llrp.LLRPMessageTemplate;
 import havis.llrpservice.data.message.GetReaderCapabilities;
 import havis.llrpservice.data.message.GetReaderCapabilitiesRequestedData;
 import havis.llrpservice.data.message.GetReaderCapabilitiesResponse;
@@ -93,6 +94,57 @@ public class FSMCapabilitiesCreatorTest {
 		assertNull(fsmEvents.LLRP_MESSAGE_RECEIVED.getRuntimeData().getCurrentMessage());
 	}
 
+	@Test
+	public void createLLRPGetReaderCapabilitiesTemplate(//
+			@Mocked final Platform platform, @Mocked final LLRPMessageHandler llrpMessageHandler,
+			@Mocked final RFCMessageHandler rfcMessageHandler//
+	) throws Exception {
+		// create FSM
+		FSMEvents fsmEvents = createFSMEvents(platform, null /* roSpecsManager */,
+				llrpMessageHandler, rfcMessageHandler, null /* gpioMessageHandler */,
+				null /* reportDepot */);
+		FSM<FSMEvent> fsm = new FSMCreator().create(fsmEvents);
+
+		// send the same LLRP request 3 times
+		fsmEvents.LLRP_MESSAGE_RECEIVED.getRuntimeData()
+				.setNegotiatedProtocolVersion(ProtocolVersion.LLRP_V1_1);
+		for (int id = 1; id <= 3; id++) {
+			// change the protocol version before the last request
+			if (id == 3) {
+				fsmEvents.LLRP_MESSAGE_RECEIVED.getRuntimeData()
+						.setNegotiatedProtocolVersion(ProtocolVersion.LLRP_V1_0_1);
+			}
+			fsmEvents.LLRP_MESSAGE_RECEIVED.setMessage(new GetReaderCapabilities(
+					new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_1, id),
+					GetReaderCapabilitiesRequestedData.LLRP_CAPABILITIES));
+			fsm.fire(fsmEvents.LLRP_MESSAGE_RECEIVED);
+			fsm.fire(fsmEvents.LLRP_GET_READER_CAPABILITIES_RECEIVED);
+			assertTrue(fsm.getCurrentState().getName().startsWith("1 "));
+		}
+		new Verifications() {
+			{
+				// the first response and the response for the changed
+				// protocol version have been created
+				List<GetReaderCapabilitiesResponse> responses = new ArrayList<>();
+				llrpMessageHandler.requestSendingData(withCapture(responses));
+				times = 2;
+
+				assertEquals(responses.get(0).getMessageHeader().getId(), 1);
+				assertEquals(responses.get(1).getMessageHeader().getId(), 3);
+				assertEquals(responses.get(1).getMessageHeader().getVersion(),
+						ProtocolVersion.LLRP_V1_0_1);
+
+				// the second response has been sent from a template
+				LLRPMessageTemplate template;
+				llrpMessageHandler.requestSendingData(template = withCapture(), 2L /* id */);
+				times = 1;
+
+				assertEquals(template.getMessage().getMessageHeader().getVersion(),
+						ProtocolVersion.LLRP_V1_1);
+			}
+		};
+	}
+
 	@Test
 	@SuppressWarnings("unchecked")
 	public void createLLRPGetReaderCapabilitiesOnlyRfc(@Mocked final Platform platform,
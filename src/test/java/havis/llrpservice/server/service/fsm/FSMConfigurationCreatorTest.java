@@ -164,6 +164,96 @@ public class FSMConfigurationCreatorTest {
 				.getCurrentMessage());
 	}
 
+	@Test
+	@SuppressWarnings("unchecked")
+	public void createLLRPGetReaderConfigCached(@Mocked final Platform platfom,
+			@Mocked final LLRPMessageHandler llrpMessageHandler,
+			@Mocked final ROSpecsManager roSpecsManager,
+			@Mocked final RFCMessageHandler rfcMessageHandler) throws Exception {
+		// create FSM with enabled caches
+		System.setProperty(DeviceResponseCache.MAX_AGE_PROPERTY, "-1");
+		FSMEvents fsmEvents;
+		try {
+			fsmEvents = createFSMEvents(platfom, roSpecsManager, llrpMessageHandler,
+					rfcMessageHandler, null /* gpioMessageHandler */, null /* reportDepot */);
+		} finally {
+			System.clearProperty(DeviceResponseCache.MAX_AGE_PROPERTY);
+		}
+		FSM<FSMEvent> fsm = new FSMCreator().create(fsmEvents);
+		fsmEvents.LLRP_MESSAGE_RECEIVED.getRuntimeData()
+				.setNegotiatedProtocolVersion(ProtocolVersion.LLRP_V1_1);
+		final short antennaId = 1;
+
+		// send LLRP request
+		fsmEvents.LLRP_MESSAGE_RECEIVED.setMessage(new GetReaderConfig(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_1, 1 /* id */), antennaId,
+				GetReaderConfigRequestedData.ANTENNA_CONFIGURATION, 0 /* gpiPortNum */,
+				0 /* gpoPortNum */));
+		fsm.fire(fsmEvents.LLRP_MESSAGE_RECEIVED);
+		fsm.fire(fsmEvents.LLRP_GET_READER_CONFIG_RECEIVED);
+		// send RFC response
+		fsmEvents.RFC_MESSAGE_RECEIVED.setMessage(new GetConfigurationResponse(
+				new havis.llrpservice.sbc.rfc.message.MessageHeader(2 /* id */),
+				new ArrayList<Configuration>()));
+		fsm.fire(fsmEvents.RFC_MESSAGE_RECEIVED);
+		fsm.fire(fsmEvents.RFC_GET_CONFIGURATION_RESPONSE_RECEIVED);
+		Assert.assertTrue(fsm.getCurrentState().getName().startsWith("1 "));
+
+		// send the same LLRP request again
+		fsmEvents.LLRP_MESSAGE_RECEIVED.setMessage(new GetReaderConfig(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_1, 3 /* id */), antennaId,
+				GetReaderConfigRequestedData.ANTENNA_CONFIGURATION, 0 /* gpiPortNum */,
+				0 /* gpoPortNum */));
+		fsm.fire(fsmEvents.LLRP_MESSAGE_RECEIVED);
+		fsm.fire(fsmEvents.LLRP_GET_READER_CONFIG_RECEIVED);
+		// the LLRP response is sent directly
+		Assert.assertTrue(fsm.getCurrentState().getName().startsWith("1 "));
+		new Verifications() {
+			{
+				// only one RFC request has been sent
+				rfcMessageHandler.requestConfiguration(withInstanceOf(List.class) /* confTypes */,
+						antennaId);
+				times = 1;
+
+				// the LLRP responses have been sent
+				List<GetReaderConfigResponse> responses = new ArrayList<>();
+				llrpMessageHandler.requestSendingData(withCapture(responses));
+				times = 2;
+
+				Assert.assertEquals(responses.get(1).getMessageHeader().getId(), 3);
+				Assert.assertEquals(responses.get(1).getStatus().getStatusCode(),
+						LLRPStatusCode.M_SUCCESS);
+				Assert.assertEquals(responses.get(1).getAntennaConfigurationList().size(), 0);
+			}
+		};
+
+		// send an empty SET_READER_CONFIG (no RFC request is sent but the
+		// caches are cleared)
+		fsmEvents.LLRP_MESSAGE_RECEIVED.setMessage(new SetReaderConfig(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_1, 4 /* id */),
+				false /* resetToFactoryDefaults */));
+		fsm.fire(fsmEvents.LLRP_MESSAGE_RECEIVED);
+		fsm.fire(fsmEvents.LLRP_SET_READER_CONFIG_RECEIVED);
+		Assert.assertTrue(fsm.getCurrentState().getName().startsWith("1 "));
+
+		// send the LLRP request again
+		fsmEvents.LLRP_MESSAGE_RECEIVED.setMessage(new GetReaderConfig(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_1, 5 /* id */), antennaId,
+				GetReaderConfigRequestedData.ANTENNA_CONFIGURATION, 0 /* gpiPortNum */,
+				0 /* gpoPortNum */));
+		fsm.fire(fsmEvents.LLRP_MESSAGE_RECEIVED);
+		fsm.fire(fsmEvents.LLRP_GET_READER_CONFIG_RECEIVED);
+		Assert.assertTrue(fsm.getCurrentState().getName().startsWith("1 "));
+		new Verifications() {
+			{
+				// the configuration is requested from the RF controller
+				rfcMessageHandler.requestConfiguration(withInstanceOf(List.class) /* confTypes */,
+						antennaId);
+				times = 2;
+			}
+		};
+	}
+
 	@Test
 	@SuppressWarnings("unchecked")
 	public void createLLRPGetReaderConfigRfcAndGpio(@Mocked final Platform platfom,
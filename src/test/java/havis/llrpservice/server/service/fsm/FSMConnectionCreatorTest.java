@@ -34,6 +34,14 @@ public class FSMConnectionCreatorTest {
 				llrpMessageHandler, rfcMessageHandler, null /* gpioMessageHandler */,
 				null /* reportDepot */);
 		FSM<FSMEvent> fsm = new FSMCreator().create(fsmEvents);
+		Assert.assertSame(fsmEvents.getFSM(), fsm);
+		// the states are shared with the FSMs of other sessions
+		FSMEvents otherFSMEvents = createFSMEvents(platform, null /* roSpecsManager */,
+				llrpMessageHandler, rfcMessageHandler, null /* gpioMessageHandler */,
+				null /* reportDepot */);
+		FSM<FSMEvent> otherFSM = new FSMCreator().create(otherFSMEvents);
+		Assert.assertNotSame(otherFSM, fsm);
+		Assert.assertSame(otherFSM.getInitialState(), fsm.getInitialState());
 
 		// send CloseConnection message
 		fsmEvents.LLRP_MESSAGE_RECEIVED.getRuntimeData()
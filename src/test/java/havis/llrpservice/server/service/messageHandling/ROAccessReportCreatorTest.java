@@ -34,6 +34,7 @@ import havis.llrpservice.data.message.parameter.C1G2WriteOpSpecResultValues;
 import havis.llrpservice.data.message.parameter.C1G2XPCW1;
 import havis.llrpservice.data.message.parameter.C1G2XPCW2;
 import havis.llrpservice.data.message.parameter.ChannelIndex;
+import havis.llrpservice.data.message.parameter.Custom;
 import havis.llrpservice.data.message.parameter.EPC96;
 import havis.llrpservice.data.message.parameter.EPCData;
 import havis.llrpservice.data.message.parameter.FirstSeenTimestampUTC;
@@ -51,6 +52,7 @@ import havis.llrpservice.data.message.parameter.TVParameterHeader;
 import havis.llrpservice.data.message.parameter.TagReportContentSelector;
 import havis.llrpservice.data.message.parameter.TagReportData;
 import havis.llrpservice.data.message.parameter.TagSeenCount;
+import havis.llrpservice.data.message.serializer.ByteBufferSerializer;
 import havis.llrpservice.sbc.rfc.message.ExecuteResponse;
 import havis.llrpservice.server.platform.TimeStamp;
 import havis.llrpservice.server.rfc.messageData.ExecuteResponseData;
@@ -186,6 +188,42 @@ public class ROAccessReportCreatorTest {
 		Assert.assertEquals(readResult.getOpSpecID(), 123);
 		Assert.assertEquals(readResult.getReadData(), readData);
 		Assert.assertEquals(readResult.getResult(), C1G2ReadOpSpecResultValues.SUCCESS);
+
+		// the EPC is provided as bit set with the MSB of the first byte as
+		// first bit
+		BitSet epc = data.getEpcData().getEpc();
+		Assert.assertEquals(data.getEpcData().getEpcLengthBits(), 16);
+		Assert.assertEquals(epc.cardinality(), 7);
+		for (int bit : new int[] { 4, 5, 6, 12, 13, 14, 15 }) {
+			Assert.assertTrue(epc.get(bit));
+		}
+		Assert.assertEquals(ROAccessReportCreator.toBitSet(new byte[] { (byte) 0x80, 0x01 }),
+				BitSet.valueOf(new long[] { 0x8001L }));
+
+		// add a second tag with the same antenna and another channel
+		TagData tagData2 = new TagData();
+		tagData2.setTagDataId(31L);
+		tagData2.setChannel((short) 11);
+		tagData2.setAntennaID(tagData.getAntennaID());
+		tagData2.setEpc(new byte[12]);
+		tagDataList.add(tagData2);
+		report = creator.create(ProtocolVersion.LLRP_V1_1, executeResponse, executeResponseData,
+				contentSelector);
+		Assert.assertEquals(report.getTagReportDataList().size(), 2);
+		TagReportData data1 = report.getTagReportDataList().get(0);
+		TagReportData data2 = report.getTagReportDataList().get(1);
+		Assert.assertNotNull(data2.getEpc96());
+		// unmodified parameters are shared
+		Assert.assertSame(data2.getAntID(), data1.getAntID());
+		Assert.assertSame(data2.getTagSC(), data1.getTagSC());
+		Assert.assertEquals(data2.getChannelInd().getChannelIndex(), 11);
+		Assert.assertEquals(data1.getChannelInd().getChannelIndex(), 10);
+		// parameters which are modified while accumulating reports are not
+		// shared
+		Assert.assertNotSame(data2.getPeakRSSI(), data1.getPeakRSSI());
+		Assert.assertNotSame(data2.getFirstSTUTC(), data1.getFirstSTUTC());
+		Assert.assertEquals(data2.getFirstSTUTC().getMicroseconds(),
+				data1.getFirstSTUTC().getMicroseconds());
 	}
 
 	@Test
@@ -483,6 +521,90 @@ public class ROAccessReportCreatorTest {
 		Assert.assertEquals(report.getTagReportDataList().get(0).getTagSC().getTagCount(), 2);
 	}
 
+	@Test
+	public void split() throws Exception {
+		ROAccessReport report = new ROAccessReport(
+				new MessageHeader((byte) 0, ProtocolVersion.LLRP_V1_1, 1 /* id */));
+		List<TagReportData> tagReports = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			tagReports.add(new TagReportData(new TLVParameterHeader((byte) 0), new EPC96(
+					new TVParameterHeader(), new byte[] { 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, (byte) i })));
+		}
+		report.setTagReportDataList(tagReports);
+
+		// no limits
+		List<ROAccessReport> reports = new ROAccessReportCreator(0 /* maxTagReports */,
+				0 /* maxLength */).split(report);
+		Assert.assertEquals(reports.size(), 1);
+		Assert.assertSame(reports.get(0), report);
+
+		// limited tag reports
+		reports = new ROAccessReportCreator(2 /* maxTagReports */, 0 /* maxLength */)
+				.split(report);
+		assertParts(reports, report, 2, 2, 1);
+
+		// limited length
+		ByteBufferSerializer serializer = new ByteBufferSerializer();
+		long length = serializer.getLength(reports.get(0));
+		reports = new ROAccessReportCreator(0 /* maxTagReports */, length).split(report);
+		assertParts(reports, report, 2, 2, 1);
+		for (ROAccessReport part : reports) {
+			Assert.assertTrue(serializer.getLength(part) <= length);
+		}
+
+		// both limits
+		reports = new ROAccessReportCreator(1 /* maxTagReports */, length).split(report);
+		assertParts(reports, report, 1, 1, 1, 1, 1);
+
+		// a tag report exceeds the max. length
+		reports = new ROAccessReportCreator(0 /* maxTagReports */, 1 /* maxLength */)
+				.split(report);
+		assertParts(reports, report, 1, 1, 1, 1, 1);
+
+		// the limits are not exceeded
+		reports = new ROAccessReportCreator(5 /* maxTagReports */,
+				serializer.getLength(report) /* maxLength */).split(report);
+		Assert.assertEquals(reports.size(), 1);
+		Assert.assertSame(reports.get(0), report);
+
+		// the custom parameters are added to the first part
+		report.setCusList(new ArrayList<>(Arrays.asList(new Custom(
+				new TLVParameterHeader((byte) 0), 1 /* vendor */, 11 /* subtype */,
+				new byte[] { 0x01, 0x02 }))));
+		reports = new ROAccessReportCreator(2 /* maxTagReports */, 0 /* maxLength */)
+				.split(report);
+		assertParts(reports, report, 2, 2, 1);
+		Assert.assertEquals(reports.get(0).getCusList(), report.getCusList());
+		for (int i = 1; i < reports.size(); i++) {
+			List<Custom> customs = reports.get(i).getCusList();
+			Assert.assertTrue(customs == null || customs.isEmpty());
+		}
+	}
+
+	private void assertParts(List<ROAccessReport> parts, ROAccessReport report,
+			int... tagReportCounts) {
+		Assert.assertEquals(parts.size(), tagReportCounts.length);
+		int tagReportIndex = 0;
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < parts.size(); i++) {
+			ROAccessReport part = parts.get(i);
+			Assert.assertEquals(part.getMessageHeader().getVersion(),
+					report.getMessageHeader().getVersion());
+			// the first part keeps the message header
+			if (i == 0) {
+				Assert.assertSame(part.getMessageHeader(), report.getMessageHeader());
+			}
+			Assert.assertFalse(ids.contains(part.getMessageHeader().getId()));
+			ids.add(part.getMessageHeader().getId());
+			// the order of the tag reports is kept
+			Assert.assertEquals(part.getTagReportDataList().size(), tagReportCounts[i]);
+			for (TagReportData tagReport : part.getTagReportDataList()) {
+				Assert.assertSame(tagReport, report.getTagReportDataList().get(tagReportIndex++));
+			}
+		}
+		Assert.assertEquals(tagReportIndex, report.getTagReportDataList().size());
+	}
+
 	private ROAccessReportEntity createTagReportEntity(TagReportContentSelector contentSelector,
 			boolean epcData, boolean utc) {
 		ROAccessReport report = new ROAccessReport(
@@ -0,0 +1,234 @@
+package havis.llrpservice.server.stub;
+
+import havis.device.rf.RFConsumer;
+import havis.device.rf.tag.Filter;
+import havis.device.rf.tag.TagData;
+import havis.device.rf.tag.operation.KillOperation;
+import havis.device.rf.tag.operation.ReadOperation;
+import havis.device.rf.tag.operation.RequestOperation;
+import havis.device.rf.tag.operation.TagOperation;
+import havis.device.rf.tag.operation.WriteOperation;
+import havis.device.rf.tag.result.KillResult;
+import havis.device.rf.tag.result.ReadResult;
+import havis.device.rf.tag.result.WriteResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RFDeviceSimulatorTest {
+
+	private Properties createProperties(String... keyValues) {
+		Properties props = new Properties();
+		props.setProperty("seed", "1");
+		props.setProperty("minRoundDuration", "0");
+		for (int i = 0; i < keyValues.length; i += 2) {
+			props.setProperty(keyValues[i], keyValues[i + 1]);
+		}
+		return props;
+	}
+
+	private List<Short> antennas(int... antennaIds) {
+		List<Short> ret = new ArrayList<>();
+		for (int antennaId : antennaIds) {
+			ret.add((short) antennaId);
+		}
+		return ret;
+	}
+
+	@Test
+	public void inventory() throws Exception {
+		RFDeviceSimulator sim = new RFDeviceSimulator(createProperties("tagPopulation", "50",
+				"epcLengths", "96:1,128:1", "antennaVisibility", "1:1,2:0"));
+		List<TagData> tags = sim.execute(antennas(0), new ArrayList<Filter>(),
+				new ArrayList<TagOperation>());
+		// all tags are seen by antenna 1 and no tag by antenna 2
+		Assert.assertEquals(tags.size(), 50);
+		Set<String> epcs = new HashSet<>();
+		Set<Integer> epcLengths = new HashSet<>();
+		for (TagData tag : tags) {
+			Assert.assertEquals(tag.getAntennaID(), 1);
+			// the PC contains the EPC length in words
+			Assert.assertEquals(((tag.getPc() >> 11) & 0x1F) * 2, tag.getEpc().length);
+			epcs.add(Arrays.toString(tag.getEpc()));
+			epcLengths.add(tag.getEpc().length);
+		}
+		Assert.assertEquals(epcs.size(), 50);
+		Assert.assertEquals(epcLengths, new HashSet<>(Arrays.asList(12, 16)));
+		Assert.assertTrue(sim.execute(antennas(2), null, null).isEmpty());
+
+		// the same seed creates the same population
+		RFDeviceSimulator sim2 = new RFDeviceSimulator(createProperties("tagPopulation", "50",
+				"epcLengths", "96:1,128:1", "antennaVisibility", "1:1,2:0"));
+		List<TagData> tags2 = sim2.execute(antennas(1), null, null);
+		for (int i = 0; i < tags.size(); i++) {
+			Assert.assertEquals(tags2.get(i).getEpc(), tags.get(i).getEpc());
+		}
+
+		// unknown antenna
+		try {
+			sim.execute(antennas(3), null, null);
+			Assert.fail();
+		} catch (havis.device.rf.exception.ParameterException e) {
+			Assert.assertTrue(e.getMessage().contains("3"));
+		}
+	}
+
+	@Test
+	public void filter() throws Exception {
+		RFDeviceSimulator sim = new RFDeviceSimulator(createProperties("tagPopulation", "20"));
+		TagData tag = sim.execute(null, null, null).get(5);
+
+		// select the tag by its EPC (the EPC starts at bit 0x20 of the EPC bank)
+		Filter filter = new Filter();
+		filter.setBank((short) 1);
+		filter.setBitOffset((short) 0x20);
+		filter.setBitLength((short) (tag.getEpc().length * 8));
+		filter.setData(tag.getEpc());
+		byte[] mask = new byte[tag.getEpc().length];
+		Arrays.fill(mask, (byte) 0xFF);
+		filter.setMask(mask);
+		filter.setMatch(true);
+		List<TagData> tags = sim.execute(null, Arrays.asList(filter), null);
+		Assert.assertEquals(tags.size(), 1);
+		Assert.assertEquals(tags.get(0).getEpc(), tag.getEpc());
+
+		filter.setMatch(false);
+		Assert.assertEquals(sim.execute(null, Arrays.asList(filter), null).size(), 19);
+	}
+
+	@Test
+	public void readWriteKill() throws Exception {
+		RFDeviceSimulator sim = new RFDeviceSimulator(
+				createProperties("tagPopulation", "1", "userMemoryWords", "4"));
+
+		WriteOperation write = new WriteOperation();
+		write.setOperationId("1");
+		write.setBank((short) 3);
+		write.setOffset((short) 1);
+		write.setData(new byte[] { 0x12, 0x34 });
+		ReadOperation read = new ReadOperation();
+		read.setOperationId("2");
+		read.setBank((short) 3);
+		read.setOffset((short) 0);
+		read.setLength((short) 0);
+		ReadOperation overrun = new ReadOperation();
+		overrun.setOperationId("3");
+		overrun.setBank((short) 3);
+		overrun.setOffset((short) 2);
+		overrun.setLength((short) 3);
+		TagData tag = sim
+				.execute(null, null, Arrays.<TagOperation> asList(write, read, overrun)).get(0);
+		Assert.assertEquals(tag.getResultList().size(), 3);
+		WriteResult writeResult = (WriteResult) tag.getResultList().get(0);
+		Assert.assertEquals(writeResult.getResult(), WriteResult.Result.SUCCESS);
+		Assert.assertEquals(writeResult.getWordsWritten(), 1);
+		ReadResult readResult = (ReadResult) tag.getResultList().get(1);
+		Assert.assertEquals(readResult.getResult(), ReadResult.Result.SUCCESS);
+		Assert.assertEquals(readResult.getReadData().length, 8);
+		Assert.assertEquals(Arrays.copyOfRange(readResult.getReadData(), 2, 4),
+				new byte[] { 0x12, 0x34 });
+		Assert.assertEquals(((ReadResult) tag.getResultList().get(2)).getResult(),
+				ReadResult.Result.MEMORY_OVERRUN_ERROR);
+
+		// a kill password of 0 is rejected
+		KillOperation kill = new KillOperation();
+		kill.setOperationId("4");
+		kill.setKillPassword(0x11223344);
+		tag = sim.execute(null, null, Arrays.<TagOperation> asList(kill)).get(0);
+		Assert.assertEquals(((KillResult) tag.getResultList().get(0)).getResult(),
+				KillResult.Result.ZERO_KILL_PASSWORD_ERROR);
+
+		// set the kill password and kill the tag
+		write.setBank((short) 0);
+		write.setOffset((short) 0);
+		write.setData(new byte[] { 0x11, 0x22, 0x33, 0x44 });
+		tag = sim.execute(null, null, Arrays.<TagOperation> asList(write, kill)).get(0);
+		Assert.assertEquals(((KillResult) tag.getResultList().get(1)).getResult(),
+				KillResult.Result.SUCCESS);
+		Assert.assertEquals(sim.getTagCount(), 0);
+		Assert.assertTrue(sim.execute(null, null, null).isEmpty());
+	}
+
+	@Test
+	public void churnAndPacing() throws Exception {
+		RFDeviceSimulator sim = new RFDeviceSimulator(createProperties("tagPopulation", "10",
+				"churnRate", "1000", "readsPerSecond", "200"));
+		Set<String> epcs = new HashSet<>();
+		for (TagData tag : sim.execute(null, null, null)) {
+			epcs.add(Arrays.toString(tag.getEpc()));
+		}
+		// 10 reads with 200 reads/s take at least 50 ms
+		long start = System.currentTimeMillis();
+		List<TagData> tags = sim.execute(null, null, null);
+		Assert.assertTrue(System.currentTimeMillis() - start >= 45);
+		// the population size is constant but tags have been replaced
+		Assert.assertEquals(tags.size(), 10);
+		int known = 0;
+		for (TagData tag : tags) {
+			if (epcs.contains(Arrays.toString(tag.getEpc()))) {
+				known++;
+			}
+		}
+		Assert.assertTrue(known < 10);
+	}
+
+	@Test
+	public void requestOperation() throws Exception {
+		final RFDeviceSimulator sim = new RFDeviceSimulator(
+				createProperties("tagPopulation", "2"));
+		final ExecutorService thread = Executors.newSingleThreadExecutor();
+		final List<Integer> tagCounts = new ArrayList<>();
+		sim.openConnection(new RFConsumer() {
+
+			@Override
+			public List<TagOperation> getOperations(TagData tagData) {
+				// the simulator can be accessed by other threads while the
+				// consumer is called
+				try {
+					tagCounts.add(thread.submit(new Callable<Integer>() {
+
+						@Override
+						public Integer call() throws Exception {
+							return sim.getTagCount();
+						}
+					}).get(3, TimeUnit.SECONDS));
+				} catch (Exception e) {
+					Assert.fail("Accessing the simulator failed", e);
+				}
+				KillOperation kill = new KillOperation();
+				kill.setOperationId("1");
+				kill.setKillPassword(0);
+				return Arrays.<TagOperation> asList(kill);
+			}
+
+			@Override
+			public void keepAlive() {
+			}
+
+			@Override
+			public void connectionAttempted() {
+			}
+		}, 0 /* timeout */);
+		RequestOperation request = new RequestOperation();
+		request.setOperationId("0");
+		List<TagData> tags = sim.execute(null, null, Arrays.<TagOperation> asList(request));
+		thread.shutdown();
+		// the consumer has been called for each tag
+		Assert.assertEquals(tags.size(), 2);
+		Assert.assertEquals(tagCounts, Arrays.asList(2, 2));
+		// the requested operations have been executed
+		Assert.assertEquals(((KillResult) tags.get(0).getResultList().get(0)).getResult(),
+				KillResult.Result.ZERO_KILL_PASSWORD_ERROR);
+	}
+}